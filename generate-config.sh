@@ -57,6 +57,7 @@ echo "  Business rules:  $BUSINESS_RULES"
 echo ""
 echo -e "${YELLOW}Output Files:${NC}"
 echo "  Services config: $SERVICES_OUTPUT"
+echo "  Precompiled:     <service id>.metadata.bin (next to $SERVICES_OUTPUT)"
 echo "  Validation rules: $VALIDATION_OUTPUT"
 echo ""
 
@@ -110,7 +111,9 @@ echo "     less $SERVICES_OUTPUT"
 echo "     less $VALIDATION_OUTPUT"
 echo ""
 echo "  2. Deploy to plugin resources:"
-echo "     cp $SERVICES_OUTPUT src/main/resources/docs-metadata/"
+echo "     cp $SERVICES_OUTPUT src/main/resources/docs-metadata/<service id>.yml"
+echo "     cp $(dirname "$SERVICES_OUTPUT")/*.metadata.bin src/main/resources/docs-metadata/"
+echo "     (the .metadata.bin is only used while the YAML is unchanged; the build regenerates it)"
 echo "     cp $VALIDATION_OUTPUT ../processing-server/src/main/resources/docs-metadata/"
 echo ""
 echo "  3. Build and deploy plugins:"
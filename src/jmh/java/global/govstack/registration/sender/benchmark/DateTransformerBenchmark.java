@@ -0,0 +1,122 @@
+package global.govstack.registration.sender.benchmark;
+
+import global.govstack.registration.sender.service.transform.DateTransformer;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares DateTransformer with the previous regex and SimpleDateFormat based implementation.
+ *
+ * The inputs cycle through distinctDates birth dates: few distinct values show the effect of the
+ * encode cache, many show the parser alone. Run with -prof gc to see the allocation rate.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="DateTransformerBenchmark -f 1"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class DateTransformerBenchmark {
+
+    @Param({"16", "4096"})
+    public int distinctDates;
+
+    private final DateTransformer transformer = new DateTransformer();
+    private final LegacyDateTransformer legacy = new LegacyDateTransformer();
+
+    private String[] dates;
+    private String[] dateTimes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dates = new String[distinctDates];
+        dateTimes = new String[distinctDates];
+        LocalDate first = LocalDate.of(1950, 1, 1);
+        for (int i = 0; i < distinctDates; i++) {
+            LocalDate date = first.plusDays(i * 7L);
+            dates[i] = date.toString();
+            dateTimes[i] = date + "T00:00:00Z";
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == distinctDates ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public Object encode() {
+        return transformer.encode(dates[nextIndex()], "date");
+    }
+
+    @Benchmark
+    public Object encodeLegacy() {
+        return legacy.encode(dates[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return transformer.decode(dateTimes[nextIndex()], "date");
+    }
+
+    @Benchmark
+    public Object decodeLegacy() {
+        return legacy.decode(dateTimes[nextIndex()]);
+    }
+
+    /**
+     * The previous implementation, for comparison (not thread-safe, like the original)
+     */
+    static final class LegacyDateTransformer {
+        private final SimpleDateFormat jogetFormatter = new SimpleDateFormat("yyyy-MM-dd");
+        private final SimpleDateFormat iso8601Formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+        Object encode(Object jogetValue) {
+            String dateStr = jogetValue.toString().trim();
+            try {
+                if (dateStr.contains("T")) {
+                    return dateStr;
+                } else if (dateStr.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                    LocalDate date = LocalDate.parse(dateStr, DateTimeFormatter.ISO_LOCAL_DATE);
+                    return date.atStartOfDay().format(DateTimeFormatter.ISO_DATE_TIME) + "Z";
+                } else {
+                    Date date = jogetFormatter.parse(dateStr);
+                    return iso8601Formatter.format(date);
+                }
+            } catch (ParseException | DateTimeParseException e) {
+                return dateStr;
+            }
+        }
+
+        Object decode(Object govstackValue) {
+            String dateStr = govstackValue.toString().trim();
+            try {
+                if (dateStr.contains("T")) {
+                    if (dateStr.contains("+") || dateStr.contains("Z")) {
+                        dateStr = dateStr.replaceAll("[+Z].*", "");
+                    }
+                    LocalDateTime dateTime = LocalDateTime.parse(dateStr, DateTimeFormatter.ISO_DATE_TIME);
+                    return dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE);
+                } else if (dateStr.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                    return dateStr;
+                } else {
+                    Date date = iso8601Formatter.parse(dateStr);
+                    return jogetFormatter.format(date);
+                }
+            } catch (ParseException | DateTimeParseException e) {
+                return dateStr;
+            }
+        }
+    }
+}
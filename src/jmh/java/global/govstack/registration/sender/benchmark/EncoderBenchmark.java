@@ -0,0 +1,58 @@
+package global.govstack.registration.sender.benchmark;
+
+import global.govstack.registration.sender.service.metadata.GovStackJsonEncoder;
+import global.govstack.registration.sender.service.metadata.YamlMetadataService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GovStackJsonEncoder on synthetic farmers_registry records with gridRows rows in every grid
+ *
+ * encodeBytes is the request body path, writeToStream the same without the final byte[] copy
+ * (as used by the streaming pipeline), encodePrettyJson the tree-based diagnostic form.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="EncoderBenchmark -f 1 -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class EncoderBenchmark {
+
+    @Param({"3", "50", "500"})
+    public int gridRows;
+
+    private GovStackJsonEncoder encoder;
+    private Map<String, Object> record;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        YamlMetadataService metadataService = SyntheticRecords.metadata("farmers_registry");
+        InMemoryFormDataDao store = SyntheticRecords.populate(metadataService, 1, gridRows);
+        record = SyntheticRecords.extract(metadataService, store, 0);
+        encoder = new GovStackJsonEncoder(metadataService);
+        System.out.println("Encoded bytes (gridRows=" + gridRows + "): " + encodeBytes().length);
+    }
+
+    @Benchmark
+    public byte[] encodeBytes() {
+        return encoder.encodeToGovStackBytes(record, false);
+    }
+
+    @Benchmark
+    public int writeToStream() {
+        buffer.reset();
+        encoder.writeGovStackJson(record, buffer, false);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public String encodePrettyJson() {
+        return encoder.encodeToGovStackJson(record);
+    }
+}
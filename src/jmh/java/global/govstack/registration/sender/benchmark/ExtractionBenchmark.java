@@ -0,0 +1,56 @@
+package global.govstack.registration.sender.benchmark;
+
+import global.govstack.registration.sender.service.metadata.GenericFormDataExtractor;
+import global.govstack.registration.sender.service.metadata.YamlMetadataService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record extraction through GenericFormDataExtractor against an in-memory FormDataDao
+ *
+ * Records are generated from the farmers_registry metadata with gridRows rows in every grid, so
+ * the time is the extractor's own work per record (section and grid lookups, field copying)
+ * without Joget or database I/O.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ExtractionBenchmark -f 1"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class ExtractionBenchmark {
+
+    private static final int RECORDS = 32;
+
+    @Param({"3", "50", "500"})
+    public int gridRows;
+
+    private GenericFormDataExtractor extractor;
+    private String[] recordIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        YamlMetadataService metadataService = SyntheticRecords.metadata("farmers_registry");
+        InMemoryFormDataDao store = SyntheticRecords.populate(metadataService, RECORDS, gridRows);
+        extractor = new GenericFormDataExtractor(metadataService, store.asDao());
+
+        recordIds = new String[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            recordIds[i] = SyntheticRecords.recordId(i);
+        }
+        if (extractor.extractAllFormData(recordIds[0]).size() <= 1) {
+            throw new IllegalStateException("Synthetic record could not be extracted");
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> extractAllFormData() {
+        String recordId = recordIds[next];
+        next = next + 1 == RECORDS ? 0 : next + 1;
+        return extractor.extractAllFormData(recordId);
+    }
+}
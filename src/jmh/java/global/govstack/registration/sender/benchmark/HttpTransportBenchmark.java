@@ -0,0 +1,133 @@
+package global.govstack.registration.sender.benchmark;
+
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.transport.PooledHttpTransport;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.HttpsURLConnection;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pooled keep-alive transport with a fresh connection per request and with the
+ * previous HttpURLConnection client code, against a local stub Processing API.
+ *
+ * SampleTime mode reports the latency distribution, including p0.50 and p0.99. On raw loopback
+ * a connect costs next to nothing, so the connectLatencyMs variants simulate the handshake
+ * round trips a real network adds to every new connection.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="HttpTransportBenchmark -f 1"
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class HttpTransportBenchmark {
+
+    private static final byte[] PAYLOAD = ("{\"id\":\"rec-1\",\"serviceId\":\"farmers_registry\"," +
+        "\"name\":{\"given\":[\"Ann\"],\"family\":\"Lee\"},\"extension\":{\"yearsInArea\":12}}")
+        .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"http", "https"})
+    public String scheme;
+
+    // Simulated handshake round trips for a new connection; 0 = raw loopback
+    @Param({"0", "2"})
+    public long connectLatencyMs;
+
+    private StubProcessingApi stub;
+    private PooledHttpTransport pooledTransport;
+    private GovStackApiClient pooledClient;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stub = new StubProcessingApi(8, "https".equals(scheme));
+        stub.setConnectLatencyMs(connectLatencyMs);
+        if (stub.getClientSslContext() != null) {
+            HttpsURLConnection.setDefaultSSLSocketFactory(stub.getClientSslContext().getSocketFactory());
+        }
+        // The legacy variants use the JDK default socket factory set above; the pool takes its own context
+        pooledTransport = new PooledHttpTransport(5000, 8, 60, stub.getClientSslContext());
+        pooledClient = new GovStackApiClient(stub.getUrl(), "API-bench", "key", pooledTransport);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pooledTransport.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public boolean pooledKeepAlive() {
+        return pooledClient.sendToGovStack(new String(PAYLOAD, StandardCharsets.UTF_8)).isSuccess();
+    }
+
+    /**
+     * The pre-transport client code: the JDK may still reuse the socket when the response
+     * was drained before disconnect(), but nothing bounds or tunes that reuse
+     */
+    @Benchmark
+    public int legacyHttpUrlConnection() throws Exception {
+        HttpURLConnection conn = null;
+        try {
+            conn = (HttpURLConnection) new URL(stub.getUrl()).openConnection();
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setRequestProperty("Accept", "application/json");
+            conn.setRequestProperty("api_id", "API-bench");
+            conn.setRequestProperty("api_key", "key");
+            conn.setDoOutput(true);
+            conn.setDoInput(true);
+            try (OutputStreamWriter writer = new OutputStreamWriter(conn.getOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write(new String(PAYLOAD, StandardCharsets.UTF_8));
+                writer.flush();
+            }
+            int status = conn.getResponseCode();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
+                while (reader.readLine() != null) {
+                    // drain
+                }
+            }
+            return status;
+        } finally {
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * A fresh connection (and handshake) for every submission
+     */
+    @Benchmark
+    public int connectionPerRequest() throws Exception {
+        HttpURLConnection conn = (HttpURLConnection) new URL(stub.getUrl()).openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setRequestProperty("Connection", "close");
+            conn.setRequestProperty("api_id", "API-bench");
+            conn.setRequestProperty("api_key", "key");
+            conn.setDoOutput(true);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(PAYLOAD);
+            }
+            int status = conn.getResponseCode();
+            try (InputStream in = conn.getInputStream()) {
+                in.readAllBytes();
+            }
+            return status;
+        } finally {
+            conn.disconnect();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package global.govstack.registration.sender.benchmark;
+
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRow;
+import org.joget.apps.form.model.FormRowSet;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FormDataDao stand-in keeping form rows in memory, so extraction can be benchmarked without
+ * Joget or a database
+ *
+ * Answers the two lookups the extractor makes: loadByTableNameAndColumnName (by any column) and
+ * find with a single "[WHERE] column = ?" condition. Column lookups are served from hash indexes
+ * built on first use, so a lookup costs about what a primary-key or indexed query costs the
+ * database, minus the I/O. Rows are inserted before the benchmark runs and never changed.
+ * Other FormDataDao methods throw UnsupportedOperationException.
+ */
+public final class InMemoryFormDataDao implements InvocationHandler {
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Add a row to a table (table names without the app_fd_ prefix)
+     */
+    public void insert(String table, FormRow row) {
+        tables.computeIfAbsent(table, name -> new Table()).rows.add(row);
+    }
+
+    /**
+     * Number of rows in a table
+     */
+    public int size(String table) {
+        Table rows = tables.get(table);
+        return rows != null ? rows.rows.size() : 0;
+    }
+
+    /**
+     * The DAO view of the stored rows
+     */
+    public FormDataDao asDao() {
+        return (FormDataDao) Proxy.newProxyInstance(FormDataDao.class.getClassLoader(),
+            new Class<?>[]{FormDataDao.class}, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "loadByTableNameAndColumnName": {
+                List<FormRow> rows = lookup((String) args[0], (String) args[1], args[2]);
+                return rows.isEmpty() ? null : rows.get(0);
+            }
+            case "find": {
+                String table = args[1] != null ? (String) args[1] : (String) args[0];
+                Object[] params = (Object[]) args[3];
+                FormRowSet result = new FormRowSet();
+                result.addAll(lookup(table, conditionColumn((String) args[2]), params[0]));
+                return result;
+            }
+            case "toString":
+                return "InMemoryFormDataDao" + tables.keySet();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private List<FormRow> lookup(String table, String column, Object value) {
+        Table rows = tables.get(table);
+        if (rows == null || value == null) {
+            return new ArrayList<>();
+        }
+        List<FormRow> matches = rows.index(column).get(value.toString());
+        return matches != null ? matches : new ArrayList<>();
+    }
+
+    /**
+     * Column of a "[WHERE] column = ?" condition
+     */
+    static String conditionColumn(String condition) {
+        String column = condition.trim();
+        if (column.regionMatches(true, 0, "WHERE ", 0, 6)) {
+            column = column.substring(6).trim();
+        }
+        int operator = column.indexOf('=');
+        if (operator < 0) {
+            throw new UnsupportedOperationException("Unsupported condition: " + condition);
+        }
+        column = column.substring(0, operator).trim();
+        // HQL property references, e.g. e.customProperties.farmer_id
+        int dot = column.lastIndexOf('.');
+        return dot >= 0 ? column.substring(dot + 1) : column;
+    }
+
+    private static final class Table {
+        final List<FormRow> rows = new ArrayList<>();
+        final Map<String, Map<String, List<FormRow>>> indexes = new ConcurrentHashMap<>();
+
+        Map<String, List<FormRow>> index(String column) {
+            return indexes.computeIfAbsent(column, name -> {
+                Map<String, List<FormRow>> index = new ConcurrentHashMap<>();
+                for (FormRow row : rows) {
+                    String value = row.getProperty(name);
+                    if (value == null && name.startsWith("c_")) {
+                        // Rows hold property names; conditions may use the c_ column name
+                        value = row.getProperty(name.substring(2));
+                    }
+                    if (value != null) {
+                        index.computeIfAbsent(value, key -> new ArrayList<>()).add(row);
+                    }
+                }
+                return index;
+            });
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package global.govstack.registration.sender.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import global.govstack.registration.sender.service.metadata.GovStackJsonEncoder;
+import global.govstack.registration.sender.service.metadata.YamlMetadataService;
+import global.govstack.registration.sender.util.JsonBuilder;
+import global.govstack.registration.sender.util.JsonPathExtractor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonBuilder.setValue and JsonPathExtractor.extractNode over every govstack path of the
+ * farmers_registry metadata
+ *
+ * Each benchmark builds, or reads, one whole document: setValueString parses every path on
+ * each call, setValueCompiled uses paths compiled once (as the encoding plan does), and
+ * extractNode reads every path back from an encoded synthetic record.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="JsonPathBenchmark -f 1"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class JsonPathBenchmark {
+
+    private String[] paths;
+    private JsonBuilder.Path[] compiledPaths;
+    private String[] values;
+    private JsonNode document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        YamlMetadataService metadataService = SyntheticRecords.metadata("farmers_registry");
+        Map<String, String> govstackPaths = SyntheticRecords.govstackPaths(metadataService);
+        paths = govstackPaths.keySet().toArray(new String[0]);
+        compiledPaths = new JsonBuilder.Path[paths.length];
+        values = new String[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            compiledPaths[i] = JsonBuilder.compilePath(paths[i]);
+            values[i] = govstackPaths.get(paths[i]) + " value";
+        }
+
+        InMemoryFormDataDao store = SyntheticRecords.populate(metadataService, 1, 3);
+        Map<String, Object> record = SyntheticRecords.extract(metadataService, store, 0);
+        document = new ObjectMapper().readTree(new GovStackJsonEncoder(metadataService).encodeToGovStackBytes(record, false));
+        System.out.println(paths.length + " govstack paths");
+    }
+
+    @Benchmark
+    public JsonNode setValueString() {
+        JsonBuilder builder = new JsonBuilder();
+        for (int i = 0; i < paths.length; i++) {
+            builder.setValue(paths[i], values[i]);
+        }
+        return builder.getJsonNode();
+    }
+
+    @Benchmark
+    public JsonNode setValueCompiled() {
+        JsonBuilder builder = new JsonBuilder();
+        for (int i = 0; i < compiledPaths.length; i++) {
+            builder.setValue(compiledPaths[i], values[i]);
+        }
+        return builder.getJsonNode();
+    }
+
+    @Benchmark
+    public void extractNode(Blackhole blackhole) {
+        for (String path : paths) {
+            blackhole.consume(JsonPathExtractor.extractNode(document, path));
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package global.govstack.registration.sender.benchmark;
+
+import global.govstack.registration.sender.lib.DocSubmitter;
+import global.govstack.registration.sender.model.PluginResponse;
+import global.govstack.registration.sender.service.async.AsyncSubmissionQueue;
+import global.govstack.registration.sender.service.metadata.SectionExtractionPool;
+import global.govstack.registration.sender.service.metadata.YamlMetadataService;
+import global.govstack.registration.sender.service.metrics.LatencyHistogram;
+import global.govstack.registration.sender.service.metrics.SubmissionMetrics;
+import global.govstack.registration.sender.service.outbox.DurableOutbox;
+import org.joget.apps.app.service.AppUtil;
+import org.springframework.context.ApplicationContext;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Offline load test: drives DocSubmitter end to end against the stub Processing API
+ *
+ * Farmer records are synthesized from the farmers_registry metadata, with the values of option
+ * fields taken from the form definitions in doc-forms, and served by an in-memory FormDataDao
+ * installed as the "formDataDao" bean. Each submission is a DocSubmitter.execute call in
+ * "specific" extraction mode on a fresh plugin instance, as Joget runs a process tool, so
+ * extraction, transformation, encoding and the HTTP send all run as in production. Nothing
+ * leaves the loopback interface.
+ *
+ * Arguments are key=value pairs:
+ *   records=1000      records submitted in the measured run (each record once)
+ *   warmup=200        submissions before measuring, not reported
+ *   concurrency=8     threads calling DocSubmitter
+ *   rate=0            target submissions per second, 0 = as fast as the threads go
+ *   gridRows=3        rows in every grid of every record
+ *   latencyMs=0       latency the stub adds to every request
+ *   errorRate=0       fraction of requests the stub fails with 503
+ *   stubThreads=16    stub server threads
+ *   forms=doc-forms   directory of form definitions
+ * Any other pair is passed to DocSubmitter as a plugin property, e.g. submissionMode=async,
+ * gzipRequests=true, extractionStrategy=parallel or maxConnectionsPerHost=32.
+ *
+ * With a target rate, each submission has a scheduled start and its latency is measured from
+ * that point, so time spent waiting behind slow submissions is counted rather than hidden.
+ * Allocation is measured on the submitting threads only; in async mode the elapsed time
+ * includes draining the submission queue, but latencies cover only the enqueue.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec@loadtest -Dloadtest.args="records=5000 concurrency=16"
+ */
+public final class LoadTest {
+
+    private static final String SERVICE_ID = "farmers_registry";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<String, String> pluginProperties;
+    private final int concurrency;
+    private final double rate;
+
+    private LoadTest(Map<String, String> pluginProperties, int concurrency, double rate) {
+        this.pluginProperties = pluginProperties;
+        this.concurrency = concurrency;
+        this.rate = rate;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        int records = intOption(options, "records", 1000);
+        int warmup = intOption(options, "warmup", 200);
+        int concurrency = intOption(options, "concurrency", 8);
+        double rate = Double.parseDouble(take(options, "rate", "0"));
+        int gridRows = intOption(options, "gridRows", 3);
+        long latencyMs = intOption(options, "latencyMs", 0);
+        double errorRate = Double.parseDouble(take(options, "errorRate", "0"));
+        int stubThreads = intOption(options, "stubThreads", 16);
+        File formsDir = new File(take(options, "forms", "doc-forms"));
+
+        System.out.printf(Locale.ROOT, "Synthesizing %d records (%d grid rows) from %s%n",
+            records, gridRows, formsDir.getAbsolutePath());
+        YamlMetadataService metadataService = SyntheticRecords.metadata(SERVICE_ID);
+        InMemoryFormDataDao store = SyntheticRecords.populate(metadataService, records, gridRows,
+            SampleRecords.optionValues(formsDir));
+        installApplicationContext(store);
+
+        try (StubProcessingApi stub = new StubProcessingApi(stubThreads)) {
+            stub.setLatencyMs(latencyMs);
+            stub.setErrorRate(errorRate);
+
+            Map<String, String> properties = new HashMap<>();
+            properties.put("extractionMode", "specific");
+            properties.put("serviceId", SERVICE_ID);
+            properties.put("apiEndpoint", stub.getUrl());
+            properties.put("apiId", "API-bench");
+            properties.put("apiKey", "load-test");
+            properties.put("logLevel", "WARN");
+            properties.putAll(options);
+
+            LoadTest loadTest = new LoadTest(properties, concurrency, rate);
+            if (warmup > 0) {
+                System.out.printf(Locale.ROOT, "Warming up with %d submissions%n", warmup);
+                loadTest.run(warmup, records);
+            }
+
+            SubmissionMetrics.shared().reset();
+            long requestsBefore = stub.getRequestCount();
+            long bytesBefore = stub.getBytesReceived();
+            System.out.printf(Locale.ROOT, "Submitting %d records, concurrency %d, rate %s, stub latency %dms, error rate %s%n",
+                records, concurrency, rate > 0 ? rate + "/s" : "unbounded", latencyMs, errorRate);
+
+            Result result = loadTest.run(records, records);
+            result.print(stub.getRequestCount() - requestsBefore, stub.getBytesReceived() - bytesBefore);
+        } finally {
+            AsyncSubmissionQueue.shutdownAll();
+            DurableOutbox.shutdownAll();
+            SectionExtractionPool.shutdownAll();
+        }
+    }
+
+    /**
+     * Submit records rec-0 onwards, wrapping around the stored records
+     */
+    private Result run(int submissions, int records) throws InterruptedException {
+        Result result = new Result(submissions);
+        AtomicInteger next = new AtomicInteger();
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; t++) {
+            workers.execute(() -> {
+                long threadId = Thread.currentThread().getId();
+                long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+                int index;
+                while ((index = next.getAndIncrement()) < submissions) {
+                    long scheduled = start + index * intervalNanos;
+                    long now;
+                    while (intervalNanos > 0 && (now = System.nanoTime()) < scheduled) {
+                        LockSupport.parkNanos(scheduled - now);
+                    }
+                    long begin = intervalNanos > 0 ? scheduled : System.nanoTime();
+                    boolean success = submit(SyntheticRecords.recordId(index % records));
+                    result.latencyNanos.record(System.nanoTime() - begin);
+                    (success ? result.succeeded : result.failed).increment();
+                }
+                result.allocatedBytes.add(THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore);
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        if ("async".equals(pluginProperties.get("submissionMode"))) {
+            AsyncSubmissionQueue.shutdownAll();
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        result.gcCount = gcCount() - gcCountBefore;
+        result.gcTimeMillis = gcTimeMillis() - gcTimeBefore;
+        return result;
+    }
+
+    private boolean submit(String recordId) {
+        Map<String, Object> properties = new HashMap<>(pluginProperties);
+        properties.put("specificRecordId", recordId);
+        Object response = new DocSubmitter().execute(properties);
+        return response instanceof PluginResponse && ((PluginResponse) response).isSuccess();
+    }
+
+    /**
+     * Make the in-memory store the application's formDataDao; other beans are not available
+     */
+    private static void installApplicationContext(InMemoryFormDataDao store) {
+        Object formDataDao = store.asDao();
+        ApplicationContext context = (ApplicationContext) Proxy.newProxyInstance(LoadTest.class.getClassLoader(),
+            new Class<?>[]{ApplicationContext.class}, (proxy, method, args) -> {
+                if ("getBean".equals(method.getName()) && args != null && "formDataDao".equals(args[0])) {
+                    return formDataDao;
+                }
+                if ("toString".equals(method.getName())) {
+                    return "LoadTest application context";
+                }
+                throw new UnsupportedOperationException("Not available in the load test: " + method.getName() +
+                    (args != null && args.length > 0 ? " " + args[0] : ""));
+            });
+        new AppUtil().setApplicationContext(context);
+    }
+
+    private static String take(Map<String, String> options, String key, String defaultValue) {
+        String value = options.remove(key);
+        return value != null ? value : defaultValue;
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        return Integer.parseInt(take(options, key, String.valueOf(defaultValue)));
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+
+    private static final class Result {
+        final int submissions;
+        final LatencyHistogram latencyNanos = new LatencyHistogram();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        long elapsedNanos;
+        long gcCount;
+        long gcTimeMillis;
+
+        Result(int submissions) {
+            this.submissions = submissions;
+        }
+
+        void print(long requests, long bytesReceived) {
+            double seconds = elapsedNanos / 1e9;
+            LatencyHistogram.Snapshot latency = latencyNanos.snapshot();
+            System.out.println();
+            System.out.printf(Locale.ROOT, "Submissions:  %d in %.2fs (%d succeeded, %d failed)%n",
+                submissions, seconds, succeeded.sum(), failed.sum());
+            System.out.printf(Locale.ROOT, "Throughput:   %.1f records/s%n", submissions / seconds);
+            System.out.printf(Locale.ROOT, "Latency (ms): mean %.2f  p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                latency.getMean() / 1e6, millis(latency, 50), millis(latency, 90), millis(latency, 99),
+                millis(latency, 99.9), latency.getMax() / 1e6);
+            System.out.printf(Locale.ROOT, "Allocation:   %.1f MB/s, %.1f KB/record (submitting threads)%n",
+                allocatedBytes.sum() / seconds / (1024 * 1024), allocatedBytes.sum() / 1024.0 / submissions);
+            System.out.printf(Locale.ROOT, "GC:           %d collections, %d ms%n", gcCount, gcTimeMillis);
+            System.out.printf(Locale.ROOT, "Stub API:     %d requests, %.1f KB/request%n",
+                requests, requests > 0 ? bytesReceived / 1024.0 / requests : 0);
+            System.out.println("Stage metrics: " + SubmissionMetrics.shared().toJson());
+        }
+
+        private static double millis(LatencyHistogram.Snapshot snapshot, double percentile) {
+            return snapshot.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+}
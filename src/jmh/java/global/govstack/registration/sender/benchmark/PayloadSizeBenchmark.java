@@ -0,0 +1,82 @@
+package global.govstack.registration.sender.benchmark;
+
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.metadata.GovStackJsonEncoder;
+import global.govstack.registration.sender.service.metadata.YamlMetadataService;
+import global.govstack.registration.sender.service.transport.HttpTransport;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wire size against CPU time of the payload forms: the pretty-printed JSON that used to be sent,
+ * the compact JSON now sent, and the compact JSON gzip-compressed by the client.
+ *
+ * Records are built from the sample forms in doc-forms, with gridRows rows in every grid. Each
+ * benchmark encodes the record and hands the request body to a transport that only counts its
+ * bytes, so the time is encoding plus compression without any network. The request body size of
+ * each form is printed once per trial.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="PayloadSizeBenchmark -f 1"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class PayloadSizeBenchmark {
+
+    @Param({"3", "50"})
+    public int gridRows;
+
+    private GovStackJsonEncoder encoder;
+    private Map<String, Object> record;
+    private GovStackApiClient plainClient;
+    private GovStackApiClient gzipClient;
+    private volatile long lastBodyBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        YamlMetadataService metadataService = new YamlMetadataService();
+        metadataService.loadMetadata("farmers_registry");
+        encoder = new GovStackJsonEncoder(metadataService);
+        record = SampleRecords.fromDocForms(new File("doc-forms"), "rec-1", gridRows);
+
+        HttpTransport counting = (url, headers, body, readTimeoutMs) -> {
+            lastBodyBytes = body.length;
+            return new HttpTransport.Response(200, "{\"success\":true}");
+        };
+        plainClient = new GovStackApiClient("http://localhost/jw/api/API-bench/services/farmers_registry/applications",
+            "API-bench", "key", counting);
+        gzipClient = new GovStackApiClient("http://localhost/jw/api/API-bench/services/farmers_registry/applications",
+            "API-bench", "key", counting);
+        gzipClient.setGzipMinBytes(0);
+
+        pretty();
+        long pretty = lastBodyBytes;
+        compact();
+        long compact = lastBodyBytes;
+        compactGzip();
+        System.out.println("Request body bytes (gridRows=" + gridRows + "): pretty=" + pretty +
+            ", compact=" + compact + ", compact+gzip=" + lastBodyBytes);
+    }
+
+    @Benchmark
+    public boolean pretty() {
+        String json = encoder.encodeToGovStackJson(record);
+        return plainClient.sendToGovStack(json.getBytes(StandardCharsets.UTF_8)).isSuccess();
+    }
+
+    @Benchmark
+    public boolean compact() {
+        return plainClient.sendToGovStack(encoder.encodeToGovStackBytes(record, false)).isSuccess();
+    }
+
+    @Benchmark
+    public boolean compactGzip() {
+        return gzipClient.sendToGovStack(encoder.encodeToGovStackBytes(record, false)).isSuccess();
+    }
+}
@@ -0,0 +1,151 @@
+package global.govstack.registration.sender.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds farmer records shaped like the sample forms in doc-forms, for benchmarks
+ *
+ * Every form becomes a section keyed by its form ID, holding a value for each of its fields;
+ * every FormGrid becomes a section keyed by the grid ID, holding the requested number of rows.
+ * Fields with options get their first option value (so value mappings and transformations
+ * apply as in real data), other fields a short text.
+ */
+public final class SampleRecords {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SampleRecords() {
+    }
+
+    /**
+     * Build a record from the form definitions in a directory
+     *
+     * @param formsDir Directory of exported Joget form definitions (doc-forms)
+     * @param recordId The record ID
+     * @param gridRows Number of rows in each grid
+     * @return The record's form data, organized by section
+     */
+    public static Map<String, Object> fromDocForms(File formsDir, String recordId, int gridRows) throws IOException {
+        List<JsonNode> forms = readForms(formsDir);
+        Map<String, String> sampleValues = new HashMap<>();
+        for (JsonNode form : forms) {
+            collectSampleValues(form, sampleValues);
+        }
+
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", recordId);
+        for (JsonNode form : forms) {
+            Map<String, Object> section = new LinkedHashMap<>();
+            addFields(form, section, record, sampleValues, gridRows);
+            String formId = form.path("properties").path("id").asText();
+            if (!section.isEmpty() && !formId.isEmpty()) {
+                record.put(formId, section);
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Option values of every field with options (selects, radios, checkboxes) in the form
+     * definitions of a directory
+     *
+     * @param formsDir Directory of exported Joget form definitions (doc-forms)
+     * @return Option values in declaration order, by field ID
+     */
+    public static Map<String, List<String>> optionValues(File formsDir) throws IOException {
+        Map<String, List<String>> options = new HashMap<>();
+        for (JsonNode form : readForms(formsDir)) {
+            collectOptionValues(form, options);
+        }
+        return options;
+    }
+
+    private static List<JsonNode> readForms(File formsDir) throws IOException {
+        File[] files = formsDir.listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null || files.length == 0) {
+            throw new IOException("No form definitions found in " + formsDir.getAbsolutePath());
+        }
+        Arrays.sort(files);
+
+        List<JsonNode> forms = new ArrayList<>(files.length);
+        for (File file : files) {
+            forms.add(MAPPER.readTree(file));
+        }
+        return forms;
+    }
+
+    private static void collectOptionValues(JsonNode element, Map<String, List<String>> options) {
+        String id = element.path("properties").path("id").asText();
+        if (!id.isEmpty() && !isGrid(element) && !options.containsKey(id)) {
+            List<String> values = new ArrayList<>();
+            for (JsonNode option : element.path("properties").path("options")) {
+                String value = option.path("value").asText();
+                if (!value.isEmpty()) {
+                    values.add(value);
+                }
+            }
+            if (!values.isEmpty()) {
+                options.put(id, values);
+            }
+        }
+        for (JsonNode child : element.path("elements")) {
+            collectOptionValues(child, options);
+        }
+    }
+
+    private static void collectSampleValues(JsonNode element, Map<String, String> sampleValues) {
+        JsonNode properties = element.path("properties");
+        String id = properties.path("id").asText();
+        if (!id.isEmpty() && !isGrid(element)) {
+            String value = null;
+            for (JsonNode option : properties.path("options")) {
+                String optionValue = option.path("value").asText();
+                if (!optionValue.isEmpty()) {
+                    value = optionValue;
+                    break;
+                }
+            }
+            sampleValues.putIfAbsent(id, value != null ? value : "Sample " + id);
+        }
+        for (JsonNode child : element.path("elements")) {
+            collectSampleValues(child, sampleValues);
+        }
+    }
+
+    private static void addFields(JsonNode element, Map<String, Object> section, Map<String, Object> record,
+                                  Map<String, String> sampleValues, int gridRows) {
+        for (JsonNode child : element.path("elements")) {
+            String className = child.path("className").asText();
+            String id = child.path("properties").path("id").asText();
+            if (isGrid(child)) {
+                List<Map<String, Object>> rows = new ArrayList<>(gridRows);
+                for (int i = 0; i < gridRows; i++) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (JsonNode column : child.path("properties").path("options")) {
+                        String columnId = column.path("value").asText();
+                        row.put(columnId, sampleValues.getOrDefault(columnId, "Sample " + columnId + " " + i));
+                    }
+                    rows.add(row);
+                }
+                record.put(id, rows);
+            } else if (!id.isEmpty() && !className.endsWith(".Section") && !className.endsWith(".Column")) {
+                section.put(id, sampleValues.get(id));
+            }
+            addFields(child, section, record, sampleValues, gridRows);
+        }
+    }
+
+    private static boolean isGrid(JsonNode element) {
+        return element.path("className").asText().endsWith("Grid");
+    }
+}
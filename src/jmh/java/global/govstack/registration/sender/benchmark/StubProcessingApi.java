@@ -0,0 +1,227 @@
+package global.govstack.registration.sender.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded stand-in for the GovStack Processing API, used by benchmarks
+ *
+ * Accepts POSTs on any path, drains the request body and answers with a minimal
+ * success document. Latency and error rate can be injected to simulate a slow or
+ * flaky server. Binds to a random loopback port, so it runs fully offline.
+ *
+ * With tls=true the stub serves HTTPS using a throwaway self-signed certificate (created
+ * with the JDK keytool); {@link #getClientSslContext()} returns a context that trusts it.
+ *
+ * Loopback connects are almost free, so a real network's handshake round trips are simulated
+ * with {@link #setConnectLatencyMs(long)}: the first request seen on each client connection
+ * (keyed by remote address) is held for that long. Requests on an already open connection
+ * are not delayed.
+ */
+public class StubProcessingApi implements AutoCloseable {
+
+    static {
+        // Without TCP_NODELAY the JDK server's separate header/body writes hit delayed ACKs (~40ms)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final char[] STORE_PASSWORD = "benchmark".toCharArray();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SSLContext clientSslContext;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+
+    private final Set<String> seenConnections = ConcurrentHashMap.newKeySet();
+
+    private volatile long latencyMs;
+    private volatile long connectLatencyMs;
+    private volatile double errorRate;
+
+    public StubProcessingApi(int threads) throws IOException {
+        this(threads, false);
+    }
+
+    public StubProcessingApi(int threads, boolean tls) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        if (tls) {
+            KeyStore keyStore = createSelfSignedKeyStore();
+            HttpsServer httpsServer = HttpsServer.create(address, 128);
+            httpsServer.setHttpsConfigurator(new HttpsConfigurator(serverSslContext(keyStore)));
+            server = httpsServer;
+            clientSslContext = clientSslContext(keyStore);
+        } else {
+            server = HttpServer.create(address, 128);
+            clientSslContext = null;
+        }
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long received = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                received += read;
+            }
+        }
+        requests.incrementAndGet();
+        bytesReceived.addAndGet(received);
+
+        long delay = latencyMs;
+        if (seenConnections.add(exchange.getRemoteAddress().toString())) {
+            connections.incrementAndGet();
+            delay += connectLatencyMs;
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        boolean fail = errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+        String body = fail
+            ? "{\"success\":false,\"message\":\"Injected failure\"}"
+            : "{\"success\":true,\"applicationId\":\"APP-" + requests.get() + "\",\"message\":\"Accepted\"}";
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(fail ? 503 : 200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static KeyStore createSelfSignedKeyStore() throws IOException {
+        File dir = Files.createTempDirectory("stub-api").toFile();
+        File store = new File(dir, "stub.p12");
+        String keytool = System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool";
+        Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "stub", "-keyalg", "EC",
+            "-groupname", "secp256r1", "-dname", "CN=localhost", "-ext", "SAN=ip:127.0.0.1,dns:localhost",
+            "-validity", "2", "-storetype", "PKCS12", "-keystore", store.getAbsolutePath(),
+            "-storepass", new String(STORE_PASSWORD), "-keypass", new String(STORE_PASSWORD))
+            .redirectErrorStream(true)
+            .start();
+        try {
+            process.getInputStream().readAllBytes();
+            if (process.waitFor() != 0) {
+                throw new IOException("keytool failed with exit code " + process.exitValue());
+            }
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            try (InputStream in = new FileInputStream(store)) {
+                keyStore.load(in, STORE_PASSWORD);
+            }
+            return keyStore;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Could not create self-signed certificate", e);
+        } finally {
+            store.delete();
+            dir.delete();
+        }
+    }
+
+    private static SSLContext serverSslContext(KeyStore keyStore) throws IOException {
+        try {
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            kmf.init(keyStore, STORE_PASSWORD);
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(kmf.getKeyManagers(), null, null);
+            return context;
+        } catch (Exception e) {
+            throw new IOException("Could not initialise server TLS", e);
+        }
+    }
+
+    private static SSLContext clientSslContext(KeyStore keyStore) throws IOException {
+        try {
+            TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            tmf.init(keyStore);
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, tmf.getTrustManagers(), null);
+            return context;
+        } catch (Exception e) {
+            throw new IOException("Could not initialise client TLS", e);
+        }
+    }
+
+    /**
+     * SSL context trusting the stub's certificate, or null when serving plain HTTP
+     */
+    public SSLContext getClientSslContext() {
+        return clientSslContext;
+    }
+
+    public String getUrl() {
+        String scheme = clientSslContext != null ? "https" : "http";
+        return scheme + "://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() +
+            "/jw/api/API-bench/services/farmers_registry/applications";
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    /**
+     * Simulated cost of opening a connection (TCP/TLS handshake round trips), in milliseconds
+     */
+    public void setConnectLatencyMs(long connectLatencyMs) {
+        this.connectLatencyMs = connectLatencyMs;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Number of distinct client connections that have sent a request
+     */
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
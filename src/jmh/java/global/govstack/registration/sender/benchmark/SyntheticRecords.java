@@ -0,0 +1,229 @@
+package global.govstack.registration.sender.benchmark;
+
+import global.govstack.registration.sender.service.metadata.ExtractionPlan;
+import global.govstack.registration.sender.service.metadata.GenericFormDataExtractor;
+import global.govstack.registration.sender.service.metadata.YamlMetadataService;
+import org.joget.apps.form.model.FormRow;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Generates farmer records as Joget stores them, from a service's metadata, for benchmarks
+ *
+ * Table layout comes from the extraction plan (parent table, one row per section linked through
+ * its UUID reference column, grid rows pointing back through their foreign key); columns come from
+ * the merged field definitions of services.yml and form_structure.yaml. Each value is shaped by
+ * its field's configuration, so transformations and value mappings do real work: the first
+ * mapped value for fields with a valueMapping, and dates, numbers, booleans and multi-value lists
+ * for the matching transforms. Every grid gets the requested number of rows, so records can be
+ * scaled well past realistic sizes.
+ */
+public final class SyntheticRecords {
+
+    private SyntheticRecords() {
+    }
+
+    /**
+     * Load a service's metadata
+     */
+    public static YamlMetadataService metadata(String serviceId) throws Exception {
+        YamlMetadataService metadataService = new YamlMetadataService();
+        metadataService.loadMetadata(serviceId);
+        return metadataService;
+    }
+
+    /**
+     * Store records rec-0 to rec-(records - 1) in an in-memory DAO
+     *
+     * @param metadataService Loaded service metadata
+     * @param records Number of records
+     * @param gridRows Number of rows in each grid of each record
+     * @return The populated DAO
+     */
+    public static InMemoryFormDataDao populate(YamlMetadataService metadataService, int records, int gridRows)
+            throws Exception {
+        return populate(metadataService, records, gridRows, Collections.emptyMap());
+    }
+
+    /**
+     * Store records rec-0 to rec-(records - 1) in an in-memory DAO, taking the values of option
+     * fields from the form definitions
+     *
+     * @param metadataService Loaded service metadata
+     * @param records Number of records
+     * @param gridRows Number of rows in each grid of each record
+     * @param formOptions Option values by field ID (see {@link SampleRecords#optionValues}); records
+     *                    cycle through them instead of using the generated value
+     * @return The populated DAO
+     */
+    @SuppressWarnings("unchecked")
+    public static InMemoryFormDataDao populate(YamlMetadataService metadataService, int records, int gridRows,
+                                               Map<String, List<String>> formOptions) throws Exception {
+        InMemoryFormDataDao store = new InMemoryFormDataDao();
+        ExtractionPlan plan = new GenericFormDataExtractor(metadataService, store.asDao()).getExtractionPlan();
+        Map<String, Object> formMappings = metadataService.getFormMappings();
+
+        for (int r = 0; r < records; r++) {
+            String recordId = recordId(r);
+            FormRow parent = new FormRow();
+            parent.setId(recordId);
+
+            for (ExtractionPlan.SectionSource section : plan.getSections()) {
+                String uuid = section.getSectionName() + "-" + r;
+                parent.setProperty("c_" + section.getReferenceField(), uuid);
+
+                FormRow row = new FormRow();
+                row.setId(uuid);
+                fill(row, metadataService.getMergedFieldMappings(section.getSectionName()),
+                    serviceFields(formMappings, section.getSectionName()), formOptions, r);
+                store.insert(section.getTable(), row);
+            }
+
+            // Sections stored on the parent row itself
+            for (Map.Entry<String, Object> entry : formMappings.entrySet()) {
+                Map<String, Object> sectionConfig = (Map<String, Object>) entry.getValue();
+                if (sectionConfig != null && Boolean.TRUE.equals(sectionConfig.get("extractFromParent"))) {
+                    List<Map<String, Object>> fields = (List<Map<String, Object>>) sectionConfig.get("fields");
+                    if (fields != null) {
+                        for (Map<String, Object> field : fields) {
+                            String jogetField = (String) field.get("joget");
+                            if (jogetField != null) {
+                                parent.setProperty(jogetField, value(jogetField, field, formOptions, r));
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (ExtractionPlan.GridSource grid : plan.getGrids()) {
+                String parentId = grid.getParentReferenceField() != null
+                    ? parent.getProperty("c_" + grid.getParentReferenceField()) : recordId;
+                Map<String, Object> gridConfig = (Map<String, Object>) formMappings.get(grid.getSectionName());
+                String formId = gridConfig != null ? (String) gridConfig.get("formId") : null;
+                List<Map<String, Object>> columns = metadataService.getMergedFieldMappings(
+                    formId != null ? formId : grid.getSectionName());
+
+                for (int i = 0; i < gridRows; i++) {
+                    FormRow row = new FormRow();
+                    row.setId(grid.getSectionName() + "-" + r + "-" + i);
+                    fill(row, columns, serviceFields(formMappings, grid.getSectionName()), formOptions, r * 31 + i);
+                    row.setProperty(grid.getParentKeyColumn(), parentId);
+                    store.insert(grid.getTable(), row);
+                }
+            }
+
+            store.insert(plan.getParentTable(), parent);
+        }
+        return store;
+    }
+
+    /**
+     * ID of the n-th generated record
+     */
+    public static String recordId(int n) {
+        return "rec-" + n;
+    }
+
+    /**
+     * Set every column, shaping values by the services.yml field if there is one
+     */
+    private static void fill(FormRow row, List<Map<String, Object>> columns, Map<String, Map<String, Object>> serviceFields,
+                             Map<String, List<String>> formOptions, int seed) {
+        for (Map<String, Object> column : columns) {
+            String fieldId = (String) column.get("field_id");
+            if (fieldId != null) {
+                row.setProperty(fieldId, value(fieldId, serviceFields.getOrDefault(fieldId, column), formOptions, seed));
+            }
+        }
+    }
+
+    /**
+     * services.yml fields of a section by Joget field name (grid columns are configured under the
+     * grid's section, not its form ID)
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> serviceFields(Map<String, Object> formMappings, String sectionName) {
+        Map<String, Map<String, Object>> byJogetField = new HashMap<>();
+        Object section = formMappings.get(sectionName);
+        List<Map<String, Object>> fields = section instanceof Map
+            ? (List<Map<String, Object>>) ((Map<String, Object>) section).get("fields") : null;
+        if (fields != null) {
+            for (Map<String, Object> field : fields) {
+                Object joget = field.get("joget");
+                if (joget != null) {
+                    byJogetField.put(joget.toString(), field);
+                }
+            }
+        }
+        return byJogetField;
+    }
+
+    private static String value(String fieldId, Map<String, Object> field, Map<String, List<String>> formOptions,
+                                int seed) {
+        List<String> options = formOptions.get(fieldId);
+        return options != null && !options.isEmpty()
+            ? options.get(seed % options.size()) : sampleValue(fieldId, field, seed);
+    }
+
+    /**
+     * A value shaped by the field's configuration
+     */
+    static String sampleValue(String fieldId, Map<String, Object> field, int seed) {
+        Object valueMapping = field.get("valueMapping");
+        if (valueMapping instanceof Map && !((Map<?, ?>) valueMapping).isEmpty()) {
+            Object[] keys = ((Map<?, ?>) valueMapping).keySet().toArray();
+            return String.valueOf(keys[seed % keys.length]);
+        }
+
+        Object transform = field.get("transform");
+        String type = transform != null ? transform.toString().toLowerCase(Locale.ROOT) : "";
+        if (type.contains("date")) {
+            return String.format(Locale.ROOT, "19%02d-%02d-%02d", 40 + seed % 60, 1 + seed % 12, 1 + seed % 28);
+        }
+        if (type.contains("numeric") || type.contains("number") || type.contains("integer") || type.contains("decimal")) {
+            return String.valueOf(1 + seed % 97);
+        }
+        if (type.contains("bool") || type.contains("yesno")) {
+            return seed % 2 == 0 ? "yes" : "no";
+        }
+        if (type.contains("multi") || type.contains("checkbox")) {
+            return "option1;option" + (2 + seed % 3);
+        }
+        return fieldId + " " + seed;
+    }
+
+    /**
+     * Form data as the extractor returns it for one generated record, for encoder benchmarks
+     */
+    public static Map<String, Object> extract(YamlMetadataService metadataService, InMemoryFormDataDao store,
+                                              int record) {
+        return new GenericFormDataExtractor(metadataService, store.asDao()).extractAllFormData(recordId(record));
+    }
+
+    /**
+     * Map of a field's govstack path to its Joget field, for path benchmarks
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, String> govstackPaths(YamlMetadataService metadataService) {
+        Map<String, String> paths = new HashMap<>();
+        for (Object section : metadataService.getFormMappings().values()) {
+            List<Map<String, Object>> fields = section instanceof Map
+                ? (List<Map<String, Object>>) ((Map<String, Object>) section).get("fields") : null;
+            if (fields == null) {
+                continue;
+            }
+            for (Map<String, Object> field : fields) {
+                Object govstack = field.get("govstack");
+                Object joget = field.get("joget");
+                if (govstack != null && joget != null) {
+                    paths.putIfAbsent(govstack.toString(), joget.toString());
+                }
+            }
+        }
+        return paths;
+    }
+}
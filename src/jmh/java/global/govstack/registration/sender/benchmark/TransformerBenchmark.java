@@ -0,0 +1,69 @@
+package global.govstack.registration.sender.benchmark;
+
+import global.govstack.registration.sender.service.transform.DataTransformer;
+import global.govstack.registration.sender.service.transform.TransformationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The built-in DataTransformers, per transformation type used by farmers_registry
+ *
+ * transformer* call the resolved transformer directly, as the compiled encoding plan does;
+ * serviceEncode goes through TransformationService and includes the type lookup. Inputs cycle
+ * through 64 values shaped like the synthetic records.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Djmh.args="TransformerBenchmark -f 1"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class TransformerBenchmark {
+
+    private static final int VALUES = 64;
+
+    @Param({"date_ISO8601", "numeric", "yesNoBoolean", "multiCheckbox"})
+    public String transformType;
+
+    private final TransformationService service = new TransformationService();
+    private DataTransformer transformer;
+    private Object[] jogetValues;
+    private Object[] govstackValues;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transformer = service.getTransformer(transformType);
+        jogetValues = new Object[VALUES];
+        govstackValues = new Object[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            jogetValues[i] = SyntheticRecords.sampleValue("field",
+                Collections.singletonMap("transform", transformType), i);
+            govstackValues[i] = transformer.encode(jogetValues[i], transformType);
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == VALUES ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public Object transformerEncode() {
+        return transformer.encode(jogetValues[nextIndex()], transformType);
+    }
+
+    @Benchmark
+    public Object transformerDecode() {
+        return transformer.decode(govstackValues[nextIndex()], transformType);
+    }
+
+    @Benchmark
+    public Object serviceEncode() {
+        return service.encode(jogetValues[nextIndex()], transformType);
+    }
+}
@@ -4,6 +4,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 
 import global.govstack.registration.sender.lib.DocSubmitter;
+import global.govstack.registration.sender.service.async.AsyncSubmissionQueue;
+import global.govstack.registration.sender.service.batch.BatchSubmitter;
+import global.govstack.registration.sender.service.metadata.MetadataWatcher;
+import global.govstack.registration.sender.service.metadata.SectionExtractionPool;
+import global.govstack.registration.sender.service.metadata.ServicePipelineRegistry;
+import global.govstack.registration.sender.service.metrics.SubmissionMetrics;
+import global.govstack.registration.sender.service.outbox.DurableOutbox;
+import global.govstack.registration.sender.service.transport.PooledHttpTransport;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
@@ -17,11 +25,34 @@ public class Activator implements BundleActivator {
 
         //Register plugin here
         registrationList.add(context.registerService(DocSubmitter.class.getName(), new DocSubmitter(), null));
+
+        // Pipeline latency and throughput, readable over JMX
+        SubmissionMetrics.registerMBean();
     }
 
     public void stop(BundleContext context) {
         for (ServiceRegistration registration : registrationList) {
             registration.unregister();
         }
+
+        // Let queued asynchronous submissions finish before the bundle goes away
+        AsyncSubmissionQueue.shutdownAll();
+
+        // Records still waiting for a batch are failed so their workflow threads stop waiting
+        BatchSubmitter.shutdownAll();
+
+        // Undelivered outbox entries stay on disk and are retried after the next start
+        DurableOutbox.shutdownAll();
+
+        SectionExtractionPool.shutdownAll();
+
+        ServicePipelineRegistry.shutdownAll();
+
+        MetadataWatcher.shutdownAll();
+
+        // Last, once nothing is sending any more
+        PooledHttpTransport.shutdownAll();
+
+        SubmissionMetrics.unregisterMBean();
     }
 }
@@ -1,21 +1,46 @@
 package global.govstack.registration.sender.lib;
 
+import global.govstack.registration.sender.exception.RegistrationException;
 import global.govstack.registration.sender.model.PluginResponse;
 import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.async.AsyncSubmissionQueue;
+import global.govstack.registration.sender.service.batch.BatchSubmitter;
 import global.govstack.registration.sender.service.metadata.GenericFormDataExtractor;
 import global.govstack.registration.sender.service.metadata.GovStackJsonEncoder;
-import global.govstack.registration.sender.service.metadata.YamlMetadataService;
+import global.govstack.registration.sender.service.metadata.JoinedFormDataLoader;
+import global.govstack.registration.sender.service.metadata.MetadataWatcher;
+import global.govstack.registration.sender.service.metadata.SectionExtractionPool;
+import global.govstack.registration.sender.service.metadata.ServicePipeline;
+import global.govstack.registration.sender.service.metadata.ServicePipelineRegistry;
+import global.govstack.registration.sender.service.outbox.DurableOutbox;
+import global.govstack.registration.sender.service.outbox.OutboxEntry;
+import global.govstack.registration.sender.service.stream.StreamingSubmissionPipeline;
+import global.govstack.registration.sender.service.transport.HttpTransport;
+import global.govstack.registration.sender.service.transport.PooledHttpTransport;
+import global.govstack.registration.sender.util.ProcessVariables;
+import global.govstack.registration.sender.util.SubmissionLog;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.plugin.base.DefaultApplicationPlugin;
 import org.joget.workflow.model.WorkflowAssignment;
 import org.joget.workflow.model.WorkflowVariable;
 import org.joget.workflow.model.service.WorkflowManager;
 import org.joget.commons.util.LogUtil;
+import org.joget.commons.util.SetupManager;
 import org.springframework.context.ApplicationContext;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * GovStack Registration Building Block Plugin for sending Documents
@@ -32,9 +57,8 @@ public class DocSubmitter extends DefaultApplicationPlugin {
     private static final String PLUGIN_NAME = "GovStack Document Submitter";
     private static final String PLUGIN_VERSION = "8.1-SNAPSHOT";
 
-    private YamlMetadataService metadataService;
-    private GenericFormDataExtractor dataExtractor;
-    private GovStackJsonEncoder jsonEncoder;
+    // Outbox location under the Joget base directory
+    private static final String OUTBOX_DIRECTORY = "govstack-outbox";
 
     /**
      * Plugin execution entry point
@@ -42,23 +66,20 @@ public class DocSubmitter extends DefaultApplicationPlugin {
      */
     @Override
     public Object execute(Map properties) {
-        LogUtil.info(getClassName(), "Executing GovStack Document Submitter Plugin");
+        SubmissionLog.Level logLevel = SubmissionLog.Level.fromProperty(getPropertyString("logLevel", properties));
+        // Per-record diagnostics are gathered into one summary line, logged when the scope closes
+        try (SubmissionLog log = SubmissionLog.open(getClassName(), logLevel)) {
+            Object result = executeSubmission(properties);
+            SubmissionLog.detail("outcome", result instanceof PluginResponse && ((PluginResponse) result).isSuccess()
+                ? "success" : "failed");
+            return result;
+        }
+    }
 
+    private Object executeSubmission(Map properties) {
         try {
             // Note: Services will be initialized after we get serviceId from workflow or config
-            // Debug: Log all properties received
-            LogUtil.info(getClassName(), "Received properties count: " + properties.size());
-            for (Object key : properties.keySet()) {
-                Object value = properties.get(key);
-                if (value != null) {
-                    String valueStr = value.toString();
-                    // Limit log length for large values
-                    if (valueStr.length() > 100) {
-                        valueStr = valueStr.substring(0, 100) + "...";
-                    }
-                    LogUtil.info(getClassName(), "Property [" + key + "] = " + valueStr);
-                }
-            }
+            SubmissionLog.debug(getClassName(), () -> describeProperties(properties));
 
             // Get configuration from properties
             String apiEndpoint = getPropertyString("apiEndpoint", properties);
@@ -72,9 +93,15 @@ public class DocSubmitter extends DefaultApplicationPlugin {
             // Get record ID and serviceId using standard Joget pattern
             String recordId = null;
             String serviceId = null;
+            ServicePipeline pipeline = null;
+            ProcessVariables processVariables = null;
             if ("specific".equals(extractionMode)) {
                 recordId = getPropertyString("specificRecordId", properties);
-                LogUtil.info(getClassName(), "Using specific record ID: " + recordId);
+                if (recordId.trim().isEmpty()) {
+                    // Configurations saved before the field was renamed
+                    recordId = getPropertyString("specificFarmerId", properties);
+                }
+                SubmissionLog.detail("record", recordId);
 
                 // Get serviceId from plugin property (no workflow context in specific mode)
                 serviceId = getPropertyString("serviceId", properties);
@@ -82,11 +109,11 @@ public class DocSubmitter extends DefaultApplicationPlugin {
                     LogUtil.error(getClassName(), null, "ServiceId not found in plugin config");
                     return PluginResponse.error("ServiceId configuration missing");
                 }
-                LogUtil.info(getClassName(), "Using serviceId from plugin config: " + serviceId);
+                SubmissionLog.detail("service", serviceId);
 
-                // Initialize services with serviceId
+                // Get the pipeline for this serviceId
                 try {
-                    initializeServices(serviceId);
+                    pipeline = getPipeline(serviceId, properties);
                 } catch (Exception e) {
                     LogUtil.error(getClassName(), e, "Failed to initialize services with serviceId: " + serviceId);
                     return PluginResponse.error("Failed to load service configuration: " + e.getMessage());
@@ -97,19 +124,24 @@ public class DocSubmitter extends DefaultApplicationPlugin {
 
                 if (assignment != null) {
                     String processId = assignment.getProcessId();
-                    LogUtil.info(getClassName(), "Process ID: " + processId);
+                    SubmissionLog.detail("process", processId);
 
                     // Get workflow manager to retrieve process variables
                     WorkflowManager workflowManager = (WorkflowManager) AppUtil.getApplicationContext()
                         .getBean("workflowManager");
 
+                    // All process variables are read once; the lookups below are served from the snapshot
+                    ProcessVariables variables = ProcessVariables.load(workflowManager, processId);
+                    processVariables = variables;
+
                     // Try to get the record ID from workflow variables in priority order
                     String[] variableNames = {"recordId", "formRecordId", "primaryKey", "id"};
 
                     for (String varName : variableNames) {
-                        recordId = workflowManager.getProcessVariable(processId, varName);
+                        recordId = variables.get(varName);
                         if (recordId != null && !recordId.trim().isEmpty()) {
-                            LogUtil.info(getClassName(), "Found record ID in workflow variable '" + varName + "': " + recordId);
+                            SubmissionLog.detail("record", recordId);
+                            SubmissionLog.detail("recordVariable", varName);
                             break;
                         }
                     }
@@ -117,9 +149,9 @@ public class DocSubmitter extends DefaultApplicationPlugin {
                     // Get service ID from workflow variables (set by WorkflowActivator)
                     String[] serviceIdVars = {"serviceId", "service_id"};
                     for (String varName : serviceIdVars) {
-                        serviceId = workflowManager.getProcessVariable(processId, varName);
+                        serviceId = variables.get(varName);
                         if (serviceId != null && !serviceId.trim().isEmpty()) {
-                            LogUtil.info(getClassName(), "Found serviceId in workflow variable '" + varName + "': " + serviceId);
+                            SubmissionLog.detail("service", serviceId);
                             break;
                         }
                     }
@@ -128,7 +160,7 @@ public class DocSubmitter extends DefaultApplicationPlugin {
                     if (serviceId == null || serviceId.trim().isEmpty()) {
                         serviceId = getPropertyString("serviceId", properties);
                         if (serviceId != null && !serviceId.trim().isEmpty()) {
-                            LogUtil.info(getClassName(), "Using serviceId from plugin config: " + serviceId);
+                            SubmissionLog.detail("service", serviceId);
                         }
                     }
 
@@ -138,27 +170,20 @@ public class DocSubmitter extends DefaultApplicationPlugin {
                         return PluginResponse.error("ServiceId configuration missing");
                     }
 
-                    // Initialize services with serviceId
+                    // Get the pipeline for this serviceId
                     try {
-                        initializeServices(serviceId);
+                        pipeline = getPipeline(serviceId, properties);
                     } catch (Exception e) {
                         LogUtil.error(getClassName(), e, "Failed to initialize services with serviceId: " + serviceId);
                         return PluginResponse.error("Failed to load service configuration: " + e.getMessage());
                     }
 
                     // Log all workflow variables for debugging
-                    LogUtil.info(getClassName(), "Checking all process variables for debugging:");
-                    Collection<WorkflowVariable> variables = workflowManager.getProcessVariableList(processId);
-                    if (variables != null) {
-                        for (WorkflowVariable var : variables) {
-                            LogUtil.info(getClassName(), "  Variable [" + var.getId() + "] = " + var.getVal());
-                        }
-                    }
+                    SubmissionLog.debug(getClassName(),
+                        () -> describeProcessVariables(variables.getVariables()));
 
                     if (recordId == null || recordId.trim().isEmpty()) {
                         LogUtil.error(getClassName(), null, "No record ID found in any workflow variable");
-                    } else {
-                        LogUtil.info(getClassName(), "Successfully retrieved record ID: " + recordId);
                     }
                 } else {
                     LogUtil.warn(getClassName(), "WorkflowAssignment is null");
@@ -170,42 +195,8 @@ public class DocSubmitter extends DefaultApplicationPlugin {
                 return PluginResponse.error("Record ID not found");
             }
 
-            LogUtil.info(getClassName(), "Processing registration data for record ID: " + recordId);
-
-            // Extract form data using metadata
-            Map<String, Object> formData = dataExtractor.extractAllFormData(recordId);
-
-            if (formData == null || formData.isEmpty()) {
-                LogUtil.error(getClassName(), null, "No data found for record: " + recordId);
-                return PluginResponse.error("No data found for record: " + recordId);
-            }
-
-            // Convert to GovStack JSON using metadata-driven encoder
-            String govStackJson = jsonEncoder.encodeToGovStackJson(formData);
-
-            if (govStackJson == null) {
-                LogUtil.error(getClassName(), null, "Failed to build GovStack JSON");
-                return PluginResponse.error("Failed to build GovStack JSON");
-            }
-
-            if (logJsonPayload) {
-                LogUtil.info(getClassName(), "GovStack JSON payload:\n" + govStackJson);
-            }
-
-            // Validate if required
-            if (validateBeforeSending) {
-                if (!validateData(formData)) {
-                    LogUtil.error(getClassName(), null, "Data validation failed");
-                    return PluginResponse.error("Data validation failed - missing required fields");
-                }
-            }
-
-            // Wrap in test data format if needed (for compatibility with ProcessingAPI)
+            boolean batchMode = "batch".equals(getPropertyString("submissionMode", properties));
             boolean useTestDataFormat = "true".equals(getPropertyString("useTestDataFormat", properties));
-            if (useTestDataFormat) {
-                govStackJson = jsonEncoder.wrapInTestDataFormat(govStackJson);
-                LogUtil.info(getClassName(), "Wrapped JSON in test data format");
-            }
 
             // Construct full API URL with Joget API format: {baseUrl}/{apiId}/{operation_path}
             // In Joget DX8, APIs require the API ID in the URL path, not just in headers
@@ -215,7 +206,6 @@ public class DocSubmitter extends DefaultApplicationPlugin {
             // Check if URL already contains the API ID and services path (full URL provided)
             if (fullApiUrl.contains("/services/")) {
                 // Full URL already provided - use as-is without modification
-                LogUtil.info(getClassName(), "Using full configured URL: " + fullApiUrl);
             } else {
                 // Base URL provided - construct full path with API ID
                 // Ensure base URL ends with slash before constructing
@@ -224,58 +214,108 @@ public class DocSubmitter extends DefaultApplicationPlugin {
                 }
                 // Format: {baseUrl}{apiId}/services/{serviceId}/applications
                 fullApiUrl += apiId + "/services/" + serviceId + "/applications";
-                LogUtil.info(getClassName(), "Constructed URL with API ID: " + fullApiUrl);
             }
-
-            // Send to API
-            GovStackApiClient apiClient = new GovStackApiClient(fullApiUrl, apiId, apiKey);
+            SubmissionLog.detail("url", fullApiUrl);
 
             // Configure timeouts
-            String connectionTimeoutStr = getPropertyString("connectionTimeout", properties, "30");
-            String readTimeoutStr = getPropertyString("readTimeout", properties, "60");
+            int connectionTimeout = getPropertyInt("connectionTimeout", properties, 30);
+            int readTimeout = getPropertyInt("readTimeout", properties, 60);
+
+            // Connections are pooled per endpoint host and shared across executions
+            int maxConnections = getPropertyInt("maxConnectionsPerHost", properties,
+                PooledHttpTransport.DEFAULT_MAX_CONNECTIONS_PER_HOST);
+            int idleTimeout = getPropertyInt("connectionIdleTimeout", properties,
+                PooledHttpTransport.DEFAULT_IDLE_TIMEOUT_SECONDS);
+            HttpTransport transport = PooledHttpTransport.shared(connectionTimeout * 1000, maxConnections, idleTimeout);
+
+            GovStackApiClient apiClient = new GovStackApiClient(fullApiUrl, apiId, apiKey, transport);
+            apiClient.setConnectionTimeout(connectionTimeout * 1000);
+            apiClient.setReadTimeout(readTimeout * 1000);
+            if ("true".equals(getPropertyString("gzipRequests", properties))) {
+                apiClient.setGzipMinBytes(getPropertyInt("gzipMinBytes", properties, 2048));
+            }
 
-            int connectionTimeout = 30; // default
-            int readTimeout = 60; // default
+            if (batchMode) {
+                return submitBatch(pipeline, processVariables, properties, recordId, extractionMode, apiClient,
+                    useTestDataFormat, validateBeforeSending, logJsonPayload, updateWorkflowStatus,
+                    connectionTimeout + readTimeout);
+            }
 
-            try {
-                if (connectionTimeoutStr != null && !connectionTimeoutStr.trim().isEmpty()) {
-                    connectionTimeout = Integer.parseInt(connectionTimeoutStr);
-                }
-            } catch (NumberFormatException e) {
-                LogUtil.warn(getClassName(), "Invalid connectionTimeout value, using default: 30");
+            if ("stream".equals(getPropertyString("submissionMode", properties))) {
+                return submitStream(pipeline, processVariables, properties, recordId, extractionMode, apiClient,
+                    useTestDataFormat, validateBeforeSending, logJsonPayload, updateWorkflowStatus);
             }
 
-            // Configure API client timeouts
+            SubmissionLog.detail("mode", "async".equals(getPropertyString("submissionMode", properties)) ? "async" : "single");
+
+            byte[] govStackJson;
             try {
-                if (connectionTimeoutStr != null && !connectionTimeoutStr.trim().isEmpty()) {
-                    connectionTimeout = Integer.parseInt(connectionTimeoutStr);
-                    apiClient.setConnectionTimeout(connectionTimeout * 1000);
+                // Wrapped in the test data format if needed (for compatibility with ProcessingAPI)
+                govStackJson = encodeRecord(pipeline, recordId, useTestDataFormat, validateBeforeSending, logJsonPayload);
+            } catch (RegistrationException e) {
+                LogUtil.error(getClassName(), null, e.getMessage());
+                return PluginResponse.error(e.getMessage());
+            }
+
+            WorkflowAssignment assignment = updateWorkflowStatus
+                ? (WorkflowAssignment) properties.get("workflowAssignment") : null;
+            ProcessVariables statusVariables = assignment != null ? variablesOf(assignment, processVariables) : null;
+
+            // With the durable outbox, the payload is on disk before the first send attempt and
+            // the outbox reports the final outcome (including retries) through its listener
+            DurableOutbox outbox = null;
+            OutboxEntry outboxEntry = null;
+            if ("true".equals(getPropertyString("durableOutbox", properties))) {
+                try {
+                    outbox = openOutbox(properties, fullApiUrl, apiId, apiClient);
+                    outboxEntry = outbox.append(DurableOutbox.destinationKey(fullApiUrl, apiId), recordId,
+                        assignment != null ? assignment.getProcessId() : null, govStackJson);
+                } catch (IOException e) {
+                    LogUtil.error(getClassName(), e, "Could not write record " + recordId + " to the outbox, sending without it");
+                    outbox = null;
                 }
-                if (readTimeoutStr != null && !readTimeoutStr.trim().isEmpty()) {
-                    readTimeout = Integer.parseInt(readTimeoutStr);
-                    apiClient.setReadTimeout(readTimeout * 1000);
+            }
+
+            Supplier<GovStackApiClient.ApiResponse> send;
+            if (outboxEntry != null) {
+                DurableOutbox sendOutbox = outbox;
+                OutboxEntry entry = outboxEntry;
+                send = () -> sendOutbox.deliver(entry);
+            } else {
+                byte[] payload = govStackJson;
+                send = () -> apiClient.sendToGovStack(payload);
+            }
+
+            // Set when the process was marked queued but the record is sent on the workflow thread instead
+            boolean queueFallback = false;
+            if ("async".equals(getPropertyString("submissionMode", properties))) {
+                if (enqueueSubmission(properties, recordId, send, outboxEntry == null ? statusVariables : null,
+                        statusVariables)) {
+                    return PluginResponse.success("Queued registration data for asynchronous delivery, record ID: " + recordId);
                 }
-            } catch (NumberFormatException e) {
-                LogUtil.warn(getClassName(), "Invalid timeout value, using defaults");
+                LogUtil.warn(getClassName(), "Submission queue unavailable, sending record " + recordId + " on the workflow thread");
+                queueFallback = true;
             }
 
             // Send to API
-            GovStackApiClient.ApiResponse apiResponse = apiClient.sendToGovStack(govStackJson);
+            GovStackApiClient.ApiResponse apiResponse = send.get();
 
             if (apiResponse.isSuccess()) {
-                LogUtil.info(getClassName(), "Successfully sent data to GovStack API");
-
-                // Update workflow variables if configured
-                if (updateWorkflowStatus) {
-                    WorkflowAssignment assignment = (WorkflowAssignment) properties.get("workflowAssignment");
-                    if (assignment != null) {
-                        updateWorkflowVariables(assignment, apiResponse);
-                    }
+                // Update workflow variables if configured (the outbox listener does this for outbox entries)
+                if (statusVariables != null && outboxEntry == null) {
+                    updateWorkflowVariables(statusVariables, apiResponse);
                 }
 
                 return PluginResponse.success("Successfully processed and sent registration data with record ID: " + recordId);
+            } else if (outboxEntry != null && !outboxEntry.isCompleted()) {
+                LogUtil.warn(getClassName(), "API call failed, record " + recordId + " kept in outbox for retry: " + apiResponse.getMessage());
+                return PluginResponse.error("Failed to send data, queued for retry: " + apiResponse.getMessage());
             } else {
                 LogUtil.error(getClassName(), null, "API call failed: " + apiResponse.getMessage());
+                // Replace the queued status; without the outbox nothing else will report this record
+                if (queueFallback && statusVariables != null && outboxEntry == null) {
+                    updateWorkflowVariables(statusVariables, apiResponse);
+                }
                 return PluginResponse.error("Failed to send data: " + apiResponse.getMessage());
             }
 
@@ -285,6 +325,288 @@ public class DocSubmitter extends DefaultApplicationPlugin {
         }
     }
 
+    /**
+     * Hand the API call for an encoded record to the shared asynchronous submission queue
+     *
+     * The workflow thread returns as soon as the record is queued; the workflow variables are
+     * updated from the worker thread once delivery completes.
+     *
+     * @param send Performs the API call
+     * @param callbackVariables The process to update from the completion callback, or null
+     * @param statusVariables The process being processed, or null if not updating workflow status
+     * @return true if queued, false if the queue stayed full and the caller should send inline; the
+     *         process is then already marked queued, so the caller must report a failed inline send
+     */
+    private boolean enqueueSubmission(Map properties, String recordId, Supplier<GovStackApiClient.ApiResponse> send,
+                                      ProcessVariables callbackVariables, ProcessVariables statusVariables) {
+        int workers = getPropertyInt("asyncWorkers", properties, AsyncSubmissionQueue.DEFAULT_WORKERS);
+        int capacity = getPropertyInt("asyncQueueCapacity", properties, AsyncSubmissionQueue.DEFAULT_QUEUE_CAPACITY);
+        long enqueueTimeout = getPropertyInt("asyncEnqueueTimeoutMs", properties,
+            (int) AsyncSubmissionQueue.DEFAULT_ENQUEUE_TIMEOUT_MS);
+
+        if (statusVariables != null) {
+            // Set before queueing so the final status from the callback can never be overwritten
+            markSubmissionQueued(statusVariables);
+        }
+
+        return AsyncSubmissionQueue.shared(workers, capacity).submit(recordId, send,
+            apiResponse -> {
+                if (apiResponse.isSuccess()) {
+                    LogUtil.info(getClassName(), "Asynchronously delivered record " + recordId);
+                } else {
+                    LogUtil.error(getClassName(), null, "Asynchronous delivery failed for record " + recordId +
+                        ": " + apiResponse.getMessage());
+                }
+                if (callbackVariables != null) {
+                    updateWorkflowVariables(callbackVariables, apiResponse);
+                }
+            },
+            enqueueTimeout);
+    }
+
+    /**
+     * Open the shared outbox and register this execution's client as the destination
+     *
+     * The outbox lives under the Joget base directory unless outboxDirectory is set.
+     */
+    private DurableOutbox openOutbox(Map properties, String fullApiUrl, String apiId, GovStackApiClient apiClient)
+            throws IOException {
+        String directory = getPropertyString("outboxDirectory", properties);
+        File outboxDir = directory != null && !directory.trim().isEmpty()
+            ? new File(directory.trim())
+            : new File(SetupManager.getBaseDirectory(), OUTBOX_DIRECTORY);
+
+        DurableOutbox outbox = DurableOutbox.open(outboxDir);
+        outbox.setCompletionListener((entry, apiResponse) -> {
+            if (!entry.getProcessId().isEmpty()) {
+                updateWorkflowVariables(ProcessVariables.unloaded(entry.getProcessId()), apiResponse);
+            }
+        });
+        outbox.registerDestination(DurableOutbox.destinationKey(fullApiUrl, apiId), apiClient,
+            "true".equals(getPropertyString("retryOnFailure", properties)),
+            getPropertyInt("maxRetries", properties, 3));
+        return outbox;
+    }
+
+    /**
+     * Extract, encode and optionally validate a single record
+     *
+     * @param pipeline The service's extractor and encoder
+     * @param recordId The record ID
+     * @param testDataEnvelope Whether to wrap the document as {"testData": [...]}
+     * @param validateBeforeSending Whether to validate the extracted data
+     * @param logJsonPayload Whether to log the encoded JSON
+     * @return The compact GovStack JSON for the record, UTF-8 encoded
+     * @throws RegistrationException if the record cannot be encoded or fails validation
+     */
+    private byte[] encodeRecord(ServicePipeline pipeline, String recordId, boolean testDataEnvelope,
+                                boolean validateBeforeSending, boolean logJsonPayload) throws RegistrationException {
+        // Extract form data using metadata
+        return encodeFormData(pipeline.getJsonEncoder(), recordId,
+            pipeline.getDataExtractor().extractAllFormData(recordId), testDataEnvelope, validateBeforeSending,
+            logJsonPayload);
+    }
+
+    /**
+     * Encode and optionally validate the extracted data of a record
+     *
+     * @param formData The record's extracted form data
+     * @see #encodeRecord
+     */
+    private byte[] encodeFormData(GovStackJsonEncoder jsonEncoder, String recordId, Map<String, Object> formData,
+                                  boolean testDataEnvelope, boolean validateBeforeSending, boolean logJsonPayload)
+            throws RegistrationException {
+        if (formData == null || formData.isEmpty()) {
+            throw new RegistrationException("No data found for record: " + recordId);
+        }
+
+        // Convert to GovStack JSON using metadata-driven encoder
+        byte[] govStackJson = jsonEncoder.encodeToGovStackBytes(formData, testDataEnvelope);
+
+        if (govStackJson == null) {
+            throw new RegistrationException("Failed to build GovStack JSON");
+        }
+
+        if (logJsonPayload) {
+            logPayload(jsonEncoder, formData, testDataEnvelope);
+        }
+
+        // Validate if required
+        if (validateBeforeSending && !validateData(formData)) {
+            throw new RegistrationException("Data validation failed - missing required fields");
+        }
+
+        return govStackJson;
+    }
+
+    /**
+     * Log a record's payload, pretty-printed; only the sent payload is compact
+     */
+    private void logPayload(GovStackJsonEncoder jsonEncoder, Map<String, Object> formData, boolean testDataEnvelope) {
+        LogUtil.info(getClassName(), "GovStack JSON payload:\n" + jsonEncoder.encodeToGovStackJson(formData, testDataEnvelope));
+    }
+
+    /**
+     * Submit records through the shared batch submitter and wait for their results
+     *
+     * In workflow mode this is the current process's record; concurrent executions against the
+     * same endpoint are gathered into one request. In specific mode specificRecordId may hold a
+     * comma-separated list of record IDs, which is useful for backfills.
+     */
+    private PluginResponse submitBatch(ServicePipeline pipeline, ProcessVariables processVariables,
+                                       Map properties, String recordId,
+                                       String extractionMode, GovStackApiClient apiClient,
+                                       boolean useTestDataFormat, boolean validateBeforeSending,
+                                       boolean logJsonPayload, boolean updateWorkflowStatus, int timeoutSeconds) {
+        int batchSize = getPropertyInt("batchSize", properties, BatchSubmitter.DEFAULT_BATCH_SIZE);
+        int lingerMs = getPropertyInt("batchLingerMs", properties, (int) BatchSubmitter.DEFAULT_LINGER_MS);
+        BatchSubmitter.BatchFormat format = useTestDataFormat
+            ? BatchSubmitter.BatchFormat.TEST_DATA
+            : BatchSubmitter.BatchFormat.fromProperty(getPropertyString("batchFormat", properties));
+
+        GovStackJsonEncoder jsonEncoder = pipeline.getJsonEncoder();
+        BatchSubmitter submitter = BatchSubmitter.forEndpoint(apiClient, format, batchSize, lingerMs);
+
+        List<String> recordIds = parseRecordIds(recordId, extractionMode);
+
+        SubmissionLog.detail("mode", "batch");
+        SubmissionLog.detail("records", recordIds.size());
+        SubmissionLog.detail("batchSize", submitter.getBatchSize());
+        SubmissionLog.detail("format", submitter.getFormat());
+
+        // Records are extracted in chunks with set-based queries when the joined strategy is used
+        List<String> failures = new ArrayList<>();
+        Map<String, CompletableFuture<GovStackApiClient.ApiResponse>> results = new LinkedHashMap<>();
+        pipeline.getDataExtractor().extractAll(recordIds, JoinedFormDataLoader.DEFAULT_CHUNK_SIZE, (id, formData) -> {
+            try {
+                // Documents are queued bare; the submitter puts the whole batch into one envelope
+                byte[] document = encodeFormData(jsonEncoder, id, formData, false, validateBeforeSending, logJsonPayload);
+                results.put(id, submitter.submit(id, document));
+            } catch (RegistrationException e) {
+                LogUtil.error(getClassName(), null, e.getMessage());
+                failures.add(id + ": " + e.getMessage());
+            }
+        });
+
+        if (recordIds.size() > 1) {
+            // All records of this execution are queued; no need to linger for the last chunk
+            submitter.flush();
+        }
+
+        // Wait for every queued record: it may sit up to the linger time before its request is sent
+        long waitMs = timeoutSeconds * 1000L + submitter.getLingerMs();
+        WorkflowAssignment assignment = (WorkflowAssignment) properties.get("workflowAssignment");
+        for (Map.Entry<String, CompletableFuture<GovStackApiClient.ApiResponse>> entry : results.entrySet()) {
+            GovStackApiClient.ApiResponse apiResponse;
+            try {
+                apiResponse = entry.getValue().get(waitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.add(entry.getKey() + ": interrupted while waiting for batch result");
+                continue;
+            } catch (ExecutionException | TimeoutException e) {
+                failures.add(entry.getKey() + ": no batch result (" + e + ")");
+                continue;
+            }
+
+            if (!apiResponse.isSuccess()) {
+                LogUtil.error(getClassName(), null, "API call failed for record " + entry.getKey() + ": " + apiResponse.getMessage());
+                failures.add(entry.getKey() + ": " + apiResponse.getMessage());
+                continue;
+            }
+
+            // Update workflow variables if configured (workflow mode has exactly one record)
+            if (updateWorkflowStatus && assignment != null) {
+                updateWorkflowVariables(variablesOf(assignment, processVariables), apiResponse);
+            }
+        }
+
+        if (failures.isEmpty()) {
+            return PluginResponse.success("Successfully processed and sent " + recordIds.size() +
+                " record(s) in batch mode: " + String.join(",", recordIds));
+        }
+        if (recordIds.size() == 1) {
+            return PluginResponse.error("Failed to send data: " + failures.get(0));
+        }
+        return PluginResponse.error("Batch submission: " + failures.size() + " of " + recordIds.size() +
+            " records failed: " + String.join("; ", failures));
+    }
+
+    /**
+     * Stream records through extraction, encoding and delivery with a bounded number in flight
+     *
+     * Meant for backfills over many records: records are read in chunks, each is sent in its own
+     * request as soon as it is encoded, and extraction pauses while streamMaxInFlight records are
+     * waiting, so memory use does not grow with the number of records.
+     */
+    private PluginResponse submitStream(ServicePipeline pipeline, ProcessVariables processVariables,
+                                        Map properties, String recordId,
+                                        String extractionMode, GovStackApiClient apiClient, boolean useTestDataFormat,
+                                        boolean validateBeforeSending, boolean logJsonPayload,
+                                        boolean updateWorkflowStatus) {
+        List<String> recordIds = parseRecordIds(recordId, extractionMode);
+        SubmissionLog.detail("mode", "stream");
+        SubmissionLog.detail("records", recordIds.size());
+        int workers = getPropertyInt("streamWorkers", properties, StreamingSubmissionPipeline.DEFAULT_WORKERS);
+        int maxInFlight = getPropertyInt("streamMaxInFlight", properties, StreamingSubmissionPipeline.DEFAULT_MAX_IN_FLIGHT);
+
+        GovStackJsonEncoder jsonEncoder = pipeline.getJsonEncoder();
+        StreamingSubmissionPipeline stream = new StreamingSubmissionPipeline(pipeline.getDataExtractor(),
+            (id, formData, body) -> {
+                if (formData == null || formData.isEmpty()) {
+                    throw new RegistrationException("No data found for record: " + id);
+                }
+                if (logJsonPayload) {
+                    logPayload(jsonEncoder, formData, useTestDataFormat);
+                }
+                if (validateBeforeSending && !validateData(formData)) {
+                    throw new RegistrationException("Data validation failed - missing required fields");
+                }
+                if (!jsonEncoder.writeGovStackJson(formData, body, useTestDataFormat)) {
+                    throw new RegistrationException("Failed to build GovStack JSON");
+                }
+            },
+            apiClient, workers, maxInFlight);
+
+        // Workflow mode has exactly one record: the current process's
+        WorkflowAssignment assignment = updateWorkflowStatus && recordIds.size() == 1
+            ? (WorkflowAssignment) properties.get("workflowAssignment") : null;
+        ProcessVariables statusVariables = assignment != null ? variablesOf(assignment, processVariables) : null;
+
+        StreamingSubmissionPipeline.Result result = stream.run(recordIds, JoinedFormDataLoader.DEFAULT_CHUNK_SIZE,
+            statusVariables == null ? null : (id, apiResponse) -> {
+                if (apiResponse.isSuccess()) {
+                    updateWorkflowVariables(statusVariables, apiResponse);
+                }
+            });
+
+        if (result.isSuccess()) {
+            return PluginResponse.success("Successfully processed and streamed " + result.getSucceeded() + " record(s)");
+        }
+        if (recordIds.size() == 1 && !result.getFailures().isEmpty()) {
+            return PluginResponse.error("Failed to send data: " + result.getFailures().get(0));
+        }
+        return PluginResponse.error("Stream submission: " + (result.getTotal() - result.getSucceeded()) + " of " +
+            result.getTotal() + " records not sent: " + String.join("; ", result.getFailures()));
+    }
+
+    /**
+     * Get the records of this execution: in specific mode specificRecordId may be a comma-separated list
+     */
+    private List<String> parseRecordIds(String recordId, String extractionMode) {
+        List<String> recordIds = new ArrayList<>();
+        if ("specific".equals(extractionMode)) {
+            for (String id : recordId.split(",")) {
+                if (!id.trim().isEmpty()) {
+                    recordIds.add(id.trim());
+                }
+            }
+        } else {
+            recordIds.add(recordId);
+        }
+        return recordIds;
+    }
+
     /**
      * Get property string value with default
      */
@@ -298,24 +620,68 @@ public class DocSubmitter extends DefaultApplicationPlugin {
     }
 
     /**
-     * Initialize metadata-driven services with serviceId
-     * @param serviceId The service identifier (e.g., farmers_registry, subsidy_application)
+     * All received properties, one per line, with long values cut short
      */
-    private void initializeServices(String serviceId) throws Exception {
-        if (metadataService == null) {
-            metadataService = new YamlMetadataService();
+    private static String describeProperties(Map properties) {
+        StringBuilder message = new StringBuilder("Received properties count: ").append(properties.size());
+        for (Object key : properties.keySet()) {
+            Object value = properties.get(key);
+            if (value != null) {
+                String valueStr = value.toString();
+                // Limit log length for large values
+                if (valueStr.length() > 100) {
+                    valueStr = valueStr.substring(0, 100) + "...";
+                }
+                message.append("\n  Property [").append(key).append("] = ").append(valueStr);
+            }
         }
+        return message.toString();
+    }
 
-        // Load metadata configuration for this specific service
-        metadataService.loadMetadata(serviceId);
+    /**
+     * All process variables, one per line
+     */
+    private static String describeProcessVariables(Collection<WorkflowVariable> variables) {
+        StringBuilder message = new StringBuilder("Process variables:");
+        if (variables != null) {
+            for (WorkflowVariable var : variables) {
+                message.append("\n  Variable [").append(var.getId()).append("] = ").append(var.getVal());
+            }
+        }
+        return message.toString();
+    }
 
-        if (dataExtractor == null) {
-            dataExtractor = new GenericFormDataExtractor(metadataService);
+    /**
+     * Get property integer value with default, logging invalid values
+     */
+    private int getPropertyInt(String property, Map properties, int defaultValue) {
+        String value = getPropertyString(property, properties);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
         }
-        if (jsonEncoder == null) {
-            jsonEncoder = new GovStackJsonEncoder(metadataService);
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LogUtil.warn(getClassName(), "Invalid " + property + " value, using default: " + defaultValue);
+            return defaultValue;
         }
-        LogUtil.info(getClassName(), "Initialized metadata-driven services for serviceId: " + serviceId);
+    }
+
+    /**
+     * Get the shared extractor and encoder for a service's current metadata
+     * @param serviceId The service identifier (e.g., farmers_registry, subsidy_application)
+     * @param properties Plugin properties
+     */
+    private ServicePipeline getPipeline(String serviceId, Map properties) throws Exception {
+        ServicePipeline.Settings settings = new ServicePipeline.Settings(
+            getPropertyString("extractionStrategy", properties),
+            getPropertyInt("extractionThreads", properties, SectionExtractionPool.DEFAULT_THREADS),
+            getPropertyInt("extractionTimeoutMs", properties, (int) GenericFormDataExtractor.DEFAULT_SECTION_TIMEOUT_MS));
+
+        ServicePipeline pipeline = ServicePipelineRegistry.shared().get(serviceId, settings,
+            "true".equals(getPropertyString("metadataHotReload", properties)) ? MetadataWatcher.shared() : null);
+        SubmissionLog.debug(getClassName(), () -> "Using metadata-driven pipeline for serviceId: " + serviceId);
+        return pipeline;
     }
 
     /**
@@ -349,30 +715,54 @@ public class DocSubmitter extends DefaultApplicationPlugin {
         return true;
     }
 
+    /**
+     * The execution's variable snapshot if it belongs to the assignment's process, otherwise an unread one
+     */
+    private static ProcessVariables variablesOf(WorkflowAssignment assignment, ProcessVariables processVariables) {
+        return processVariables != null && processVariables.getProcessId().equals(assignment.getProcessId())
+            ? processVariables : ProcessVariables.unloaded(assignment.getProcessId());
+    }
+
     /**
      * Update workflow variables with API response
+     *
+     * The three variables are written together; values the process already holds are skipped.
      */
-    private void updateWorkflowVariables(WorkflowAssignment assignment, GovStackApiClient.ApiResponse response) {
+    private void updateWorkflowVariables(ProcessVariables variables, GovStackApiClient.ApiResponse response) {
         try {
             ApplicationContext appContext = AppUtil.getApplicationContext();
             WorkflowManager workflowManager = (WorkflowManager) appContext.getBean("workflowManager");
 
             if (workflowManager != null) {
-                String processId = assignment.getProcessId();
+                Map<String, String> updates = new LinkedHashMap<>();
+                updates.put("submissionStatus", response.isSuccess() ? "success" : "failed");
+                updates.put("applicationId", response.getApplicationId());
+                updates.put("submissionMessage", response.getMessage());
+                int written = variables.write(workflowManager, updates);
+
+                SubmissionLog.debug(getClassName(), () -> "Updated " + written + " workflow variable(s) for process: " +
+                    variables.getProcessId());
+            }
+        } catch (Exception e) {
+            LogUtil.error(getClassName(), e, "Error updating workflow variables");
+        }
+    }
 
-                // Set workflow variables
-                workflowManager.processVariable(processId, "submissionStatus", response.isSuccess() ? "success" : "failed");
-                workflowManager.processVariable(processId, "applicationId", response.getApplicationId());
-                workflowManager.processVariable(processId, "submissionMessage", response.getMessage());
 
-                LogUtil.info(getClassName(), "Updated workflow variables for process: " + processId);
+    /**
+     * Mark a process as waiting for asynchronous delivery
+     */
+    private void markSubmissionQueued(ProcessVariables variables) {
+        try {
+            WorkflowManager workflowManager = (WorkflowManager) AppUtil.getApplicationContext().getBean("workflowManager");
+            if (workflowManager != null) {
+                variables.write(workflowManager, Collections.singletonMap("submissionStatus", "queued"));
             }
         } catch (Exception e) {
             LogUtil.error(getClassName(), e, "Error updating workflow variables");
         }
     }
 
-
     @Override
     public String getName() {
         return PLUGIN_NAME;
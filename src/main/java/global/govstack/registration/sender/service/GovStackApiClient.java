@@ -2,16 +2,35 @@ package global.govstack.registration.sender.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import global.govstack.registration.sender.service.metrics.SubmissionMetrics;
+import global.govstack.registration.sender.service.transport.HttpTransport;
+import global.govstack.registration.sender.service.transport.PooledHttpTransport;
+import global.govstack.registration.sender.util.SubmissionLog;
 import org.joget.commons.util.LogUtil;
 
-import java.io.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * HTTP client for sending data to GovStack Processing Server API
+ *
+ * Requests go through a shared {@link HttpTransport}, so connections to the Processing API
+ * are kept alive and reused across submissions instead of being opened per call.
+ *
+ * Request bodies can optionally be sent gzip-compressed ({@link #setGzipMinBytes}); bodies
+ * below the threshold are sent as they are, since compressing them costs more than it saves.
+ *
+ * Every request is recorded in the shared {@link SubmissionMetrics}: send latency, bytes on the
+ * wire and status class. The outcome of each record is recorded once its result is final, so
+ * callers that retry use {@link #attemptToGovStack} and record the outcome themselves.
  */
 public class GovStackApiClient {
 
@@ -23,6 +42,10 @@ public class GovStackApiClient {
     private String apiKey;
     private int connectionTimeout = 30000; // 30 seconds
     private int readTimeout = 60000; // 60 seconds
+    private int gzipMinBytes = -1; // compression disabled
+    private HttpTransport transport;
+    private final Map<String, String> customHeaders = new LinkedHashMap<>();
+    private final SubmissionMetrics metrics = SubmissionMetrics.shared();
 
     /**
      * Constructor with configuration
@@ -33,125 +56,282 @@ public class GovStackApiClient {
         this.apiKey = apiKey;
     }
 
+    /**
+     * Constructor with an explicit transport (e.g. a shared connection pool)
+     */
+    public GovStackApiClient(String apiEndpoint, String apiId, String apiKey, HttpTransport transport) {
+        this(apiEndpoint, apiId, apiKey);
+        this.transport = transport;
+    }
+
     /**
      * Send data to GovStack API
      * @param jsonPayload The GovStack-formatted JSON
      * @return Response from API
      */
     public ApiResponse sendToGovStack(String jsonPayload) {
-        LogUtil.info(CLASS_NAME, "Sending data to GovStack API: " + apiEndpoint);
+        return sendToGovStack(jsonPayload.getBytes(StandardCharsets.UTF_8));
+    }
 
-        HttpURLConnection conn = null;
+    /**
+     * Send an already encoded request body to GovStack API
+     * @param body The GovStack-formatted JSON, UTF-8 encoded
+     * @return Response from API
+     */
+    public ApiResponse sendToGovStack(byte[] body) {
+        ApiResponse apiResponse = attemptToGovStack(body);
+        metrics.recordOutcome(apiResponse.isSuccess(), 1);
+        return apiResponse;
+    }
+
+    /**
+     * Send an encoded record once, without recording its outcome
+     *
+     * For callers that may retry the record; they record the final outcome with
+     * {@link SubmissionMetrics#recordOutcome}.
+     *
+     * @param body The GovStack-formatted JSON, UTF-8 encoded
+     * @return Response from API
+     */
+    public ApiResponse attemptToGovStack(byte[] body) {
+        SubmissionLog.debug(CLASS_NAME, () -> "Sending data to GovStack API: " + apiEndpoint);
 
+        ApiResponse apiResponse;
         try {
-            // Create connection
-            URL url = new URL(apiEndpoint);
-            conn = (HttpURLConnection) url.openConnection();
-
-            // Configure connection
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setRequestProperty("Accept", "application/json");
-
-            // Add authentication headers
-            if (apiId != null && !apiId.trim().isEmpty()) {
-                conn.setRequestProperty("api_id", apiId);
-            }
-            if (apiKey != null && !apiKey.trim().isEmpty()) {
-                conn.setRequestProperty("api_key", apiKey);
-            }
+            HttpTransport.Response response = post(body);
 
-            // Set timeouts
-            conn.setConnectTimeout(connectionTimeout);
-            conn.setReadTimeout(readTimeout);
+            // Get response code
+            int responseCode = response.getStatusCode();
+            SubmissionLog.detail("status", responseCode);
 
-            // Enable input/output
-            conn.setDoOutput(true);
-            conn.setDoInput(true);
+            apiResponse = parseResponse(responseCode, response.getBody());
 
-            // Send request body
-            try (OutputStreamWriter writer = new OutputStreamWriter(conn.getOutputStream(), StandardCharsets.UTF_8)) {
-                writer.write(jsonPayload);
-                writer.flush();
-            }
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Error calling GovStack API");
 
-            // Get response code
-            int responseCode = conn.getResponseCode();
-            LogUtil.info(CLASS_NAME, "API Response Code: " + responseCode);
+            apiResponse = new ApiResponse();
+            apiResponse.setSuccess(false);
+            apiResponse.setStatusCode(-1);
+            apiResponse.setMessage("Error calling API: " + e.getMessage());
+            apiResponse.setErrorDetails(e.toString());
+        }
 
-            // Read response
-            String responseBody = readResponse(conn, responseCode >= 200 && responseCode < 300);
+        return apiResponse;
+    }
 
-            // Parse response
-            ApiResponse apiResponse = new ApiResponse();
-            apiResponse.setStatusCode(responseCode);
-            apiResponse.setSuccess(responseCode >= 200 && responseCode < 300);
-            apiResponse.setResponseBody(responseBody);
-
-            // Try to extract specific fields from response
-            try {
-                JsonNode responseJson = mapper.readTree(responseBody);
-                if (responseJson.has("success")) {
-                    apiResponse.setSuccess(responseJson.get("success").asBoolean());
-                }
-                if (responseJson.has("applicationId")) {
-                    apiResponse.setApplicationId(responseJson.get("applicationId").asText());
-                }
-                if (responseJson.has("message")) {
-                    apiResponse.setMessage(responseJson.get("message").asText());
-                }
-                if (responseJson.has("errors")) {
-                    apiResponse.setErrorDetails(responseJson.get("errors").toString());
+    /**
+     * Send a batch payload holding several records in one request
+     *
+     * The Processing API answers a batch with one result per record, either as a JSON array
+     * or as {"results": [...]}, in submission order. If the response carries no per-record
+     * results (e.g. a transport error or a single summary object), that outcome applies to
+     * every record in the batch.
+     *
+     * @param batchPayload The batch JSON (array or testData envelope)
+     * @param recordCount Number of records in the batch
+     * @return One response per record, in submission order
+     */
+    public List<ApiResponse> sendBatchToGovStack(String batchPayload, int recordCount) {
+        return sendBatchToGovStack(batchPayload.getBytes(StandardCharsets.UTF_8), recordCount);
+    }
+
+    /**
+     * Send an already encoded batch payload
+     *
+     * @param batchBody The batch JSON, UTF-8 encoded
+     * @see #sendBatchToGovStack(String, int)
+     */
+    public List<ApiResponse> sendBatchToGovStack(byte[] batchBody, int recordCount) {
+        SubmissionLog.debug(CLASS_NAME, () -> "Sending batch of " + recordCount + " records to GovStack API: " + apiEndpoint);
+
+        ApiResponse batchResponse;
+        try {
+            HttpTransport.Response response = post(batchBody);
+
+            int responseCode = response.getStatusCode();
+            SubmissionLog.detail("status", responseCode);
+
+            List<ApiResponse> results = parseBatchResults(responseCode, response.getBody(), recordCount);
+            if (results != null) {
+                for (ApiResponse result : results) {
+                    metrics.recordOutcome(result.isSuccess(), 1);
                 }
-            } catch (Exception e) {
-                LogUtil.warn(CLASS_NAME, "Could not parse response JSON: " + e.getMessage());
+                return results;
             }
+            batchResponse = parseResponse(responseCode, response.getBody());
+
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Error calling GovStack API with batch");
 
-            LogUtil.info(CLASS_NAME, "API call completed. Success: " + apiResponse.isSuccess());
+            batchResponse = new ApiResponse();
+            batchResponse.setSuccess(false);
+            batchResponse.setStatusCode(-1);
+            batchResponse.setMessage("Error calling API: " + e.getMessage());
+            batchResponse.setErrorDetails(e.toString());
+        }
 
-            return apiResponse;
+        metrics.recordOutcome(batchResponse.isSuccess(), recordCount);
+        List<ApiResponse> results = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            results.add(batchResponse);
+        }
+        return results;
+    }
 
+    /**
+     * Extract per-record results from a batch response
+     *
+     * @return The results in submission order, or null if the response has no usable per-record results
+     */
+    private List<ApiResponse> parseBatchResults(int responseCode, String responseBody, int recordCount) {
+        JsonNode items;
+        try {
+            JsonNode responseJson = mapper.readTree(responseBody);
+            items = responseJson != null && responseJson.has("results") ? responseJson.get("results") : responseJson;
         } catch (Exception e) {
-            LogUtil.error(CLASS_NAME, e, "Error calling GovStack API");
+            return null;
+        }
 
-            ApiResponse errorResponse = new ApiResponse();
-            errorResponse.setSuccess(false);
-            errorResponse.setStatusCode(-1);
-            errorResponse.setMessage("Error calling API: " + e.getMessage());
-            errorResponse.setErrorDetails(e.toString());
+        if (items == null || !items.isArray() || items.size() != recordCount) {
+            if (items != null && items.isArray()) {
+                LogUtil.warn(CLASS_NAME, "Batch response has " + items.size() + " results for " + recordCount + " records");
+            }
+            return null;
+        }
 
-            return errorResponse;
+        boolean httpSuccess = responseCode >= 200 && responseCode < 300;
+        List<ApiResponse> results = new ArrayList<>(recordCount);
+        for (JsonNode item : items) {
+            ApiResponse apiResponse = new ApiResponse();
+            apiResponse.setStatusCode(responseCode);
+            apiResponse.setSuccess(httpSuccess);
+            apiResponse.setResponseBody(item.toString());
+            applyResponseFields(apiResponse, item);
+            results.add(apiResponse);
+        }
+        return results;
+    }
 
+    /**
+     * POST a request body to the endpoint, compressing it if it reaches the gzip threshold
+     */
+    private HttpTransport.Response post(byte[] body) throws IOException {
+        Map<String, String> headers = buildHeaders();
+        SubmissionLog.detail("bodyBytes", body.length);
+        if (gzipMinBytes >= 0 && body.length >= gzipMinBytes) {
+            body = gzip(body);
+            headers.put("Content-Encoding", "gzip");
+            SubmissionLog.detail("gzipBytes", body.length);
+        }
+
+        long start = SubmissionMetrics.startTimer();
+        int statusCode = -1;
+        try {
+            HttpTransport.Response response = getTransport().post(apiEndpoint, headers, body, readTimeout);
+            statusCode = response.getStatusCode();
+            return response;
         } finally {
-            if (conn != null) {
-                conn.disconnect();
-            }
+            metrics.recordStage(SubmissionMetrics.Stage.SEND, start);
+            metrics.recordRequest(statusCode, body.length);
         }
     }
 
     /**
-     * Read response from connection
+     * Gzip a request body
      */
-    private String readResponse(HttpURLConnection conn, boolean success) throws IOException {
-        StringBuilder response = new StringBuilder();
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, 8192)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Build the request headers, including authentication
+     */
+    private Map<String, String> buildHeaders() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", "application/json");
+        headers.put("Accept", "application/json");
+
+        // Add authentication headers
+        if (apiId != null && !apiId.trim().isEmpty()) {
+            headers.put("api_id", apiId);
+        }
+        if (apiKey != null && !apiKey.trim().isEmpty()) {
+            headers.put("api_key", apiKey);
+        }
 
-        InputStream inputStream = success ? conn.getInputStream() : conn.getErrorStream();
+        headers.putAll(customHeaders);
+        return headers;
+    }
 
-        if (inputStream != null) {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line).append("\n");
-                }
-            }
+    /**
+     * Build an ApiResponse from the HTTP status and response body
+     */
+    private ApiResponse parseResponse(int responseCode, String responseBody) {
+        ApiResponse apiResponse = new ApiResponse();
+        apiResponse.setStatusCode(responseCode);
+        apiResponse.setSuccess(responseCode >= 200 && responseCode < 300);
+        apiResponse.setResponseBody(responseBody);
+
+        // Try to extract specific fields from response
+        try {
+            applyResponseFields(apiResponse, mapper.readTree(responseBody));
+        } catch (Exception e) {
+            LogUtil.warn(CLASS_NAME, "Could not parse response JSON: " + e.getMessage());
         }
 
-        return response.toString();
+        return apiResponse;
     }
 
     /**
-     * Set custom headers if needed
+     * Copy the known result fields of a response object onto an ApiResponse
      */
+    private void applyResponseFields(ApiResponse apiResponse, JsonNode responseJson) {
+        if (responseJson.has("success")) {
+            apiResponse.setSuccess(responseJson.get("success").asBoolean());
+        }
+        if (responseJson.has("applicationId")) {
+            apiResponse.setApplicationId(responseJson.get("applicationId").asText());
+        }
+        if (responseJson.has("message")) {
+            apiResponse.setMessage(responseJson.get("message").asText());
+        }
+        if (responseJson.has("errors")) {
+            apiResponse.setErrorDetails(responseJson.get("errors").toString());
+        }
+    }
+
+    /**
+     * Get the transport, falling back to the shared pool for the configured connection timeout
+     */
+    private HttpTransport getTransport() {
+        if (transport == null) {
+            transport = PooledHttpTransport.shared(connectionTimeout,
+                PooledHttpTransport.DEFAULT_MAX_CONNECTIONS_PER_HOST,
+                PooledHttpTransport.DEFAULT_IDLE_TIMEOUT_SECONDS);
+        }
+        return transport;
+    }
+
+    /**
+     * Set custom headers to send with every request
+     */
+    public void setCustomHeaders(Map<String, String> headers) {
+        customHeaders.clear();
+        if (headers != null) {
+            customHeaders.putAll(headers);
+        }
+    }
+
+    /**
+     * Set custom headers on a connection
+     *
+     * @deprecated Requests no longer go through HttpURLConnection; use {@link #setCustomHeaders(Map)}
+     */
+    @Deprecated
     public void setCustomHeaders(Map<String, String> headers, HttpURLConnection conn) {
         if (headers != null) {
             for (Map.Entry<String, String> entry : headers.entrySet()) {
@@ -160,6 +340,17 @@ public class GovStackApiClient {
         }
     }
 
+    /**
+     * Key that is equal for clients sending identical requests
+     *
+     * Covers the endpoint, credentials, custom headers, timeouts, compression and transport, so
+     * requests from clients with the same key can be sent by any of them.
+     */
+    public Object getConfigurationKey() {
+        return Arrays.asList(apiEndpoint, apiId, apiKey, new LinkedHashMap<>(customHeaders),
+            connectionTimeout, readTimeout, gzipMinBytes, getTransport());
+    }
+
     // Getters and setters for configuration
     public void setConnectionTimeout(int connectionTimeout) {
         this.connectionTimeout = connectionTimeout;
@@ -169,6 +360,19 @@ public class GovStackApiClient {
         this.readTimeout = readTimeout;
     }
 
+    /**
+     * Send request bodies of at least this many bytes gzip-compressed
+     *
+     * @param gzipMinBytes The threshold in bytes, or a negative value to never compress
+     */
+    public void setGzipMinBytes(int gzipMinBytes) {
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    public void setTransport(HttpTransport transport) {
+        this.transport = transport;
+    }
+
     /**
      * Response wrapper class
      */
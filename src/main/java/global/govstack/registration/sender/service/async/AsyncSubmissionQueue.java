@@ -0,0 +1,232 @@
+package global.govstack.registration.sender.service.async;
+
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.util.SubmissionLog;
+import org.joget.commons.util.LogUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process queue that delivers submissions on a fixed pool of worker threads
+ *
+ * Lets DocSubmitter hand the HTTP round trip off the Joget workflow thread. The queue has a
+ * fixed capacity: when it is full, {@link #submit} waits up to the given timeout for space and
+ * then reports that the delivery was not queued, so the caller can send inline. Slow API
+ * responses therefore throttle the workflow threads instead of growing an unbounded backlog.
+ *
+ * Queues are shared process-wide via {@link #shared(int, int)} and stopped by the bundle
+ * Activator through {@link #shutdownAll()}. Deliveries still queued when the grace period ends
+ * are not sent; their callbacks receive a failed response so the caller can record the outcome.
+ */
+public class AsyncSubmissionQueue {
+
+    private static final String CLASS_NAME = AsyncSubmissionQueue.class.getName();
+
+    public static final int DEFAULT_WORKERS = 4;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    public static final long DEFAULT_ENQUEUE_TIMEOUT_MS = 5000;
+
+    private static final long SHUTDOWN_GRACE_MS = 10000;
+
+    private static final ConcurrentMap<String, AsyncSubmissionQueue> SHARED = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Delivery> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong delivered = new AtomicLong();
+    private volatile boolean running = true;
+
+    public AsyncSubmissionQueue(int workerCount, int capacity) {
+        int threads = workerCount > 0 ? workerCount : DEFAULT_WORKERS;
+        this.queue = new ArrayBlockingQueue<>(capacity > 0 ? capacity : DEFAULT_QUEUE_CAPACITY);
+
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::drain, "govstack-submitter-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        LogUtil.info(CLASS_NAME, "Started async submission queue (workers=" + threads +
+            ", capacity=" + queue.remainingCapacity() + ")");
+    }
+
+    /**
+     * Get the process-wide queue for the given settings, creating it on first use
+     *
+     * @param workerCount Number of delivery threads
+     * @param capacity Maximum number of queued deliveries
+     * @return The shared queue
+     */
+    public static AsyncSubmissionQueue shared(int workerCount, int capacity) {
+        String key = workerCount + "/" + capacity;
+        return SHARED.computeIfAbsent(key, k -> new AsyncSubmissionQueue(workerCount, capacity));
+    }
+
+    /**
+     * Stop all shared queues, giving queued deliveries one short grace period to complete
+     */
+    public static void shutdownAll() {
+        List<AsyncSubmissionQueue> queues = new ArrayList<>(SHARED.values());
+        SHARED.clear();
+
+        // All queues drain in parallel against the same deadline
+        for (AsyncSubmissionQueue queue : queues) {
+            queue.running = false;
+        }
+        long deadline = System.currentTimeMillis() + SHUTDOWN_GRACE_MS;
+        for (AsyncSubmissionQueue queue : queues) {
+            queue.awaitWorkers(deadline);
+        }
+        for (AsyncSubmissionQueue queue : queues) {
+            queue.stopWorkers();
+        }
+    }
+
+    /**
+     * Queue a delivery
+     *
+     * @param recordId The record ID, for logging
+     * @param send Performs the API call on a worker thread
+     * @param onComplete Invoked on the worker thread with the API result
+     * @param enqueueTimeoutMs How long to wait for space when the queue is full
+     * @return true if queued, false if the queue stayed full (or is shut down) and the caller must deliver itself
+     */
+    public boolean submit(String recordId, Supplier<GovStackApiClient.ApiResponse> send,
+                          Consumer<GovStackApiClient.ApiResponse> onComplete, long enqueueTimeoutMs) {
+        if (!running) {
+            return false;
+        }
+        Delivery delivery = new Delivery(recordId, SubmissionLog.propagate(send), SubmissionLog.propagate(onComplete));
+        try {
+            boolean queued = queue.offer(delivery, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!queued) {
+                LogUtil.warn(CLASS_NAME, "Submission queue full, record " + recordId + " not queued");
+                return false;
+            }
+            // Stopped while offering: take the delivery back unless a worker or shutdown already has it
+            if (!running && queue.remove(delivery)) {
+                return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            Delivery delivery;
+            try {
+                delivery = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (delivery != null) {
+                deliver(delivery);
+            }
+        }
+    }
+
+    private void deliver(Delivery delivery) {
+        GovStackApiClient.ApiResponse response;
+        try {
+            response = delivery.send.get();
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Error delivering record " + delivery.recordId);
+            response = new GovStackApiClient.ApiResponse();
+            response.setSuccess(false);
+            response.setStatusCode(-1);
+            response.setMessage("Error delivering record: " + e.getMessage());
+        }
+        delivered.incrementAndGet();
+        complete(delivery, response);
+    }
+
+    private void complete(Delivery delivery, GovStackApiClient.ApiResponse response) {
+        try {
+            delivery.onComplete.accept(response);
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Error in completion callback for record " + delivery.recordId);
+        }
+    }
+
+    /**
+     * Stop accepting work and wait for queued deliveries to finish
+     *
+     * @param graceMs Maximum time to wait before interrupting the workers
+     */
+    public void shutdown(long graceMs) {
+        running = false;
+        awaitWorkers(System.currentTimeMillis() + graceMs);
+        stopWorkers();
+    }
+
+    private void awaitWorkers(long deadline) {
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Interrupt the workers and fail the deliveries they did not get to
+     */
+    private void stopWorkers() {
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+
+        // drainTo takes each delivery exactly once, even if a worker is still polling
+        List<Delivery> undelivered = new ArrayList<>();
+        queue.drainTo(undelivered);
+        if (undelivered.isEmpty()) {
+            return;
+        }
+        LogUtil.warn(CLASS_NAME, "Submission queue stopped with " + undelivered.size() + " undelivered records");
+        for (Delivery delivery : undelivered) {
+            GovStackApiClient.ApiResponse response = new GovStackApiClient.ApiResponse();
+            response.setSuccess(false);
+            response.setStatusCode(-1);
+            response.setMessage("Submission queue stopped before delivery");
+            complete(delivery, response);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * A queued API call and its completion callback
+     */
+    private static final class Delivery {
+        final String recordId;
+        final Supplier<GovStackApiClient.ApiResponse> send;
+        final Consumer<GovStackApiClient.ApiResponse> onComplete;
+
+        Delivery(String recordId, Supplier<GovStackApiClient.ApiResponse> send,
+                 Consumer<GovStackApiClient.ApiResponse> onComplete) {
+            this.recordId = recordId;
+            this.send = send;
+            this.onComplete = onComplete;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package global.govstack.registration.sender.service.batch;
+
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.metadata.GovStackJsonEncoder;
+import org.joget.commons.util.LogUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gathers encoded records and posts them to the Processing API in chunks
+ *
+ * Records are queued per endpoint. A chunk is sent as soon as batchSize records are waiting,
+ * or when the oldest queued record has waited lingerMs, whichever comes first. Each caller
+ * gets a future completing with the result for its own record, so concurrent DocSubmitter
+ * executions share one request while every workflow process still receives its own outcome.
+ *
+ * A submitter sends with its own client. Shared submitters are keyed by the client's
+ * configuration (endpoint, credentials, headers, timeouts, transport), so records only share a
+ * request with records their own client would have sent the same way, and changed settings get a
+ * new submitter. Batch payloads are built from the encoded documents alone, so a metadata reload
+ * never leaves a submitter on a stale encoder. Linger flushes are only scheduled on the timer
+ * thread; the requests run on a separate sender pool, so a slow endpoint does not hold up the
+ * flushes of other endpoints.
+ *
+ * Submitters are shared process-wide via {@link #forEndpoint} and stopped by the bundle
+ * Activator through {@link #shutdownAll()}.
+ */
+public class BatchSubmitter {
+
+    private static final String CLASS_NAME = BatchSubmitter.class.getName();
+
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    public static final long DEFAULT_LINGER_MS = 500;
+
+    /**
+     * Wire format of a batch request
+     */
+    public enum BatchFormat {
+        /** Plain JSON array of documents */
+        ARRAY,
+        /** {"testData": [...]} envelope holding every document of the batch */
+        TEST_DATA;
+
+        public static BatchFormat fromProperty(String value) {
+            return "testData".equalsIgnoreCase(value) ? TEST_DATA : ARRAY;
+        }
+    }
+
+    private static final long SHUTDOWN_GRACE_MS = 10000;
+
+    private static final ConcurrentMap<List<Object>, BatchSubmitter> SHARED = new ConcurrentHashMap<>();
+
+    // Created on first use and replaced after shutdownAll, so a restarted bundle gets fresh threads
+    private static ScheduledExecutorService lingerTimer;
+    private static ExecutorService sender;
+
+    private final GovStackApiClient apiClient;
+    private final BatchFormat format;
+    private final int batchSize;
+    private final long lingerMs;
+
+    private List<PendingRecord> pending = new ArrayList<>();
+    private ScheduledFuture<?> lingerFlush;
+    private boolean closed;
+
+    public BatchSubmitter(GovStackApiClient apiClient, BatchFormat format, int batchSize, long lingerMs) {
+        this.apiClient = apiClient;
+        this.format = format;
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        this.lingerMs = lingerMs >= 0 ? lingerMs : DEFAULT_LINGER_MS;
+    }
+
+    /**
+     * Get the process-wide submitter for a client configuration and batch settings, creating it on first use
+     *
+     * @param apiClient Client for the endpoint; submitters are shared between equally configured clients
+     * @param format Batch wire format
+     * @param batchSize Maximum records per request
+     * @param lingerMs Maximum time a record waits for the batch to fill
+     * @return The shared submitter
+     * @see GovStackApiClient#getConfigurationKey()
+     */
+    public static BatchSubmitter forEndpoint(GovStackApiClient apiClient,
+                                             BatchFormat format, int batchSize, long lingerMs) {
+        // Credentials and headers are part of the key so records never go out under another caller's client
+        List<Object> key = Arrays.asList(apiClient.getConfigurationKey(), format, batchSize, lingerMs);
+        return SHARED.computeIfAbsent(key, k -> new BatchSubmitter(apiClient, format, batchSize, lingerMs));
+    }
+
+    /**
+     * Stop the shared submitters and their threads
+     *
+     * Records still waiting for their batch are failed, so callers blocked on their futures
+     * return at once; requests already being sent get a short grace period to complete.
+     */
+    public static void shutdownAll() {
+        ScheduledExecutorService timer;
+        ExecutorService requests;
+        synchronized (BatchSubmitter.class) {
+            timer = lingerTimer;
+            requests = sender;
+            lingerTimer = null;
+            sender = null;
+        }
+
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        for (BatchSubmitter submitter : SHARED.values()) {
+            submitter.close();
+        }
+        SHARED.clear();
+
+        if (requests != null) {
+            requests.shutdown();
+            try {
+                if (!requests.awaitTermination(SHUTDOWN_GRACE_MS, TimeUnit.MILLISECONDS)) {
+                    requests.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                requests.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static synchronized ScheduledExecutorService lingerTimer() {
+        if (lingerTimer == null) {
+            lingerTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "govstack-batch-linger");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return lingerTimer;
+    }
+
+    private static synchronized ExecutorService sender() {
+        if (sender == null) {
+            AtomicInteger counter = new AtomicInteger();
+            sender = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "govstack-batch-sender-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return sender;
+    }
+
+    /**
+     * Queue an encoded record for the next batch
+     *
+     * @param recordId The record ID, for logging
+     * @param json The encoded GovStack JSON document
+     * @return Future completing with the API result for this record
+     */
+    public CompletableFuture<GovStackApiClient.ApiResponse> submit(String recordId, String json) {
+        return submit(recordId, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Queue a UTF-8 encoded record for the next batch
+     *
+     * @param document The GovStack JSON document, as returned by encodeToGovStackBytes
+     * @see #submit(String, String)
+     */
+    public CompletableFuture<GovStackApiClient.ApiResponse> submit(String recordId, byte[] document) {
+        PendingRecord record = new PendingRecord(recordId, document);
+        List<PendingRecord> full = null;
+
+        synchronized (this) {
+            if (closed) {
+                failAll(Collections.singletonList(record), "Batch submitter stopped");
+                return record.result;
+            }
+            pending.add(record);
+            if (pending.size() >= batchSize) {
+                full = takePending();
+            } else if (lingerFlush == null) {
+                lingerFlush = lingerTimer().schedule(this::flushOnSender, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (full != null) {
+            // The caller completing a chunk sends it, outside the lock
+            send(full);
+        }
+        return record.result;
+    }
+
+    /**
+     * Send whatever is currently queued
+     */
+    public void flush() {
+        List<PendingRecord> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Linger flush: the timer thread only hands the request to the sender pool
+     */
+    private void flushOnSender() {
+        try {
+            sender().execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            // Stopped while the flush was due; shutdownAll fails the waiting records
+            LogUtil.warn(CLASS_NAME, "Batch sender stopped, linger flush skipped");
+        }
+    }
+
+    /**
+     * Stop accepting records and fail those still waiting for their batch
+     */
+    private void close() {
+        List<PendingRecord> batch;
+        synchronized (this) {
+            closed = true;
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            LogUtil.warn(CLASS_NAME, "Batch submitter stopped with " + batch.size() + " unsent records");
+            failAll(batch, "Batch submitter stopped");
+        }
+    }
+
+    private List<PendingRecord> takePending() {
+        List<PendingRecord> batch = pending;
+        pending = new ArrayList<>();
+        if (lingerFlush != null) {
+            lingerFlush.cancel(false);
+            lingerFlush = null;
+        }
+        return batch;
+    }
+
+    private void send(List<PendingRecord> batch) {
+        try {
+            List<byte[]> documents = new ArrayList<>(batch.size());
+            for (PendingRecord record : batch) {
+                documents.add(record.document);
+            }
+
+            byte[] payload = GovStackJsonEncoder.wrapBatchBytes(documents, format == BatchFormat.TEST_DATA);
+            List<GovStackApiClient.ApiResponse> results = apiClient.sendBatchToGovStack(payload, batch.size());
+
+            int succeeded = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                GovStackApiClient.ApiResponse result = results.get(i);
+                if (result.isSuccess()) {
+                    succeeded++;
+                } else {
+                    LogUtil.warn(CLASS_NAME, "Record " + batch.get(i).recordId + " rejected in batch: " + result.getMessage());
+                }
+                batch.get(i).result.complete(result);
+            }
+            LogUtil.info(CLASS_NAME, "Batch of " + batch.size() + " records sent, " + succeeded + " succeeded");
+
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Error sending batch of " + batch.size() + " records");
+            failAll(batch, "Error sending batch: " + e.getMessage());
+        }
+    }
+
+    private void failAll(List<PendingRecord> batch, String message) {
+        for (PendingRecord record : batch) {
+            GovStackApiClient.ApiResponse failure = new GovStackApiClient.ApiResponse();
+            failure.setSuccess(false);
+            failure.setStatusCode(-1);
+            failure.setMessage(message);
+            record.result.complete(failure);
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public BatchFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * A queued record and the future for its result
+     */
+    private static final class PendingRecord {
+        final String recordId;
+        final byte[] document;
+        final CompletableFuture<GovStackApiClient.ApiResponse> result = new CompletableFuture<>();
+
+        PendingRecord(String recordId, byte[] document) {
+            this.recordId = recordId;
+            this.document = document;
+        }
+    }
+}
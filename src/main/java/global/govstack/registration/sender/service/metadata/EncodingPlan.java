@@ -0,0 +1,312 @@
+package global.govstack.registration.sender.service.metadata;
+
+import global.govstack.registration.sender.service.metrics.SubmissionMetrics;
+import global.govstack.registration.sender.service.transform.DataTransformer;
+import global.govstack.registration.sender.service.transform.TransformationService;
+import global.govstack.registration.sender.service.transform.ValueMappingTable;
+import global.govstack.registration.sender.util.JsonBuilder;
+import org.joget.commons.util.LogUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How each form field is written into the GovStack JSON, compiled from the metadata
+ *
+ * The field mappings of every section are resolved once into typed descriptors: source field,
+ * pre-split target path, transformer instance and the snapshot's value-mapping table. Encoding a record is then
+ * a loop over arrays, without looking up configuration keys or re-parsing paths per field.
+ * The target paths are also merged into a {@link JsonLayout} for single-pass streaming output.
+ *
+ * Plans are immutable and tied to the metadata snapshot they were compiled from.
+ */
+public final class EncodingPlan {
+
+    private static final String CLASS_NAME = EncodingPlan.class.getName();
+
+    private static final Section[] NO_SECTIONS = new Section[0];
+
+    private final ServiceMetadata snapshot;
+    private final Section[] sections;
+    private final String serviceId;
+    private final String serviceVersion;
+    private final String metadataVersion;
+    private final JsonLayout layout;
+
+    private EncodingPlan(ServiceMetadata snapshot, Section[] sections, String serviceId,
+                         String serviceVersion, String metadataVersion) {
+        this.snapshot = snapshot;
+        this.sections = sections;
+        this.serviceId = serviceId;
+        this.serviceVersion = serviceVersion;
+        this.metadataVersion = metadataVersion;
+        this.layout = JsonLayout.compile(sections);
+    }
+
+    /**
+     * Compile the encoding plan of a metadata snapshot
+     *
+     * @param snapshot The service metadata
+     * @param transformationService Resolves the transformer of each field
+     * @return The plan
+     */
+    @SuppressWarnings("unchecked")
+    public static EncodingPlan compile(ServiceMetadata snapshot, TransformationService transformationService) {
+        List<Section> sections = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : snapshot.getFormMappings().entrySet()) {
+            Map<String, Object> sectionConfig = (Map<String, Object>) entry.getValue();
+            if (sectionConfig == null) {
+                continue;
+            }
+
+            boolean array = "array".equals(sectionConfig.get("type"));
+            List<Map<String, Object>> fieldConfigs = (List<Map<String, Object>>) sectionConfig.get("fields");
+            FieldEncoding[] fields = null;
+            if (fieldConfigs != null) {
+                List<FieldEncoding> compiled = new ArrayList<>(fieldConfigs.size());
+                for (Map<String, Object> field : fieldConfigs) {
+                    FieldEncoding encoding = compileField(snapshot, field, array, transformationService);
+                    if (encoding != null) {
+                        compiled.add(encoding);
+                    }
+                }
+                fields = compiled.toArray(new FieldEncoding[0]);
+            }
+
+            String govstackPath = (String) sectionConfig.get("govstack");
+            sections.add(new Section(entry.getKey(), array,
+                array && govstackPath != null ? JsonBuilder.compilePath(govstackPath) : null,
+                (String) sectionConfig.get("controlField"), (String) sectionConfig.get("controlValue"), fields));
+        }
+
+        Map<String, Object> serviceMetadata = snapshot.getServiceMetadata();
+        return new EncodingPlan(snapshot, sections.toArray(NO_SECTIONS),
+            (String) serviceMetadata.get("id"),
+            (String) serviceMetadata.get("version"),
+            (String) serviceMetadata.get("metadataVersion"));
+    }
+
+    /**
+     * Compile one field mapping
+     *
+     * @return The field, or null if it has no source field or no target path
+     */
+    private static FieldEncoding compileField(ServiceMetadata snapshot, Map<String, Object> field, boolean gridItem,
+                                              TransformationService transformationService) {
+        // Support both field_id (from form_structure.yaml) and joget (from services.yml)
+        String fieldId = (String) field.get("field_id");
+        String fieldName = fieldId != null ? fieldId : (String) field.get("joget");
+
+        // Prioritize jsonPath for compatibility with ProcessingAPI which tries jsonPath first
+        String jsonPath = (String) field.get("jsonPath");
+        String targetPath = jsonPath != null ? jsonPath : (String) field.get("govstack");
+
+        if (fieldName == null || targetPath == null) {
+            return null;
+        }
+
+        String transformType = (String) field.get("transform");
+        DataTransformer transformer = null;
+        if (transformType != null && !transformType.trim().isEmpty()) {
+            transformer = transformationService.getTransformer(transformType);
+            if (transformer == null) {
+                LogUtil.warn(CLASS_NAME, "No transformer found for type: " + transformType + " (field " + fieldName + ")");
+            }
+        }
+
+        ValueMappingTable valueMapping = snapshot.getValueMappingTable(field.get("valueMapping"));
+
+        String govstackType = (String) field.get("govstackType");
+        String typeValue = (String) field.get("typeValue");
+
+        return new FieldEncoding(fieldName, targetPath,
+            gridItem ? null : JsonBuilder.compilePath(targetPath),
+            gridItem ? targetPath.split("\\.") : null,
+            transformer, transformType, valueMapping,
+            !gridItem && govstackType != null && typeValue != null ? JsonBuilder.compilePath(govstackType) : null,
+            typeValue, Boolean.TRUE.equals(field.get("required")));
+    }
+
+    public ServiceMetadata getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Sections in metadata order; sections without configuration are left out
+     */
+    public Section[] getSections() {
+        return sections;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public String getServiceVersion() {
+        return serviceVersion;
+    }
+
+    public String getMetadataVersion() {
+        return metadataVersion;
+    }
+
+    /**
+     * Layout for writing documents in a single pass, or null if the paths need the JSON tree
+     */
+    JsonLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * A form section or grid and the fields written from it
+     */
+    public static final class Section {
+        private final String name;
+        private final boolean array;
+        private final JsonBuilder.Path arrayPath;
+        private final String controlField;
+        private final String controlValue;
+        private final FieldEncoding[] fields;
+
+        Section(String name, boolean array, JsonBuilder.Path arrayPath, String controlField,
+                String controlValue, FieldEncoding[] fields) {
+            this.name = name;
+            this.array = array;
+            this.arrayPath = arrayPath;
+            this.controlField = controlField;
+            this.controlValue = controlValue;
+            this.fields = fields;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Whether the section is a grid, encoded as a JSON array of items
+         */
+        public boolean isArray() {
+            return array;
+        }
+
+        /**
+         * Path of the JSON array a grid is written to, or null if not configured
+         */
+        public JsonBuilder.Path getArrayPath() {
+            return arrayPath;
+        }
+
+        public String getControlField() {
+            return controlField;
+        }
+
+        public String getControlValue() {
+            return controlValue;
+        }
+
+        /**
+         * The section's fields, or null if the section has no field list
+         */
+        public FieldEncoding[] getFields() {
+            return fields;
+        }
+    }
+
+    /**
+     * One form field and where and how its value is written
+     */
+    public static final class FieldEncoding {
+        private final String sourceField;
+        private final String target;
+        private final JsonBuilder.Path targetPath;
+        private final String[] itemPath;
+        private final DataTransformer transformer;
+        private final String transformType;
+        private final ValueMappingTable valueMapping;
+        private final JsonBuilder.Path typePath;
+        private final String typeValue;
+        private final boolean required;
+
+        FieldEncoding(String sourceField, String target, JsonBuilder.Path targetPath, String[] itemPath,
+                      DataTransformer transformer, String transformType, ValueMappingTable valueMapping,
+                      JsonBuilder.Path typePath, String typeValue, boolean required) {
+            this.sourceField = sourceField;
+            this.target = target;
+            this.targetPath = targetPath;
+            this.itemPath = itemPath;
+            this.transformer = transformer;
+            this.transformType = transformType;
+            this.valueMapping = valueMapping;
+            this.typePath = typePath;
+            this.typeValue = typeValue;
+            this.required = required;
+        }
+
+        /**
+         * Apply the field's transformation and value mapping
+         */
+        public Object encode(Object value) {
+            if (transformer != null) {
+                try {
+                    value = transformer.encode(value, transformType);
+                } catch (Exception e) {
+                    SubmissionMetrics.shared().recordTransformFailure();
+                    LogUtil.error(CLASS_NAME, e, "Error applying encoding transformation: " + transformType);
+                }
+            }
+
+            return valueMapping != null ? valueMapping.encode(value) : value;
+        }
+
+        /**
+         * Form field (or grid column) the value is read from
+         */
+        public String getSourceField() {
+            return sourceField;
+        }
+
+        /**
+         * Target path as configured
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        /**
+         * Compiled target path in the document; null for grid item fields
+         */
+        public JsonBuilder.Path getTargetPath() {
+            return targetPath;
+        }
+
+        /**
+         * Target path within a grid item, split on dots; null for form fields
+         */
+        public String[] getItemPath() {
+            return itemPath;
+        }
+
+        /**
+         * Compiled valueMapping, shared with fields using the same mapping; null if none
+         */
+        public ValueMappingTable getValueMapping() {
+            return valueMapping;
+        }
+
+        /**
+         * Path of the accompanying type field (govstackType), or null if none
+         */
+        public JsonBuilder.Path getTypePath() {
+            return typePath;
+        }
+
+        public String getTypeValue() {
+            return typeValue;
+        }
+
+        public boolean isRequired() {
+            return required;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package global.govstack.registration.sender.service.metadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Where each section and grid of a service's record is stored, compiled from the metadata
+ *
+ * Sections are linked one-to-one to the parent row through a UUID reference column; grids hold
+ * any number of rows pointing back at the parent record (or at a section's UUID) through a
+ * foreign key column. Table names are without the app_fd_ prefix, as used by FormDataDao.
+ *
+ * Plans are immutable and tied to the metadata snapshot they were compiled from.
+ */
+public final class ExtractionPlan {
+
+    private final ServiceMetadata snapshot;
+    private final String parentTable;
+    private final List<SectionSource> sections;
+    private final List<GridSource> grids;
+
+    private ExtractionPlan(Builder builder) {
+        this.snapshot = builder.snapshot;
+        this.parentTable = builder.parentTable;
+        this.sections = Collections.unmodifiableList(new ArrayList<>(builder.sections));
+        this.grids = Collections.unmodifiableList(new ArrayList<>(builder.grids));
+    }
+
+    public ServiceMetadata getSnapshot() {
+        return snapshot;
+    }
+
+    public String getParentTable() {
+        return parentTable;
+    }
+
+    public List<SectionSource> getSections() {
+        return sections;
+    }
+
+    public List<GridSource> getGrids() {
+        return grids;
+    }
+
+    /**
+     * A section stored as one row, referenced by UUID from the parent row
+     */
+    public static final class SectionSource {
+        private final String sectionName;
+        private final String table;
+        private final String referenceField;
+
+        SectionSource(String sectionName, String table, String referenceField) {
+            this.sectionName = sectionName;
+            this.table = table;
+            this.referenceField = referenceField;
+        }
+
+        public String getSectionName() {
+            return sectionName;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * Field of the parent row holding the section row's UUID (e.g., "basic_data")
+         */
+        public String getReferenceField() {
+            return referenceField;
+        }
+    }
+
+    /**
+     * A grid stored as rows pointing back at their parent through a foreign key column
+     */
+    public static final class GridSource {
+        private final String sectionName;
+        private final String table;
+        private final String parentKeyColumn;
+        private final String parentReferenceField;
+
+        GridSource(String sectionName, String table, String parentKeyColumn, String parentReferenceField) {
+            this.sectionName = sectionName;
+            this.table = table;
+            this.parentKeyColumn = parentKeyColumn;
+            this.parentReferenceField = parentReferenceField;
+        }
+
+        public String getSectionName() {
+            return sectionName;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * Column of the grid table holding the parent ID (e.g., "c_farmer_id")
+         */
+        public String getParentKeyColumn() {
+            return parentKeyColumn;
+        }
+
+        /**
+         * Field of the parent row holding the grid's parent UUID, or null if the grid points at the record ID
+         */
+        public String getParentReferenceField() {
+            return parentReferenceField;
+        }
+    }
+
+    static final class Builder {
+        private final ServiceMetadata snapshot;
+        private final String parentTable;
+        private final List<SectionSource> sections = new ArrayList<>();
+        private final List<GridSource> grids = new ArrayList<>();
+
+        Builder(ServiceMetadata snapshot, String parentTable) {
+            this.snapshot = snapshot;
+            this.parentTable = parentTable;
+        }
+
+        Builder addSection(String sectionName, String table, String referenceField) {
+            sections.add(new SectionSource(sectionName, table, referenceField));
+            return this;
+        }
+
+        Builder addGrid(String sectionName, String table, String parentKeyColumn, String parentReferenceField) {
+            grids.add(new GridSource(sectionName, table, parentKeyColumn, parentReferenceField));
+            return this;
+        }
+
+        ExtractionPlan build() {
+            return new ExtractionPlan(this);
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package global.govstack.registration.sender.service.metadata;
 
+import global.govstack.registration.sender.exception.ConfigurationException;
+import global.govstack.registration.sender.service.metrics.SubmissionMetrics;
+import global.govstack.registration.sender.util.SubmissionLog;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.apps.form.dao.FormDataDao;
 import org.joget.apps.form.model.FormRow;
 import org.joget.apps.form.model.FormRowSet;
 import org.joget.commons.util.LogUtil;
 
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 /**
  * Generic form data extractor that uses services.yml metadata to extract data from Joget forms
@@ -17,12 +28,19 @@ public class GenericFormDataExtractor {
 
     private static final String CLASS_NAME = GenericFormDataExtractor.class.getName();
 
+    public static final long DEFAULT_SECTION_TIMEOUT_MS = 30000;
+
     // No longer using hardcoded UUID references
     // Data extraction now uses form_structure.yaml metadata
 
     private final FormDataDao formDataDao;
     private final YamlMetadataService metadataService;
 
+    private volatile JoinedFormDataLoader joinedLoader;
+    private volatile ExtractionPlan extractionPlan;
+    private volatile ExecutorService sectionExecutor;
+    private volatile long sectionTimeoutMs = DEFAULT_SECTION_TIMEOUT_MS;
+
     public GenericFormDataExtractor() {
         this.formDataDao = (FormDataDao) AppUtil.getApplicationContext().getBean("formDataDao");
         this.metadataService = new YamlMetadataService();
@@ -33,6 +51,11 @@ public class GenericFormDataExtractor {
         this.metadataService = metadataService;
     }
 
+    public GenericFormDataExtractor(YamlMetadataService metadataService, FormDataDao formDataDao) {
+        this.formDataDao = formDataDao;
+        this.metadataService = metadataService;
+    }
+
     /**
      * Extract complete registration data from parent form table
      * This mirrors ProcessingAPI's storage pattern in reverse
@@ -41,47 +64,134 @@ public class GenericFormDataExtractor {
      * @return Map containing all form data organized by section
      */
     public Map<String, Object> extractAllFormData(String recordId) {
-        LogUtil.info(CLASS_NAME, "Extracting data for record: " + recordId);
+        long start = SubmissionMetrics.startTimer();
+        try {
+            return extractRecord(recordId);
+        } finally {
+            SubmissionMetrics.shared().recordStage(SubmissionMetrics.Stage.EXTRACT, start);
+        }
+    }
 
-        Map<String, Object> allData = new HashMap<>();
-        allData.put("id", recordId);
+    private Map<String, Object> extractRecord(String recordId) {
+        SubmissionLog.debug(CLASS_NAME, () -> "Extracting data for record: " + recordId);
 
+        FormRow parentRow;
+        JoinedFormDataLoader.LoadedRecord loaded;
         try {
             // Get parent form configuration from YAML (generic for all services)
             String parentFormId = metadataService.getParentFormId();
-            LogUtil.info(CLASS_NAME, "Using parent form ID: " + parentFormId);
+            SubmissionLog.debug(CLASS_NAME, () -> "Using parent form ID: " + parentFormId);
 
             // Get parent table name from YAML configuration
             // FormDataDao expects the table name without the app_fd_ prefix
             String tableName = metadataService.getParentTableName();
-            LogUtil.info(CLASS_NAME, "Using parent form table: " + tableName);
+            SubmissionLog.debug(CLASS_NAME, () -> "Using parent form table: " + tableName);
 
-            // Load data from parent table using FormDataDao
-            // Load parent record using table name
-            // FormDataDao.load() requires a Form object, not a string, so we use loadByTableNameAndColumnName
-            FormRow parentRow = formDataDao.loadByTableNameAndColumnName(tableName, "id", recordId);
-            if (parentRow != null) {
-                LogUtil.info(CLASS_NAME, "Successfully loaded parent record using table name: " + tableName);
+            // With the joined loader, the parent row, every UUID-referenced section and all grid
+            // rows arrive in a few set-based queries; otherwise each section is looked up separately
+            loaded = loadJoined(recordId);
+
+            if (loaded != null) {
+                parentRow = loaded.getParentRow();
+            } else {
+                // Load data from parent table using FormDataDao
+                // Load parent record using table name
+                // FormDataDao.load() requires a Form object, not a string, so we use loadByTableNameAndColumnName
+                parentRow = formDataDao.loadByTableNameAndColumnName(tableName, "id", recordId);
+                if (parentRow != null) {
+                    SubmissionLog.debug(CLASS_NAME, () -> "Successfully loaded parent record using table name: " + tableName);
+                }
             }
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Error extracting form data: " + e.getMessage());
+            Map<String, Object> allData = new HashMap<>();
+            allData.put("id", recordId);
+            return allData;
+        }
 
-            if (parentRow == null) {
-                LogUtil.warn(CLASS_NAME, "No data found in parent table for record: " + recordId);
-                return allData;
+        return assembleRecord(recordId, parentRow, loaded);
+    }
+
+    /**
+     * All non-empty fields of the parent row, one per line, with long values cut short
+     */
+    private static String describeParentRow(FormRow parentRow) {
+        StringBuilder message = new StringBuilder("Loaded parent record with ").append(parentRow.size())
+            .append(" fields: ").append(parentRow.keySet());
+        for (Object keyObj : parentRow.keySet()) {
+            String key = keyObj.toString();
+            String value = parentRow.getProperty(key);
+            if (value != null && !value.isEmpty()) {
+                // Only log first 100 chars to avoid huge logs
+                String logValue = value.length() > 100 ? value.substring(0, 100) + "..." : value;
+                message.append("\n  Field '").append(key).append("' = '").append(logValue).append("'");
             }
+        }
+        return message.toString();
+    }
 
-            LogUtil.info(CLASS_NAME, "Successfully loaded parent record with " + parentRow.size() + " fields");
+    /**
+     * Extract complete registration data for many records with set-based queries
+     *
+     * With a joined loader set, parent rows, section rows and grid rows are read in chunks of
+     * {@code chunkSize} records ({@code WHERE id IN (...)}, {@code WHERE c_farmer_id IN (...)})
+     * and grouped by parent in memory, instead of one lookup per record, section and grid.
+     * Records are handed to the consumer as each chunk is assembled, in the order given, so only
+     * one chunk is held in memory. Without a joined loader, or if a bulk query fails, the
+     * remaining records are extracted one at a time.
+     *
+     * @param recordIds The record IDs
+     * @param chunkSize Maximum records per query
+     * @param consumer Receives each record ID with the same map {@link #extractAllFormData} returns
+     */
+    public void extractAll(Collection<String> recordIds, int chunkSize, BiConsumer<String, Map<String, Object>> consumer) {
+        Set<String> remaining = new LinkedHashSet<>(recordIds);
+
+        JoinedFormDataLoader loader = joinedLoader;
+        if (loader != null) {
+            // A record's extraction time runs from the previous hand-off, so each chunk's queries
+            // are counted towards the first record of the chunk
+            SubmissionMetrics metrics = SubmissionMetrics.shared();
+            long[] start = {SubmissionMetrics.startTimer()};
+            try {
+                loader.loadAll(getExtractionPlan(), new ArrayList<>(remaining), chunkSize, loaded -> {
+                    Map<String, Object> record = assembleRecord(loaded.getRecordId(), loaded.getParentRow(), loaded);
+                    metrics.recordStage(SubmissionMetrics.Stage.EXTRACT, start[0]);
+                    consumer.accept(loaded.getRecordId(), record);
+                    remaining.remove(loaded.getRecordId());
+                    start[0] = SubmissionMetrics.startTimer();
+                });
+                return;
+            } catch (SQLException | ConfigurationException e) {
+                LogUtil.warn(CLASS_NAME, "Bulk extraction failed, extracting " + remaining.size() +
+                    " remaining record(s) one at a time: " + e.getMessage());
+            }
+        }
+
+        for (String recordId : remaining) {
+            consumer.accept(recordId, extractAllFormData(recordId));
+        }
+    }
+
+    /**
+     * Extract all sections and grids of a record once its parent row is known
+     *
+     * @param parentRow The parent row, or null if the record does not exist
+     * @param loaded Rows from the joined loader, or null to look sections up
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> assembleRecord(String recordId, FormRow parentRow, JoinedFormDataLoader.LoadedRecord loaded) {
+        Map<String, Object> allData = new HashMap<>();
+        allData.put("id", recordId);
 
+        if (parentRow == null) {
+            LogUtil.warn(CLASS_NAME, "No data found in parent table for record: " + recordId);
+            return allData;
+        }
+
+        try {
             // Debug: Log all fields in the parent record to understand what's available
-            LogUtil.info(CLASS_NAME, "Parent record fields available: " + parentRow.keySet());
-            for (Object keyObj : parentRow.keySet()) {
-                String key = keyObj.toString();
-                String value = parentRow.getProperty(key);
-                if (value != null && !value.isEmpty()) {
-                    // Only log first 100 chars to avoid huge logs
-                    String logValue = value.length() > 100 ? value.substring(0, 100) + "..." : value;
-                    LogUtil.info(CLASS_NAME, "  Field '" + key + "' = '" + logValue + "'");
-                }
-            }
+            SubmissionLog.debug(CLASS_NAME, () -> describeParentRow(parentRow));
 
             // Get all form sections from metadata
             Map<String, Object> formMappings = metadataService.getFormMappings();
@@ -91,70 +201,22 @@ public class GenericFormDataExtractor {
             }
 
             // Extract data for each section by following UUID references in parent row
-            for (Map.Entry<String, Object> entry : formMappings.entrySet()) {
-                String sectionName = entry.getKey();
-                Map<String, Object> sectionConfig = (Map<String, Object>) entry.getValue();
-
-                if (sectionConfig == null) {
-                    continue;
+            ExecutorService executor = sectionExecutor;
+            if (executor != null && loaded == null) {
+                if (!extractMappingsInParallel(executor, formMappings, parentRow, recordId, allData)) {
+                    return new HashMap<>();
                 }
-
-                String type = (String) sectionConfig.get("type");
-
-                if ("array".equals(type)) {
-                    // Extract grid/array data (may be in separate tables)
-
-                    // Determine correct parent ID for this grid
-                    // Grids nested under sections with UUID references need to use that UUID, not main recordId
-                    String parentIdForGrid = recordId; // default to main record ID
-
-                    // Find parent section for this grid
-                    Map<String, Object> parentSectionConfig = findParentSectionForGrid(sectionName, sectionConfig, formMappings);
-
-                    if (parentSectionConfig != null) {
-                        // Check if parent section has UUID reference field
-                        String uuidRefField = (String) parentSectionConfig.get("uuidReferenceField");
-
-                        if (uuidRefField != null) {
-                            // Extract UUID from parent row (try with and without c_ prefix)
-                            String uuid = parentRow.getProperty("c_" + uuidRefField);
-                            if (uuid == null || uuid.trim().isEmpty()) {
-                                uuid = parentRow.getProperty(uuidRefField);
-                            }
-
-                            if (uuid != null && !uuid.trim().isEmpty()) {
-                                parentIdForGrid = uuid;
-                                LogUtil.info(CLASS_NAME, "Using parent UUID for grid '" + sectionName +
-                                    "': " + uuidRefField + " = " + uuid);
-                            } else {
-                                LogUtil.warn(CLASS_NAME, "Parent section has uuidReferenceField '" + uuidRefField +
-                                    "' but no UUID found in parent row for grid: " + sectionName);
-                            }
-                        }
-                    }
-
-                    List<Map<String, Object>> gridData = extractGridData(sectionName, sectionConfig, parentIdForGrid);
-                    if (!gridData.isEmpty()) {
-                        allData.put(sectionName, gridData);
-                    }
-                } else if (Boolean.TRUE.equals(sectionConfig.get("extractFromParent"))) {
-                    // NEW: Extract fields from parent row directly (for UUID reference fields)
-                    LogUtil.info(CLASS_NAME, "Extracting section '" + sectionName + "' from parent row");
-                    Map<String, Object> data = extractFieldsFromParentRow(sectionConfig, parentRow);
-                    if (!data.isEmpty()) {
-                        allData.put(sectionName, data);
-                        LogUtil.info(CLASS_NAME, "Added " + data.size() + " fields from parent row to section: " + sectionName);
-                    }
-                } else {
-                    // Extract regular form data by following UUID reference in parent row
-                    Map<String, Object> sectionData = extractSectionDataDirect(sectionName, sectionConfig, parentRow);
-                    if (!sectionData.isEmpty()) {
-                        allData.put(sectionName, sectionData);
+            } else {
+                for (Map.Entry<String, Object> entry : formMappings.entrySet()) {
+                    Map<String, Object> sectionConfig = (Map<String, Object>) entry.getValue();
+                    if (sectionConfig != null) {
+                        putIfNotEmpty(allData, entry.getKey(),
+                            extractMapping(entry.getKey(), sectionConfig, formMappings, parentRow, recordId, loaded));
                     }
                 }
             }
 
-            LogUtil.info(CLASS_NAME, "Successfully extracted " + allData.size() + " sections for record: " + recordId);
+            SubmissionLog.detail("extractedSections", allData.size());
 
         } catch (Exception e) {
             LogUtil.error(CLASS_NAME, e, "Error extracting form data: " + e.getMessage());
@@ -163,6 +225,239 @@ public class GenericFormDataExtractor {
         return allData;
     }
 
+    /**
+     * Extract one section or grid of a record
+     *
+     * @param loaded Rows from the joined loader, or null to look the section up
+     * @return The section's field map, the grid's row list, or an empty value if nothing was found
+     */
+    private Object extractMapping(String sectionName, Map<String, Object> sectionConfig, Map<String, Object> formMappings,
+                                  FormRow parentRow, String recordId, JoinedFormDataLoader.LoadedRecord loaded) {
+        String type = (String) sectionConfig.get("type");
+
+        if ("array".equals(type)) {
+            // Extract grid/array data (may be in separate tables)
+            if (loaded != null && loaded.hasGrid(sectionName)) {
+                return extractGridRows(sectionName, sectionConfig, loaded.getGridRows(sectionName));
+            }
+            String parentIdForGrid = resolveGridParentId(sectionName, sectionConfig, formMappings, parentRow, recordId);
+            return extractGridData(sectionName, sectionConfig, parentIdForGrid);
+        }
+
+        if (Boolean.TRUE.equals(sectionConfig.get("extractFromParent"))) {
+            // NEW: Extract fields from parent row directly (for UUID reference fields)
+            SubmissionLog.debug(CLASS_NAME, () -> "Extracting section '" + sectionName + "' from parent row");
+            Map<String, Object> data = extractFieldsFromParentRow(sectionConfig, parentRow);
+            if (!data.isEmpty()) {
+                SubmissionLog.debug(CLASS_NAME, () -> "Added " + data.size() + " fields from parent row to section: " + sectionName);
+            }
+            return data;
+        }
+
+        // Extract regular form data by following UUID reference in parent row
+        if (loaded != null && loaded.hasSection(sectionName)) {
+            FormRow subRecord = loaded.getSectionRow(sectionName);
+            return subRecord != null ? extractFieldsFromRowUsingStructure(subRecord, sectionName) : new HashMap<>();
+        }
+        return extractSectionDataDirect(sectionName, sectionConfig, parentRow);
+    }
+
+    /**
+     * Look up all sections and grids of a record concurrently
+     *
+     * Once the parent row is loaded the lookups are independent, so a record takes roughly as
+     * long as its slowest section. Results are merged in formMappings order, as in the
+     * sequential path, so the output does not depend on which lookup finishes first.
+     *
+     * @return false if the record did not complete within the extraction timeout
+     */
+    @SuppressWarnings("unchecked")
+    private boolean extractMappingsInParallel(ExecutorService executor, Map<String, Object> formMappings,
+                                              FormRow parentRow, String recordId, Map<String, Object> allData)
+            throws InterruptedException {
+        Map<String, Future<Object>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : formMappings.entrySet()) {
+            String sectionName = entry.getKey();
+            Map<String, Object> sectionConfig = (Map<String, Object>) entry.getValue();
+            if (sectionConfig != null) {
+                Callable<Object> task = () ->
+                    extractMapping(sectionName, sectionConfig, formMappings, parentRow, recordId, null);
+                futures.put(sectionName, executor.submit(SubmissionLog.propagate(task)));
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + sectionTimeoutMs;
+        try {
+            for (Map.Entry<String, Future<Object>> entry : futures.entrySet()) {
+                long remaining = deadline - System.currentTimeMillis();
+                putIfNotEmpty(allData, entry.getKey(), entry.getValue().get(Math.max(0, remaining), TimeUnit.MILLISECONDS));
+            }
+            return true;
+        } catch (TimeoutException e) {
+            LogUtil.error(CLASS_NAME, null, "Extraction of record " + recordId + " did not complete within " +
+                sectionTimeoutMs + "ms");
+            return false;
+        } catch (ExecutionException e) {
+            // extractMapping handles its own errors, so this is unexpected
+            LogUtil.error(CLASS_NAME, e.getCause(), "Error extracting record " + recordId);
+            return false;
+        } finally {
+            // Drop lookups still queued; running ones are not interrupted mid-query, since that
+            // can leave a pooled JDBC connection unusable
+            for (Future<Object> future : futures.values()) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private static void putIfNotEmpty(Map<String, Object> allData, String sectionName, Object value) {
+        if (value instanceof Map && !((Map<?, ?>) value).isEmpty()
+                || value instanceof Collection && !((Collection<?>) value).isEmpty()) {
+            allData.put(sectionName, value);
+        }
+    }
+
+    /**
+     * Look up sections and grids concurrently on the given executor, or sequentially if null
+     *
+     * Ignored while a joined loader is set, since it already loads the record in a few queries.
+     *
+     * @param executor Executor running the lookups
+     * @param timeoutMs Maximum time for all lookups of one record; the record yields no data if exceeded
+     */
+    public void setParallelExtraction(ExecutorService executor, long timeoutMs) {
+        this.sectionTimeoutMs = timeoutMs > 0 ? timeoutMs : DEFAULT_SECTION_TIMEOUT_MS;
+        this.sectionExecutor = executor;
+    }
+
+    /**
+     * Use the joined loader for subsequent extractions, or null for per-section lookups
+     *
+     * @param joinedLoader Loader reading the record's tables with joined queries
+     */
+    public void setJoinedLoader(JoinedFormDataLoader joinedLoader) {
+        this.joinedLoader = joinedLoader;
+    }
+
+    /**
+     * Load a record with the joined loader, if one is set
+     *
+     * @return The loaded rows, or null to fall back to per-section lookups
+     */
+    private JoinedFormDataLoader.LoadedRecord loadJoined(String recordId) {
+        JoinedFormDataLoader loader = joinedLoader;
+        if (loader == null) {
+            return null;
+        }
+        try {
+            return loader.load(getExtractionPlan(), recordId);
+        } catch (Exception e) {
+            LogUtil.warn(CLASS_NAME, "Joined extraction failed for record " + recordId +
+                ", falling back to per-section lookups: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get the extraction plan for the current metadata, compiling it when the metadata changed
+     */
+    public ExtractionPlan getExtractionPlan() throws ConfigurationException {
+        ServiceMetadata snapshot = metadataService.getSnapshot();
+        ExtractionPlan current = extractionPlan;
+        if (current != null && current.getSnapshot() == snapshot) {
+            return current;
+        }
+        current = compileExtractionPlan(snapshot);
+        extractionPlan = current;
+        return current;
+    }
+
+    /**
+     * Work out, from the metadata alone, which table each section and grid is read from and how
+     * it is linked to the parent record
+     */
+    @SuppressWarnings("unchecked")
+    private ExtractionPlan compileExtractionPlan(ServiceMetadata snapshot) throws ConfigurationException {
+        ExtractionPlan.Builder plan = new ExtractionPlan.Builder(snapshot, stripTablePrefix(metadataService.getParentTableName()));
+
+        Map<String, Object> formMappings = metadataService.getFormMappings();
+        if (formMappings == null) {
+            return plan.build();
+        }
+
+        for (Map.Entry<String, Object> entry : formMappings.entrySet()) {
+            String sectionName = entry.getKey();
+            Map<String, Object> sectionConfig = (Map<String, Object>) entry.getValue();
+            if (sectionConfig == null || Boolean.TRUE.equals(sectionConfig.get("extractFromParent"))) {
+                continue;
+            }
+
+            if ("array".equals(sectionConfig.get("type"))) {
+                String tableName = (String) sectionConfig.get("tableName");
+                String parentKey = resolveGridParentKey(sectionName, sectionConfig);
+                if (tableName == null || parentKey == null) {
+                    continue;
+                }
+                Map<String, Object> parentSection = findParentSectionForGrid(sectionName, sectionConfig, formMappings);
+                String parentReference = parentSection != null ? (String) parentSection.get("uuidReferenceField") : null;
+                plan.addGrid(sectionName, stripTablePrefix(tableName), parentKey, parentReference);
+            } else {
+                String uuidRefField = metadataService.getUuidReferenceField(sectionName);
+                String tableName = metadataService.getTableName(sectionName);
+                if (tableName == null) {
+                    tableName = (String) sectionConfig.get("tableName");
+                }
+                if (uuidRefField == null || tableName == null) {
+                    continue;
+                }
+                plan.addSection(sectionName, stripTablePrefix(tableName), uuidRefField);
+            }
+        }
+
+        return plan.build();
+    }
+
+    /**
+     * Determine the parent ID for a grid
+     *
+     * Grids nested under sections with UUID references use that UUID, not the main record ID.
+     */
+    private String resolveGridParentId(String sectionName, Map<String, Object> sectionConfig,
+                                       Map<String, Object> formMappings, FormRow parentRow, String recordId) {
+        String parentIdForGrid = recordId; // default to main record ID
+
+        // Find parent section for this grid
+        Map<String, Object> parentSectionConfig = findParentSectionForGrid(sectionName, sectionConfig, formMappings);
+
+        if (parentSectionConfig != null) {
+            // Check if parent section has UUID reference field
+            String uuidRefField = (String) parentSectionConfig.get("uuidReferenceField");
+
+            if (uuidRefField != null) {
+                // Extract UUID from parent row (try with and without c_ prefix)
+                String uuid = parentRow.getProperty("c_" + uuidRefField);
+                if (uuid == null || uuid.trim().isEmpty()) {
+                    uuid = parentRow.getProperty(uuidRefField);
+                }
+
+                if (uuid != null && !uuid.trim().isEmpty()) {
+                    String parentUuid = uuid;
+                    parentIdForGrid = parentUuid;
+                    SubmissionLog.debug(CLASS_NAME, () -> "Using parent UUID for grid '" + sectionName +
+                        "': " + uuidRefField + " = " + parentUuid);
+                } else {
+                    LogUtil.warn(CLASS_NAME, "Parent section has uuidReferenceField '" + uuidRefField +
+                        "' but no UUID found in parent row for grid: " + sectionName);
+                }
+            }
+        }
+        return parentIdForGrid;
+    }
+
+    private static String stripTablePrefix(String tableName) {
+        return tableName.startsWith("app_fd_") ? tableName.substring(7) : tableName;
+    }
+
     /**
      * Extract section data by following UUID reference from parent record
      * This mirrors how ProcessingAPI stores data - each section's record UUID is stored in farms_registry
@@ -192,13 +487,14 @@ public class GenericFormDataExtractor {
             }
 
             if (uuid == null || uuid.trim().isEmpty()) {
-                LogUtil.info(CLASS_NAME, "No UUID reference found for section " + sectionName +
+                SubmissionLog.debug(CLASS_NAME, () -> "No UUID reference found for section " + sectionName +
                     " (field: " + uuidRefField + ")");
                 return data;
             }
 
-            LogUtil.info(CLASS_NAME, "Found UUID reference for section " + sectionName + ": " +
-                uuidRefField + " = " + uuid);
+            String sectionUuid = uuid;
+            SubmissionLog.debug(CLASS_NAME, () -> "Found UUID reference for section " + sectionName + ": " +
+                uuidRefField + " = " + sectionUuid);
 
             // Get table name for this section
             String tableName = metadataService.getTableName(sectionName);
@@ -216,7 +512,8 @@ public class GenericFormDataExtractor {
                 tableName = tableName.substring(7);
             }
 
-            LogUtil.info(CLASS_NAME, "Loading sub-record from table " + tableName + " with id = " + uuid);
+            String subRecordTable = tableName;
+            SubmissionLog.debug(CLASS_NAME, () -> "Loading sub-record from table " + subRecordTable + " with id = " + sectionUuid);
 
             // Load the sub-record using the UUID
             FormRow subRecord = formDataDao.loadByTableNameAndColumnName(tableName, "id", uuid);
@@ -226,14 +523,15 @@ public class GenericFormDataExtractor {
                 return data;
             }
 
-            LogUtil.info(CLASS_NAME, "Successfully loaded sub-record, extracting fields");
-            LogUtil.info(CLASS_NAME, "Sub-record fields available: " + subRecord.keySet());
+            SubmissionLog.debug(CLASS_NAME, () -> "Successfully loaded sub-record, extracting fields");
+            SubmissionLog.debug(CLASS_NAME, () -> "Sub-record fields available: " + subRecord.keySet());
 
             // Extract fields using merged field definitions from both YAMLs
             data = extractFieldsFromRowUsingStructure(subRecord, sectionName);
 
             if (!data.isEmpty()) {
-                LogUtil.info(CLASS_NAME, "Extracted " + data.size() + " fields from section: " + sectionName);
+                int extracted = data.size();
+                SubmissionLog.debug(CLASS_NAME, () -> "Extracted " + extracted + " fields from section: " + sectionName);
             } else {
                 LogUtil.warn(CLASS_NAME, "No fields extracted from section: " + sectionName);
             }
@@ -299,7 +597,7 @@ public class GenericFormDataExtractor {
                     String fieldTransform = (String) field.get("transform");
 
                     if (jogetGridName.equals(fieldJoget) && "grid".equals(fieldTransform)) {
-                        LogUtil.info(CLASS_NAME, "Found parent section '" + sectionName +
+                        SubmissionLog.debug(CLASS_NAME, () -> "Found parent section '" + sectionName +
                             "' for grid '" + gridSectionName + "'");
                         return sectionConfig;
                     }
@@ -331,7 +629,7 @@ public class GenericFormDataExtractor {
                 return data;
             }
 
-            LogUtil.info(CLASS_NAME, "Processing " + fields.size() + " fields for section: " + sectionName);
+            SubmissionLog.debug(CLASS_NAME, () -> "Processing " + fields.size() + " fields for section: " + sectionName);
 
             // Extract each field from the row
             for (Map<String, Object> fieldConfig : fields) {
@@ -349,14 +647,15 @@ public class GenericFormDataExtractor {
                 if (value != null && !value.trim().isEmpty()) {
                     // Store the extracted value
                     data.put(fieldId, value);
-                    LogUtil.info(CLASS_NAME, "Extracted field " + fieldId + " = " +
+                    SubmissionLog.debug(CLASS_NAME, () -> "Extracted field " + fieldId + " = " +
                         (value.length() > 50 ? value.substring(0, 50) + "..." : value));
+                    SubmissionLog.count("fields");
                 } else {
-                    LogUtil.debug(CLASS_NAME, "Field " + fieldId + " is empty or null");
+                    SubmissionLog.debug(CLASS_NAME, () -> "Field " + fieldId + " is empty or null");
                 }
             }
 
-            LogUtil.info(CLASS_NAME, "Successfully extracted " + data.size() + "/" + fields.size() + " fields");
+            SubmissionLog.debug(CLASS_NAME, () -> "Successfully extracted " + data.size() + "/" + fields.size() + " fields");
 
         } catch (Exception e) {
             LogUtil.error(CLASS_NAME, e, "Error extracting fields from row using structure: " + e.getMessage());
@@ -376,12 +675,12 @@ public class GenericFormDataExtractor {
             // Get field mappings for this section
             List<Map<String, Object>> fields = (List<Map<String, Object>>) sectionConfig.get("fields");
             if (fields == null) {
-                LogUtil.debug(CLASS_NAME, "No fields defined for section");
+                SubmissionLog.debug(CLASS_NAME, () -> "No fields defined for section");
                 return data;
             }
 
             // Debug: Log all available fields in this row
-            LogUtil.info(CLASS_NAME, "Sub-record fields available: " + row.keySet());
+            SubmissionLog.debug(CLASS_NAME, () -> "Sub-record fields available: " + row.keySet());
 
             // Extract each field from the row
             for (Map<String, Object> fieldConfig : fields) {
@@ -411,10 +710,13 @@ public class GenericFormDataExtractor {
                 if (value != null && !value.trim().isEmpty()) {
                     // Store without c_ prefix for clean field names
                     data.put(jogetField, value);
-                    LogUtil.info(CLASS_NAME, "Extracted field " + jogetField + " (from " + usedFieldName + ") = " +
-                        (value.length() > 50 ? value.substring(0, 50) + "..." : value));
+                    String fieldValue = value;
+                    String sourceField = usedFieldName;
+                    SubmissionLog.debug(CLASS_NAME, () -> "Extracted field " + jogetField + " (from " + sourceField + ") = " +
+                        (fieldValue.length() > 50 ? fieldValue.substring(0, 50) + "..." : fieldValue));
+                    SubmissionLog.count("fields");
                 } else {
-                    LogUtil.debug(CLASS_NAME, "Field " + jogetField + " not found (tried: " + columnNameWithPrefix + ", " + jogetField + ")");
+                    SubmissionLog.debug(CLASS_NAME, () -> "Field " + jogetField + " not found (tried: " + columnNameWithPrefix + ", " + jogetField + ")");
                 }
             }
         } catch (Exception e) {
@@ -453,7 +755,8 @@ public class GenericFormDataExtractor {
             String queryKey = "id";  // Standard Joget primary key
 
             // Log the query details
-            LogUtil.info(CLASS_NAME, "Querying table '" + tableName + "' (original: " + originalTableName + ") with condition: " + queryKey + " = " + recordId);
+            String queryTable = tableName;
+            SubmissionLog.debug(CLASS_NAME, () -> "Querying table '" + queryTable + "' (original: " + originalTableName + ") with condition: " + queryKey + " = " + recordId);
 
             try {
                 // First try with the table name without prefix
@@ -474,9 +777,9 @@ public class GenericFormDataExtractor {
                         }
                     }
 
-                    LogUtil.info(CLASS_NAME, "Extracted " + data.size() + " fields from section: " + sectionName);
+                    SubmissionLog.debug(CLASS_NAME, () -> "Extracted " + data.size() + " fields from section: " + sectionName);
                 } else {
-                    LogUtil.info(CLASS_NAME, "No data found in section " + sectionName + " for record: " + recordId);
+                    SubmissionLog.debug(CLASS_NAME, () -> "No data found in section " + sectionName + " for record: " + recordId);
                 }
             } catch (Exception ex) {
                 LogUtil.error(CLASS_NAME, ex, "Error querying table '" + tableName + "'. The table name might be incorrect or the record doesn't exist.");
@@ -511,42 +814,16 @@ public class GenericFormDataExtractor {
                 tableName = tableName.substring(7);
             }
 
-            // Get parent key column from form_structure.yaml
-            // This reads the grid's foreign_key field and looks up the column name
-            // Example: grid has foreign_key="farmer_id", looks up field to get column="c_farmer_id"
-            String formId = (String) sectionConfig.get("formId");
-            String parentKey = metadataService.getGridForeignKeyColumn(sectionName, formId);
-
-            // Fallback to services.yml if not found in form_structure.yaml
-            if (parentKey == null) {
-                parentKey = (String) sectionConfig.get("parentKey");
-                if (parentKey != null) {
-                    LogUtil.warn(CLASS_NAME, "Using fallback parentKey from services.yml for grid: " + sectionName);
-                }
-            }
-
-            // Try default from configuration
+            String parentKey = resolveGridParentKey(sectionName, sectionConfig);
             if (parentKey == null) {
-                try {
-                    parentKey = metadataService.getDefaultGridParentColumn();
-                    if (parentKey != null) {
-                        LogUtil.info(CLASS_NAME, "Using default gridParentColumn from config for grid '" + sectionName + "': " + parentKey);
-                    }
-                } catch (Exception e) {
-                    LogUtil.error(CLASS_NAME, e, "Error getting default gridParentColumn");
-                }
-            }
-
-            if (parentKey == null) {
-                LogUtil.warn(CLASS_NAME, "No foreign key found for grid section: " + sectionName +
-                    " (not in form_structure.yaml, services.yml, or config defaults)");
                 return gridData;
             }
 
             // Build HQL condition using actual column name
             String condition = " WHERE " + parentKey + " = ?";
 
-            LogUtil.info(CLASS_NAME, "Extracting grid data from tableName=" + tableName +
+            String gridTable = tableName;
+            SubmissionLog.debug(CLASS_NAME, () -> "Extracting grid data from tableName=" + gridTable +
                 " using HQL: " + condition + " with parentId=" + parentId);
 
             // Query grid data using tableName (not formId)
@@ -561,24 +838,9 @@ public class GenericFormDataExtractor {
             );
 
             if (rows != null && !rows.isEmpty()) {
-                // For grid sections, use formId (not sectionName) to lookup field mappings
-                // Example: sectionName="householdMembers" but form_structure.yaml has fields under "householdMemberForm"
-                // Note: formId was already extracted above for foreign key lookup
-                String lookupKey = formId != null ? formId : sectionName;
-
-                LogUtil.info(CLASS_NAME, "Found " + rows.size() + " rows for grid " + sectionName + ", extracting using formId: " + lookupKey);
-
-                for (FormRow row : rows) {
-                    // Extract fields using form_structure.yaml column definitions
-                    Map<String, Object> rowData = extractFieldsFromRowUsingStructure(row, lookupKey);
-                    if (!rowData.isEmpty()) {
-                        gridData.add(rowData);
-                    }
-                }
-
-                LogUtil.info(CLASS_NAME, "Extracted " + gridData.size() + " rows from grid: " + sectionName);
+                gridData = extractGridRows(sectionName, sectionConfig, rows);
             } else {
-                LogUtil.info(CLASS_NAME, "No grid data found in " + sectionName + " for " + parentKey + " = " + parentId);
+                SubmissionLog.debug(CLASS_NAME, () -> "No grid data found in " + sectionName + " for " + parentKey + " = " + parentId);
             }
 
         } catch (Exception e) {
@@ -588,6 +850,74 @@ public class GenericFormDataExtractor {
         return gridData;
     }
 
+    /**
+     * Get the foreign key column linking a grid's rows to their parent record
+     *
+     * Reads the grid's foreign_key field from form_structure.yaml and looks up its column,
+     * falling back to parentKey in services.yml and then to the configured default.
+     *
+     * @return Column name (e.g., "c_farmer_id"), or null if none is configured
+     */
+    private String resolveGridParentKey(String sectionName, Map<String, Object> sectionConfig) {
+        // Get parent key column from form_structure.yaml
+        // This reads the grid's foreign_key field and looks up the column name
+        // Example: grid has foreign_key="farmer_id", looks up field to get column="c_farmer_id"
+        String formId = (String) sectionConfig.get("formId");
+        String parentKey = metadataService.getGridForeignKeyColumn(sectionName, formId);
+
+        // Fallback to services.yml if not found in form_structure.yaml
+        if (parentKey == null) {
+            parentKey = (String) sectionConfig.get("parentKey");
+            if (parentKey != null) {
+                LogUtil.warn(CLASS_NAME, "Using fallback parentKey from services.yml for grid: " + sectionName);
+            }
+        }
+
+        // Try default from configuration
+        if (parentKey == null) {
+            try {
+                parentKey = metadataService.getDefaultGridParentColumn();
+                if (parentKey != null) {
+                    String defaultKey = parentKey;
+                    SubmissionLog.debug(CLASS_NAME, () -> "Using default gridParentColumn from config for grid '" + sectionName + "': " + defaultKey);
+                }
+            } catch (Exception e) {
+                LogUtil.error(CLASS_NAME, e, "Error getting default gridParentColumn");
+            }
+        }
+
+        if (parentKey == null) {
+            LogUtil.warn(CLASS_NAME, "No foreign key found for grid section: " + sectionName +
+                " (not in form_structure.yaml, services.yml, or config defaults)");
+        }
+        return parentKey;
+    }
+
+    /**
+     * Extract the mapped fields of each loaded grid row
+     */
+    private List<Map<String, Object>> extractGridRows(String sectionName, Map<String, Object> sectionConfig, Collection<FormRow> rows) {
+        List<Map<String, Object>> gridData = new ArrayList<>();
+
+        // For grid sections, use formId (not sectionName) to lookup field mappings
+        // Example: sectionName="householdMembers" but form_structure.yaml has fields under "householdMemberForm"
+        String formId = (String) sectionConfig.get("formId");
+        String lookupKey = formId != null ? formId : sectionName;
+
+        SubmissionLog.debug(CLASS_NAME, () -> "Found " + rows.size() + " rows for grid " + sectionName + ", extracting using formId: " + lookupKey);
+
+        for (FormRow row : rows) {
+            // Extract fields using form_structure.yaml column definitions
+            Map<String, Object> rowData = extractFieldsFromRowUsingStructure(row, lookupKey);
+            if (!rowData.isEmpty()) {
+                gridData.add(rowData);
+            }
+        }
+
+        SubmissionLog.debug(CLASS_NAME, () -> "Extracted " + gridData.size() + " rows from grid: " + sectionName);
+        return gridData;
+    }
+
     /**
      * Extract data from a specific form by form ID
      */
@@ -623,7 +953,9 @@ public class GenericFormDataExtractor {
                     }
                 }
 
-                LogUtil.info(CLASS_NAME, "Extracted " + data.size() + " fields from form: " + formId);
+                int extracted = data.size();
+                String extractedFormId = formId;
+                SubmissionLog.debug(CLASS_NAME, () -> "Extracted " + extracted + " fields from form: " + extractedFormId);
             }
 
         } catch (Exception e) {
@@ -701,7 +1033,7 @@ public class GenericFormDataExtractor {
                 return data;
             }
 
-            LogUtil.info(CLASS_NAME, "Extracting " + fields.size() + " fields from parent row");
+            SubmissionLog.debug(CLASS_NAME, () -> "Extracting " + fields.size() + " fields from parent row");
 
             for (Map<String, Object> fieldConfig : fields) {
                 String jogetField = (String) fieldConfig.get("joget");
@@ -715,11 +1047,12 @@ public class GenericFormDataExtractor {
 
                 if (value != null && !value.trim().isEmpty()) {
                     data.put(jogetField, value);
-                    LogUtil.info(CLASS_NAME, "Extracted parent field " + jogetField + " = " + value);
+                    SubmissionLog.debug(CLASS_NAME, () -> "Extracted parent field " + jogetField + " = " + value);
+                    SubmissionLog.count("fields");
                 }
             }
 
-            LogUtil.info(CLASS_NAME, "Extracted " + data.size() + " fields from parent row");
+            SubmissionLog.debug(CLASS_NAME, () -> "Extracted " + data.size() + " fields from parent row");
 
         } catch (Exception e) {
             LogUtil.error(CLASS_NAME, e, "Error extracting fields from parent row: " + e.getMessage());
@@ -1,13 +1,21 @@
 package global.govstack.registration.sender.service.metadata;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import global.govstack.registration.sender.service.metrics.SubmissionMetrics;
 import global.govstack.registration.sender.service.transform.TransformationService;
 import global.govstack.registration.sender.util.JsonBuilder;
+import global.govstack.registration.sender.util.SubmissionLog;
 import org.joget.commons.util.LogUtil;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -21,9 +29,20 @@ public class GovStackJsonEncoder {
 
     private static final String CLASS_NAME = GovStackJsonEncoder.class.getName();
 
+    // Document-level fields, as compiled paths for the tree encoder
+    private static final byte[] TEST_DATA_START = "{\"testData\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final JsonBuilder.Path[] METADATA_PATHS = new JsonBuilder.Path[JsonLayout.METADATA_FIELDS.length];
+    static {
+        for (int i = 0; i < METADATA_PATHS.length; i++) {
+            METADATA_PATHS[i] = JsonBuilder.compilePath(JsonLayout.METADATA_FIELDS[i]);
+        }
+    }
+
     private final YamlMetadataService metadataService;
     private final TransformationService transformationService;
     private final ObjectMapper mapper;
+    private volatile EncodingPlan encodingPlan;
 
     public GovStackJsonEncoder() {
         this.metadataService = new YamlMetadataService();
@@ -40,103 +59,226 @@ public class GovStackJsonEncoder {
     /**
      * Encode form data to GovStack JSON format
      *
+     * The JSON is pretty-printed, for logging and diagnostics; payloads are sent in the compact
+     * form of {@link #encodeToGovStackBytes}.
+     *
      * @param formData Data extracted from Joget forms (organized by section)
      * @return GovStack-compliant JSON string
      */
     public String encodeToGovStackJson(Map<String, Object> formData) {
-        try {
-            LogUtil.info(CLASS_NAME, "Starting encoding of form data to GovStack JSON");
-
-            // Create the JSON structure
-            JsonBuilder builder = new JsonBuilder();
+        return encodeToGovStackJson(formData, false);
+    }
 
-            // Get all form mappings from metadata
-            Map<String, Object> formMappings = metadataService.getFormMappings();
+    /**
+     * Encode form data to GovStack JSON format, optionally inside the test data envelope
+     *
+     * The envelope is built around the document tree, so the document is serialized once and
+     * never parsed back.
+     *
+     * @param formData Data extracted from Joget forms (organized by section)
+     * @param testDataEnvelope true to wrap the document as {"testData": [...]} (for compatibility with ProcessingAPI)
+     * @return GovStack-compliant JSON string
+     */
+    public String encodeToGovStackJson(Map<String, Object> formData, boolean testDataEnvelope) {
+        try {
+            SubmissionLog.debug(CLASS_NAME, () -> "Starting encoding of form data to GovStack JSON");
 
-            if (formMappings == null || formMappings.isEmpty()) {
-                LogUtil.error(CLASS_NAME, null, "No form mappings found in metadata");
+            JsonBuilder builder = buildDocument(formData);
+            if (builder == null) {
                 return null;
             }
 
-            // Process each form section
-            for (Map.Entry<String, Object> entry : formMappings.entrySet()) {
-                String sectionName = entry.getKey();
-                Map<String, Object> sectionConfig = (Map<String, Object>) entry.getValue();
+            // Convert to JSON string
+            String json;
+            if (testDataEnvelope) {
+                ObjectNode wrapper = mapper.createObjectNode();
+                wrapper.putArray("testData").add(builder.getJsonNode());
+                json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(wrapper);
+            } else {
+                json = builder.toPrettyJsonString();
+            }
 
-                if (sectionConfig == null) {
-                    continue;
-                }
+            SubmissionLog.debug(CLASS_NAME, () -> "Successfully encoded form data to GovStack JSON");
+            SubmissionLog.debug(CLASS_NAME, () -> "GovStack JSON:\n" + json);
 
-                // Get the section data from form data
-                Object sectionData = formData.get(sectionName);
+            return json;
 
-                if (sectionData == null) {
-                    LogUtil.info(CLASS_NAME, "No data found for section: " + sectionName);
-                    continue;
-                }
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Error encoding to GovStack JSON");
+            return null;
+        }
+    }
+
+    /**
+     * Encode form data to the compact GovStack JSON sent to the Processing API
+     *
+     * @param formData Data extracted from Joget forms (organized by section)
+     * @param testDataEnvelope true to wrap the document as {"testData": [...]}
+     * @return The UTF-8 encoded JSON, or null if it could not be encoded
+     */
+    public byte[] encodeToGovStackBytes(Map<String, Object> formData, boolean testDataEnvelope) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        return writeGovStackJson(formData, out, testDataEnvelope) ? out.toByteArray() : null;
+    }
+
+    /**
+     * Encode form data and write the compact JSON straight to a stream
+     *
+     * The document is written field by field to a JsonGenerator over the stream, following the
+     * plan's precompiled layout, so neither a JSON tree nor a String of the payload is built.
+     * Metadata whose paths have no single-pass layout is written through the JSON tree instead.
+     * The stream is flushed but not closed.
+     *
+     * @param formData Data extracted from Joget forms (organized by section)
+     * @param out Destination of the JSON
+     * @param testDataEnvelope true to wrap the document as {"testData": [...]}
+     * @return true if the document was written, false if it could not be encoded
+     */
+    public boolean writeGovStackJson(Map<String, Object> formData, OutputStream out, boolean testDataEnvelope) {
+        long start = SubmissionMetrics.startTimer();
+        try {
+            EncodingPlan plan = getEncodingPlan();
+            if (plan == null) {
+                LogUtil.error(CLASS_NAME, null, "No form mappings found in metadata");
+                return false;
+            }
 
-                String type = (String) sectionConfig.get("type");
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (testDataEnvelope) {
+                    generator.writeStartObject();
+                    generator.writeFieldName("testData");
+                    generator.writeStartArray();
+                }
 
-                if ("array".equals(type)) {
-                    // Process grid/array data
-                    processArraySection(builder, sectionName, sectionConfig, sectionData);
+                JsonLayout layout = plan.getLayout();
+                if (layout != null) {
+                    SlotSink slots = new SlotSink(layout);
+                    collectDocument(plan, formData, slots);
+                    layout.write(generator, slots.values, mapper);
                 } else {
-                    // Process regular form data
-                    processFormSection(builder, sectionName, sectionConfig, sectionData);
+                    TreeSink tree = new TreeSink();
+                    collectDocument(plan, formData, tree);
+                    mapper.writeTree(generator, tree.builder.getJsonNode());
                 }
-            }
 
-            // Add metadata
-            addMetadata(builder, formData);
+                if (testDataEnvelope) {
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+            }
+            return true;
 
-            // Convert to JSON string
-            String json = builder.toPrettyJsonString();
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Error writing GovStack JSON");
+            return false;
+        } finally {
+            SubmissionMetrics.shared().recordStage(SubmissionMetrics.Stage.ENCODE, start);
+        }
+    }
 
-            LogUtil.info(CLASS_NAME, "Successfully encoded form data to GovStack JSON");
+    /**
+     * Build the GovStack document for a record as a JSON tree
+     *
+     * @return The populated builder, or null if there are no form mappings
+     */
+    private JsonBuilder buildDocument(Map<String, Object> formData) {
+        // Get the compiled field mappings
+        EncodingPlan plan = getEncodingPlan();
 
-            // DEBUG: Log the actual JSON being sent to verify structure
-            LogUtil.info(CLASS_NAME, "=== SENDING JSON TO PROCESSING API ===");
-            LogUtil.info(CLASS_NAME, json);
-            LogUtil.info(CLASS_NAME, "=== END JSON ===");
+        if (plan == null) {
+            LogUtil.error(CLASS_NAME, null, "No form mappings found in metadata");
+            return null;
+        }
 
-            return json;
+        // Create the JSON structure
+        TreeSink tree = new TreeSink();
+        collectDocument(plan, formData, tree);
+        return tree.builder;
+    }
 
-        } catch (Exception e) {
-            LogUtil.error(CLASS_NAME, e, "Error encoding to GovStack JSON");
+    /**
+     * Get the encoding plan for the current metadata, compiling it when the metadata changed
+     *
+     * @return The plan, or null if no form mappings are loaded
+     */
+    EncodingPlan getEncodingPlan() {
+        ServiceMetadata snapshot = metadataService.getSnapshot();
+        if (snapshot == null || snapshot.getFormMappings().isEmpty()) {
             return null;
         }
+
+        EncodingPlan current = encodingPlan;
+        if (current != null && current.getSnapshot() == snapshot) {
+            return current;
+        }
+        current = EncodingPlan.compile(snapshot, transformationService);
+        encodingPlan = current;
+        return current;
+    }
+
+    /**
+     * Encode a record's values and hand them to a sink, section by section
+     */
+    private void collectDocument(EncodingPlan plan, Map<String, Object> formData, DocumentSink sink) {
+        // Process each form section
+        EncodingPlan.Section[] sections = plan.getSections();
+        for (int i = 0; i < sections.length; i++) {
+            EncodingPlan.Section section = sections[i];
+
+            // Get the section data from form data
+            Object sectionData = formData.get(section.getName());
+
+            if (sectionData == null) {
+                SubmissionLog.debug(CLASS_NAME, () -> "No data found for section: " + section.getName());
+                continue;
+            }
+
+            if (section.isArray()) {
+                // Process grid/array data
+                processArraySection(sink, i, section, sectionData);
+            } else {
+                // Process regular form data
+                processFormSection(sink, i, section, sectionData);
+            }
+        }
+
+        // Add metadata
+        addMetadata(sink, plan, formData);
     }
 
     /**
      * Process a regular form section
      */
-    private void processFormSection(JsonBuilder builder, String sectionName,
-                                   Map<String, Object> sectionConfig, Object sectionData) {
+    private void processFormSection(DocumentSink sink, int sectionIndex, EncodingPlan.Section section,
+                                    Object sectionData) {
 
         if (!(sectionData instanceof Map)) {
-            LogUtil.warn(CLASS_NAME, "Section data is not a Map for: " + sectionName);
+            LogUtil.warn(CLASS_NAME, "Section data is not a Map for: " + section.getName());
             return;
         }
 
         Map<String, Object> dataMap = (Map<String, Object>) sectionData;
-        List<Map<String, Object>> fields = (List<Map<String, Object>>) sectionConfig.get("fields");
+        EncodingPlan.FieldEncoding[] fields = section.getFields();
 
         if (fields == null) {
             return;
         }
 
-        LogUtil.info(CLASS_NAME, "Processing form section: " + sectionName + " with " + fields.size() + " fields");
+        SubmissionLog.debug(CLASS_NAME, () -> "Processing form section: " + section.getName() + " with " + fields.length + " fields");
+        SubmissionLog.count("sections");
 
-        for (Map<String, Object> field : fields) {
-            processField(builder, field, dataMap);
+        for (int j = 0; j < fields.length; j++) {
+            processField(sink, sectionIndex, j, fields[j], dataMap);
         }
     }
 
     /**
      * Process an array/grid section
      */
-    private void processArraySection(JsonBuilder builder, String sectionName,
-                                    Map<String, Object> sectionConfig, Object sectionData) {
+    private void processArraySection(DocumentSink sink, int sectionIndex, EncodingPlan.Section section,
+                                     Object sectionData) {
+        String sectionName = section.getName();
 
         if (!(sectionData instanceof List)) {
             LogUtil.warn(CLASS_NAME, "Section data is not a List for array section: " + sectionName);
@@ -144,146 +286,87 @@ public class GovStackJsonEncoder {
         }
 
         List<Map<String, Object>> dataList = (List<Map<String, Object>>) sectionData;
-        String govstackPath = (String) sectionConfig.get("govstack");
 
-        if (govstackPath == null) {
+        if (section.getArrayPath() == null) {
             LogUtil.warn(CLASS_NAME, "No govstack path defined for array section: " + sectionName);
             return;
         }
 
         // Check control field if defined
-        String controlField = (String) sectionConfig.get("controlField");
-        String controlValue = (String) sectionConfig.get("controlValue");
-
-        if (controlField != null && controlValue != null) {
+        if (section.getControlField() != null && section.getControlValue() != null) {
             // Check if control field matches required value
             // Note: The control field would be in the parent form data
             // For now, we'll process the array anyway
-            LogUtil.info(CLASS_NAME, "Control field check for " + sectionName + ": " + controlField + " = " + controlValue);
+            SubmissionLog.debug(CLASS_NAME, () -> "Control field check for " + sectionName + ": " +
+                section.getControlField() + " = " + section.getControlValue());
         }
 
-        LogUtil.info(CLASS_NAME, "Processing array section: " + sectionName + " with " + dataList.size() + " items");
-
-        List<Map<String, Object>> fields = (List<Map<String, Object>>) sectionConfig.get("fields");
+        SubmissionLog.debug(CLASS_NAME, () -> "Processing array section: " + sectionName + " with " + dataList.size() + " items");
+        SubmissionLog.count("sections");
+        SubmissionLog.count("gridRows", dataList.size());
 
-        if (fields == null) {
+        if (section.getFields() == null) {
             return;
         }
 
-        // Create array for this section
-        ArrayNode arrayNode = mapper.createArrayNode();
-
-        // Process each item in the array
-        for (Map<String, Object> itemData : dataList) {
-            ObjectNode itemNode = mapper.createObjectNode();
-
-            // Process fields for this item
-            for (Map<String, Object> field : fields) {
-                // Support both field_id and joget
-                String fieldId = (String) field.get("field_id");
-                String jogetField = (String) field.get("joget");
-                String fieldName = fieldId != null ? fieldId : jogetField;
-
-                // Prioritize jsonPath for compatibility with ProcessingAPI
-                String jsonPath = (String) field.get("jsonPath");
-                String govstackField = (String) field.get("govstack");
-                String targetFieldPath = jsonPath != null ? jsonPath : govstackField;
-
-                if (fieldName == null || targetFieldPath == null) {
-                    continue;
-                }
-
-                // Get the value from item data
-                Object value = itemData.get(fieldName);
-
-                if (value != null) {
-                    // Apply transformations
-                    value = applyFieldTransformations(field, value);
-
-                    // Add to item node (handle nested paths within the item)
-                    setNestedValue(itemNode, targetFieldPath, value);
-                }
-            }
-
-            arrayNode.add(itemNode);
-        }
-
-        // Add array to main JSON
-        builder.setValue(govstackPath, arrayNode);
+        sink.setGrid(sectionIndex, section, dataList);
     }
 
     /**
      * Process a single field
      */
-    private void processField(JsonBuilder builder, Map<String, Object> field, Map<String, Object> dataMap) {
-        // Support both field_id (from form_structure.yaml) and joget (from services.yml)
-        String fieldId = (String) field.get("field_id");
-        String jogetField = (String) field.get("joget");
-        String fieldName = fieldId != null ? fieldId : jogetField;
-
-        // Prioritize jsonPath for compatibility with ProcessingAPI which tries jsonPath first
-        String jsonPath = (String) field.get("jsonPath");
-        String govstackPath = (String) field.get("govstack");
-        String targetPath = jsonPath != null ? jsonPath : govstackPath;
-
-        if (fieldName == null || targetPath == null) {
-            return;
-        }
-
+    private void processField(DocumentSink sink, int sectionIndex, int fieldIndex, EncodingPlan.FieldEncoding field,
+                              Map<String, Object> dataMap) {
         // Get the value from form data
-        Object value = dataMap.get(fieldName);
+        Object value = dataMap.get(field.getSourceField());
 
         if (value == null || (value instanceof String && ((String) value).trim().isEmpty())) {
             // Skip null or empty values unless field is required
-            Boolean required = (Boolean) field.get("required");
-            if (Boolean.TRUE.equals(required)) {
-                LogUtil.warn(CLASS_NAME, "Required field missing: " + fieldName);
+            if (field.isRequired()) {
+                LogUtil.warn(CLASS_NAME, "Required field missing: " + field.getSourceField());
             }
             return;
         }
 
-        // Apply transformations
-        value = applyFieldTransformations(field, value);
-
-        // Set the value in the JSON structure
-        builder.setValue(targetPath, value);
+        // Apply transformations and set the value in the JSON structure
+        sink.setField(sectionIndex, fieldIndex, field, field.encode(value));
 
         // Handle additional type fields (e.g., for identifiers)
-        String govstackType = (String) field.get("govstackType");
-        String typeValue = (String) field.get("typeValue");
-
-        if (govstackType != null && typeValue != null) {
-            builder.setValue(govstackType, typeValue);
+        if (field.getTypePath() != null) {
+            sink.setType(sectionIndex, fieldIndex, field);
         }
-
-        LogUtil.info(CLASS_NAME, "Encoded field " + fieldName + " -> " + targetPath + " = " + value);
     }
 
     /**
-     * Apply transformations to a field value
+     * Add metadata fields to the JSON
      */
-    private Object applyFieldTransformations(Map<String, Object> field, Object value) {
-        // Apply transformation if defined
-        String transform = (String) field.get("transform");
-        if (transform != null) {
-            value = transformationService.encode(value, transform);
-        }
+    private void addMetadata(DocumentSink sink, EncodingPlan plan, Map<String, Object> formData) {
+        // Add timestamp
+        sink.setMetadata(0, new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'")
+                .format(new java.util.Date()));
 
-        // Apply value mapping if defined
-        Map<String, Object> valueMapping = (Map<String, Object>) field.get("valueMapping");
-        if (valueMapping != null) {
-            value = transformationService.applyValueMapping(value, valueMapping, "encode");
+        // Add record ID if available
+        Object id = formData.get("id");
+        if (id != null) {
+            sink.setMetadata(1, id.toString());
         }
 
-        return value;
+        // Add service metadata
+        if (plan.getServiceId() != null) {
+            sink.setMetadata(2, plan.getServiceId());
+        }
+        if (plan.getServiceVersion() != null) {
+            sink.setMetadata(3, plan.getServiceVersion());
+        }
+        if (plan.getMetadataVersion() != null) {
+            sink.setMetadata(4, plan.getMetadataVersion());
+        }
     }
 
     /**
      * Set a nested value in an ObjectNode
      */
-    private void setNestedValue(ObjectNode node, String path, Object value) {
-        String[] parts = path.split("\\.");
-
+    private void setNestedValue(ObjectNode node, String[] parts, Object value) {
         ObjectNode current = node;
         for (int i = 0; i < parts.length - 1; i++) {
             String part = parts[i];
@@ -332,56 +415,184 @@ public class GovStackJsonEncoder {
     }
 
     /**
-     * Add metadata fields to the JSON
+     * Wrap the JSON in a test data format if needed (for compatibility with ProcessingAPI)
+     *
+     * The document is copied in as raw JSON rather than parsed and printed again.
+     *
+     * @deprecated Encode with the envelope instead, see {@link #encodeToGovStackJson(Map, boolean)}
+     * and {@link #writeGovStackJson}
      */
-    private void addMetadata(JsonBuilder builder, Map<String, Object> formData) {
-        // Add timestamp
-        builder.setValue("timestamp", new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'")
-                .format(new java.util.Date()));
+    @Deprecated
+    public String wrapInTestDataFormat(String json) {
+        String wrapped = wrapBatch(Collections.singletonList(json), true);
+        return wrapped != null ? wrapped : json;
+    }
 
-        // Add record ID if available
-        Object id = formData.get("id");
-        if (id != null) {
-            builder.setValue("id", id.toString());
+    /**
+     * Combine several encoded documents into one batch payload
+     *
+     * The documents are copied in as raw JSON, so they are not parsed again.
+     *
+     * @param documents GovStack JSON documents, as returned by encodeToGovStackJson
+     * @param testDataEnvelope true for {"testData": [...]}, false for a plain JSON array
+     * @return The batch payload
+     */
+    public String wrapBatch(List<String> documents, boolean testDataEnvelope) {
+        try {
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(writer)) {
+                if (testDataEnvelope) {
+                    generator.writeStartObject();
+                    generator.writeFieldName("testData");
+                }
+                generator.writeStartArray();
+                for (String document : documents) {
+                    generator.writeRawValue(document);
+                }
+                generator.writeEndArray();
+                if (testDataEnvelope) {
+                    generator.writeEndObject();
+                }
+            }
+            return writer.toString();
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Error building batch payload");
+            return null;
         }
+    }
 
-        // Add service metadata
-        Map<String, Object> serviceMetadata = metadataService.getServiceMetadata();
-        if (serviceMetadata != null) {
-            String serviceId = (String) serviceMetadata.get("id");
-            String serviceVersion = (String) serviceMetadata.get("version");
-            String metadataVersion = (String) serviceMetadata.get("metadataVersion");
-
-            if (serviceId != null) {
-                builder.setValue("serviceId", serviceId);
-            }
-            if (serviceVersion != null) {
-                builder.setValue("serviceVersion", serviceVersion);
+    /**
+     * Combine several UTF-8 encoded documents into one batch payload
+     *
+     * The document bytes are copied in as they are, so they are neither parsed nor decoded, and
+     * no metadata is involved.
+     *
+     * @param documents GovStack JSON documents, as returned by encodeToGovStackBytes
+     * @param testDataEnvelope true for {"testData": [...]}, false for a plain JSON array
+     * @return The batch payload, UTF-8 encoded
+     * @see #wrapBatch(List, boolean)
+     */
+    public static byte[] wrapBatchBytes(List<byte[]> documents, boolean testDataEnvelope) {
+        int size = 16;
+        for (byte[] document : documents) {
+            size += document.length + 1;
+        }
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(size);
+        if (testDataEnvelope) {
+            batch.writeBytes(TEST_DATA_START);
+        }
+        batch.write('[');
+        for (int i = 0; i < documents.size(); i++) {
+            if (i > 0) {
+                batch.write(',');
             }
-            if (metadataVersion != null) {
-                builder.setValue("metadataVersion", metadataVersion);
-                LogUtil.info(CLASS_NAME, "Added metadataVersion to payload: " + metadataVersion);
+            batch.writeBytes(documents.get(i));
+        }
+        batch.write(']');
+        if (testDataEnvelope) {
+            batch.write('}');
+        }
+        return batch.toByteArray();
+    }
+
+    /**
+     * Receives a record's encoded values
+     */
+    private interface DocumentSink {
+        void setField(int section, int field, EncodingPlan.FieldEncoding encoding, Object value);
+
+        void setType(int section, int field, EncodingPlan.FieldEncoding encoding);
+
+        void setGrid(int section, EncodingPlan.Section grid, List<Map<String, Object>> items);
+
+        /**
+         * @param field Index into {@link JsonLayout#METADATA_FIELDS}
+         */
+        void setMetadata(int field, String value);
+    }
+
+    /**
+     * Builds the document as a JSON tree
+     */
+    private final class TreeSink implements DocumentSink {
+        final JsonBuilder builder = new JsonBuilder();
+
+        @Override
+        public void setField(int section, int field, EncodingPlan.FieldEncoding encoding, Object value) {
+            builder.setValue(encoding.getTargetPath(), value);
+        }
+
+        @Override
+        public void setType(int section, int field, EncodingPlan.FieldEncoding encoding) {
+            builder.setValue(encoding.getTypePath(), encoding.getTypeValue());
+        }
+
+        @Override
+        public void setGrid(int section, EncodingPlan.Section grid, List<Map<String, Object>> items) {
+            // Create array for this section
+            ArrayNode arrayNode = mapper.createArrayNode();
+
+            // Process each item in the array
+            for (Map<String, Object> itemData : items) {
+                ObjectNode itemNode = mapper.createObjectNode();
+
+                // Process fields for this item
+                for (EncodingPlan.FieldEncoding field : grid.getFields()) {
+                    // Get the value from item data
+                    Object value = itemData.get(field.getSourceField());
+
+                    if (value != null) {
+                        // Apply transformations and add to item node (handle nested paths within the item)
+                        setNestedValue(itemNode, field.getItemPath(), field.encode(value));
+                    }
+                }
+
+                arrayNode.add(itemNode);
             }
+
+            // Add array to main JSON
+            builder.setValue(grid.getArrayPath(), arrayNode);
+        }
+
+        @Override
+        public void setMetadata(int field, String value) {
+            builder.setValue(METADATA_PATHS[field], value);
         }
     }
 
     /**
-     * Wrap the JSON in a test data format if needed (for compatibility with ProcessingAPI)
+     * Collects the values into the slots of a {@link JsonLayout}; grids are encoded while written
      */
-    public String wrapInTestDataFormat(String json) {
-        try {
-            ObjectNode wrapper = mapper.createObjectNode();
-            ArrayNode testData = mapper.createArrayNode();
+    private static final class SlotSink implements DocumentSink {
+        final JsonLayout layout;
+        final Object[] values;
 
-            JsonNode dataNode = mapper.readTree(json);
-            testData.add(dataNode);
+        SlotSink(JsonLayout layout) {
+            this.layout = layout;
+            this.values = new Object[layout.getSlotCount()];
+        }
 
-            wrapper.set("testData", testData);
+        @Override
+        public void setField(int section, int field, EncodingPlan.FieldEncoding encoding, Object value) {
+            // As in the tree, a null value leaves an earlier value at the same path in place
+            if (value != null) {
+                values[layout.getFieldSlot(section, field)] = value;
+            }
+        }
 
-            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(wrapper);
-        } catch (Exception e) {
-            LogUtil.error(CLASS_NAME, e, "Error wrapping in test data format");
-            return json;
+        @Override
+        public void setType(int section, int field, EncodingPlan.FieldEncoding encoding) {
+            values[layout.getTypeSlot(section, field)] = encoding.getTypeValue();
+        }
+
+        @Override
+        public void setGrid(int section, EncodingPlan.Section grid, List<Map<String, Object>> items) {
+            values[layout.getGridSlot(section)] = items;
+        }
+
+        @Override
+        public void setMetadata(int field, String value) {
+            values[layout.getMetadataSlot(field)] = value;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,447 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.form.model.FormRow;
+import org.joget.commons.util.LogUtil;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Loads a complete record with a small, fixed number of queries
+ *
+ * The per-section extraction path costs one FormDataDao round trip for the parent row, one per
+ * UUID-referenced section and one per grid. This loader reads the parent row and all
+ * UUID-referenced sections in a single LEFT JOIN, and each grid table with one
+ * {@code WHERE parentKey IN (...)} query shared by all grids stored in that table.
+ *
+ * Rows are returned as FormRows keyed like FormDataDao's (column names without the c_ prefix),
+ * so the extractor applies the same field mappings to either source. The SQL for a plan is
+ * built once, from the columns the tables have when the plan is first used, and rebuilt after
+ * a query with it fails. Compiled SQL is kept per plan, so executions for different services
+ * or pipelines do not evict each other's; plans replaced by a metadata reload are dropped
+ * once nothing else refers to them.
+ */
+public class JoinedFormDataLoader {
+
+    private static final String CLASS_NAME = JoinedFormDataLoader.class.getName();
+
+    private static final String TABLE_PREFIX = "app_fd_";
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_]+");
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    // Stays below the bind parameter limits of the databases Joget supports
+    private static final int MAX_CHUNK_SIZE = 1000;
+
+    private static volatile JoinedFormDataLoader shared;
+
+    private final DataSource dataSource;
+
+    // Keyed by plan identity; weak so replaced plans do not pin their compiled SQL
+    private final Map<ExtractionPlan, CompiledPlan> compiled = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public JoinedFormDataLoader(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Get the process-wide loader on Joget's setup data source
+     *
+     * @return The shared loader
+     */
+    public static JoinedFormDataLoader shared() {
+        JoinedFormDataLoader loader = shared;
+        if (loader == null) {
+            synchronized (JoinedFormDataLoader.class) {
+                loader = shared;
+                if (loader == null) {
+                    DataSource dataSource = (DataSource) AppUtil.getApplicationContext().getBean("setupDataSource");
+                    loader = new JoinedFormDataLoader(dataSource);
+                    shared = loader;
+                }
+            }
+        }
+        return loader;
+    }
+
+    /**
+     * Load the parent row, section rows and grid rows of a record
+     *
+     * @param plan The extraction plan for the record's service
+     * @param recordId The record ID
+     * @return The loaded rows; the parent row is null if the record does not exist
+     * @throws SQLException if a query fails
+     */
+    public LoadedRecord load(ExtractionPlan plan, String recordId) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return loadChunk(connection, plan, compile(connection, plan), Collections.singletonList(recordId)).get(0);
+        } catch (SQLException e) {
+            // The schema may have changed under the cached SQL
+            compiled.remove(plan);
+            throw e;
+        }
+    }
+
+    /**
+     * Load many records with set-based queries, one chunk at a time
+     *
+     * Each chunk costs one joined query for the parent and section rows plus one query per grid
+     * table, however many records it holds. Records are passed to the consumer in the order
+     * given, each chunk as soon as it is loaded, on one connection.
+     *
+     * @param plan The extraction plan for the records' service
+     * @param recordIds The record IDs
+     * @param chunkSize Maximum records (and IN parameters) per query
+     * @param consumer Receives each loaded record; the parent row is null for records that do not exist
+     * @throws SQLException if a query fails; records of earlier chunks have been delivered
+     */
+    public void loadAll(ExtractionPlan plan, List<String> recordIds, int chunkSize, Consumer<LoadedRecord> consumer)
+            throws SQLException {
+        int size = chunkSize > 0 ? Math.min(chunkSize, MAX_CHUNK_SIZE) : DEFAULT_CHUNK_SIZE;
+        try (Connection connection = dataSource.getConnection()) {
+            CompiledPlan query = compile(connection, plan);
+            for (int from = 0; from < recordIds.size(); from += size) {
+                List<String> chunk = recordIds.subList(from, Math.min(from + size, recordIds.size()));
+                for (LoadedRecord record : loadChunk(connection, plan, query, chunk)) {
+                    consumer.accept(record);
+                }
+            }
+        } catch (SQLException e) {
+            compiled.remove(plan);
+            throw e;
+        }
+    }
+
+    /**
+     * Load one chunk of records
+     *
+     * @return One loaded record per requested ID, in request order
+     */
+    private List<LoadedRecord> loadChunk(Connection connection, ExtractionPlan plan, CompiledPlan query,
+                                         List<String> recordIds) throws SQLException {
+        Map<String, FormRow> parentRows = new HashMap<>();
+        Map<String, Map<String, FormRow>> sectionRows = new HashMap<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(query.joinSql + placeholders(recordIds.size()))) {
+            bind(statement, recordIds);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    int offset = 0;
+                    FormRow parentRow = readRow(rs, query.parentColumns, offset);
+                    offset += query.parentColumns.size();
+
+                    Map<String, FormRow> sections = new HashMap<>();
+                    for (int i = 0; i < plan.getSections().size(); i++) {
+                        List<String> columns = query.sectionColumns.get(i);
+                        FormRow row = readRow(rs, columns, offset);
+                        offset += columns.size();
+                        // No match on the LEFT JOIN: the section was never filled in
+                        sections.put(plan.getSections().get(i).getSectionName(), row.getId() != null ? row : null);
+                    }
+                    parentRows.put(parentRow.getId(), parentRow);
+                    sectionRows.put(parentRow.getId(), sections);
+                }
+            }
+        }
+
+        // Grid rows are grouped under the record and grid they belong to
+        Map<String, Map<String, List<FormRow>>> gridRows = new HashMap<>();
+        for (String recordId : recordIds) {
+            if (parentRows.containsKey(recordId)) {
+                Map<String, List<FormRow>> grids = new HashMap<>();
+                for (ExtractionPlan.GridSource grid : plan.getGrids()) {
+                    grids.put(grid.getSectionName(), new ArrayList<>());
+                }
+                gridRows.put(recordId, grids);
+            }
+        }
+        for (GridQuery gridQuery : query.gridQueries) {
+            loadGrids(connection, gridQuery, parentRows, gridRows);
+        }
+
+        List<LoadedRecord> records = new ArrayList<>(recordIds.size());
+        for (String recordId : recordIds) {
+            FormRow parentRow = parentRows.get(recordId);
+            records.add(parentRow != null
+                ? new LoadedRecord(recordId, parentRow, sectionRows.get(recordId), gridRows.get(recordId))
+                : new LoadedRecord(recordId, null, Collections.emptyMap(), Collections.emptyMap()));
+        }
+        return records;
+    }
+
+    /**
+     * Load every grid stored in one table for a chunk of records with IN queries
+     */
+    private void loadGrids(Connection connection, GridQuery gridQuery, Map<String, FormRow> parentRows,
+                           Map<String, Map<String, List<FormRow>>> gridRows) throws SQLException {
+        // Parent ID -> the grid row lists it feeds (usually one record's grid)
+        Map<String, List<List<FormRow>>> targets = new LinkedHashMap<>();
+        for (Map.Entry<String, FormRow> parent : parentRows.entrySet()) {
+            for (ExtractionPlan.GridSource grid : gridQuery.grids) {
+                String parentId = resolveParentId(grid, parent.getValue(), parent.getKey());
+                targets.computeIfAbsent(parentId, k -> new ArrayList<>())
+                    .add(gridRows.get(parent.getKey()).get(grid.getSectionName()));
+            }
+        }
+
+        List<String> parentIds = new ArrayList<>(targets.keySet());
+        for (int from = 0; from < parentIds.size(); from += MAX_CHUNK_SIZE) {
+            List<String> chunk = parentIds.subList(from, Math.min(from + MAX_CHUNK_SIZE, parentIds.size()));
+            try (PreparedStatement statement = connection.prepareStatement(gridQuery.selectSql + placeholders(chunk.size()))) {
+                bind(statement, chunk);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        FormRow row = readRow(rs, gridQuery.columns, 0);
+                        List<List<FormRow>> lists = targets.get(rs.getString(gridQuery.parentKeyIndex));
+                        if (lists != null) {
+                            for (List<FormRow> rows : lists) {
+                                rows.add(row);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A grid points at the UUID in its parent section's reference field, or at the record itself
+     */
+    private static String resolveParentId(ExtractionPlan.GridSource grid, FormRow parentRow, String recordId) {
+        String reference = grid.getParentReferenceField();
+        if (reference != null) {
+            String uuid = parentRow.getProperty(reference);
+            if (uuid != null && !uuid.trim().isEmpty()) {
+                return uuid;
+            }
+        }
+        return recordId;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(" IN (");
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private static void bind(PreparedStatement statement, List<String> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            statement.setString(i + 1, values.get(i));
+        }
+    }
+
+    private CompiledPlan compile(Connection connection, ExtractionPlan plan) throws SQLException {
+        CompiledPlan current = compiled.get(plan);
+        if (current != null) {
+            return current;
+        }
+        current = new CompiledPlan(connection, plan);
+        compiled.put(plan, current);
+        LogUtil.debug(CLASS_NAME, "Compiled joined extraction for " + plan.getParentTable() + ": " +
+            plan.getSections().size() + " joined section(s), " + current.gridQueries.size() + " grid quer" +
+            (current.gridQueries.size() == 1 ? "y" : "ies"));
+        return current;
+    }
+
+    private static FormRow readRow(ResultSet rs, List<String> columns, int offset) throws SQLException {
+        FormRow row = new FormRow();
+        for (int i = 0; i < columns.size(); i++) {
+            String value = rs.getString(offset + i + 1);
+            if (value != null) {
+                row.setProperty(propertyName(columns.get(i)), value);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * FormDataDao exposes c_ columns under their field ID
+     */
+    private static String propertyName(String column) {
+        return column.startsWith("c_") ? column.substring(2) : column;
+    }
+
+    /**
+     * Read the column names of a form table
+     */
+    private static List<String> describe(Connection connection, String table) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + table + " WHERE 1=0");
+             ResultSet rs = statement.executeQuery()) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.add(identifier(metaData.getColumnLabel(i)));
+            }
+        }
+        return columns;
+    }
+
+    private static String tableName(String table) throws SQLException {
+        return identifier(table.startsWith(TABLE_PREFIX) ? table : TABLE_PREFIX + table);
+    }
+
+    /**
+     * Table and column names come from metadata and cannot be bound, so only plain names are allowed
+     */
+    private static String identifier(String name) throws SQLException {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new SQLException("Unsupported table or column name: " + name);
+        }
+        return name;
+    }
+
+    /**
+     * SQL for a plan, with the column layout needed to read its results
+     *
+     * Holds no reference to the plan itself, which would keep the weak cache key alive.
+     */
+    private static final class CompiledPlan {
+        final String joinSql;
+        final List<String> parentColumns;
+        final List<List<String>> sectionColumns = new ArrayList<>();
+        final List<GridQuery> gridQueries = new ArrayList<>();
+
+        CompiledPlan(Connection connection, ExtractionPlan plan) throws SQLException {
+            String parentTable = tableName(plan.getParentTable());
+            this.parentColumns = describe(connection, parentTable);
+
+            StringBuilder select = new StringBuilder("SELECT ");
+            appendColumns(select, "p", parentColumns);
+            StringBuilder from = new StringBuilder(" FROM ").append(parentTable).append(" p");
+
+            int index = 0;
+            for (ExtractionPlan.SectionSource section : plan.getSections()) {
+                String alias = "s" + index++;
+                String table = tableName(section.getTable());
+                List<String> columns = describe(connection, table);
+                sectionColumns.add(columns);
+
+                select.append(", ");
+                appendColumns(select, alias, columns);
+                from.append(" LEFT JOIN ").append(table).append(' ').append(alias)
+                    .append(" ON ").append(alias).append(".id = p.c_").append(identifier(section.getReferenceField()));
+            }
+            this.joinSql = select.append(from).append(" WHERE p.id").toString();
+
+            // Grids sharing a table and foreign key are read together
+            Map<String, List<ExtractionPlan.GridSource>> byTable = new LinkedHashMap<>();
+            for (ExtractionPlan.GridSource grid : plan.getGrids()) {
+                String key = tableName(grid.getTable()) + "|" + identifier(grid.getParentKeyColumn());
+                byTable.computeIfAbsent(key, k -> new ArrayList<>()).add(grid);
+            }
+            for (List<ExtractionPlan.GridSource> grids : byTable.values()) {
+                String table = tableName(grids.get(0).getTable());
+                gridQueries.add(new GridQuery(grids, describe(connection, table), table, grids.get(0).getParentKeyColumn()));
+            }
+        }
+
+        private static void appendColumns(StringBuilder select, String alias, List<String> columns) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    select.append(", ");
+                }
+                select.append(alias).append('.').append(columns.get(i));
+            }
+        }
+    }
+
+    /**
+     * Query reading the rows of all grids stored in one table
+     */
+    private static final class GridQuery {
+        final List<ExtractionPlan.GridSource> grids;
+        final List<String> columns;
+        final String selectSql;
+        final int parentKeyIndex;
+
+        GridQuery(List<ExtractionPlan.GridSource> grids, List<String> columns, String table, String parentKeyColumn)
+                throws SQLException {
+            this.grids = grids;
+            this.columns = columns;
+
+            int keyIndex = -1;
+            StringBuilder sql = new StringBuilder("SELECT ");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(columns.get(i));
+                if (columns.get(i).equalsIgnoreCase(parentKeyColumn)) {
+                    keyIndex = i + 1;
+                }
+            }
+            if (keyIndex < 0) {
+                throw new SQLException("Column " + parentKeyColumn + " not found in " + table);
+            }
+            this.parentKeyIndex = keyIndex;
+            this.selectSql = sql.append(" FROM ").append(table).append(" WHERE ").append(parentKeyColumn).toString();
+        }
+    }
+
+    /**
+     * The rows of one record, keyed by section name
+     */
+    public static final class LoadedRecord {
+        private final String recordId;
+        private final FormRow parentRow;
+        private final Map<String, FormRow> sectionRows;
+        private final Map<String, List<FormRow>> gridRows;
+
+        LoadedRecord(String recordId, FormRow parentRow, Map<String, FormRow> sectionRows, Map<String, List<FormRow>> gridRows) {
+            this.recordId = recordId;
+            this.parentRow = parentRow;
+            this.sectionRows = sectionRows;
+            this.gridRows = gridRows;
+        }
+
+        public String getRecordId() {
+            return recordId;
+        }
+
+        /**
+         * The parent row, or null if the record does not exist
+         */
+        public FormRow getParentRow() {
+            return parentRow;
+        }
+
+        /**
+         * Whether the section was part of the plan (and so was loaded, possibly as absent)
+         */
+        public boolean hasSection(String sectionName) {
+            return sectionRows.containsKey(sectionName);
+        }
+
+        /**
+         * The section's row, or null if the parent holds no reference to one
+         */
+        public FormRow getSectionRow(String sectionName) {
+            return sectionRows.get(sectionName);
+        }
+
+        public boolean hasGrid(String sectionName) {
+            return gridRows.containsKey(sectionName);
+        }
+
+        public List<FormRow> getGridRows(String sectionName) {
+            List<FormRow> rows = gridRows.get(sectionName);
+            return rows != null ? rows : Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package global.govstack.registration.sender.service.metadata;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import global.govstack.registration.sender.util.JsonBuilder;
+import org.joget.commons.util.LogUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shape of the GovStack document, compiled from the target paths of an {@link EncodingPlan}
+ *
+ * All target paths are merged into one tree of objects, arrays and value slots, ordered as the
+ * paths first appear in the metadata (array elements by index). A record's values are collected
+ * into a flat slot array and the document is then written to a {@link JsonGenerator} in a single
+ * pass, without building a Jackson tree. Objects and array elements are only written when a slot
+ * below them holds a value, and array gaps are padded as {@link JsonBuilder} pads them ({} before
+ * object elements, null before values), so the output matches the tree encoder.
+ *
+ * Metadata whose paths are ambiguous for a single pass (the same path used as a value and as an
+ * object or array, or a grid path shared by two grids) has no layout; see {@link #compile}.
+ */
+final class JsonLayout {
+
+    private static final String CLASS_NAME = JsonLayout.class.getName();
+
+    /**
+     * Document-level fields written after the sections, in this order
+     */
+    static final String[] METADATA_FIELDS = {"timestamp", "id", "serviceId", "serviceVersion", "metadataVersion"};
+
+    private static final int OBJECT = 0;
+    private static final int ARRAY = 1;
+    private static final int VALUE = 2;
+    private static final int GRID = 3;
+
+    private final Node root;
+    private final int slotCount;
+    private final int[][] fieldSlots;
+    private final int[][] typeSlots;
+    private final int[] gridSlots;
+    private final int[] metadataSlots;
+
+    private JsonLayout(Node root, int slotCount, int[][] fieldSlots, int[][] typeSlots, int[] gridSlots, int[] metadataSlots) {
+        this.root = root;
+        this.slotCount = slotCount;
+        this.fieldSlots = fieldSlots;
+        this.typeSlots = typeSlots;
+        this.gridSlots = gridSlots;
+        this.metadataSlots = metadataSlots;
+    }
+
+    /**
+     * Compile the layout of a plan's sections
+     *
+     * @return The layout, or null if the paths cannot be written in a single pass
+     */
+    static JsonLayout compile(EncodingPlan.Section[] sections) {
+        Node root = new Node(OBJECT, null, -1);
+        Node[][] fieldLeaves = new Node[sections.length][];
+        Node[][] typeLeaves = new Node[sections.length][];
+        Node[] gridLeaves = new Node[sections.length];
+
+        for (int i = 0; i < sections.length; i++) {
+            EncodingPlan.Section section = sections[i];
+            EncodingPlan.FieldEncoding[] fields = section.getFields();
+
+            if (section.isArray()) {
+                if (section.getArrayPath() == null || fields == null) {
+                    continue;
+                }
+                GridLayout grid = GridLayout.compile(fields);
+                Node leaf = grid != null ? insert(root, section.getArrayPath(), GRID) : null;
+                if (leaf == null) {
+                    return ambiguous(section.getArrayPath().toString());
+                }
+                leaf.grid = grid;
+                gridLeaves[i] = leaf;
+                continue;
+            }
+
+            if (fields == null) {
+                continue;
+            }
+            fieldLeaves[i] = new Node[fields.length];
+            typeLeaves[i] = new Node[fields.length];
+            for (int j = 0; j < fields.length; j++) {
+                fieldLeaves[i][j] = insert(root, fields[j].getTargetPath(), VALUE);
+                if (fieldLeaves[i][j] == null) {
+                    return ambiguous(fields[j].getTarget());
+                }
+                if (fields[j].getTypePath() != null) {
+                    typeLeaves[i][j] = insert(root, fields[j].getTypePath(), VALUE);
+                    if (typeLeaves[i][j] == null) {
+                        return ambiguous(fields[j].getTypePath().toString());
+                    }
+                }
+            }
+        }
+
+        Node[] metadataLeaves = new Node[METADATA_FIELDS.length];
+        for (int k = 0; k < METADATA_FIELDS.length; k++) {
+            metadataLeaves[k] = insert(root, JsonBuilder.compilePath(METADATA_FIELDS[k]), VALUE);
+            if (metadataLeaves[k] == null) {
+                return ambiguous(METADATA_FIELDS[k]);
+            }
+        }
+
+        int slotCount = root.seal(0);
+
+        int[][] fieldSlots = new int[sections.length][];
+        int[][] typeSlots = new int[sections.length][];
+        int[] gridSlots = new int[sections.length];
+        for (int i = 0; i < sections.length; i++) {
+            gridSlots[i] = gridLeaves[i] != null ? gridLeaves[i].slot : -1;
+            if (fieldLeaves[i] != null) {
+                fieldSlots[i] = new int[fieldLeaves[i].length];
+                typeSlots[i] = new int[fieldLeaves[i].length];
+                for (int j = 0; j < fieldLeaves[i].length; j++) {
+                    fieldSlots[i][j] = fieldLeaves[i][j].slot;
+                    typeSlots[i][j] = typeLeaves[i][j] != null ? typeLeaves[i][j].slot : -1;
+                }
+            }
+        }
+        int[] metadataSlots = new int[METADATA_FIELDS.length];
+        for (int k = 0; k < METADATA_FIELDS.length; k++) {
+            metadataSlots[k] = metadataLeaves[k].slot;
+        }
+
+        return new JsonLayout(root, slotCount, fieldSlots, typeSlots, gridSlots, metadataSlots);
+    }
+
+    private static JsonLayout ambiguous(String path) {
+        LogUtil.warn(CLASS_NAME, "Target path '" + path + "' cannot be streamed, encoding through the JSON tree");
+        return null;
+    }
+
+    /**
+     * Add the nodes of a path, reusing those added by earlier paths
+     *
+     * @return The leaf, or null if the path conflicts with an earlier one
+     */
+    private static Node insert(Node root, JsonBuilder.Path path, int leafKind) {
+        if (!path.isValid() || path.size() == 0) {
+            return null;
+        }
+
+        Node current = root;
+        int last = path.size() - 1;
+        for (int i = 0; i <= last && current != null; i++) {
+            int kind = i == last ? leafKind : OBJECT;
+            if (path.getIndex(i) >= 0) {
+                Node array = current.child(ARRAY, path.getName(i), -1);
+                current = array != null ? array.child(kind, null, path.getIndex(i)) : null;
+            } else {
+                current = current.child(kind, path.getName(i), -1);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Number of value slots a record needs
+     */
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Slot of a form field's value
+     */
+    int getFieldSlot(int section, int field) {
+        return fieldSlots[section][field];
+    }
+
+    /**
+     * Slot of a form field's type value, or -1 if the field has none
+     */
+    int getTypeSlot(int section, int field) {
+        return typeSlots[section][field];
+    }
+
+    /**
+     * Slot holding a grid section's rows, or -1 if the grid is not written
+     */
+    int getGridSlot(int section) {
+        return gridSlots[section];
+    }
+
+    /**
+     * Slot of a document-level field, indexed as {@link #METADATA_FIELDS}
+     */
+    int getMetadataSlot(int field) {
+        return metadataSlots[field];
+    }
+
+    /**
+     * Write a record's document
+     *
+     * @param values The record's values by slot; null slots are left out
+     */
+    void write(JsonGenerator generator, Object[] values, ObjectMapper mapper) throws IOException {
+        root.write(generator, values, mapper);
+    }
+
+    /**
+     * Write a value as JsonBuilder stores it
+     */
+    private static void writeValue(JsonGenerator generator, Object value, ObjectMapper mapper) throws IOException {
+        if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Float) {
+            generator.writeNumber((Float) value);
+        } else if (value instanceof List) {
+            writeList(generator, (List<?>) value, mapper);
+        } else if (value instanceof JsonNode) {
+            mapper.writeTree(generator, (JsonNode) value);
+        } else {
+            mapper.writeValue(generator, value);
+        }
+    }
+
+    /**
+     * Write a value as the encoder stores it within a grid item
+     */
+    private static void writeItemValue(JsonGenerator generator, Object value, ObjectMapper mapper) throws IOException {
+        if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Number) {
+            if (value instanceof Integer) {
+                generator.writeNumber((Integer) value);
+            } else if (value instanceof Long) {
+                generator.writeNumber((Long) value);
+            } else if (value instanceof Double) {
+                generator.writeNumber((Double) value);
+            } else {
+                generator.writeString(value.toString());
+            }
+        } else if (value instanceof List) {
+            writeList(generator, (List<?>) value, mapper);
+        } else {
+            mapper.writeValue(generator, value);
+        }
+    }
+
+    private static void writeList(JsonGenerator generator, List<?> list, ObjectMapper mapper) throws IOException {
+        generator.writeStartArray();
+        for (Object item : list) {
+            if (item instanceof String) {
+                generator.writeString((String) item);
+            } else {
+                mapper.writeValue(generator, item);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * An object, array, value or grid in the document
+     */
+    private static final class Node {
+        final int kind;
+        final String name;
+        final int index;
+        final List<Node> childList = new ArrayList<>();
+        Node[] children;
+        GridLayout grid;
+        int slot = -1;
+        int firstSlot;
+        int endSlot;
+
+        Node(int kind, String name, int index) {
+            this.kind = kind;
+            this.name = name;
+            this.index = index;
+        }
+
+        /**
+         * Find or add a child: an object member by name, or an array element by index
+         *
+         * @return The child, or null if it exists with a different kind (or is a grid)
+         */
+        Node child(int childKind, String childName, int childIndex) {
+            if (kind != (childName != null ? OBJECT : ARRAY)) {
+                return null;
+            }
+            for (Node existing : childList) {
+                boolean same = childName != null ? childName.equals(existing.name) : childIndex == existing.index;
+                if (same) {
+                    return existing.kind == childKind && childKind != GRID ? existing : null;
+                }
+            }
+            Node created = new Node(childKind, childName, childIndex);
+            childList.add(created);
+            return created;
+        }
+
+        /**
+         * Number the value slots depth-first so every subtree covers a contiguous slot range
+         *
+         * @return The next free slot
+         */
+        int seal(int nextSlot) {
+            firstSlot = nextSlot;
+            if (kind == VALUE || kind == GRID) {
+                slot = nextSlot++;
+            }
+            if (kind == ARRAY) {
+                childList.sort(Comparator.comparingInt(node -> node.index));
+            }
+            children = childList.toArray(new Node[0]);
+            for (Node child : children) {
+                nextSlot = child.seal(nextSlot);
+            }
+            endSlot = nextSlot;
+            return nextSlot;
+        }
+
+        boolean isPresent(Object[] values) {
+            for (int i = firstSlot; i < endSlot; i++) {
+                if (values[i] != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        void write(JsonGenerator generator, Object[] values, ObjectMapper mapper) throws IOException {
+            switch (kind) {
+                case OBJECT:
+                    generator.writeStartObject();
+                    for (Node child : children) {
+                        if (child.isPresent(values)) {
+                            generator.writeFieldName(child.name);
+                            child.write(generator, values, mapper);
+                        }
+                    }
+                    generator.writeEndObject();
+                    break;
+                case ARRAY:
+                    generator.writeStartArray();
+                    int next = 0;
+                    for (Node child : children) {
+                        if (!child.isPresent(values)) {
+                            continue;
+                        }
+                        for (; next < child.index; next++) {
+                            if (child.kind == OBJECT) {
+                                generator.writeStartObject();
+                                generator.writeEndObject();
+                            } else {
+                                generator.writeNull();
+                            }
+                        }
+                        child.write(generator, values, mapper);
+                        next = child.index + 1;
+                    }
+                    generator.writeEndArray();
+                    break;
+                case GRID:
+                    grid.write(generator, (List<Map<String, Object>>) values[slot], mapper);
+                    break;
+                default:
+                    writeValue(generator, values[slot], mapper);
+            }
+        }
+    }
+
+    /**
+     * Shape of one item of a grid: nested objects by dotted path, without array indexes
+     */
+    private static final class GridLayout {
+        final EncodingPlan.FieldEncoding[] fields;
+        final Node root;
+        final int[] slots;
+        final int slotCount;
+
+        private GridLayout(EncodingPlan.FieldEncoding[] fields, Node root, int[] slots, int slotCount) {
+            this.fields = fields;
+            this.root = root;
+            this.slots = slots;
+            this.slotCount = slotCount;
+        }
+
+        static GridLayout compile(EncodingPlan.FieldEncoding[] fields) {
+            Node root = new Node(OBJECT, null, -1);
+            Node[] leaves = new Node[fields.length];
+            for (int j = 0; j < fields.length; j++) {
+                String[] parts = fields[j].getItemPath();
+                if (parts.length == 0) {
+                    return null;
+                }
+                Node current = root;
+                for (int p = 0; p < parts.length && current != null; p++) {
+                    current = current.child(p == parts.length - 1 ? VALUE : OBJECT, parts[p], -1);
+                }
+                if (current == null) {
+                    return null;
+                }
+                leaves[j] = current;
+            }
+
+            int slotCount = root.seal(0);
+            int[] slots = new int[fields.length];
+            for (int j = 0; j < fields.length; j++) {
+                slots[j] = leaves[j].slot;
+            }
+            return new GridLayout(fields, root, slots, slotCount);
+        }
+
+        void write(JsonGenerator generator, List<Map<String, Object>> items, ObjectMapper mapper) throws IOException {
+            generator.writeStartArray();
+            Object[] values = new Object[slotCount];
+            for (Map<String, Object> item : items) {
+                Arrays.fill(values, null);
+                for (int j = 0; j < fields.length; j++) {
+                    Object value = item.get(fields[j].getSourceField());
+                    if (value != null) {
+                        // A value that encodes to null is still written, as null
+                        Object encoded = fields[j].encode(value);
+                        values[slots[j]] = encoded != null ? encoded : NullNode.getInstance();
+                    }
+                }
+                writeItem(generator, root, values, mapper);
+            }
+            generator.writeEndArray();
+        }
+
+        private static void writeItem(JsonGenerator generator, Node node, Object[] values, ObjectMapper mapper)
+                throws IOException {
+            if (node.kind == VALUE) {
+                writeItemValue(generator, values[node.slot], mapper);
+                return;
+            }
+            generator.writeStartObject();
+            for (Node child : node.children) {
+                if (child.isPresent(values)) {
+                    generator.writeFieldName(child.name);
+                    writeItem(generator, child, values, mapper);
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+}
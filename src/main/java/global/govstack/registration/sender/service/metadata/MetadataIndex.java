@@ -0,0 +1,248 @@
+package global.govstack.registration.sender.service.metadata;
+
+import java.util.*;
+
+/**
+ * Lookup tables over a service's form structure, built once per {@link ServiceMetadata}
+ *
+ * Table names, form fields, merged field definitions and grid foreign keys used to be resolved by
+ * walking form_structure.yaml on every call, once per section and grid of every record. The
+ * index resolves each of them with a hash lookup. Like the snapshot it belongs to, it is
+ * immutable (all maps, lists and field definitions are unmodifiable) and shared by all threads.
+ */
+public final class MetadataIndex {
+
+    static final MetadataIndex EMPTY = new MetadataIndex(Collections.emptyMap(), Collections.emptyMap(),
+        Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+    private final Map<String, String> tableNames;
+    private final Map<String, List<Map<String, Object>>> structureFields;
+    private final Map<String, List<Map<String, Object>>> mergedFields;
+    private final Map<String, Map<String, String>> columns;
+    private final Map<String, Grid> grids;
+
+    private MetadataIndex(Map<String, String> tableNames,
+                          Map<String, List<Map<String, Object>>> structureFields,
+                          Map<String, List<Map<String, Object>>> mergedFields,
+                          Map<String, Map<String, String>> columns,
+                          Map<String, Grid> grids) {
+        this.tableNames = tableNames;
+        this.structureFields = structureFields;
+        this.mergedFields = mergedFields;
+        this.columns = columns;
+        this.grids = grids;
+    }
+
+    /**
+     * Grid definition from form_structure.yaml
+     */
+    public static final class Grid {
+        private final String gridId;
+        private final String subFormId;
+        private final String foreignKeyField;
+
+        Grid(String gridId, String subFormId, String foreignKeyField) {
+            this.gridId = gridId;
+            this.subFormId = subFormId;
+            this.foreignKeyField = foreignKeyField;
+        }
+
+        public String getGridId() {
+            return gridId;
+        }
+
+        /**
+         * @return The sub-form holding the grid rows, or null if not configured
+         */
+        public String getSubFormId() {
+            return subFormId;
+        }
+
+        /**
+         * @return Field ID of the foreign key in the sub-form (e.g., "farmer_id")
+         */
+        public String getForeignKeyField() {
+            return foreignKeyField;
+        }
+    }
+
+    /**
+     * Build the index of a service's frozen metadata
+     *
+     * @param formMappings The formMappings of the services YAML
+     * @param formStructureData The parsed form_structure.yaml
+     */
+    @SuppressWarnings("unchecked")
+    static MetadataIndex build(Map<String, Object> formMappings, Map<String, Object> formStructureData) {
+        Object formsValue = formStructureData.get("forms");
+        if (!(formsValue instanceof Map)) {
+            return EMPTY;
+        }
+
+        Map<String, String> tableNames = new HashMap<>();
+        Map<String, List<Map<String, Object>>> structureFields = new HashMap<>();
+        Map<String, List<Map<String, Object>>> mergedFields = new HashMap<>();
+        Map<String, Map<String, String>> columns = new HashMap<>();
+        Map<String, Grid> grids = new HashMap<>();
+
+        for (Map.Entry<String, Object> formEntry : ((Map<String, Object>) formsValue).entrySet()) {
+            if (!(formEntry.getValue() instanceof Map)) {
+                continue;
+            }
+            String formName = formEntry.getKey();
+            Map<String, Object> form = (Map<String, Object>) formEntry.getValue();
+
+            tableNames.put(formName, (String) form.get("table_name"));
+
+            List<Map<String, Object>> fields = formFields(form);
+            structureFields.put(formName, fields);
+            mergedFields.put(formName, merge(fields, serviceFields(formMappings, formName)));
+
+            // First definition of a field wins, as with a linear scan
+            Map<String, String> formColumns = new HashMap<>();
+            for (Map<String, Object> field : fields) {
+                String fieldId = (String) field.get("field_id");
+                if (fieldId != null && !formColumns.containsKey(fieldId)) {
+                    formColumns.put(fieldId, (String) field.get("column"));
+                }
+            }
+            columns.put(formName, Collections.unmodifiableMap(formColumns));
+
+            // A grid is taken from the first form whose first definition of it has a foreign key
+            Object formGrids = form.get("grids");
+            if (formGrids instanceof List) {
+                Set<String> seen = new HashSet<>();
+                for (Object gridValue : (List<Object>) formGrids) {
+                    if (!(gridValue instanceof Map)) {
+                        continue;
+                    }
+                    Map<String, Object> grid = (Map<String, Object>) gridValue;
+                    String gridId = (String) grid.get("grid_id");
+                    if (gridId == null || !seen.add(gridId)) {
+                        continue;
+                    }
+                    String foreignKey = (String) grid.get("foreign_key");
+                    if (foreignKey != null) {
+                        grids.putIfAbsent(gridId, new Grid(gridId, (String) grid.get("sub_form_id"), foreignKey));
+                    }
+                }
+            }
+        }
+
+        return new MetadataIndex(Collections.unmodifiableMap(tableNames),
+            Collections.unmodifiableMap(structureFields),
+            Collections.unmodifiableMap(mergedFields),
+            Collections.unmodifiableMap(columns),
+            Collections.unmodifiableMap(grids));
+    }
+
+    /**
+     * Fields of a form: all_fields if present, otherwise the fields of all its sections
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> formFields(Map<String, Object> form) {
+        Object allFields = form.get("all_fields");
+        if (allFields instanceof List) {
+            return (List<Map<String, Object>>) allFields;
+        }
+
+        List<Map<String, Object>> fields = new ArrayList<>();
+        Object sections = form.get("sections");
+        if (sections instanceof List) {
+            for (Object section : (List<?>) sections) {
+                if (section instanceof Map) {
+                    Object sectionFields = ((Map<String, Object>) section).get("fields");
+                    if (sectionFields instanceof List) {
+                        fields.addAll((List<Map<String, Object>>) sectionFields);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * services.yml fields of a section by Joget field name
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> serviceFields(Map<String, Object> formMappings, String sectionName) {
+        Map<String, Map<String, Object>> byJogetField = new HashMap<>();
+        Object section = formMappings.get(sectionName);
+        Object fields = section instanceof Map ? ((Map<String, Object>) section).get("fields") : null;
+        if (fields instanceof List) {
+            for (Map<String, Object> field : (List<Map<String, Object>>) fields) {
+                String jogetName = (String) field.get("joget");
+                if (jogetName != null) {
+                    byJogetField.put(jogetName, field);
+                }
+            }
+        }
+        return byJogetField;
+    }
+
+    /**
+     * Add the govstack mapping from services.yml to each form_structure.yaml field
+     */
+    private static List<Map<String, Object>> merge(List<Map<String, Object>> structureFields,
+                                                   Map<String, Map<String, Object>> serviceFields) {
+        List<Map<String, Object>> merged = new ArrayList<>(structureFields.size());
+        for (Map<String, Object> structureField : structureFields) {
+            Map<String, Object> mergedField = new HashMap<>(structureField);
+
+            String fieldId = (String) structureField.get("field_id");
+            Map<String, Object> serviceField = fieldId != null ? serviceFields.get(fieldId) : null;
+            if (serviceField != null) {
+                mergedField.put("govstack", serviceField.get("govstack"));
+                mergedField.put("transform", serviceField.get("transform"));
+                mergedField.put("valueMapping", serviceField.get("valueMapping"));
+                mergedField.put("govstackType", serviceField.get("govstackType"));
+                mergedField.put("typeValue", serviceField.get("typeValue"));
+            }
+
+            merged.add(Collections.unmodifiableMap(mergedField));
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    /**
+     * @return Whether form_structure.yaml defines the form
+     */
+    public boolean hasForm(String formName) {
+        return columns.containsKey(formName);
+    }
+
+    /**
+     * @return The form's table name, or null if the form or its table_name is not defined
+     */
+    public String getTableName(String formName) {
+        return tableNames.get(formName);
+    }
+
+    /**
+     * @return The form's fields from form_structure.yaml, empty if the form is not defined
+     */
+    public List<Map<String, Object>> getStructureFields(String formName) {
+        return structureFields.getOrDefault(formName, Collections.emptyList());
+    }
+
+    /**
+     * @return The form's fields with their services.yml mapping, empty if the form is not defined
+     */
+    public List<Map<String, Object>> getMergedFields(String formName) {
+        return mergedFields.getOrDefault(formName, Collections.emptyList());
+    }
+
+    /**
+     * @return Field ID to column name of a form's fields, empty if the form is not defined
+     */
+    public Map<String, String> getColumns(String formName) {
+        return columns.getOrDefault(formName, Collections.emptyMap());
+    }
+
+    /**
+     * @return The grid definition, or null if no form defines the grid with a foreign key
+     */
+    public Grid getGrid(String gridId) {
+        return gridId != null ? grids.get(gridId) : null;
+    }
+}
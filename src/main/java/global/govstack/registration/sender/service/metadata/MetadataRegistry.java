@@ -0,0 +1,137 @@
+package global.govstack.registration.sender.service.metadata;
+
+import global.govstack.registration.sender.exception.ConfigurationException;
+import org.joget.commons.util.LogUtil;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of compiled service metadata
+ *
+ * Holds one immutable {@link ServiceMetadata} per serviceId. A cached snapshot is reused
+ * as long as the checksum of the underlying YAML resources matches, so only the first
+ * execution for a service (or the first one after a resource change) pays the YAML parse,
+ * and not even that one when a current {@link PrecompiledMetadata} file is available.
+ *
+ * Snapshots compiled from resources bundled in the plugin jar are also remembered as bundled:
+ * those resources cannot change without a redeploy, so later loads use the snapshot without
+ * reading or checksumming the YAML again.
+ */
+public final class MetadataRegistry {
+
+    private static final String CLASS_NAME = MetadataRegistry.class.getName();
+    private static final MetadataRegistry INSTANCE = new MetadataRegistry();
+
+    private final ConcurrentMap<String, ServiceMetadata> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ServiceMetadata> bundled = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> compileLocks = new ConcurrentHashMap<>();
+
+    private MetadataRegistry() {
+    }
+
+    public static MetadataRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the compiled metadata for a service, compiling it if the resources changed
+     *
+     * @param serviceId The service ID
+     * @param serviceYaml Raw content of {serviceId}.yml
+     * @param formStructureYaml Raw content of form_structure.yaml, or null if not available
+     * @return The shared compiled snapshot
+     * @throws ConfigurationException if the metadata cannot be compiled
+     */
+    public ServiceMetadata getOrCompile(String serviceId, byte[] serviceYaml, byte[] formStructureYaml)
+            throws ConfigurationException {
+        return getOrCompile(serviceId, serviceYaml, formStructureYaml, null);
+    }
+
+    /**
+     * Get the compiled metadata for a service, loading it from its precompiled form or compiling
+     * it if the resources changed
+     *
+     * @param serviceId The service ID
+     * @param serviceYaml Raw content of {serviceId}.yml
+     * @param formStructureYaml Raw content of form_structure.yaml, or null if not available
+     * @param precompiled Supplies the {@link PrecompiledMetadata} file content, or null if there is
+     *                    none; only called when the cached snapshot cannot be used
+     * @return The shared compiled snapshot
+     * @throws ConfigurationException if the metadata cannot be compiled
+     */
+    public ServiceMetadata getOrCompile(String serviceId, byte[] serviceYaml, byte[] formStructureYaml,
+                                        Supplier<ByteBuffer> precompiled) throws ConfigurationException {
+        long checksum = ServiceMetadata.checksum(serviceYaml, formStructureYaml);
+
+        ServiceMetadata cached = snapshots.get(serviceId);
+        if (cached != null && cached.getChecksum() == checksum) {
+            return cached;
+        }
+
+        // One compile per service at a time; concurrent callers wait and reuse the result
+        synchronized (compileLocks.computeIfAbsent(serviceId, k -> new Object())) {
+            cached = snapshots.get(serviceId);
+            if (cached != null && cached.getChecksum() == checksum) {
+                return cached;
+            }
+
+            ByteBuffer file = precompiled != null ? precompiled.get() : null;
+            ServiceMetadata loaded = file != null ? PrecompiledMetadata.decode(file, serviceId, checksum) : null;
+            if (loaded != null) {
+                snapshots.put(serviceId, loaded);
+                LogUtil.info(CLASS_NAME, "Loaded precompiled metadata for service: " + serviceId +
+                    " (checksum " + Long.toHexString(checksum) + ")");
+                return loaded;
+            }
+
+            ServiceMetadata compiled = ServiceMetadata.compile(serviceId, serviceYaml, formStructureYaml);
+            snapshots.put(serviceId, compiled);
+            LogUtil.info(CLASS_NAME, "Compiled metadata for service: " + serviceId +
+                " (checksum " + Long.toHexString(checksum) + ")");
+            return compiled;
+        }
+    }
+
+    /**
+     * Get the currently cached snapshot for a service without touching the resources
+     *
+     * @param serviceId The service ID
+     * @return The cached snapshot, or null if the service was never loaded
+     */
+    public ServiceMetadata get(String serviceId) {
+        return snapshots.get(serviceId);
+    }
+
+    /**
+     * Get the snapshot compiled from a service's bundled resources
+     *
+     * @param serviceId The service ID
+     * @return The snapshot, or null if the service was not loaded from bundled resources
+     */
+    ServiceMetadata getBundled(String serviceId) {
+        return bundled.get(serviceId);
+    }
+
+    /**
+     * Record that a snapshot was compiled from resources bundled in the plugin jar
+     *
+     * @param serviceId The service ID
+     * @param snapshot The snapshot returned by getOrCompile for those resources
+     */
+    void markBundled(String serviceId, ServiceMetadata snapshot) {
+        bundled.put(serviceId, snapshot);
+    }
+
+    /**
+     * Drop the cached snapshot for a service so the next load recompiles it
+     *
+     * @param serviceId The service ID
+     */
+    public void invalidate(String serviceId) {
+        bundled.remove(serviceId);
+        snapshots.remove(serviceId);
+    }
+}
@@ -0,0 +1,260 @@
+package global.govstack.registration.sender.service.metadata;
+
+import global.govstack.registration.sender.exception.ConfigurationException;
+import org.joget.commons.util.LogUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot-reloadable service metadata from the file system metadata directory
+ *
+ * A {serviceId}.yml in the directory overrides the copy bundled with the plugin, together with
+ * the directory's form_structure.yaml if there is one (otherwise the bundled one). A background
+ * thread watches the directory with a {@link WatchService}; when a file changes, the affected
+ * services are recompiled and validated off the submission path, and the new snapshot replaces
+ * the old one with a single volatile write. Executions read the current snapshot without
+ * locking or file access, and keep the snapshot they started with until they finish. An
+ * invalid change is logged and the previous snapshot stays in use.
+ *
+ * The process-wide watcher is obtained via {@link #shared()} and stopped by the bundle
+ * Activator through {@link #shutdownAll()}.
+ */
+public final class MetadataWatcher implements AutoCloseable {
+
+    private static final String CLASS_NAME = MetadataWatcher.class.getName();
+
+    static final String FORM_STRUCTURE_FILE_NAME = "form_structure.yaml";
+
+    // Editors and copies produce several events per save; changes are applied once they settle
+    static final long DEFAULT_SETTLE_MS = 250;
+
+    private static MetadataWatcher shared;
+
+    private final Path directory;
+    private final long settleMs;
+    private final ConcurrentMap<String, Watched> services = new ConcurrentHashMap<>();
+    private final Object reloadLock = new Object();
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Current snapshot of a service, null while the directory has no override for it
+     */
+    private static final class Watched {
+        volatile ServiceMetadata snapshot;
+    }
+
+    MetadataWatcher(Path directory, long settleMs) {
+        this.directory = directory;
+        this.settleMs = settleMs;
+
+        WatchService watching = null;
+        if (Files.isDirectory(directory)) {
+            try {
+                watching = directory.getFileSystem().newWatchService();
+                directory.register(watching, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException e) {
+                LogUtil.error(CLASS_NAME, e, "Cannot watch metadata directory " + directory.toAbsolutePath() +
+                    ", using bundled metadata");
+                closeQuietly(watching);
+                watching = null;
+            }
+        } else {
+            LogUtil.info(CLASS_NAME, "Metadata directory " + directory.toAbsolutePath() +
+                " not found, using bundled metadata");
+        }
+        this.watchService = watching;
+
+        if (watchService != null) {
+            thread = new Thread(this::watch, "govstack-metadata-watcher");
+            thread.setDaemon(true);
+            thread.start();
+            LogUtil.info(CLASS_NAME, "Watching metadata directory " + directory.toAbsolutePath());
+        } else {
+            thread = null;
+        }
+    }
+
+    /**
+     * Get the process-wide watcher of the metadata directory, starting it on first use
+     */
+    public static synchronized MetadataWatcher shared() {
+        if (shared == null) {
+            shared = new MetadataWatcher(Paths.get(YamlMetadataService.METADATA_DIR), DEFAULT_SETTLE_MS);
+        }
+        return shared;
+    }
+
+    /**
+     * Stop the shared watcher
+     */
+    public static synchronized void shutdownAll() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Get the current snapshot of a service from the metadata directory
+     *
+     * Only the first call for a service reads and compiles its files; later calls return the
+     * snapshot maintained by the watcher thread.
+     *
+     * @param serviceId The service ID
+     * @return The snapshot, or null if the directory has no {serviceId}.yml (use the bundled metadata)
+     * @throws ConfigurationException if the service's files exist but cannot be compiled on first use
+     */
+    public ServiceMetadata current(String serviceId) throws ConfigurationException {
+        Watched watched = services.get(serviceId);
+        if (watched != null) {
+            return watched.snapshot;
+        }
+        if (watchService == null) {
+            return null;
+        }
+
+        synchronized (reloadLock) {
+            watched = services.get(serviceId);
+            if (watched == null) {
+                watched = new Watched();
+                watched.snapshot = compile(serviceId);
+                services.put(serviceId, watched);
+                if (watched.snapshot != null) {
+                    LogUtil.info(CLASS_NAME, "Using metadata for service " + serviceId + " from " +
+                        directory.toAbsolutePath());
+                }
+            }
+            return watched.snapshot;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                Set<String> changed = new HashSet<>();
+                collect(watchService.take(), changed);
+                WatchKey more;
+                while ((more = watchService.poll(settleMs, TimeUnit.MILLISECONDS)) != null) {
+                    collect(more, changed);
+                }
+                reload(changed);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher stopped
+        }
+    }
+
+    private static void collect(WatchKey key, Set<String> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost; reload everything
+                changed.add(FORM_STRUCTURE_FILE_NAME);
+            } else {
+                changed.add(event.context().toString());
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Recompile the watched services affected by changed files
+     */
+    void reload(Set<String> changedFiles) {
+        boolean all = changedFiles.contains(FORM_STRUCTURE_FILE_NAME);
+        synchronized (reloadLock) {
+            for (Map.Entry<String, Watched> entry : services.entrySet()) {
+                String serviceId = entry.getKey();
+                if (all || changedFiles.contains(serviceId + ".yml")) {
+                    reload(serviceId, entry.getValue());
+                }
+            }
+        }
+    }
+
+    private void reload(String serviceId, Watched watched) {
+        ServiceMetadata next;
+        try {
+            next = compile(serviceId);
+        } catch (ConfigurationException | RuntimeException e) {
+            LogUtil.error(CLASS_NAME, e, "Invalid metadata change for service " + serviceId +
+                ", keeping the previous version: " + e.getMessage());
+            return;
+        }
+
+        ServiceMetadata previous = watched.snapshot;
+        if (next != null && previous != null && next.getChecksum() == previous.getChecksum()) {
+            return;
+        }
+        watched.snapshot = next;
+        if (next != null) {
+            LogUtil.info(CLASS_NAME, "Reloaded metadata for service " + serviceId +
+                " (checksum " + Long.toHexString(next.getChecksum()) + ")");
+        } else {
+            LogUtil.info(CLASS_NAME, "Metadata override for service " + serviceId + " removed, using bundled metadata");
+        }
+    }
+
+    /**
+     * Compile a service's files from the directory
+     *
+     * @return The snapshot, or null if the directory has no {serviceId}.yml
+     */
+    private ServiceMetadata compile(String serviceId) throws ConfigurationException {
+        Path serviceFile = directory.resolve(serviceId + ".yml");
+        if (!Files.isRegularFile(serviceFile)) {
+            return null;
+        }
+
+        try {
+            byte[] serviceYaml = Files.readAllBytes(serviceFile);
+            Path formStructureFile = directory.resolve(FORM_STRUCTURE_FILE_NAME);
+            byte[] formStructureYaml = Files.isRegularFile(formStructureFile)
+                ? Files.readAllBytes(formStructureFile) : bundledFormStructure();
+            return ServiceMetadata.compile(serviceId, serviceYaml, formStructureYaml);
+        } catch (IOException e) {
+            throw new ConfigurationException("Error reading metadata for service " + serviceId + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] bundledFormStructure() throws IOException {
+        try (InputStream in = MetadataWatcher.class.getClassLoader()
+                .getResourceAsStream(YamlMetadataService.METADATA_DIR + FORM_STRUCTURE_FILE_NAME)) {
+            return in != null ? in.readAllBytes() : null;
+        }
+    }
+
+    private static void closeQuietly(WatchService watchService) {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(watchService);
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package global.govstack.registration.sender.service.metadata;
+
+import global.govstack.registration.sender.exception.ConfigurationException;
+import org.joget.commons.util.LogUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Binary form of a compiled {@link ServiceMetadata}, so a cold start skips the YAML parse
+ *
+ * The file holds the parsed YAML trees of the service YAML and form_structure.yaml; decoding
+ * them is a single pass over a byte buffer, instead of scanning and resolving thousands of lines
+ * of YAML. Strings are stored once in a table and shared by the decoded trees. Layout:
+ *
+ *   magic "GSMD", format version (short), source checksum (long), payload CRC-32 (int),
+ *   payload length (int), payload: service ID, string table, service metadata, form mappings,
+ *   form structure
+ *
+ * The source checksum is {@link ServiceMetadata#checksum} of the YAML the file was compiled
+ * from. A file whose checksum does not match the current YAML, or with another format version
+ * or a damaged payload, is ignored and the YAML is parsed instead.
+ *
+ * Files are named {serviceId}.metadata.bin and are written by ServicesYamlGenerator next to the
+ * generated YAML, and by the build for every bundled service (see {@link #main}).
+ */
+public final class PrecompiledMetadata {
+
+    private static final String CLASS_NAME = PrecompiledMetadata.class.getName();
+
+    public static final String FILE_SUFFIX = ".metadata.bin";
+
+    static final int MAGIC = 0x47534D44;
+    static final short FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 8 + 4 + 4;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte STRING = 6;
+    private static final byte MAP = 7;
+    private static final byte LIST = 8;
+    private static final byte BIG_INTEGER = 9;
+    private static final byte DATE = 10;
+
+    private PrecompiledMetadata() {
+    }
+
+    /**
+     * Encode a compiled snapshot
+     *
+     * @throws IllegalArgumentException if the metadata holds a value type the format cannot represent
+     */
+    public static byte[] encode(ServiceMetadata metadata) {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        ByteArrayOutputStream values = new ByteArrayOutputStream(64 * 1024);
+        writeValue(values, metadata.getServiceMetadata(), strings);
+        writeValue(values, metadata.getFormMappings(), strings);
+        writeValue(values, metadata.getFormStructureData(), strings);
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(values.size() + 32 * 1024);
+        writeString(payload, metadata.getServiceId());
+        writeVarInt(payload, strings.size());
+        for (String string : strings.keySet()) {
+            writeString(payload, string);
+        }
+        payload.write(values.toByteArray(), 0, values.size());
+        byte[] payloadBytes = payload.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payloadBytes);
+        ByteBuffer file = ByteBuffer.allocate(HEADER_BYTES + payloadBytes.length);
+        file.putInt(MAGIC)
+            .putShort(FORMAT_VERSION)
+            .putLong(metadata.getChecksum())
+            .putInt((int) crc.getValue())
+            .putInt(payloadBytes.length)
+            .put(payloadBytes);
+        return file.array();
+    }
+
+    /**
+     * Decode a snapshot if it is current
+     *
+     * @param buffer The file content
+     * @param serviceId The expected service ID
+     * @param sourceChecksum Checksum of the service's current YAML resources
+     * @return The snapshot, or null if the file is stale, of another format version or damaged
+     */
+    public static ServiceMetadata decode(ByteBuffer buffer, String serviceId, long sourceChecksum) {
+        try {
+            ByteBuffer in = buffer.duplicate();
+            if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+                LogUtil.warn(CLASS_NAME, "Not a precompiled metadata file for service " + serviceId);
+                return null;
+            }
+            short version = in.getShort();
+            long checksum = in.getLong();
+            if (version != FORMAT_VERSION || checksum != sourceChecksum) {
+                LogUtil.info(CLASS_NAME, "Precompiled metadata for service " + serviceId +
+                    " does not match the current YAML, parsing the YAML instead");
+                return null;
+            }
+            int payloadCrc = in.getInt();
+            int payloadLength = in.getInt();
+            if (payloadLength != in.remaining()) {
+                LogUtil.warn(CLASS_NAME, "Precompiled metadata for service " + serviceId + " is truncated");
+                return null;
+            }
+
+            ByteBuffer payload = in.slice();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != payloadCrc) {
+                LogUtil.warn(CLASS_NAME, "Precompiled metadata for service " + serviceId + " is damaged (CRC mismatch)");
+                return null;
+            }
+
+            if (!serviceId.equals(readString(payload))) {
+                LogUtil.warn(CLASS_NAME, "Precompiled metadata file is for another service than " + serviceId);
+                return null;
+            }
+            String[] strings = new String[readVarInt(payload)];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(payload);
+            }
+            Map<String, Object> serviceMetadata = readMap(payload, strings);
+            Map<String, Object> formMappings = readMap(payload, strings);
+            Map<String, Object> formStructureData = readMap(payload, strings);
+            return new ServiceMetadata(serviceId, checksum, serviceMetadata, formMappings, formStructureData);
+        } catch (RuntimeException e) {
+            LogUtil.warn(CLASS_NAME, "Precompiled metadata for service " + serviceId + " is unreadable: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the binary form of a snapshot
+     */
+    public static void write(ServiceMetadata metadata, Path file) throws IOException {
+        Files.write(file, encode(metadata));
+    }
+
+    /**
+     * Memory-map a precompiled metadata file
+     */
+    public static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Precompile every service YAML of a metadata directory
+     *
+     * Usage: PrecompiledMetadata <metadata directory> [output directory]
+     *
+     * Each {serviceId}.yml is compiled with the directory's form_structure.yaml; files that are
+     * not valid service metadata for the ID in their name are skipped.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java PrecompiledMetadata <metadata directory> [output directory]");
+            System.exit(1);
+        }
+        Path directory = Paths.get(args[0]);
+        Path output = args.length > 1 ? Paths.get(args[1]) : directory;
+        Files.createDirectories(output);
+
+        Path formStructureFile = directory.resolve(MetadataWatcher.FORM_STRUCTURE_FILE_NAME);
+        byte[] formStructureYaml = Files.isRegularFile(formStructureFile) ? Files.readAllBytes(formStructureFile) : null;
+
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String serviceId = file.getName().substring(0, file.getName().length() - ".yml".length());
+            try {
+                ServiceMetadata metadata = ServiceMetadata.compile(serviceId, Files.readAllBytes(file.toPath()),
+                    formStructureYaml);
+                Path target = output.resolve(serviceId + FILE_SUFFIX);
+                write(metadata, target);
+                System.out.println("Precompiled " + file.getName() + " -> " + target + " (" + Files.size(target) + " bytes)");
+            } catch (ConfigurationException | IllegalArgumentException e) {
+                System.out.println("Skipped " + file.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, Object value, Map<String, Integer> strings) {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof String) {
+            out.write(STRING);
+            writeVarInt(out, strings.computeIfAbsent((String) value, k -> strings.size()));
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+            out.write(INTEGER);
+            int number = (Integer) value;
+            writeVarInt(out, (number << 1) ^ (number >> 31));
+        } else if (value instanceof Long) {
+            out.write(LONG);
+            writeLong(out, (Long) value);
+        } else if (value instanceof Double) {
+            out.write(DOUBLE);
+            writeLong(out, Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof BigInteger) {
+            out.write(BIG_INTEGER);
+            writeVarInt(out, strings.computeIfAbsent(value.toString(), k -> strings.size()));
+        } else if (value instanceof Date) {
+            out.write(DATE);
+            writeLong(out, ((Date) value).getTime());
+        } else if (value instanceof Map) {
+            out.write(MAP);
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeVarInt(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey(), strings);
+                writeValue(out, entry.getValue(), strings);
+            }
+        } else if (value instanceof List) {
+            out.write(LIST);
+            List<?> list = (List<?>) value;
+            writeVarInt(out, list.size());
+            for (Object item : list) {
+                writeValue(out, item, strings);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported metadata value type: " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Read a value into the same unmodifiable collections {@link ServiceMetadata#freeze} creates
+     */
+    private static Object readValue(ByteBuffer in, String[] strings) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case INTEGER: {
+                int zigzag = readVarInt(in);
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            case LONG:
+                return in.getLong();
+            case DOUBLE:
+                return Double.longBitsToDouble(in.getLong());
+            case STRING:
+                return strings[readVarInt(in)];
+            case BIG_INTEGER:
+                return new BigInteger(strings[readVarInt(in)]);
+            case DATE:
+                return new Date(in.getLong());
+            case MAP: {
+                int size = readVarInt(in);
+                Map<Object, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    Object key = readValue(in, strings);
+                    map.put(key, readValue(in, strings));
+                }
+                return Collections.unmodifiableMap(map);
+            }
+            case LIST: {
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, strings));
+                }
+                return Collections.unmodifiableList(list);
+            }
+            default:
+                throw new IllegalStateException("Unknown value tag " + tag);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readMap(ByteBuffer in, String[] strings) {
+        return (Map<String, Object>) readValue(in, strings);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed variable-length integer");
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+}
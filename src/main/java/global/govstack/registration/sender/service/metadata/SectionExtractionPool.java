@@ -0,0 +1,72 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.joget.commons.util.LogUtil;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded thread pools for parallel section and grid lookups
+ *
+ * Each pool has a fixed number of threads and a bounded queue. When both are full, the
+ * submitting workflow thread runs the lookup itself, so concurrent executions slow down
+ * instead of piling up work or opening more database connections than the pool allows.
+ *
+ * Pools are shared process-wide via {@link #shared(int)} and stopped by the bundle
+ * Activator through {@link #shutdownAll()}.
+ */
+public final class SectionExtractionPool {
+
+    private static final String CLASS_NAME = SectionExtractionPool.class.getName();
+
+    public static final int DEFAULT_THREADS = 8;
+
+    private static final int QUEUED_TASKS_PER_THREAD = 16;
+
+    private static final ConcurrentMap<Integer, ExecutorService> SHARED = new ConcurrentHashMap<>();
+
+    private SectionExtractionPool() {
+    }
+
+    /**
+     * Get the process-wide pool with the given number of threads, creating it on first use
+     *
+     * @param threads Number of lookup threads
+     * @return The shared executor
+     */
+    public static ExecutorService shared(int threads) {
+        int size = threads > 0 ? threads : DEFAULT_THREADS;
+        return SHARED.computeIfAbsent(size, SectionExtractionPool::create);
+    }
+
+    /**
+     * Stop all shared pools; lookups in progress are interrupted
+     */
+    public static void shutdownAll() {
+        for (ExecutorService executor : SHARED.values()) {
+            executor.shutdownNow();
+        }
+        SHARED.clear();
+    }
+
+    private static ExecutorService create(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * QUEUED_TASKS_PER_THREAD),
+            r -> {
+                Thread thread = new Thread(r, "govstack-extractor-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        LogUtil.info(CLASS_NAME, "Started section extraction pool (threads=" + threads + ")");
+        return executor;
+    }
+}
@@ -0,0 +1,212 @@
+package global.govstack.registration.sender.service.metadata;
+
+import global.govstack.registration.sender.exception.ConfigurationException;
+import global.govstack.registration.sender.service.transform.ValueMappingTable;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.ByteArrayInputStream;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable, compiled form of a service's metadata (services YAML + form_structure.yaml)
+ *
+ * Instances are built once per serviceId and resource checksum by {@link MetadataRegistry}
+ * and shared by every plugin execution. All nested maps and lists are unmodifiable,
+ * so a snapshot can be read from any thread without synchronization.
+ *
+ * The valueMapping of every field is compiled into a {@link ValueMappingTable} when the snapshot
+ * is built. Tables are interned: fields configured with the same mapping in the same order
+ * (typically a shared master-data code list) get the same table instance. Order is part of the
+ * key because decoding returns the first key mapped to a value. Lookups over form_structure.yaml are
+ * answered by a {@link MetadataIndex} built at the same time.
+ */
+public final class ServiceMetadata {
+
+    private final String serviceId;
+    private final long checksum;
+    private final Map<String, Object> serviceMetadata;
+    private final Map<String, Object> formMappings;
+    private final Map<String, Object> formStructureData;
+    private final Map<List<Map.Entry<?, ?>>, ValueMappingTable> valueMappingTables;
+    private final MetadataIndex index;
+
+    ServiceMetadata(String serviceId, long checksum,
+                    Map<String, Object> serviceMetadata,
+                    Map<String, Object> formMappings,
+                    Map<String, Object> formStructureData) {
+        this.serviceId = serviceId;
+        this.checksum = checksum;
+        this.serviceMetadata = serviceMetadata;
+        this.formMappings = formMappings;
+        this.formStructureData = formStructureData;
+        this.valueMappingTables = compileValueMappings(formMappings);
+        this.index = MetadataIndex.build(formMappings, formStructureData);
+    }
+
+    /**
+     * Compile the value mappings of all fields, one table per distinct mapping
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<List<Map.Entry<?, ?>>, ValueMappingTable> compileValueMappings(Map<String, Object> formMappings) {
+        Map<List<Map.Entry<?, ?>>, ValueMappingTable> tables = new HashMap<>();
+        for (Object section : formMappings.values()) {
+            if (!(section instanceof Map)) {
+                continue;
+            }
+            Object fields = ((Map<String, Object>) section).get("fields");
+            if (!(fields instanceof List)) {
+                continue;
+            }
+            for (Object field : (List<Object>) fields) {
+                Object valueMapping = field instanceof Map ? ((Map<String, Object>) field).get("valueMapping") : null;
+                if (valueMapping instanceof Map && !((Map<?, ?>) valueMapping).isEmpty()) {
+                    tables.computeIfAbsent(internKey((Map<?, ?>) valueMapping),
+                        key -> ValueMappingTable.compile((Map<?, ?>) valueMapping));
+                }
+            }
+        }
+        return Collections.unmodifiableMap(tables);
+    }
+
+    /**
+     * Intern key of a valueMapping: its entries in configuration order
+     *
+     * Map.equals ignores order, so two mappings with the same entries in a different order would
+     * otherwise share a table that decodes to the wrong key.
+     */
+    private static List<Map.Entry<?, ?>> internKey(Map<?, ?> valueMapping) {
+        return new ArrayList<>(valueMapping.entrySet());
+    }
+
+    /**
+     * Parse and validate the raw YAML resources of a service
+     *
+     * @param serviceId The expected service ID
+     * @param serviceYaml Content of {serviceId}.yml
+     * @param formStructureYaml Content of form_structure.yaml, or null if not available
+     * @return The compiled metadata snapshot
+     * @throws ConfigurationException if the service YAML is invalid
+     */
+    @SuppressWarnings("unchecked")
+    public static ServiceMetadata compile(String serviceId, byte[] serviceYaml, byte[] formStructureYaml)
+            throws ConfigurationException {
+        Map<String, Object> yamlData;
+        try {
+            yamlData = new Yaml().load(new ByteArrayInputStream(serviceYaml));
+        } catch (Exception e) {
+            throw new ConfigurationException("Error parsing metadata for service " + serviceId + ": " + e.getMessage(), e);
+        }
+        if (yamlData == null) {
+            throw new ConfigurationException("Metadata file is empty for service: " + serviceId);
+        }
+
+        Map<String, Object> serviceMetadata = (Map<String, Object>) yamlData.get("service");
+        if (serviceMetadata == null) {
+            throw new ConfigurationException("Service metadata not found in YAML");
+        }
+
+        String configuredServiceId = (String) serviceMetadata.get("id");
+        if (!serviceId.equals(configuredServiceId)) {
+            throw new ConfigurationException("Service ID mismatch. Expected: " + serviceId + ", Found: " + configuredServiceId);
+        }
+
+        Map<String, Object> formMappings = (Map<String, Object>) yamlData.get("formMappings");
+        if (formMappings == null) {
+            throw new ConfigurationException("Form mappings not found in YAML");
+        }
+
+        Map<String, Object> formStructureData = null;
+        if (formStructureYaml != null) {
+            try {
+                formStructureData = new Yaml().load(new ByteArrayInputStream(formStructureYaml));
+            } catch (Exception e) {
+                throw new ConfigurationException("Error parsing form_structure.yaml: " + e.getMessage(), e);
+            }
+        }
+        if (formStructureData == null) {
+            formStructureData = new HashMap<>();
+        }
+
+        return new ServiceMetadata(serviceId, checksum(serviceYaml, formStructureYaml),
+            (Map<String, Object>) freeze(serviceMetadata),
+            (Map<String, Object>) freeze(formMappings),
+            (Map<String, Object>) freeze(formStructureData));
+    }
+
+    /**
+     * Checksum over the raw resources a snapshot is compiled from
+     */
+    public static long checksum(byte[] serviceYaml, byte[] formStructureYaml) {
+        CRC32 crc = new CRC32();
+        crc.update(serviceYaml);
+        long serviceCrc = crc.getValue();
+        crc.reset();
+        if (formStructureYaml != null) {
+            crc.update(formStructureYaml);
+        }
+        return (serviceCrc << 32) ^ crc.getValue();
+    }
+
+    /**
+     * Recursively copy YAML maps and lists into unmodifiable, order-preserving collections
+     */
+    static Object freeze(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), freeze(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object item : (List<?>) value) {
+                copy.add(freeze(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public Map<String, Object> getServiceMetadata() {
+        return serviceMetadata;
+    }
+
+    public Map<String, Object> getFormMappings() {
+        return formMappings;
+    }
+
+    public Map<String, Object> getFormStructureData() {
+        return formStructureData;
+    }
+
+    /**
+     * Get the index of the form structure
+     */
+    public MetadataIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the compiled table of a configured valueMapping
+     *
+     * @param valueMapping A field's valueMapping from this snapshot's form mappings
+     * @return The shared table, or null if the mapping is missing or empty
+     */
+    public ValueMappingTable getValueMappingTable(Object valueMapping) {
+        if (!(valueMapping instanceof Map) || ((Map<?, ?>) valueMapping).isEmpty()) {
+            return null;
+        }
+        ValueMappingTable table = valueMappingTables.get(internKey((Map<?, ?>) valueMapping));
+        return table != null ? table : ValueMappingTable.compile((Map<?, ?>) valueMapping);
+    }
+}
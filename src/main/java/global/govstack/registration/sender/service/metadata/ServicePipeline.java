@@ -0,0 +1,146 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.joget.commons.util.LogUtil;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Extractor and encoder of one service, bound to one metadata snapshot
+ *
+ * A pipeline is built once per serviceId, snapshot and extraction settings by the
+ * {@link ServicePipelineRegistry} and then shared by all executions for that service. Its
+ * metadata never changes: when the service's metadata does, the registry builds a new
+ * pipeline, and executions still holding the old one finish with it. Executions for different
+ * services therefore never share, or overwrite, each other's metadata or plans.
+ */
+public final class ServicePipeline {
+
+    private static final String CLASS_NAME = ServicePipeline.class.getName();
+
+    /** Extraction strategy that reads each record with joined queries */
+    public static final String STRATEGY_JOINED = "joined";
+
+    /** Extraction strategy that runs the section lookups of a record in parallel */
+    public static final String STRATEGY_PARALLEL = "parallel";
+
+    private final ServiceMetadata snapshot;
+    private final Settings settings;
+    private final YamlMetadataService metadataService;
+    private final GenericFormDataExtractor dataExtractor;
+    private final GovStackJsonEncoder jsonEncoder;
+    private final boolean complete;
+
+    /**
+     * Extraction settings of a pipeline, from the plugin properties
+     */
+    public static final class Settings {
+        private final String extractionStrategy;
+        private final int extractionThreads;
+        private final long extractionTimeoutMs;
+
+        /**
+         * @param extractionStrategy "joined", "parallel", or anything else for per-section lookups
+         * @param extractionThreads Threads of the shared pool for the parallel strategy
+         * @param extractionTimeoutMs Maximum time for the lookups of one record with the parallel strategy
+         */
+        public Settings(String extractionStrategy, int extractionThreads, long extractionTimeoutMs) {
+            this.extractionStrategy = extractionStrategy != null ? extractionStrategy : "";
+            this.extractionThreads = extractionThreads;
+            this.extractionTimeoutMs = extractionTimeoutMs;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Settings)) {
+                return false;
+            }
+            Settings other = (Settings) o;
+            return extractionThreads == other.extractionThreads
+                && extractionTimeoutMs == other.extractionTimeoutMs
+                && extractionStrategy.equals(other.extractionStrategy);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(extractionStrategy, extractionThreads, extractionTimeoutMs);
+        }
+
+        @Override
+        public String toString() {
+            return extractionStrategy.isEmpty() ? "sections" : extractionStrategy;
+        }
+    }
+
+    /**
+     * @param extractorFactory Creates the extractor over the pipeline's metadata
+     */
+    ServicePipeline(ServiceMetadata snapshot, Settings settings,
+                    Function<YamlMetadataService, GenericFormDataExtractor> extractorFactory) {
+        this.snapshot = snapshot;
+        this.settings = settings;
+        this.metadataService = new YamlMetadataService(snapshot);
+        this.dataExtractor = extractorFactory.apply(metadataService);
+        this.jsonEncoder = new GovStackJsonEncoder(metadataService);
+
+        boolean joinedAvailable = true;
+        if (STRATEGY_JOINED.equals(settings.extractionStrategy)) {
+            JoinedFormDataLoader loader = joinedLoader();
+            dataExtractor.setJoinedLoader(loader);
+            joinedAvailable = loader != null;
+        } else if (STRATEGY_PARALLEL.equals(settings.extractionStrategy)) {
+            dataExtractor.setParallelExtraction(SectionExtractionPool.shared(settings.extractionThreads),
+                settings.extractionTimeoutMs);
+        }
+        this.complete = joinedAvailable;
+    }
+
+    /**
+     * Get the shared joined loader, or null (per-section lookups) if the data source is unavailable
+     */
+    private static JoinedFormDataLoader joinedLoader() {
+        try {
+            return JoinedFormDataLoader.shared();
+        } catch (Exception e) {
+            LogUtil.warn(CLASS_NAME, "Joined extraction unavailable, using per-section lookups: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public String getServiceId() {
+        return snapshot.getServiceId();
+    }
+
+    /**
+     * @return The metadata snapshot the pipeline was built for
+     */
+    public ServiceMetadata getSnapshot() {
+        return snapshot;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public YamlMetadataService getMetadataService() {
+        return metadataService;
+    }
+
+    public GenericFormDataExtractor getDataExtractor() {
+        return dataExtractor;
+    }
+
+    public GovStackJsonEncoder getJsonEncoder() {
+        return jsonEncoder;
+    }
+
+    /**
+     * @return false if the pipeline fell back from the requested strategy and should not be reused
+     */
+    boolean isComplete() {
+        return complete;
+    }
+}
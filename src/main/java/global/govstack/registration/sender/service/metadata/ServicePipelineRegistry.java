@@ -0,0 +1,117 @@
+package global.govstack.registration.sender.service.metadata;
+
+import global.govstack.registration.sender.exception.ConfigurationException;
+import org.joget.commons.util.LogUtil;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Process-wide set of {@link ServicePipeline}s, one per serviceId and extraction settings
+ *
+ * Executions look up the pipeline of their service instead of reloading shared extractor and
+ * encoder instances, so executions for different services run side by side without
+ * overwriting each other's metadata, and each pipeline's plans are compiled once. A lookup
+ * reads the service's metadata resources (or the watcher's snapshot) to notice changes, and
+ * builds a new pipeline only when the snapshot differs from the cached one.
+ *
+ * The process-wide registry is obtained via {@link #shared()} and cleared by the bundle
+ * Activator through {@link #shutdownAll()}.
+ */
+public final class ServicePipelineRegistry {
+
+    private static final String CLASS_NAME = ServicePipelineRegistry.class.getName();
+
+    private static ServicePipelineRegistry shared;
+
+    private final ConcurrentMap<Key, ServicePipeline> pipelines = new ConcurrentHashMap<>();
+    private final YamlMetadataService resolver = new YamlMetadataService();
+    private final Function<YamlMetadataService, GenericFormDataExtractor> extractorFactory;
+
+    private static final class Key {
+        private final String serviceId;
+        private final ServicePipeline.Settings settings;
+
+        Key(String serviceId, ServicePipeline.Settings settings) {
+            this.serviceId = serviceId;
+            this.settings = settings;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return serviceId.equals(other.serviceId) && settings.equals(other.settings);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * serviceId.hashCode() + settings.hashCode();
+        }
+    }
+
+    /**
+     * @param extractorFactory Creates the extractor of a new pipeline over its metadata
+     */
+    ServicePipelineRegistry(Function<YamlMetadataService, GenericFormDataExtractor> extractorFactory) {
+        this.extractorFactory = extractorFactory;
+    }
+
+    /**
+     * Get the process-wide registry
+     */
+    public static synchronized ServicePipelineRegistry shared() {
+        if (shared == null) {
+            shared = new ServicePipelineRegistry(GenericFormDataExtractor::new);
+        }
+        return shared;
+    }
+
+    /**
+     * Drop all pipelines; they refer to shared pools that are stopped with the bundle
+     */
+    public static synchronized void shutdownAll() {
+        if (shared != null) {
+            shared.pipelines.clear();
+            shared = null;
+        }
+    }
+
+    /**
+     * Get the pipeline for a service's current metadata
+     *
+     * @param serviceId The service ID
+     * @param settings The extraction settings
+     * @param watcher The metadata directory watcher, or null to use the bundled metadata
+     * @return The shared pipeline
+     * @throws ConfigurationException if the service's metadata cannot be loaded
+     */
+    public ServicePipeline get(String serviceId, ServicePipeline.Settings settings, MetadataWatcher watcher)
+            throws ConfigurationException {
+        ServiceMetadata snapshot = resolver.resolve(serviceId, watcher);
+
+        Key key = new Key(serviceId, settings);
+        ServicePipeline pipeline = pipelines.get(key);
+        if (pipeline != null && pipeline.getSnapshot() == snapshot) {
+            return pipeline;
+        }
+
+        ServicePipeline built = new ServicePipeline(snapshot, settings, extractorFactory);
+        if (!built.isComplete()) {
+            // Not cached, so the requested strategy is tried again by the next execution
+            return built;
+        }
+
+        // A concurrent execution may have built the same pipeline first; keep only one
+        ServicePipeline current = pipelines.merge(key, built,
+            (cached, fresh) -> cached.getSnapshot() == snapshot ? cached : fresh);
+        if (current == built) {
+            LogUtil.info(CLASS_NAME, "Built pipeline for service " + serviceId + " (extraction: " + settings +
+                ", checksum " + Long.toHexString(snapshot.getChecksum()) + ")");
+        }
+        return current;
+    }
+}
@@ -2,10 +2,12 @@ package global.govstack.registration.sender.service.metadata;
 
 import org.joget.commons.util.LogUtil;
 import global.govstack.registration.sender.exception.ConfigurationException;
+import global.govstack.registration.sender.util.SubmissionLog;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -17,77 +19,96 @@ import java.util.*;
  */
 public class YamlMetadataService {
     private static final String CLASS_NAME = YamlMetadataService.class.getName();
-    private static final String METADATA_DIR = "docs-metadata/";
+    static final String METADATA_DIR = "docs-metadata/";
     private static final String FORM_STRUCTURE_FILE = "docs-metadata/form_structure.yaml";
 
     private Map<String, Object> serviceMetadata;
     private Map<String, Object> formMappings;
     private Map<String, Object> formStructureData;
     private String serviceId;
+    private ServiceMetadata snapshot;
 
     /**
      * Load the YAML metadata file for a specific service
+     *
+     * Metadata bundled in the plugin jar is read once per service. File-system metadata is read
+     * on every call, but only parsed when its checksum differs from the snapshot held by the
+     * process-wide {@link MetadataRegistry}.
+     *
      * @param serviceId The service ID to load metadata for (e.g., "farmers_registry", "subsidy_application")
      * @throws ConfigurationException if metadata cannot be loaded
      */
     public void loadMetadata(String serviceId) throws ConfigurationException {
         this.serviceId = serviceId;
+        applySnapshot(resolve(serviceId, null));
+    }
+
+    /**
+     * Load the metadata for a specific service, preferring a hot-reloadable copy
+     *
+     * If the watcher's directory has a {serviceId}.yml, its current snapshot is used without
+     * reading any files; otherwise this is {@link #loadMetadata(String)}.
+     *
+     * @param serviceId The service ID to load metadata for
+     * @param watcher The metadata directory watcher, or null to use the bundled metadata
+     * @throws ConfigurationException if metadata cannot be loaded
+     */
+    public void loadMetadata(String serviceId, MetadataWatcher watcher) throws ConfigurationException {
+        this.serviceId = serviceId;
+        applySnapshot(resolve(serviceId, watcher));
+    }
+
+    /**
+     * Get the current snapshot of a service without changing the metadata this service points at
+     *
+     * Does not touch any instance state, so one instance may resolve snapshots for any number of
+     * services and threads at once.
+     *
+     * @param serviceId The service ID
+     * @param watcher The metadata directory watcher, or null to use the bundled metadata
+     * @return The shared compiled snapshot
+     * @throws ConfigurationException if metadata cannot be loaded
+     */
+    ServiceMetadata resolve(String serviceId, MetadataWatcher watcher) throws ConfigurationException {
+        ServiceMetadata watched = watcher != null ? watcher.current(serviceId) : null;
+        if (watched != null) {
+            return watched;
+        }
+
+        // Bundled resources cannot change without a redeploy
+        MetadataRegistry registry = MetadataRegistry.getInstance();
+        ServiceMetadata bundled = registry.getBundled(serviceId);
+        if (bundled != null) {
+            return bundled;
+        }
 
         // Construct service-specific filename
         String metadataFile = METADATA_DIR + serviceId + ".yml";
 
         try {
-            InputStream inputStream = null;
-
-            // Try to load from classpath first (for deployed plugin)
-            inputStream = getClass().getClassLoader().getResourceAsStream(metadataFile);
-            if (inputStream != null) {
-                LogUtil.info(CLASS_NAME, "Loading metadata from classpath: " + metadataFile);
-            } else {
-                // Try to load from file system as fallback (for development)
-                Path metadataPath = Paths.get(metadataFile);
-                if (Files.exists(metadataPath)) {
-                    LogUtil.info(CLASS_NAME, "Loading metadata from file: " + metadataPath.toAbsolutePath());
-                    inputStream = new FileInputStream(metadataPath.toFile());
-                } else {
-                    throw new ConfigurationException("Metadata file not found: " + metadataFile +
-                        ". Expected service-specific configuration file.");
-                }
+            byte[] serviceYaml;
+            try (InputStream inputStream = openServiceMetadata(metadataFile)) {
+                serviceYaml = inputStream.readAllBytes();
             }
 
-            Yaml yaml = new Yaml();
-            Map<String, Object> yamlData = yaml.load(inputStream);
-
-            // Extract service metadata
-            serviceMetadata = (Map<String, Object>) yamlData.get("service");
-            if (serviceMetadata == null) {
-                throw new ConfigurationException("Service metadata not found in YAML");
+            // Load form_structure.yaml (required for merged field mappings)
+            byte[] formStructureYaml = null;
+            try (InputStream formStructureStream = loadYamlFile(FORM_STRUCTURE_FILE)) {
+                formStructureYaml = formStructureStream.readAllBytes();
+            } catch (Exception e) {
+                LogUtil.warn(CLASS_NAME, "Could not load form_structure.yaml: " + e.getMessage());
             }
 
-            // Validate service ID
-            String configuredServiceId = (String) serviceMetadata.get("id");
-            if (!serviceId.equals(configuredServiceId)) {
-                throw new ConfigurationException("Service ID mismatch. Expected: " + serviceId + ", Found: " + configuredServiceId);
-            }
+            ServiceMetadata compiled = registry.getOrCompile(serviceId, serviceYaml,
+                formStructureYaml, () -> openPrecompiled(serviceId));
 
-            // Extract form mappings
-            formMappings = (Map<String, Object>) yamlData.get("formMappings");
-            if (formMappings == null) {
-                throw new ConfigurationException("Form mappings not found in YAML");
+            // Both are read from the classpath first, so this is where they came from
+            if (isBundled(metadataFile) && isBundled(FORM_STRUCTURE_FILE)) {
+                registry.markBundled(serviceId, compiled);
             }
 
-            LogUtil.info(CLASS_NAME, "Successfully loaded metadata for service: " + serviceId);
-
-            // Load form_structure.yaml (required for merged field mappings)
-            try {
-                Yaml formStructureYaml = new Yaml();
-                InputStream formStructureStream = loadYamlFile(FORM_STRUCTURE_FILE);
-                formStructureData = formStructureYaml.load(formStructureStream);
-                LogUtil.info(CLASS_NAME, "Successfully loaded form_structure.yaml");
-            } catch (Exception e) {
-                LogUtil.warn(CLASS_NAME, "Could not load form_structure.yaml: " + e.getMessage());
-                formStructureData = new HashMap<>();
-            }
+            LogUtil.debug(CLASS_NAME, "Metadata ready for service: " + serviceId);
+            return compiled;
 
         } catch (Exception e) {
             if (e instanceof ConfigurationException) {
@@ -97,6 +118,74 @@ public class YamlMetadataService {
         }
     }
 
+    private boolean isBundled(String fileName) {
+        return getClass().getClassLoader().getResource(fileName) != null;
+    }
+
+    /**
+     * Read the precompiled metadata of a service from the classpath, or map it from the file system
+     *
+     * @return The file content, or null if there is none
+     */
+    private ByteBuffer openPrecompiled(String serviceId) {
+        String fileName = METADATA_DIR + serviceId + PrecompiledMetadata.FILE_SUFFIX;
+        try {
+            try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(fileName)) {
+                if (inputStream != null) {
+                    return ByteBuffer.wrap(inputStream.readAllBytes());
+                }
+            }
+            for (Path path : new Path[]{Paths.get(fileName), Paths.get("src/main/resources/" + fileName)}) {
+                if (Files.isRegularFile(path)) {
+                    return PrecompiledMetadata.map(path);
+                }
+            }
+        } catch (Exception e) {
+            LogUtil.warn(CLASS_NAME, "Could not read precompiled metadata " + fileName + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Open the service-specific metadata file from the classpath or the file system
+     */
+    private InputStream openServiceMetadata(String metadataFile) throws Exception {
+        // Try to load from classpath first (for deployed plugin)
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream(metadataFile);
+        if (inputStream != null) {
+            LogUtil.debug(CLASS_NAME, "Loading metadata from classpath: " + metadataFile);
+            return inputStream;
+        }
+
+        // Try to load from file system as fallback (for development)
+        Path metadataPath = Paths.get(metadataFile);
+        if (Files.exists(metadataPath)) {
+            LogUtil.debug(CLASS_NAME, "Loading metadata from file: " + metadataPath.toAbsolutePath());
+            return new FileInputStream(metadataPath.toFile());
+        }
+
+        throw new ConfigurationException("Metadata file not found: " + metadataFile +
+            ". Expected service-specific configuration file.");
+    }
+
+    /**
+     * Point this service at a compiled metadata snapshot
+     */
+    private void applySnapshot(ServiceMetadata snapshot) {
+        this.snapshot = snapshot;
+        this.serviceMetadata = snapshot.getServiceMetadata();
+        this.formMappings = snapshot.getFormMappings();
+        this.formStructureData = snapshot.getFormStructureData();
+    }
+
+    /**
+     * Get the compiled metadata snapshot currently in use
+     * @return The snapshot, or null if no metadata is loaded
+     */
+    public ServiceMetadata getSnapshot() {
+        return snapshot;
+    }
+
     /**
      * Get field mappings for a specific form section
      * @param sectionName The name of the form section (e.g., "farmerBasicInfo")
@@ -354,6 +443,14 @@ public class YamlMetadataService {
         LogUtil.info(CLASS_NAME, "YamlMetadataService initialized. Call loadMetadata(serviceId) to load configuration.");
     }
 
+    /**
+     * Metadata fixed to one snapshot, as held by a {@link ServicePipeline}
+     */
+    YamlMetadataService(ServiceMetadata snapshot) {
+        this.serviceId = snapshot.getServiceId();
+        applySnapshot(snapshot);
+    }
+
     /**
      * Load metadata without validating service ID (DEPRECATED - for backward compatibility only)
      * @deprecated Use loadMetadata(serviceId) instead for multi-service support
@@ -405,14 +502,14 @@ public class YamlMetadataService {
         // Try to load from classpath first
         inputStream = getClass().getClassLoader().getResourceAsStream(fileName);
         if (inputStream != null) {
-            LogUtil.info(CLASS_NAME, "Loading from classpath: " + fileName);
+            LogUtil.debug(CLASS_NAME, "Loading from classpath: " + fileName);
             return inputStream;
         }
 
         // Try to load from file system
         Path filePath = Paths.get(fileName);
         if (Files.exists(filePath)) {
-            LogUtil.info(CLASS_NAME, "Loading from file: " + filePath.toAbsolutePath());
+            LogUtil.debug(CLASS_NAME, "Loading from file: " + filePath.toAbsolutePath());
             try {
                 return new FileInputStream(filePath.toFile());
             } catch (Exception e) {
@@ -423,7 +520,7 @@ public class YamlMetadataService {
         // Try src/main/resources path
         filePath = Paths.get("src/main/resources/" + fileName);
         if (Files.exists(filePath)) {
-            LogUtil.info(CLASS_NAME, "Loading from resources: " + filePath.toAbsolutePath());
+            LogUtil.debug(CLASS_NAME, "Loading from resources: " + filePath.toAbsolutePath());
             try {
                 return new FileInputStream(filePath.toFile());
             } catch (Exception e) {
@@ -479,8 +576,14 @@ public class YamlMetadataService {
      * @return Table name or null
      */
     public String getTableName(String formName) {
-        Map<String, Object> formStructure = getFormStructure(formName);
-        return formStructure != null ? (String) formStructure.get("table_name") : null;
+        return index().getTableName(formName);
+    }
+
+    /**
+     * Get the index of the loaded form structure, or an empty one if no metadata is loaded
+     */
+    MetadataIndex index() {
+        return snapshot != null ? snapshot.getIndex() : MetadataIndex.EMPTY;
     }
 
     /**
@@ -545,84 +648,24 @@ public class YamlMetadataService {
     /**
      * Get all fields for a form from form_structure.yaml
      * @param formName The form name
-     * @return List of field maps or empty list
+     * @return Unmodifiable list of field maps, empty if the form is not defined
      */
-    @SuppressWarnings("unchecked")
     public List<Map<String, Object>> getFormStructureFields(String formName) {
-        Map<String, Object> formStructure = getFormStructure(formName);
-        if (formStructure == null) {
-            return new ArrayList<>();
-        }
-
-        // Try all_fields first
-        Object allFields = formStructure.get("all_fields");
-        if (allFields instanceof List) {
-            return (List<Map<String, Object>>) allFields;
-        }
-
-        // Otherwise, extract from sections
-        List<Map<String, Object>> fields = new ArrayList<>();
-        Object sections = formStructure.get("sections");
-        if (sections instanceof List) {
-            for (Object sectionObj : (List<?>) sections) {
-                if (sectionObj instanceof Map) {
-                    Map<String, Object> section = (Map<String, Object>) sectionObj;
-                    Object sectionFields = section.get("fields");
-                    if (sectionFields instanceof List) {
-                        fields.addAll((List<Map<String, Object>>) sectionFields);
-                    }
-                }
-            }
-        }
-
-        return fields;
+        return index().getStructureFields(formName);
     }
 
     /**
      * Merge form structure fields with services.yml field mappings
      * Returns enhanced field definitions with both table/column AND govstack path
      *
+     * The merged definitions are built once per metadata snapshot and shared, so the list and
+     * its field maps are unmodifiable.
+     *
      * @param formName The form name
      * @return List of merged field definitions
      */
-    @SuppressWarnings("unchecked")
     public List<Map<String, Object>> getMergedFieldMappings(String formName) {
-        List<Map<String, Object>> mergedFields = new ArrayList<>();
-
-        // Get fields from form_structure.yaml (has table/column info)
-        List<Map<String, Object>> structureFields = getFormStructureFields(formName);
-
-        // Get fields from services.yml (has govstack path info)
-        List<Map<String, Object>> serviceFields = getFieldMappings(formName);
-
-        // Create map of service fields by joget field name for quick lookup
-        Map<String, Map<String, Object>> serviceFieldMap = new HashMap<>();
-        for (Map<String, Object> serviceField : serviceFields) {
-            String jogetName = (String) serviceField.get("joget");
-            if (jogetName != null) {
-                serviceFieldMap.put(jogetName, serviceField);
-            }
-        }
-
-        // Merge fields from form_structure with services.yml
-        for (Map<String, Object> structureField : structureFields) {
-            Map<String, Object> mergedField = new HashMap<>(structureField);
-
-            String fieldId = (String) structureField.get("field_id");
-            if (fieldId != null && serviceFieldMap.containsKey(fieldId)) {
-                // Add govstack mapping from services.yml
-                Map<String, Object> serviceField = serviceFieldMap.get(fieldId);
-                mergedField.put("govstack", serviceField.get("govstack"));
-                mergedField.put("transform", serviceField.get("transform"));
-                mergedField.put("valueMapping", serviceField.get("valueMapping"));
-                mergedField.put("govstackType", serviceField.get("govstackType"));
-                mergedField.put("typeValue", serviceField.get("typeValue"));
-            }
-
-            mergedFields.add(mergedField);
-        }
-
-        return mergedFields;
+        return index().getMergedFields(formName);
     }
 
     /**
@@ -637,74 +680,32 @@ public class YamlMetadataService {
      * @param formId The sub-form ID for the grid (e.g., "householdMemberForm")
      * @return Column name for the foreign key (e.g., "c_farmer_id") or null
      */
-    @SuppressWarnings("unchecked")
     public String getGridForeignKeyColumn(String gridName, String formId) {
-        try {
-            // First, find the grid definition in form_structure.yaml
-            // Grids are nested under parent forms, so we need to search through all forms
-            Map<String, Object> forms = getFormStructureData();
-
-            String foreignKeyFieldId = null;
-            String subFormId = null;
-
-            // Search all forms for the grid definition
-            for (Map.Entry<String, Object> formEntry : forms.entrySet()) {
-                Map<String, Object> formDef = (Map<String, Object>) formEntry.getValue();
-                if (formDef == null) continue;
-
-                // Check if this form has grids
-                List<Map<String, Object>> grids = (List<Map<String, Object>>) formDef.get("grids");
-                if (grids == null) continue;
-
-                // Look for our grid
-                for (Map<String, Object> grid : grids) {
-                    String gridId = (String) grid.get("grid_id");
-                    if (gridName.equals(gridId)) {
-                        foreignKeyFieldId = (String) grid.get("foreign_key");
-                        subFormId = (String) grid.get("sub_form_id");
-                        LogUtil.info(CLASS_NAME, "Found grid '" + gridName + "': foreign_key=" +
-                            foreignKeyFieldId + ", sub_form_id=" + subFormId);
-                        break;
-                    }
-                }
-
-                if (foreignKeyFieldId != null) break;
-            }
-
-            if (foreignKeyFieldId == null) {
-                LogUtil.warn(CLASS_NAME, "Grid '" + gridName + "' not found in form_structure.yaml");
-                return null;
-            }
-
-            // Now look up the foreign key field in the sub-form to get column name
-            Map<String, Object> subForm = getFormStructure(subFormId != null ? subFormId : formId);
-            if (subForm == null) {
-                LogUtil.warn(CLASS_NAME, "Sub-form '" + (subFormId != null ? subFormId : formId) +
-                    "' not found in form_structure.yaml");
-                return null;
-            }
-
-            // Get fields from the sub-form
-            List<Map<String, Object>> fields = getFormStructureFields(subFormId != null ? subFormId : formId);
-
-            for (Map<String, Object> field : fields) {
-                String fieldId = (String) field.get("field_id");
-                if (foreignKeyFieldId.equals(fieldId)) {
-                    String column = (String) field.get("column");
-                    LogUtil.info(CLASS_NAME, "Grid '" + gridName + "' foreign key: field_id='" +
-                        fieldId + "' -> column='" + column + "'");
-                    return column;
-                }
-            }
+        MetadataIndex index = index();
+        MetadataIndex.Grid grid = index.getGrid(gridName);
+        if (grid == null) {
+            LogUtil.warn(CLASS_NAME, "Grid '" + gridName + "' not found in form_structure.yaml");
+            return null;
+        }
 
-            LogUtil.warn(CLASS_NAME, "Foreign key field '" + foreignKeyFieldId +
-                "' not found in sub-form '" + (subFormId != null ? subFormId : formId) + "'");
+        // Look up the foreign key field in the sub-form to get its column name
+        String subFormId = grid.getSubFormId() != null ? grid.getSubFormId() : formId;
+        if (!index.hasForm(subFormId)) {
+            LogUtil.warn(CLASS_NAME, "Sub-form '" + subFormId + "' not found in form_structure.yaml");
+            return null;
+        }
 
-        } catch (Exception e) {
-            LogUtil.error(CLASS_NAME, e, "Error getting grid foreign key for: " + gridName);
+        Map<String, String> columns = index.getColumns(subFormId);
+        if (!columns.containsKey(grid.getForeignKeyField())) {
+            LogUtil.warn(CLASS_NAME, "Foreign key field '" + grid.getForeignKeyField() +
+                "' not found in sub-form '" + subFormId + "'");
+            return null;
         }
 
-        return null;
+        String column = columns.get(grid.getForeignKeyField());
+        SubmissionLog.debug(CLASS_NAME, () -> "Grid '" + gridName + "' foreign key: field_id='" +
+            grid.getForeignKeyField() + "' -> column='" + column + "'");
+        return column;
     }
 
     /**
@@ -0,0 +1,277 @@
+package global.govstack.registration.sender.service.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.joget.commons.util.LogUtil;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency and throughput metrics of the submission pipeline
+ *
+ * Each stage (extraction, encoding, sending) is timed with System.nanoTime() into a
+ * {@link LatencyHistogram}; counters track records, bytes sent, HTTP status classes, transport
+ * errors, delivery retries and transformation failures. Recording is lock-free (striped adders
+ * and atomic histogram buckets), so the metrics are always on.
+ *
+ * The shared instance is read through {@link #snapshot()} or {@link #toJson()}, or over JMX once
+ * {@link #registerMBean()} has been called by the Activator.
+ */
+public final class SubmissionMetrics implements SubmissionMetricsMBean {
+
+    private static final String CLASS_NAME = SubmissionMetrics.class.getName();
+
+    public static final String OBJECT_NAME = "global.govstack.registration:type=SubmissionMetrics";
+
+    /**
+     * Timed pipeline stages
+     */
+    public enum Stage {
+        EXTRACT, ENCODE, SEND
+    }
+
+    private static final SubmissionMetrics SHARED = new SubmissionMetrics();
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    private final LongAdder recordsSent = new LongAdder();
+    private final LongAdder recordsFailed = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder transformFailures = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    // 1xx to 5xx
+    private final LongAdder[] statusClasses = new LongAdder[5];
+    private volatile long resetAtMillis = System.currentTimeMillis();
+
+    public SubmissionMetrics() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < statusClasses.length; i++) {
+            statusClasses[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * The process-wide metrics
+     */
+    public static SubmissionMetrics shared() {
+        return SHARED;
+    }
+
+    /**
+     * Start time for {@link #recordStage}
+     */
+    public static long startTimer() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the time a stage took since startTimer() returned startNanos
+     */
+    public void recordStage(Stage stage, long startNanos) {
+        stages[stage.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record an HTTP request
+     *
+     * @param statusCode Response status, or -1 if no response was received
+     * @param requestBytes Request body size as sent; only counted if there was a response
+     */
+    public void recordRequest(int statusCode, long requestBytes) {
+        int statusClass = statusCode / 100;
+        if (statusClass >= 1 && statusClass <= 5) {
+            bytesSent.add(requestBytes);
+            statusClasses[statusClass - 1].increment();
+        } else {
+            transportErrors.increment();
+        }
+    }
+
+    /**
+     * Record the final outcome of records, once per record however many attempts it took
+     */
+    public void recordOutcome(boolean success, int recordCount) {
+        (success ? recordsSent : recordsFailed).add(recordCount);
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordTransformFailure() {
+        transformFailures.increment();
+    }
+
+    /**
+     * Latency histogram of a stage, in nanoseconds
+     */
+    public LatencyHistogram getHistogram(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    /**
+     * All metrics as nested maps, latencies in milliseconds
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("sinceMillis", resetAtMillis);
+
+        Map<String, Object> records = new LinkedHashMap<>();
+        records.put("sent", recordsSent.sum());
+        records.put("failed", recordsFailed.sum());
+        snapshot.put("records", records);
+        snapshot.put("bytesSent", bytesSent.sum());
+
+        Map<String, Object> http = new LinkedHashMap<>();
+        for (int i = 0; i < statusClasses.length; i++) {
+            http.put((i + 1) + "xx", statusClasses[i].sum());
+        }
+        http.put("transportErrors", transportErrors.sum());
+        snapshot.put("http", http);
+        snapshot.put("retries", retries.sum());
+        snapshot.put("transformFailures", transformFailures.sum());
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram.Snapshot histogram = stages[stage.ordinal()].snapshot();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", histogram.getCount());
+            values.put("mean", millis(histogram.getMean()));
+            values.put("p50", millis(histogram.getValueAtPercentile(50)));
+            values.put("p90", millis(histogram.getValueAtPercentile(90)));
+            values.put("p99", millis(histogram.getValueAtPercentile(99)));
+            values.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            values.put("max", millis(histogram.getMax()));
+            latency.put(stage.name().toLowerCase(Locale.ROOT), values);
+        }
+        snapshot.put("latencyMillis", latency);
+        return snapshot;
+    }
+
+    /**
+     * All metrics as a JSON document, see {@link #snapshot()}
+     */
+    public String toJson() {
+        try {
+            return mapper.writeValueAsString(snapshot());
+        } catch (JsonProcessingException e) {
+            // Only plain maps and numbers are written
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1_000) / 1_000.0;
+    }
+
+    private double p99Millis(Stage stage) {
+        return millis(stages[stage.ordinal()].snapshot().getValueAtPercentile(99));
+    }
+
+    @Override
+    public String getSnapshotJson() {
+        return toJson();
+    }
+
+    @Override
+    public long getRecordsSent() {
+        return recordsSent.sum();
+    }
+
+    @Override
+    public long getRecordsFailed() {
+        return recordsFailed.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getTransformFailures() {
+        return transformFailures.sum();
+    }
+
+    @Override
+    public long getTransportErrors() {
+        return transportErrors.sum();
+    }
+
+    @Override
+    public double getExtractP99Millis() {
+        return p99Millis(Stage.EXTRACT);
+    }
+
+    @Override
+    public double getEncodeP99Millis() {
+        return p99Millis(Stage.ENCODE);
+    }
+
+    @Override
+    public double getSendP99Millis() {
+        return p99Millis(Stage.SEND);
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : stages) {
+            histogram.reset();
+        }
+        for (LongAdder adder : new LongAdder[] {recordsSent, recordsFailed, bytesSent, retries, transformFailures, transportErrors}) {
+            adder.reset();
+        }
+        for (LongAdder adder : statusClasses) {
+            adder.reset();
+        }
+        resetAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Register the shared instance with the platform MBean server, replacing a registration
+     * left behind by a previous bundle instance
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(SHARED, name);
+        } catch (Exception e) {
+            // Metrics are still recorded, just not visible over JMX
+            LogUtil.warn(CLASS_NAME, "Could not register submission metrics MBean: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the JMX registration
+     */
+    public static synchronized void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            LogUtil.warn(CLASS_NAME, "Could not unregister submission metrics MBean: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package global.govstack.registration.sender.service.metrics;
+
+/**
+ * JMX view of {@link SubmissionMetrics}
+ *
+ * Registered as {@value SubmissionMetrics#OBJECT_NAME} while the plugin bundle is started.
+ * Latencies are in milliseconds.
+ */
+public interface SubmissionMetricsMBean {
+
+    /**
+     * All metrics as a JSON document
+     */
+    String getSnapshotJson();
+
+    long getRecordsSent();
+
+    long getRecordsFailed();
+
+    long getBytesSent();
+
+    long getRetries();
+
+    long getTransformFailures();
+
+    long getTransportErrors();
+
+    double getExtractP99Millis();
+
+    double getEncodeP99Millis();
+
+    double getSendP99Millis();
+
+    /**
+     * Clear all counters and histograms
+     */
+    void reset();
+}
@@ -0,0 +1,315 @@
+package global.govstack.registration.sender.service.outbox;
+
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.metrics.SubmissionMetrics;
+import global.govstack.registration.sender.util.SubmissionLog;
+import org.joget.commons.util.LogUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-ahead outbox giving at-least-once delivery to the Processing API
+ *
+ * Payloads are appended to an {@link OutboxLog} (and fsynced) before they are sent, and only
+ * acknowledged once the API accepted them. A failed send is retried by a background dispatcher
+ * with exponential backoff, honouring the retryOnFailure/maxRetries plugin settings. After a
+ * restart, undelivered entries are recovered from disk and retried.
+ *
+ * API credentials are never written to disk. Entries name a destination key instead, and a
+ * destination becomes sendable when a DocSubmitter execution registers its client; recovered
+ * entries for a destination wait until then.
+ */
+public class DurableOutbox {
+
+    private static final String CLASS_NAME = DurableOutbox.class.getName();
+
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 1000;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 5 * 60 * 1000;
+
+    private static final int DISPATCHER_THREADS = 2;
+    private static final long COMPACTION_INTERVAL_SECONDS = 30;
+    private static final double RELOCATE_BELOW_LIVE_RATIO = 0.25;
+
+    private static final ConcurrentMap<String, DurableOutbox> SHARED = new ConcurrentHashMap<>();
+
+    /**
+     * Receives the final outcome of each entry: delivered, or given up on
+     */
+    public interface CompletionListener {
+        void onComplete(OutboxEntry entry, GovStackApiClient.ApiResponse response);
+    }
+
+    private final OutboxLog log;
+    private final ScheduledExecutorService dispatcher;
+    private final ConcurrentMap<String, Destination> destinations = new ConcurrentHashMap<>();
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private volatile CompletionListener listener;
+
+    public DurableOutbox(OutboxLog log, long initialBackoffMs, long maxBackoffMs) {
+        this.log = log;
+        this.initialBackoffMs = initialBackoffMs > 0 ? initialBackoffMs : DEFAULT_INITIAL_BACKOFF_MS;
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+        this.dispatcher = Executors.newScheduledThreadPool(DISPATCHER_THREADS, r -> {
+            Thread thread = new Thread(r, "govstack-outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleWithFixedDelay(this::compact, COMPACTION_INTERVAL_SECONDS,
+            COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Get the process-wide outbox for a directory, opening and recovering it on first use
+     *
+     * @param directory Directory holding the outbox segments
+     * @return The shared outbox
+     * @throws IOException if the outbox cannot be opened
+     */
+    public static DurableOutbox open(File directory) throws IOException {
+        String key = directory.getAbsolutePath();
+        DurableOutbox outbox = SHARED.get(key);
+        if (outbox != null) {
+            return outbox;
+        }
+        synchronized (SHARED) {
+            outbox = SHARED.get(key);
+            if (outbox == null) {
+                outbox = new DurableOutbox(OutboxLog.open(directory, OutboxLog.DEFAULT_SEGMENT_BYTES),
+                    DEFAULT_INITIAL_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS);
+                SHARED.put(key, outbox);
+            }
+            return outbox;
+        }
+    }
+
+    /**
+     * Stop all shared outboxes; undelivered entries stay on disk for the next start
+     */
+    public static void shutdownAll() {
+        synchronized (SHARED) {
+            for (DurableOutbox outbox : SHARED.values()) {
+                outbox.shutdown();
+            }
+            SHARED.clear();
+        }
+    }
+
+    /**
+     * Build the destination key for an endpoint
+     */
+    public static String destinationKey(String apiEndpoint, String apiId) {
+        return apiEndpoint + "|" + (apiId != null ? apiId : "");
+    }
+
+    /**
+     * Register (or refresh) the client and retry policy for a destination
+     *
+     * Entries for this destination that are waiting, e.g. recovered after a restart, are scheduled.
+     */
+    public void registerDestination(String destination, GovStackApiClient client, boolean retryOnFailure, int maxRetries) {
+        Destination previous = destinations.put(destination, new Destination(client, retryOnFailure, Math.max(0, maxRetries)));
+        if (previous == null) {
+            int waiting = 0;
+            for (OutboxEntry entry : log.getLiveEntries()) {
+                if (destination.equals(entry.getDestination())) {
+                    scheduleAttempt(entry, 0);
+                    waiting++;
+                }
+            }
+            if (waiting > 0) {
+                LogUtil.info(CLASS_NAME, "Resuming delivery of " + waiting + " outbox entr" +
+                    (waiting == 1 ? "y" : "ies") + " for " + destination);
+            }
+        }
+    }
+
+    public void setCompletionListener(CompletionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Durably record a payload before it is sent
+     *
+     * @param destination Destination key, see {@link #destinationKey}
+     * @param recordId The record ID
+     * @param processId Workflow process to update on completion, or null
+     * @param payload The JSON to send
+     * @return The outbox entry, on disk when this returns
+     * @throws IOException if the payload could not be made durable
+     */
+    public OutboxEntry append(String destination, String recordId, String processId, String payload) throws IOException {
+        return append(destination, recordId, processId, payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Durably record an encoded payload before it is sent
+     *
+     * @param payload The JSON to send, UTF-8 encoded
+     * @see #append(String, String, String, String)
+     */
+    public OutboxEntry append(String destination, String recordId, String processId, byte[] payload) throws IOException {
+        return log.append(destination, recordId, processId, payload);
+    }
+
+    /**
+     * Attempt delivery of an entry now
+     *
+     * On success the entry is acknowledged; on a retryable failure a retry is scheduled unless
+     * retries are exhausted, in which case the entry is acknowledged as given up. The completion
+     * listener is called for both final outcomes.
+     *
+     * @return The API response of this attempt
+     */
+    public GovStackApiClient.ApiResponse deliver(OutboxEntry entry) {
+        if (!entry.tryStartDelivery()) {
+            return failure(entry.isCompleted() ? "Entry already completed" : "Delivery already in progress");
+        }
+
+        long retryDelay = -1;
+        try {
+            Destination destination = destinations.get(entry.getDestination());
+            if (destination == null) {
+                // Picked up again by registerDestination
+                return failure("Destination not registered: " + entry.getDestination());
+            }
+
+            GovStackApiClient.ApiResponse response;
+            try {
+                response = destination.client.attemptToGovStack(log.readPayload(entry));
+            } catch (IOException e) {
+                LogUtil.error(CLASS_NAME, e, "Cannot read outbox payload for record " + entry.getRecordId());
+                response = failure("Cannot read outbox payload: " + e.getMessage());
+            }
+
+            if (response.isSuccess()) {
+                complete(entry, response);
+                return response;
+            }
+
+            int attempts = entry.recordFailedAttempt();
+            if (destination.retryOnFailure && attempts <= destination.maxRetries && isRetryable(response)) {
+                long delay = backoff(attempts);
+                LogUtil.warn(CLASS_NAME, "Delivery of record " + entry.getRecordId() + " failed (attempt " + attempts +
+                    "), retrying in " + delay + "ms: " + response.getMessage());
+                retryDelay = delay;
+                SubmissionMetrics.shared().recordRetry();
+            } else {
+                LogUtil.error(CLASS_NAME, null, "Giving up on record " + entry.getRecordId() + " after " + attempts +
+                    " attempt(s): " + response.getMessage());
+                complete(entry, response);
+            }
+            return response;
+
+        } finally {
+            entry.finishDelivery();
+            // Scheduled only once the entry is released, so a short backoff cannot find it still in flight
+            if (retryDelay >= 0) {
+                scheduleAttempt(entry, retryDelay);
+            }
+        }
+    }
+
+    private void complete(OutboxEntry entry, GovStackApiClient.ApiResponse response) {
+        // Counted once per record, however many attempts it took
+        SubmissionMetrics.shared().recordOutcome(response.isSuccess(), 1);
+
+        try {
+            log.ack(entry);
+        } catch (IOException e) {
+            // Not fatal: the entry is simply delivered again after a restart
+            LogUtil.error(CLASS_NAME, e, "Could not acknowledge outbox entry for record " + entry.getRecordId());
+        }
+
+        CompletionListener current = listener;
+        if (current != null) {
+            try {
+                current.onComplete(entry, response);
+            } catch (Exception e) {
+                LogUtil.error(CLASS_NAME, e, "Error in outbox completion listener for record " + entry.getRecordId());
+            }
+        }
+    }
+
+    private void scheduleAttempt(OutboxEntry entry, long delayMs) {
+        try {
+            // Retries keep the log scope of the submission that appended the entry
+            dispatcher.schedule(SubmissionLog.propagate(() -> {
+                deliver(entry);
+            }), delayMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Shutting down; the entry stays on disk
+            LogUtil.debug(CLASS_NAME, "Outbox dispatcher unavailable for record " + entry.getRecordId());
+        }
+    }
+
+    /**
+     * Exponential backoff with +/-20% jitter so failed records do not retry in lockstep
+     */
+    long backoff(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, maxBackoffMs);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (delay * jitter);
+    }
+
+    /**
+     * Client errors (4xx other than timeout/throttling) will fail the same way again
+     */
+    private static boolean isRetryable(GovStackApiClient.ApiResponse response) {
+        int status = response.getStatusCode();
+        return status <= 0 || status >= 500 || status == 408 || status == 429;
+    }
+
+    private void compact() {
+        try {
+            log.compact(RELOCATE_BELOW_LIVE_RATIO);
+        } catch (Exception e) {
+            LogUtil.error(CLASS_NAME, e, "Outbox compaction failed");
+        }
+    }
+
+    private static GovStackApiClient.ApiResponse failure(String message) {
+        GovStackApiClient.ApiResponse response = new GovStackApiClient.ApiResponse();
+        response.setSuccess(false);
+        response.setStatusCode(-1);
+        response.setMessage(message);
+        return response;
+    }
+
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        try {
+            log.close();
+        } catch (IOException e) {
+            LogUtil.error(CLASS_NAME, e, "Error closing outbox");
+        }
+    }
+
+    public int getPendingCount() {
+        return log.getLiveCount();
+    }
+
+    /**
+     * A registered destination's client and retry policy
+     */
+    private static final class Destination {
+        final GovStackApiClient client;
+        final boolean retryOnFailure;
+        final int maxRetries;
+
+        Destination(GovStackApiClient client, boolean retryOnFailure, int maxRetries) {
+            this.client = client;
+            this.retryOnFailure = retryOnFailure;
+            this.maxRetries = maxRetries;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package global.govstack.registration.sender.service.outbox;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A payload recorded in the outbox, waiting for delivery
+ *
+ * The payload itself stays on disk; the entry only remembers where it is. Location fields are
+ * owned by {@link OutboxLog} and change when compaction moves the entry to a newer segment.
+ */
+public class OutboxEntry {
+
+    private final long seq;
+    private final String destination;
+    private final String recordId;
+    private final String processId;
+    private final long createdAt;
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+    private volatile boolean completed;
+
+    // Location on disk, guarded by the owning OutboxLog
+    long segmentId;
+    long payloadPosition;
+    int payloadLength;
+
+    OutboxEntry(long seq, String destination, String recordId, String processId, long createdAt) {
+        this.seq = seq;
+        this.destination = destination;
+        this.recordId = recordId;
+        this.processId = processId;
+        this.createdAt = createdAt;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Key of the registered destination (endpoint and API ID) this payload is sent to
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getRecordId() {
+        return recordId;
+    }
+
+    /**
+     * Workflow process to update once delivery completes, or empty if none
+     */
+    public String getProcessId() {
+        return processId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Number of failed delivery attempts since the entry was written or recovered
+     */
+    public int getAttempts() {
+        return attempts.get();
+    }
+
+    /**
+     * Whether the entry has been acknowledged (delivered or given up on)
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    int recordFailedAttempt() {
+        return attempts.incrementAndGet();
+    }
+
+    boolean tryStartDelivery() {
+        return !completed && inFlight.compareAndSet(false, true);
+    }
+
+    void finishDelivery() {
+        inFlight.set(false);
+    }
+
+    void markCompleted() {
+        completed = true;
+    }
+}
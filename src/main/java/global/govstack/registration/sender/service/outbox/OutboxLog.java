@@ -0,0 +1,519 @@
+package global.govstack.registration.sender.service.outbox;
+
+import org.joget.commons.util.LogUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented append-only log backing the outbox
+ *
+ * Each segment file holds a sequence of frames: [int length][int crc32][body]. A body is either
+ * an APPEND (sequence number, routing fields and payload) or an ACK (sequence number). An entry
+ * is live from its APPEND until its ACK. On open, all segments are replayed to rebuild the live
+ * set; a torn or corrupt tail (crash mid-write) is truncated.
+ *
+ * Durability uses group commit: {@link #append} returns only once its frame is on disk, but
+ * concurrent appenders share one fsync. Whichever thread finds no sync in progress forces the
+ * file for everything written so far while the others wait. ACKs are not forced individually;
+ * losing one in a crash only means the payload is delivered again (at-least-once).
+ *
+ * Segments are reclaimed oldest first: a segment with no live entries is deleted, and a
+ * mostly-acknowledged one has its few live entries copied to the active segment first. Only
+ * deleting from the oldest end keeps every ACK on disk for as long as its APPEND is.
+ */
+public class OutboxLog implements Closeable {
+
+    private static final String CLASS_NAME = OutboxLog.class.getName();
+
+    public static final long DEFAULT_SEGMENT_BYTES = 16L * 1024 * 1024;
+
+    static final byte TYPE_APPEND = 1;
+    static final byte TYPE_ACK = 2;
+
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+    private final File directory;
+    private final long maxSegmentBytes;
+
+    // Guarded by this
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private long nextSeq = 1;
+    private volatile Segment active;
+
+    private final ConcurrentSkipListMap<Long, OutboxEntry> live = new ConcurrentSkipListMap<>();
+
+    // Group commit state; writtenBytes counts every byte ever written through this instance
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final Object syncMonitor = new Object();
+    private long durableBytes;
+    private boolean syncing;
+
+    private OutboxLog(File directory, long maxSegmentBytes) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes > 0 ? maxSegmentBytes : DEFAULT_SEGMENT_BYTES;
+    }
+
+    /**
+     * Open (or create) the log in a directory and recover its live entries
+     *
+     * @param directory Directory holding the segment files
+     * @param maxSegmentBytes Size at which a new segment is started
+     * @return The opened log
+     * @throws IOException if the directory or segments cannot be read
+     */
+    public static OutboxLog open(File directory, long maxSegmentBytes) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create outbox directory: " + directory);
+        }
+        OutboxLog log = new OutboxLog(directory, maxSegmentBytes);
+        log.recover();
+        return log;
+    }
+
+    /**
+     * Durably record a payload
+     *
+     * @return The live entry, once its frame has been forced to disk
+     * @throws IOException if the write or fsync fails
+     */
+    public OutboxEntry append(String destination, String recordId, String processId, byte[] payload) throws IOException {
+        OutboxEntry entry;
+        long writtenUpTo;
+        synchronized (this) {
+            entry = new OutboxEntry(nextSeq++, destination, nullToEmpty(recordId), nullToEmpty(processId),
+                System.currentTimeMillis());
+            writtenUpTo = writeAppend(entry, payload);
+            live.put(entry.getSeq(), entry);
+        }
+        awaitDurable(writtenUpTo);
+        return entry;
+    }
+
+    /**
+     * Mark an entry as done; it will not be recovered again once this ACK reaches disk
+     */
+    public void ack(OutboxEntry entry) throws IOException {
+        synchronized (this) {
+            if (live.remove(entry.getSeq()) == null) {
+                return;
+            }
+            entry.markCompleted();
+            Segment segment = segments.get(entry.segmentId);
+            if (segment != null) {
+                segment.liveCount--;
+            }
+            ByteBuffer body = ByteBuffer.allocate(9);
+            body.put(TYPE_ACK).putLong(entry.getSeq()).flip();
+            writeFrame(body.array());
+        }
+    }
+
+    /**
+     * Read an entry's payload back from its segment
+     */
+    public synchronized byte[] readPayload(OutboxEntry entry) throws IOException {
+        Segment segment = segments.get(entry.segmentId);
+        if (segment == null) {
+            throw new IOException("Segment " + entry.segmentId + " for outbox entry " + entry.getSeq() + " is gone");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(entry.payloadLength);
+        long position = entry.payloadPosition;
+        while (buffer.hasRemaining()) {
+            int read = segment.channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment " + segment.file.getName());
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Force everything written so far to disk
+     */
+    public void sync() throws IOException {
+        awaitDurable(writtenBytes.get());
+    }
+
+    /**
+     * Reclaim disk space from the oldest segments
+     *
+     * @param relocateBelowLiveRatio Live entries of a segment are copied forward (and the segment
+     *                               deleted) when fewer than this fraction of its entries are live
+     * @return Number of segments deleted
+     */
+    public synchronized int compact(double relocateBelowLiveRatio) throws IOException {
+        int deleted = 0;
+        List<Long> ids = new ArrayList<>(segments.keySet());
+        for (Long id : ids) {
+            Segment segment = segments.get(id);
+            if (segment == active) {
+                break;
+            }
+            if (segment.liveCount > 0) {
+                if (segment.appendCount == 0 || (double) segment.liveCount / segment.appendCount >= relocateBelowLiveRatio) {
+                    break;
+                }
+                relocate(segment);
+            }
+            segments.remove(id);
+            segment.close();
+            if (!segment.file.delete()) {
+                LogUtil.warn(CLASS_NAME, "Could not delete outbox segment " + segment.file);
+            }
+            deleted++;
+        }
+        if (deleted > 0) {
+            LogUtil.debug(CLASS_NAME, "Outbox compaction removed " + deleted + " segment(s)");
+        }
+        return deleted;
+    }
+
+    /**
+     * Live (unacknowledged) entries in sequence order
+     */
+    public Collection<OutboxEntry> getLiveEntries() {
+        return Collections.unmodifiableCollection(live.values());
+    }
+
+    public int getLiveCount() {
+        return live.size();
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.channel.force(false);
+        }
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+        active = null;
+    }
+
+    /**
+     * Copy the live entries of a segment into the active one, durably, before it is deleted
+     */
+    private void relocate(Segment segment) throws IOException {
+        for (OutboxEntry entry : live.values()) {
+            if (entry.segmentId == segment.id) {
+                byte[] payload = readPayload(entry);
+                writeAppend(entry, payload);
+                segment.liveCount--;
+            }
+        }
+        active.channel.force(false);
+    }
+
+    /**
+     * Write an APPEND frame for an entry and point the entry at it
+     *
+     * @return Total bytes written through this log after the frame
+     */
+    private long writeAppend(OutboxEntry entry, byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(TYPE_APPEND);
+        out.writeLong(entry.getSeq());
+        out.writeLong(entry.getCreatedAt());
+        out.writeUTF(entry.getDestination());
+        out.writeUTF(entry.getRecordId());
+        out.writeUTF(entry.getProcessId());
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+        byte[] body = bytes.toByteArray();
+
+        long frameStart = prepareSegmentFor(body.length);
+        long total = writeFrame(body);
+
+        entry.segmentId = active.id;
+        entry.payloadPosition = frameStart + FRAME_HEADER_BYTES + (body.length - payload.length);
+        entry.payloadLength = payload.length;
+        active.liveCount++;
+        active.appendCount++;
+        return total;
+    }
+
+    /**
+     * Roll to a new segment if the frame would overflow the active one
+     *
+     * @return Position in the active segment where the frame will start
+     */
+    private long prepareSegmentFor(int bodyLength) throws IOException {
+        long frameLength = FRAME_HEADER_BYTES + (long) bodyLength;
+        if (active == null || (active.size > 0 && active.size + frameLength > maxSegmentBytes)) {
+            Segment previous = active;
+            if (previous != null) {
+                // Everything in the old segment becomes durable here, so group commit only ever
+                // needs to force the active segment
+                previous.channel.force(false);
+            }
+            long id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+            active = Segment.open(new File(directory, segmentName(id)), id);
+            segments.put(id, active);
+        }
+        return active.size;
+    }
+
+    private long writeFrame(byte[] body) throws IOException {
+        if (active == null || active.size + FRAME_HEADER_BYTES + body.length > maxSegmentBytes) {
+            prepareSegmentFor(body.length);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + body.length);
+        frame.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+
+        long position = active.size;
+        while (frame.hasRemaining()) {
+            position += active.channel.write(frame, position);
+        }
+        active.size = position;
+        return writtenBytes.addAndGet(FRAME_HEADER_BYTES + body.length);
+    }
+
+    /**
+     * Block until at least the given number of written bytes are on disk, sharing fsyncs
+     */
+    private void awaitDurable(long writtenUpTo) throws IOException {
+        while (true) {
+            synchronized (syncMonitor) {
+                while (syncing && durableBytes < writtenUpTo) {
+                    try {
+                        syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for outbox fsync");
+                    }
+                }
+                if (durableBytes >= writtenUpTo) {
+                    return;
+                }
+                syncing = true;
+            }
+
+            // Leader: read the target before the segment, so every byte counted is either in this
+            // segment or in an older one that was forced when it was rolled
+            long target = writtenBytes.get();
+            boolean synced = false;
+            try {
+                Segment segment = active;
+                if (segment != null) {
+                    segment.channel.force(false);
+                }
+                synced = true;
+            } finally {
+                synchronized (syncMonitor) {
+                    syncing = false;
+                    if (synced) {
+                        durableBytes = Math.max(durableBytes, target);
+                    }
+                    syncMonitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Replay all segments to rebuild the live entries
+     */
+    private synchronized void recover() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                Long id = segmentId(file.getName());
+                if (id != null) {
+                    segments.put(id, Segment.open(file, id));
+                }
+            }
+        }
+
+        long maxSeq = 0;
+        int truncated = 0;
+        for (Segment segment : segments.values()) {
+            long position = 0;
+            long size = segment.channel.size();
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+
+            while (position + FRAME_HEADER_BYTES <= size) {
+                header.clear();
+                readFully(segment.channel, header, position);
+                header.flip();
+                int length = header.getInt();
+                int expectedCrc = header.getInt();
+                if (length <= 0 || length > MAX_FRAME_BYTES || position + FRAME_HEADER_BYTES + length > size) {
+                    break;
+                }
+
+                ByteBuffer body = ByteBuffer.allocate(length);
+                readFully(segment.channel, body, position + FRAME_HEADER_BYTES);
+                CRC32 crc = new CRC32();
+                crc.update(body.array(), 0, length);
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+
+                maxSeq = Math.max(maxSeq, replay(segment, body.array(), position + FRAME_HEADER_BYTES));
+                position += FRAME_HEADER_BYTES + length;
+            }
+
+            if (position < size) {
+                // Torn write from a crash, or corruption: nothing after it can be trusted
+                segment.channel.truncate(position);
+                truncated++;
+            }
+            segment.size = position;
+        }
+
+        nextSeq = maxSeq + 1;
+        if (!segments.isEmpty()) {
+            active = segments.lastEntry().getValue();
+        }
+
+        LogUtil.info(CLASS_NAME, "Opened outbox at " + directory + ": " + segments.size() + " segment(s), " +
+            live.size() + " undelivered entr" + (live.size() == 1 ? "y" : "ies") +
+            (truncated > 0 ? ", truncated " + truncated + " torn segment tail(s)" : ""));
+    }
+
+    /**
+     * Apply one frame body during recovery
+     *
+     * @return The sequence number it refers to
+     */
+    private long replay(Segment segment, byte[] body, long bodyPosition) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        byte type = buffer.get();
+        long seq = buffer.getLong();
+
+        if (type == TYPE_ACK) {
+            OutboxEntry entry = live.remove(seq);
+            if (entry != null) {
+                Segment owner = segments.get(entry.segmentId);
+                if (owner != null) {
+                    owner.liveCount--;
+                }
+            }
+            return seq;
+        }
+        if (type != TYPE_APPEND) {
+            throw new IOException("Unknown outbox frame type " + type + " in " + segment.file.getName());
+        }
+
+        long createdAt = buffer.getLong();
+        String destination = readUtf(buffer);
+        String recordId = readUtf(buffer);
+        String processId = readUtf(buffer);
+        int payloadLength = buffer.getInt();
+
+        OutboxEntry entry = new OutboxEntry(seq, destination, recordId, processId, createdAt);
+        entry.segmentId = segment.id;
+        entry.payloadPosition = bodyPosition + buffer.position();
+        entry.payloadLength = payloadLength;
+
+        // A relocated entry can appear twice if compaction was interrupted; the newest copy wins
+        OutboxEntry previous = live.put(seq, entry);
+        if (previous != null) {
+            Segment owner = segments.get(previous.segmentId);
+            if (owner != null) {
+                owner.liveCount--;
+            }
+        }
+        segment.liveCount++;
+        segment.appendCount++;
+        return seq;
+    }
+
+    private static String readUtf(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of outbox segment");
+            }
+            position += read;
+        }
+    }
+
+    private static String segmentName(long id) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX);
+    }
+
+    private static Long segmentId(String name) {
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * One segment file and its bookkeeping, guarded by the owning log
+     */
+    private static final class Segment {
+        final long id;
+        final File file;
+        final FileChannel channel;
+        long size;
+        int liveCount;
+        int appendCount;
+
+        private Segment(long id, File file, FileChannel channel) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+        }
+
+        static Segment open(File file, long id) throws IOException {
+            FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(id, file, channel);
+            segment.size = channel.size();
+            return segment;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package global.govstack.registration.sender.service.stream;
+
+import global.govstack.registration.sender.exception.RegistrationException;
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.metadata.GenericFormDataExtractor;
+import global.govstack.registration.sender.util.SubmissionLog;
+import org.joget.commons.util.LogUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams records from the database to the Processing API with a bounded number in flight
+ *
+ * Stages: {@link GenericFormDataExtractor#extractAll} reads records chunk by chunk and assembles
+ * them on the calling thread; each record is handed over a bounded queue to a worker, which
+ * encodes it straight into a reusable request body buffer and sends it. When the workers fall
+ * behind, the queue fills and extraction blocks until a record has been sent, so at most one
+ * extraction chunk plus {@code maxInFlight + workers} assembled records are held at any time,
+ * however many records the run covers. A record's data is released as soon as it is sent.
+ *
+ * A pipeline is built per run; its worker threads end when the run completes.
+ */
+public class StreamingSubmissionPipeline {
+
+    private static final String CLASS_NAME = StreamingSubmissionPipeline.class.getName();
+
+    public static final int DEFAULT_WORKERS = 4;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 32;
+
+    // Failure messages kept for the run summary; the rest are only counted and logged
+    private static final int MAX_REPORTED_FAILURES = 20;
+
+    // Body buffers that grew past this are dropped instead of being kept for the next record
+    private static final int MAX_RETAINED_BUFFER_BYTES = 1024 * 1024;
+
+    private static final Item END = new Item(null, null);
+
+    /**
+     * Writes one record's request body
+     */
+    public interface RecordEncoder {
+        /**
+         * @param recordId The record ID
+         * @param formData The record's extracted form data
+         * @param body Destination of the request body
+         * @throws RegistrationException if the record cannot be encoded or fails validation
+         */
+        void encode(String recordId, Map<String, Object> formData, OutputStream body)
+            throws RegistrationException, IOException;
+    }
+
+    /**
+     * Receives the outcome of each record, on a worker thread
+     */
+    public interface ResultListener {
+        void onResult(String recordId, GovStackApiClient.ApiResponse response);
+    }
+
+    private final GenericFormDataExtractor extractor;
+    private final RecordEncoder encoder;
+    private final GovStackApiClient apiClient;
+    private final int workerCount;
+    private final int maxInFlight;
+
+    public StreamingSubmissionPipeline(GenericFormDataExtractor extractor, RecordEncoder encoder,
+                                       GovStackApiClient apiClient, int workerCount, int maxInFlight) {
+        this.extractor = extractor;
+        this.encoder = encoder;
+        this.apiClient = apiClient;
+        this.workerCount = workerCount > 0 ? workerCount : DEFAULT_WORKERS;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : DEFAULT_MAX_IN_FLIGHT;
+    }
+
+    /**
+     * Extract, encode and send the given records, returning once every record has an outcome
+     *
+     * @param recordIds The record IDs, in submission order; duplicates are sent once
+     * @param chunkSize Maximum records per extraction query
+     * @param listener Receives each record's outcome, or null
+     * @return Counts and the first failures of the run
+     */
+    public Result run(Collection<String> recordIds, int chunkSize, ResultListener listener) {
+        Set<String> ids = new LinkedHashSet<>(recordIds);
+        Run run = new Run(listener);
+        List<Thread> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(SubmissionLog.propagate(run::drain), "govstack-stream-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        LogUtil.info(CLASS_NAME, "Streaming " + ids.size() + " record(s) (workers=" + workerCount +
+            ", maxInFlight=" + maxInFlight + ", chunkSize=" + chunkSize + ")");
+
+        boolean interrupted = false;
+        try {
+            extractor.extractAll(ids, chunkSize, run::offer);
+        } catch (Aborted e) {
+            interrupted = true;
+        } catch (RuntimeException e) {
+            LogUtil.error(CLASS_NAME, e, "Extraction failed, " + run.queued.get() + " record(s) were queued");
+            run.failure(null, "extraction failed: " + e.getMessage());
+        }
+
+        if (!interrupted) {
+            try {
+                for (int i = 0; i < workerCount; i++) {
+                    run.queue.put(END);
+                }
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            // Queued records are dropped; a record already being sent still completes
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            run.failure(null, "interrupted after " + run.queued.get() + " of " + ids.size() + " record(s)");
+        }
+
+        Result result = new Result(ids.size(), run.queued.get(), run.succeeded.get(), run.failed.get(),
+            run.failures, !interrupted);
+        LogUtil.info(CLASS_NAME, "Streaming finished: " + result.getSucceeded() + " sent, " +
+            result.getFailed() + " failed of " + result.getTotal() + " record(s)");
+        return result;
+    }
+
+    /**
+     * State shared by the extraction thread and the workers of one run
+     */
+    private final class Run {
+        final BlockingQueue<Item> queue = new ArrayBlockingQueue<>(maxInFlight);
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        final ResultListener listener;
+
+        Run(ResultListener listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * Hand an assembled record to the workers, waiting while the queue is full
+         */
+        void offer(String recordId, Map<String, Object> formData) {
+            try {
+                queue.put(new Item(recordId, formData));
+                queued.incrementAndGet();
+            } catch (InterruptedException e) {
+                throw new Aborted();
+            }
+        }
+
+        void drain() {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+            while (true) {
+                Item item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (item == END) {
+                    return;
+                }
+                process(item, body);
+                if (body.size() > MAX_RETAINED_BUFFER_BYTES) {
+                    body = new ByteArrayOutputStream(8192);
+                }
+            }
+        }
+
+        private void process(Item item, ByteArrayOutputStream body) {
+            GovStackApiClient.ApiResponse response;
+            try {
+                body.reset();
+                encoder.encode(item.recordId, item.formData, body);
+                response = apiClient.sendToGovStack(body.toByteArray());
+            } catch (RegistrationException e) {
+                LogUtil.error(CLASS_NAME, null, "Record " + item.recordId + " not sent: " + e.getMessage());
+                response = error(e.getMessage());
+            } catch (Exception e) {
+                LogUtil.error(CLASS_NAME, e, "Error streaming record " + item.recordId);
+                response = error("Error streaming record: " + e.getMessage());
+            }
+
+            if (response.isSuccess()) {
+                succeeded.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                failure(item.recordId, response.getMessage());
+            }
+
+            if (listener != null) {
+                try {
+                    listener.onResult(item.recordId, response);
+                } catch (Exception e) {
+                    LogUtil.error(CLASS_NAME, e, "Error in result listener for record " + item.recordId);
+                }
+            }
+        }
+
+        void failure(String recordId, String message) {
+            synchronized (failures) {
+                if (failures.size() < MAX_REPORTED_FAILURES) {
+                    failures.add(recordId != null ? recordId + ": " + message : message);
+                }
+            }
+        }
+    }
+
+    private static GovStackApiClient.ApiResponse error(String message) {
+        GovStackApiClient.ApiResponse response = new GovStackApiClient.ApiResponse();
+        response.setSuccess(false);
+        response.setStatusCode(-1);
+        response.setMessage(message);
+        return response;
+    }
+
+    /**
+     * An assembled record waiting to be encoded and sent
+     */
+    private static final class Item {
+        final String recordId;
+        final Map<String, Object> formData;
+
+        Item(String recordId, Map<String, Object> formData) {
+            this.recordId = recordId;
+            this.formData = formData;
+        }
+    }
+
+    /**
+     * Stops extraction when the calling thread is interrupted
+     */
+    private static final class Aborted extends RuntimeException {
+        Aborted() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Outcome of a streaming run
+     */
+    public static class Result {
+        private final int total;
+        private final int queued;
+        private final int succeeded;
+        private final int failed;
+        private final List<String> failures;
+        private final boolean complete;
+
+        Result(int total, int queued, int succeeded, int failed, List<String> failures, boolean complete) {
+            this.total = total;
+            this.queued = queued;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.failures = new ArrayList<>(failures);
+            this.complete = complete;
+        }
+
+        /**
+         * Number of records requested
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * Number of records extracted and handed to the workers
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * The first failure messages of the run, as "recordId: message"
+         */
+        public List<String> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Whether every requested record was sent successfully
+         */
+        public boolean isSuccess() {
+            return complete && failures.isEmpty() && succeeded == total;
+        }
+    }
+}
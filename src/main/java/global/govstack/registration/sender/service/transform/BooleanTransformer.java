@@ -2,6 +2,12 @@ package global.govstack.registration.sender.service.transform;
 
 import org.joget.commons.util.LogUtil;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
 /**
  * Transformer for boolean values between Joget and GovStack formats
  *
@@ -12,6 +18,9 @@ public class BooleanTransformer implements DataTransformer {
 
     private static final String CLASS_NAME = BooleanTransformer.class.getName();
 
+    private static final Set<String> SUPPORTED_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "yesnoboolean", "boolean", "bool")));
+
     @Override
     public Object encode(Object jogetValue, String transformType) {
         if (jogetValue == null) {
@@ -77,9 +86,11 @@ public class BooleanTransformer implements DataTransformer {
 
     @Override
     public boolean supports(String transformType) {
-        return "yesNoBoolean".equalsIgnoreCase(transformType) ||
-               "yesnoboolean".equalsIgnoreCase(transformType) ||
-               "boolean".equalsIgnoreCase(transformType) ||
-               "bool".equalsIgnoreCase(transformType);
+        return transformType != null && SUPPORTED_TYPES.contains(transformType.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public Set<String> getSupportedTypes() {
+        return SUPPORTED_TYPES;
     }
 }
\ No newline at end of file
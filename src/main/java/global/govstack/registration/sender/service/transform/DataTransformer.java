@@ -1,5 +1,8 @@
 package global.govstack.registration.sender.service.transform;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * Bidirectional data transformer interface for converting between Joget and GovStack formats
  *
@@ -35,4 +38,17 @@ public interface DataTransformer {
      * @return true if this transformer can handle the type
      */
     boolean supports(String transformType);
+
+    /**
+     * The transformation types this transformer handles, in lower case
+     *
+     * TransformationService indexes these when the transformer is registered, so they are
+     * resolved without calling {@link #supports}. Transformers returning an empty set are
+     * still found through supports(), once per transformation type.
+     *
+     * @return The supported types, or an empty set if they are not known up front
+     */
+    default Set<String> getSupportedTypes() {
+        return Collections.emptySet();
+    }
 }
\ No newline at end of file
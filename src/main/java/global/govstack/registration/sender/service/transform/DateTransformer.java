@@ -1,100 +1,278 @@
 package global.govstack.registration.sender.service.transform;
 
 import org.joget.commons.util.LogUtil;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.Date;
+import java.time.format.ResolverStyle;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Transformer for date values between Joget and GovStack formats
  *
  * Joget format: yyyy-MM-dd
  * GovStack format: ISO8601 (yyyy-MM-dd'T'HH:mm:ss'Z')
+ *
+ * The common shapes (yyyy-MM-dd, and yyyy-MM-ddTHH:mm[:ss[.fraction]] with or without a zone)
+ * are checked and converted character by character, without regular expressions or Date
+ * objects. Anything else goes through java.time formatters. Recently encoded dates are kept in
+ * a small cache, since the same dates (birth dates in particular) recur across records.
+ *
+ * Instances are thread-safe.
  */
 public class DateTransformer implements DataTransformer {
 
     private static final String CLASS_NAME = DateTransformer.class.getName();
 
-    // Date format patterns
-    private static final String JOGET_DATE_FORMAT = "yyyy-MM-dd";
-    private static final String ISO8601_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+    private static final Set<String> SUPPORTED_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "date_iso8601", "date", "dateiso8601")));
+
+    // Time of day appended to Joget dates
+    private static final String MIDNIGHT_UTC = "T00:00:00Z";
+
+    // Recently encoded dates; a power of two
+    private static final int CACHE_SIZE = 256;
 
     // Formatters
-    private static final SimpleDateFormat jogetFormatter = new SimpleDateFormat(JOGET_DATE_FORMAT);
-    private static final SimpleDateFormat iso8601Formatter = new SimpleDateFormat(ISO8601_FORMAT);
     private static final DateTimeFormatter localDateFormatter = DateTimeFormatter.ISO_LOCAL_DATE;
     private static final DateTimeFormatter isoDateTimeFormatter = DateTimeFormatter.ISO_DATE_TIME;
+    // Lenient, as Joget dates were parsed before (e.g. 2023-2-5, or month 13 rolling into the next year)
+    private static final DateTimeFormatter lenientJogetFormatter = DateTimeFormatter.ofPattern("y-M-d", Locale.ROOT)
+        .withResolverStyle(ResolverStyle.LENIENT);
+    private static final DateTimeFormatter iso8601Formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.ROOT);
+
+    // Slots are replaced whole, so a racing reader sees either the old or the new entry
+    private final CachedDate[] encodeCache = new CachedDate[CACHE_SIZE];
 
     @Override
     public Object encode(Object jogetValue, String transformType) {
-        if (jogetValue == null || jogetValue.toString().trim().isEmpty()) {
+        if (jogetValue == null) {
             return null;
         }
-
         String dateStr = jogetValue.toString().trim();
+        if (dateStr.isEmpty()) {
+            return null;
+        }
 
-        try {
-            // Handle different input formats
-            if (dateStr.contains("T")) {
-                // Already in ISO format, return as is
+        // Already in ISO format, return as is
+        if (dateStr.indexOf('T') >= 0) {
+            return dateStr;
+        }
+
+        int slot = dateStr.hashCode() & (CACHE_SIZE - 1);
+        CachedDate cached = encodeCache[slot];
+        if (cached != null && cached.input.equals(dateStr)) {
+            return cached.output;
+        }
+
+        String encoded;
+        if (isDateShape(dateStr, 0, dateStr.length())) {
+            // Convert yyyy-MM-dd to ISO8601
+            if (!isValidDate(dateStr, 0)) {
+                LogUtil.warn(CLASS_NAME, "Failed to encode date: " + dateStr + " - not a valid calendar date");
+                return dateStr;
+            }
+            encoded = dateStr.concat(MIDNIGHT_UTC);
+        } else {
+            // Try to parse as Joget format and convert to ISO8601
+            try {
+                ParsePosition position = new ParsePosition(0);
+                TemporalAccessor parsed = lenientJogetFormatter.parse(dateStr, position);
+                encoded = LocalDate.from(parsed).atStartOfDay().format(iso8601Formatter);
+            } catch (DateTimeException e) {
+                LogUtil.warn(CLASS_NAME, "Failed to encode date: " + dateStr + " - " + e.getMessage());
+                // Return original value if parsing fails
                 return dateStr;
-            } else if (dateStr.matches("\\d{4}-\\d{2}-\\d{2}")) {
-                // Convert yyyy-MM-dd to ISO8601
-                LocalDate date = LocalDate.parse(dateStr, localDateFormatter);
-                return date.atStartOfDay().format(DateTimeFormatter.ISO_DATE_TIME) + "Z";
-            } else {
-                // Try to parse as Joget format and convert to ISO8601
-                Date date = jogetFormatter.parse(dateStr);
-                return iso8601Formatter.format(date);
             }
-        } catch (ParseException | DateTimeParseException e) {
-            LogUtil.warn(CLASS_NAME, "Failed to encode date: " + dateStr + " - " + e.getMessage());
-            // Return original value if parsing fails
-            return dateStr;
         }
+
+        encodeCache[slot] = new CachedDate(dateStr, encoded);
+        return encoded;
     }
 
     @Override
     public Object decode(Object govstackValue, String transformType) {
-        if (govstackValue == null || govstackValue.toString().trim().isEmpty()) {
+        if (govstackValue == null) {
             return null;
         }
-
         String dateStr = govstackValue.toString().trim();
+        if (dateStr.isEmpty()) {
+            return null;
+        }
 
-        try {
-            // Handle different input formats
-            if (dateStr.contains("T")) {
-                // ISO8601 format to Joget format
-                // Remove timezone info if present
-                if (dateStr.contains("+") || dateStr.contains("Z")) {
-                    dateStr = dateStr.replaceAll("[+Z].*", "");
-                }
-                LocalDateTime dateTime = LocalDateTime.parse(dateStr, isoDateTimeFormatter);
-                return dateTime.format(localDateFormatter);
-            } else if (dateStr.matches("\\d{4}-\\d{2}-\\d{2}")) {
-                // Already in Joget format
-                return dateStr;
-            } else {
-                // Try to parse and convert to Joget format
-                Date date = iso8601Formatter.parse(dateStr);
-                return jogetFormatter.format(date);
+        if (dateStr.indexOf('T') >= 0) {
+            // ISO8601 format to Joget format
+            if (isDateTimeShape(dateStr) && isValidDate(dateStr, 0)) {
+                return dateStr.substring(0, 10);
             }
-        } catch (ParseException | DateTimeParseException e) {
-            LogUtil.warn(CLASS_NAME, "Failed to decode date: " + dateStr + " - " + e.getMessage());
+            return decodeDateTime(dateStr);
+        } else if (isDateShape(dateStr, 0, dateStr.length())) {
+            // Already in Joget format
+            return dateStr;
+        } else {
+            LogUtil.warn(CLASS_NAME, "Failed to decode date: " + dateStr + " - not an ISO8601 date");
             // Return original value if parsing fails
             return dateStr;
         }
     }
 
+    /**
+     * Convert a date-time the fast path does not handle, through java.time
+     */
+    private Object decodeDateTime(String dateStr) {
+        String localStr = dateStr;
+        // Remove timezone info if present
+        int zone = indexOfZone(localStr);
+        if (zone >= 0) {
+            localStr = localStr.substring(0, zone);
+        }
+        try {
+            LocalDateTime dateTime = LocalDateTime.parse(localStr, isoDateTimeFormatter);
+            return dateTime.format(localDateFormatter);
+        } catch (DateTimeException e) {
+            LogUtil.warn(CLASS_NAME, "Failed to decode date: " + localStr + " - " + e.getMessage());
+            // Return original value if parsing fails
+            return localStr;
+        }
+    }
+
+    /**
+     * Position of the first '+' or 'Z', where the zone of a local date-time starts
+     */
+    private static int indexOfZone(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '+' || c == 'Z') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the range is exactly dddd-dd-dd
+     */
+    static boolean isDateShape(String value, int start, int end) {
+        if (end - start != 10) {
+            return false;
+        }
+        for (int i = 0; i < 10; i++) {
+            char c = value.charAt(start + i);
+            if (i == 4 || i == 7 ? c != '-' : c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the value is dddd-dd-ddTdd:dd[:dd[.d{1,9}]] with a valid time, optionally followed
+     * by a zone starting with '+' or 'Z'
+     */
+    static boolean isDateTimeShape(String value) {
+        int length = value.length();
+        if (length < 16 || !isDateShape(value, 0, 10) || value.charAt(10) != 'T') {
+            return false;
+        }
+        int hour = twoDigits(value, 11);
+        if (hour < 0 || hour > 23 || value.charAt(13) != ':') {
+            return false;
+        }
+        int minute = twoDigits(value, 14);
+        if (minute < 0 || minute > 59) {
+            return false;
+        }
+
+        int i = 16;
+        if (i < length && value.charAt(i) == ':') {
+            if (length < i + 3) {
+                return false;
+            }
+            int second = twoDigits(value, i + 1);
+            if (second < 0 || second > 59) {
+                return false;
+            }
+            i += 3;
+            if (i < length && value.charAt(i) == '.') {
+                int digits = 0;
+                for (i++; i < length && value.charAt(i) >= '0' && value.charAt(i) <= '9'; i++) {
+                    digits++;
+                }
+                if (digits == 0 || digits > 9) {
+                    return false;
+                }
+            }
+        }
+        return i == length || value.charAt(i) == 'Z' || value.charAt(i) == '+';
+    }
+
+    /**
+     * Whether the dddd-dd-dd at the offset is a real calendar date
+     */
+    static boolean isValidDate(String value, int offset) {
+        int year = twoDigits(value, offset) * 100 + twoDigits(value, offset + 2);
+        int month = twoDigits(value, offset + 5);
+        int day = twoDigits(value, offset + 8);
+        if (month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        return day <= lengthOfMonth(year, month);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * The two-digit number at the offset, or -1 if those are not digits
+     */
+    private static int twoDigits(String value, int offset) {
+        char tens = value.charAt(offset);
+        char units = value.charAt(offset + 1);
+        if (tens < '0' || tens > '9' || units < '0' || units > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+
     @Override
     public boolean supports(String transformType) {
-        return "date_ISO8601".equalsIgnoreCase(transformType) ||
-               "date".equalsIgnoreCase(transformType) ||
-               "dateISO8601".equalsIgnoreCase(transformType);
+        return transformType != null && SUPPORTED_TYPES.contains(transformType.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public Set<String> getSupportedTypes() {
+        return SUPPORTED_TYPES;
+    }
+
+    /**
+     * A date and its encoded form
+     */
+    private static final class CachedDate {
+        final String input;
+        final String output;
+
+        CachedDate(String input, String output) {
+            this.input = input;
+            this.output = output;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,13 @@
 package global.govstack.registration.sender.service.transform;
 
-import org.joget.commons.util.LogUtil;
+import global.govstack.registration.sender.util.SubmissionLog;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -16,6 +20,9 @@ public class MultiCheckboxTransformer implements DataTransformer {
 
     private static final String CLASS_NAME = MultiCheckboxTransformer.class.getName();
 
+    private static final Set<String> SUPPORTED_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "multicheckbox", "multiselect", "array", "list")));
+
     @Override
     public Object encode(Object jogetValue, String transformType) {
         if (jogetValue == null || jogetValue.toString().trim().isEmpty()) {
@@ -39,7 +46,7 @@ public class MultiCheckboxTransformer implements DataTransformer {
                 .filter(s -> !s.isEmpty())
                 .collect(Collectors.toList());
 
-        LogUtil.info(CLASS_NAME, "Encoded multi-checkbox from '" + value + "' to array with " + result.size() + " items");
+        SubmissionLog.debug(CLASS_NAME, () -> "Encoded multi-checkbox from '" + value + "' to array with " + result.size() + " items");
 
         return result;
     }
@@ -59,7 +66,7 @@ public class MultiCheckboxTransformer implements DataTransformer {
                     .map(Object::toString)
                     .collect(Collectors.joining(";"));
 
-            LogUtil.info(CLASS_NAME, "Decoded array with " + list.size() + " items to '" + result + "'");
+            SubmissionLog.debug(CLASS_NAME, () -> "Decoded array with " + list.size() + " items to '" + result + "'");
             return result;
         }
 
@@ -71,7 +78,7 @@ public class MultiCheckboxTransformer implements DataTransformer {
                     .map(Object::toString)
                     .collect(Collectors.joining(";"));
 
-            LogUtil.info(CLASS_NAME, "Decoded array to '" + result + "'");
+            SubmissionLog.debug(CLASS_NAME, () -> "Decoded array to '" + result + "'");
             return result;
         }
 
@@ -92,10 +99,11 @@ public class MultiCheckboxTransformer implements DataTransformer {
 
     @Override
     public boolean supports(String transformType) {
-        return "multiCheckbox".equalsIgnoreCase(transformType) ||
-               "multicheckbox".equalsIgnoreCase(transformType) ||
-               "multiselect".equalsIgnoreCase(transformType) ||
-               "array".equalsIgnoreCase(transformType) ||
-               "list".equalsIgnoreCase(transformType);
+        return transformType != null && SUPPORTED_TYPES.contains(transformType.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public Set<String> getSupportedTypes() {
+        return SUPPORTED_TYPES;
     }
 }
\ No newline at end of file
@@ -2,6 +2,12 @@ package global.govstack.registration.sender.service.transform;
 
 import org.joget.commons.util.LogUtil;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
 /**
  * Transformer for numeric values between Joget and GovStack formats
  *
@@ -11,6 +17,9 @@ public class NumericTransformer implements DataTransformer {
 
     private static final String CLASS_NAME = NumericTransformer.class.getName();
 
+    private static final Set<String> SUPPORTED_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "numeric", "number", "integer", "decimal", "double", "float")));
+
     @Override
     public Object encode(Object jogetValue, String transformType) {
         if (jogetValue == null || jogetValue.toString().trim().isEmpty()) {
@@ -51,11 +60,11 @@ public class NumericTransformer implements DataTransformer {
 
     @Override
     public boolean supports(String transformType) {
-        return "numeric".equalsIgnoreCase(transformType) ||
-               "number".equalsIgnoreCase(transformType) ||
-               "integer".equalsIgnoreCase(transformType) ||
-               "decimal".equalsIgnoreCase(transformType) ||
-               "double".equalsIgnoreCase(transformType) ||
-               "float".equalsIgnoreCase(transformType);
+        return transformType != null && SUPPORTED_TYPES.contains(transformType.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public Set<String> getSupportedTypes() {
+        return SUPPORTED_TYPES;
     }
 }
\ No newline at end of file
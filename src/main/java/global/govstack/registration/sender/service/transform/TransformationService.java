@@ -1,22 +1,58 @@
 package global.govstack.registration.sender.service.transform;
 
+import global.govstack.registration.sender.service.metrics.SubmissionMetrics;
+import global.govstack.registration.sender.util.SubmissionLog;
 import org.joget.commons.util.LogUtil;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service that manages all data transformers and applies transformations
  *
  * This service provides a central point for all data transformations between
  * Joget and GovStack formats, supporting both encoding and decoding
+ *
+ * Transformation types are resolved through hash maps rather than by asking every transformer:
+ * the types each transformer declares ({@link DataTransformer#getSupportedTypes()}) are indexed
+ * in lower case when it is registered, and every type string looked up is cached with its
+ * transformer, or with a negative entry if none handles it. Transformers that do not declare
+ * their types are asked through supports() on the first lookup of a type. When transformers
+ * of the same type overlap, the first registered one wins.
  */
 public class TransformationService {
 
     private static final String CLASS_NAME = TransformationService.class.getName();
 
+    // Cached negative lookup; never handed out
+    private static final DataTransformer NONE = new DataTransformer() {
+        @Override
+        public Object encode(Object jogetValue, String transformType) {
+            return jogetValue;
+        }
+
+        @Override
+        public Object decode(Object govstackValue, String transformType) {
+            return govstackValue;
+        }
+
+        @Override
+        public boolean supports(String transformType) {
+            return false;
+        }
+    };
+
     private final List<DataTransformer> transformers;
 
+    // Declared types (lower case) to transformer, rebuilt on registration
+    private Map<String, DataTransformer> typeIndex = new HashMap<>();
+
+    // Type strings as looked up to transformer or NONE; cleared on registration
+    private final Map<String, DataTransformer> resolved = new ConcurrentHashMap<>();
+
     public TransformationService() {
         this.transformers = new ArrayList<>();
         registerDefaultTransformers();
@@ -30,6 +66,7 @@ public class TransformationService {
         transformers.add(new BooleanTransformer());
         transformers.add(new NumericTransformer());
         transformers.add(new MultiCheckboxTransformer());
+        reindex();
 
         LogUtil.info(CLASS_NAME, "Registered " + transformers.size() + " default transformers");
     }
@@ -42,26 +79,92 @@ public class TransformationService {
      * @return The transformed value for GovStack
      */
     public Object encode(Object value, String transformType) {
+        DataTransformer transformer = getTransformer(transformType);
+        if (transformer != null) {
+            try {
+                Object result = transformer.encode(value, transformType);
+                SubmissionLog.debug(CLASS_NAME, () -> "Applied encoding transformation '" + transformType +
+                            "' to value: " + value + " -> " + result);
+                SubmissionLog.count("transforms");
+                return result;
+            } catch (Exception e) {
+                SubmissionMetrics.shared().recordTransformFailure();
+                LogUtil.error(CLASS_NAME, e, "Error applying encoding transformation: " + transformType);
+                return value;
+            }
+        }
+
         if (transformType == null || transformType.trim().isEmpty()) {
             return value;
         }
+        LogUtil.warn(CLASS_NAME, "No transformer found for type: " + transformType);
+        return value;
+    }
 
+    /**
+     * Find the transformer handling a transformation type
+     *
+     * @param transformType The transformation type
+     * @return The first registered transformer supporting the type, or null if there is none
+     */
+    public DataTransformer getTransformer(String transformType) {
+        if (transformType == null) {
+            return null;
+        }
+
+        DataTransformer transformer = resolved.get(transformType);
+        if (transformer == null) {
+            transformer = resolve(transformType);
+        }
+        return transformer != NONE ? transformer : null;
+    }
+
+    /**
+     * Resolve a type not looked up before, and cache the outcome
+     *
+     * @return The transformer, or NONE
+     */
+    private synchronized DataTransformer resolve(String transformType) {
+        DataTransformer transformer = findTransformer(transformType);
+        resolved.put(transformType, transformer);
+        return transformer;
+    }
+
+    /**
+     * Look a type up in the declared types, then ask the transformers that declare none,
+     * keeping registration order
+     *
+     * @return The transformer, or NONE
+     */
+    private DataTransformer findTransformer(String transformType) {
+        if (transformType.trim().isEmpty()) {
+            return NONE;
+        }
+
+        DataTransformer indexed = typeIndex.get(transformType.toLowerCase(Locale.ROOT));
         for (DataTransformer transformer : transformers) {
-            if (transformer.supports(transformType)) {
-                try {
-                    Object result = transformer.encode(value, transformType);
-                    LogUtil.info(CLASS_NAME, "Applied encoding transformation '" + transformType +
-                                "' to value: " + value + " -> " + result);
-                    return result;
-                } catch (Exception e) {
-                    LogUtil.error(CLASS_NAME, e, "Error applying encoding transformation: " + transformType);
-                    return value;
-                }
+            if (transformer == indexed) {
+                return transformer;
+            }
+            if (transformer.getSupportedTypes().isEmpty() && transformer.supports(transformType)) {
+                return transformer;
             }
         }
+        return NONE;
+    }
 
-        LogUtil.warn(CLASS_NAME, "No transformer found for type: " + transformType);
-        return value;
+    /**
+     * Rebuild the declared type index and drop cached lookups
+     */
+    private void reindex() {
+        Map<String, DataTransformer> index = new HashMap<>();
+        for (DataTransformer transformer : transformers) {
+            for (String type : transformer.getSupportedTypes()) {
+                index.putIfAbsent(type.toLowerCase(Locale.ROOT), transformer);
+            }
+        }
+        typeIndex = index;
+        resolved.clear();
     }
 
     /**
@@ -72,24 +175,24 @@ public class TransformationService {
      * @return The transformed value for Joget
      */
     public Object decode(Object value, String transformType) {
-        if (transformType == null || transformType.trim().isEmpty()) {
-            return value;
-        }
-
-        for (DataTransformer transformer : transformers) {
-            if (transformer.supports(transformType)) {
-                try {
-                    Object result = transformer.decode(value, transformType);
-                    LogUtil.info(CLASS_NAME, "Applied decoding transformation '" + transformType +
-                                "' to value: " + value + " -> " + result);
-                    return result;
-                } catch (Exception e) {
-                    LogUtil.error(CLASS_NAME, e, "Error applying decoding transformation: " + transformType);
-                    return value;
-                }
+        DataTransformer transformer = getTransformer(transformType);
+        if (transformer != null) {
+            try {
+                Object result = transformer.decode(value, transformType);
+                SubmissionLog.debug(CLASS_NAME, () -> "Applied decoding transformation '" + transformType +
+                            "' to value: " + value + " -> " + result);
+                SubmissionLog.count("transforms");
+                return result;
+            } catch (Exception e) {
+                SubmissionMetrics.shared().recordTransformFailure();
+                LogUtil.error(CLASS_NAME, e, "Error applying decoding transformation: " + transformType);
+                return value;
             }
         }
 
+        if (transformType == null || transformType.trim().isEmpty()) {
+            return value;
+        }
         LogUtil.warn(CLASS_NAME, "No transformer found for type: " + transformType);
         return value;
     }
@@ -97,6 +200,9 @@ public class TransformationService {
     /**
      * Apply value mapping transformation
      *
+     * The mapping is compiled on every call; prefer the {@link ValueMappingTable} of the metadata
+     * snapshot, see {@link #applyValueMapping(Object, ValueMappingTable, String)}.
+     *
      * @param value The value to map
      * @param valueMapping The mapping configuration
      * @param direction "encode" for Joget→GovStack, "decode" for GovStack→Joget
@@ -106,23 +212,37 @@ public class TransformationService {
         if (value == null || valueMapping == null || valueMapping.isEmpty()) {
             return value;
         }
+        return applyValueMapping(value, ValueMappingTable.compile(valueMapping), direction);
+    }
 
-        String valueStr = value.toString();
+    /**
+     * Apply a compiled value mapping
+     *
+     * @param value The value to map
+     * @param table The compiled mapping, or null
+     * @param direction "encode" for Joget→GovStack, "decode" for GovStack→Joget
+     * @return The mapped value
+     */
+    public Object applyValueMapping(Object value, ValueMappingTable table, String direction) {
+        if (value == null || table == null) {
+            return value;
+        }
 
         if ("encode".equalsIgnoreCase(direction)) {
             // Direct mapping for encoding
-            if (valueMapping.containsKey(valueStr)) {
-                Object mappedValue = valueMapping.get(valueStr);
-                LogUtil.info(CLASS_NAME, "Applied value mapping (encode): " + valueStr + " -> " + mappedValue);
+            if (table.isMapped(value)) {
+                Object mappedValue = table.encode(value);
+                SubmissionLog.debug(CLASS_NAME, () -> "Applied value mapping (encode): " + value + " -> " + mappedValue);
+                SubmissionLog.count("valueMappings");
                 return mappedValue;
             }
         } else if ("decode".equalsIgnoreCase(direction)) {
             // Reverse mapping for decoding
-            for (Map.Entry<String, Object> entry : valueMapping.entrySet()) {
-                if (valueStr.equals(String.valueOf(entry.getValue()))) {
-                    LogUtil.info(CLASS_NAME, "Applied value mapping (decode): " + valueStr + " -> " + entry.getKey());
-                    return entry.getKey();
-                }
+            if (table.isReverseMapped(value)) {
+                Object key = table.decode(value);
+                SubmissionLog.debug(CLASS_NAME, () -> "Applied value mapping (decode): " + value + " -> " + key);
+                SubmissionLog.count("valueMappings");
+                return key;
             }
         }
 
@@ -135,8 +255,9 @@ public class TransformationService {
      *
      * @param transformer The transformer to register
      */
-    public void registerTransformer(DataTransformer transformer) {
+    public synchronized void registerTransformer(DataTransformer transformer) {
         transformers.add(transformer);
+        reindex();
         LogUtil.info(CLASS_NAME, "Registered custom transformer: " + transformer.getClass().getSimpleName());
     }
 
@@ -147,10 +268,6 @@ public class TransformationService {
      * @return true if supported
      */
     public boolean isTransformationSupported(String transformType) {
-        if (transformType == null || transformType.trim().isEmpty()) {
-            return false;
-        }
-
-        return transformers.stream().anyMatch(t -> t.supports(transformType));
+        return getTransformer(transformType) != null;
     }
 }
\ No newline at end of file
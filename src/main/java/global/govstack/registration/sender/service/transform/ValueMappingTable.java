@@ -0,0 +1,94 @@
+package global.govstack.registration.sender.service.transform;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A field's valueMapping, compiled into lookup tables for both directions
+ *
+ * Encoding looks a Joget value up by its string form among the string keys of the mapping;
+ * decoding looks a GovStack value up by its string form among the mapped values and returns
+ * the key it was mapped from (the first one, in configuration order, if several keys map to
+ * the same value). Both are single hash lookups.
+ *
+ * Tables are immutable and compiled once per metadata snapshot, see
+ * {@link global.govstack.registration.sender.service.metadata.ServiceMetadata#getValueMappingTable}.
+ */
+public final class ValueMappingTable {
+
+    private final Map<String, Object> forward;
+    private final Map<String, Object> reverse;
+
+    private ValueMappingTable(Map<String, Object> forward, Map<String, Object> reverse) {
+        this.forward = forward;
+        this.reverse = reverse;
+    }
+
+    /**
+     * Compile a configured valueMapping
+     *
+     * @param valueMapping Joget value to GovStack value, in configuration order
+     * @return The table
+     */
+    public static ValueMappingTable compile(Map<?, ?> valueMapping) {
+        Map<String, Object> forward = new HashMap<>();
+        Map<String, Object> reverse = new HashMap<>();
+        for (Map.Entry<?, ?> entry : valueMapping.entrySet()) {
+            // Only string keys can match, since values are looked up by their string form
+            if (entry.getKey() instanceof String) {
+                forward.put((String) entry.getKey(), entry.getValue());
+            }
+            reverse.putIfAbsent(String.valueOf(entry.getValue()), entry.getKey());
+        }
+        return new ValueMappingTable(Collections.unmodifiableMap(forward), Collections.unmodifiableMap(reverse));
+    }
+
+    /**
+     * Map a Joget value to its GovStack value
+     *
+     * @return The mapped value, or the value itself if it is not mapped
+     */
+    public Object encode(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String valueStr = value.toString();
+        Object mapped = forward.get(valueStr);
+        return mapped != null || forward.containsKey(valueStr) ? mapped : value;
+    }
+
+    /**
+     * Map a GovStack value back to its Joget value
+     *
+     * @return The key mapped to the value, or the value itself if it is not mapped
+     */
+    public Object decode(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Object key = reverse.get(value.toString());
+        return key != null ? key : value;
+    }
+
+    /**
+     * Whether a Joget value has a mapping
+     */
+    public boolean isMapped(Object value) {
+        return value != null && forward.containsKey(value.toString());
+    }
+
+    /**
+     * Whether a GovStack value maps back to a Joget value
+     */
+    public boolean isReverseMapped(Object value) {
+        return value != null && reverse.containsKey(value.toString());
+    }
+
+    /**
+     * Number of mapped Joget values
+     */
+    public int size() {
+        return forward.size();
+    }
+}
@@ -0,0 +1,46 @@
+package global.govstack.registration.sender.service.transport;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Pluggable HTTP transport used by GovStackApiClient to deliver payloads
+ *
+ * Implementations are expected to be thread-safe and long-lived, so they can be
+ * shared across plugin executions and reuse connections between submissions.
+ */
+public interface HttpTransport {
+
+    /**
+     * POST a request body to the given URL
+     *
+     * @param url The target URL
+     * @param headers Request headers to send
+     * @param body The request body
+     * @param readTimeoutMs Maximum time to wait for the response, in milliseconds
+     * @return The response status and body
+     * @throws IOException if the request could not be completed
+     */
+    Response post(String url, Map<String, String> headers, byte[] body, int readTimeoutMs) throws IOException;
+
+    /**
+     * Minimal HTTP response holder
+     */
+    class Response {
+        private final int statusCode;
+        private final String body;
+
+        public Response(int statusCode, String body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package global.govstack.registration.sender.service.transport;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.util.EntityUtils;
+import org.joget.commons.util.LogUtil;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep-alive HTTP transport with a bounded connection pool per endpoint host
+ *
+ * Each transport owns an Apache HttpClient connection pool: connections are returned to the
+ * pool once a response has been read and reused by the next request to the same host,
+ * skipping the TCP/TLS handshake. At most maxConnectionsPerHost connections are open per
+ * host; further requests wait up to the connect timeout for one to be released.
+ *
+ * Connections left idle for idleTimeout are closed by the pool's own evictor thread. The pool
+ * settings apply to this transport only; the JVM's keep-alive properties are neither read nor
+ * changed. Proxies are chosen by the JVM's default ProxySelector, so the standard http(s).proxyHost
+ * and http.nonProxyHosts settings apply as they did with HttpURLConnection.
+ *
+ * Instances are shared process-wide via {@link #shared(int, int, int)}, so connections
+ * survive across DocSubmitter executions, and closed by the bundle Activator through
+ * {@link #shutdownAll()}.
+ */
+public class PooledHttpTransport implements HttpTransport {
+
+    private static final String CLASS_NAME = PooledHttpTransport.class.getName();
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 30000;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 10;
+    public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 60;
+
+    private static final ConcurrentMap<String, PooledHttpTransport> SHARED = new ConcurrentHashMap<>();
+
+    private final int connectTimeoutMs;
+    private final int maxConnectionsPerHost;
+    private final int idleTimeoutSeconds;
+    private final CloseableHttpClient httpClient;
+
+    public PooledHttpTransport(int connectTimeoutMs, int maxConnectionsPerHost, int idleTimeoutSeconds) {
+        this(connectTimeoutMs, maxConnectionsPerHost, idleTimeoutSeconds, null);
+    }
+
+    /**
+     * @param sslContext Context for HTTPS connections, or null for the JVM's default trust settings
+     */
+    public PooledHttpTransport(int connectTimeoutMs, int maxConnectionsPerHost, int idleTimeoutSeconds,
+                               SSLContext sslContext) {
+        this.connectTimeoutMs = connectTimeoutMs > 0 ? connectTimeoutMs : DEFAULT_CONNECT_TIMEOUT_MS;
+        this.maxConnectionsPerHost = maxConnectionsPerHost > 0 ? maxConnectionsPerHost : DEFAULT_MAX_CONNECTIONS_PER_HOST;
+        this.idleTimeoutSeconds = idleTimeoutSeconds > 0 ? idleTimeoutSeconds : DEFAULT_IDLE_TIMEOUT_SECONDS;
+
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslContext != null
+                ? new SSLConnectionSocketFactory(sslContext)
+                : SSLConnectionSocketFactory.getSystemSocketFactory())
+            .build();
+
+        // The bound is per host; the pool as a whole is not capped
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+        connectionManager.setDefaultMaxPerRoute(this.maxConnectionsPerHost);
+        connectionManager.setMaxTotal(Integer.MAX_VALUE);
+
+        httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()))
+            .evictIdleConnections(this.idleTimeoutSeconds, TimeUnit.SECONDS)
+            .evictExpiredConnections()
+            .build();
+
+        LogUtil.info(CLASS_NAME, "Created pooled HTTP transport (connectTimeout=" + this.connectTimeoutMs +
+            "ms, maxConnectionsPerHost=" + this.maxConnectionsPerHost +
+            ", idleTimeout=" + this.idleTimeoutSeconds + "s)");
+    }
+
+    /**
+     * Get the process-wide transport for the given settings, creating it on first use
+     *
+     * @param connectTimeoutMs Connection timeout in milliseconds
+     * @param maxConnectionsPerHost Maximum number of open connections per endpoint host
+     * @param idleTimeoutSeconds Time after which idle connections are evicted
+     * @return The shared transport
+     */
+    public static PooledHttpTransport shared(int connectTimeoutMs, int maxConnectionsPerHost, int idleTimeoutSeconds) {
+        String key = connectTimeoutMs + "/" + maxConnectionsPerHost + "/" + idleTimeoutSeconds;
+        return SHARED.computeIfAbsent(key,
+            k -> new PooledHttpTransport(connectTimeoutMs, maxConnectionsPerHost, idleTimeoutSeconds));
+    }
+
+    /**
+     * Get the process-wide transport with default settings
+     */
+    public static PooledHttpTransport shared() {
+        return shared(DEFAULT_CONNECT_TIMEOUT_MS, DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_IDLE_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Close all shared transports and their pooled connections
+     */
+    public static void shutdownAll() {
+        for (PooledHttpTransport transport : SHARED.values()) {
+            transport.close();
+        }
+        SHARED.clear();
+    }
+
+    @Override
+    public Response post(String url, Map<String, String> headers, byte[] body, int readTimeoutMs) throws IOException {
+        HttpPost request = new HttpPost(url);
+        request.setConfig(RequestConfig.custom()
+            .setConnectTimeout(connectTimeoutMs)
+            .setConnectionRequestTimeout(connectTimeoutMs)
+            .setSocketTimeout(readTimeoutMs)
+            .build());
+
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                request.setHeader(header.getKey(), header.getValue());
+            }
+        }
+        request.setEntity(new ByteArrayEntity(body));
+
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            // Reading the body to the end returns the connection to the pool when the response closes
+            HttpEntity entity = response.getEntity();
+            String responseBody = entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : "";
+            return new Response(response.getStatusLine().getStatusCode(), responseBody);
+        } catch (ConnectionPoolTimeoutException e) {
+            throw new IOException("Connection pool exhausted for " + request.getURI().getHost() +
+                " (maxConnectionsPerHost=" + maxConnectionsPerHost + ")", e);
+        }
+    }
+
+    /**
+     * Close the pooled connections and stop the idle connection evictor
+     */
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            LogUtil.warn(CLASS_NAME, "Error closing HTTP transport: " + e.getMessage());
+        }
+    }
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public int getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+}
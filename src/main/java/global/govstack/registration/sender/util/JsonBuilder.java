@@ -41,27 +41,37 @@ public class JsonBuilder {
             return;
         }
 
+        setValue(compilePath(path), value);
+    }
+
+    /**
+     * Set a value at a pre-compiled path in the JSON structure
+     *
+     * @param path The path, see {@link #compilePath(String)}
+     * @param value The value to set
+     */
+    public void setValue(Path path, Object value) {
         if (value == null) {
             // Skip null values
             return;
         }
 
         try {
-            String[] parts = path.split("\\.");
+            if (path.error != null) {
+                throw path.error;
+            }
+
             JsonNode current = root;
+            int last = path.names.length - 1;
 
-            for (int i = 0; i < parts.length; i++) {
-                String part = parts[i];
-                boolean isLastPart = (i == parts.length - 1);
+            for (int i = 0; i <= last; i++) {
+                String part = path.names[i];
+                int index = path.indexes[i];
+                boolean isLastPart = (i == last);
 
-                // Check if this part contains array notation
-                Matcher matcher = ARRAY_INDEX_PATTERN.matcher(part);
-                if (matcher.find()) {
+                if (index >= 0) {
                     // Handle array access
-                    String fieldName = part.substring(0, part.indexOf('['));
-                    int index = Integer.parseInt(matcher.group(1));
-
-                    current = ensureArray(current, fieldName, index);
+                    current = ensureArray(current, part, index);
 
                     if (isLastPart) {
                         // Set the value in the array
@@ -83,10 +93,43 @@ public class JsonBuilder {
             }
 
         } catch (Exception e) {
-            LogUtil.error(CLASS_NAME, e, "Error setting value at path: " + path);
+            LogUtil.error(CLASS_NAME, e, "Error setting value at path: " + path.path);
         }
     }
 
+    /**
+     * Split a dot notation path into its parts once, so it can be set repeatedly without re-parsing
+     *
+     * @param path The dot notation path (e.g., "name.given[0]", "address[0].city")
+     * @return The compiled path
+     */
+    public static Path compilePath(String path) {
+        String[] parts = path.split("\\.");
+        String[] names = new String[parts.length];
+        int[] indexes = new int[parts.length];
+
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                String part = parts[i];
+
+                // Check if this part contains array notation
+                Matcher matcher = ARRAY_INDEX_PATTERN.matcher(part);
+                if (matcher.find()) {
+                    names[i] = part.substring(0, part.indexOf('['));
+                    indexes[i] = Integer.parseInt(matcher.group(1));
+                } else {
+                    names[i] = part;
+                    indexes[i] = -1;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Reported when a value is set, as for an uncompiled path
+            return new Path(path, names, indexes, e);
+        }
+
+        return new Path(path, names, indexes, null);
+    }
+
     /**
      * Add an item to an array at the specified path
      *
@@ -307,4 +350,54 @@ public class JsonBuilder {
             array.insert(index, mapper.valueToTree(value));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A dot notation path split into field names and array indexes (-1 for object fields)
+     */
+    public static final class Path {
+        private final String path;
+        private final String[] names;
+        private final int[] indexes;
+        private final RuntimeException error;
+
+        private Path(String path, String[] names, int[] indexes, RuntimeException error) {
+            this.path = path;
+            this.names = names;
+            this.indexes = indexes;
+            this.error = error;
+        }
+
+        /**
+         * Whether the path could be parsed; setting a value at an invalid path logs an error
+         */
+        public boolean isValid() {
+            return error == null;
+        }
+
+        /**
+         * Number of parts, i.e. nesting depth
+         */
+        public int size() {
+            return names.length;
+        }
+
+        /**
+         * Field name of a part
+         */
+        public String getName(int part) {
+            return names[part];
+        }
+
+        /**
+         * Array index of a part, or -1 if the part is an object field
+         */
+        public int getIndex(int part) {
+            return indexes[part];
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package global.govstack.registration.sender.util;
+
+import org.joget.workflow.model.WorkflowVariable;
+import org.joget.workflow.model.service.WorkflowManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Snapshot of a process's workflow variables, read once per execution
+ *
+ * Every getProcessVariable call is a round trip to the workflow engine's persistence. The
+ * snapshot reads the whole variable list with one call, and variable lookups and the debug
+ * listing are served from it. Writes go through {@link #write}, which sends only the values
+ * that differ from what the snapshot holds and records them, so a value written earlier in
+ * the execution (e.g. submissionStatus "queued") is not written again.
+ *
+ * Safe for use from the completion callbacks of asynchronous submissions.
+ */
+public final class ProcessVariables {
+
+    private final String processId;
+    private final Collection<WorkflowVariable> variables;
+    private final Map<String, String> values = new HashMap<>();
+
+    private ProcessVariables(String processId, Collection<WorkflowVariable> variables) {
+        this.processId = processId;
+        this.variables = variables != null ? variables : Collections.emptyList();
+        for (WorkflowVariable variable : this.variables) {
+            Object value = variable.getVal();
+            values.put(variable.getId(), value != null ? value.toString() : null);
+        }
+    }
+
+    /**
+     * Read all variables of a process
+     *
+     * @param workflowManager The workflow manager
+     * @param processId The process instance ID
+     * @return The snapshot
+     */
+    public static ProcessVariables load(WorkflowManager workflowManager, String processId) {
+        return new ProcessVariables(processId, workflowManager.getProcessVariableList(processId));
+    }
+
+    /**
+     * Snapshot of a process whose variables have not been read; every write is sent
+     *
+     * @param processId The process instance ID
+     * @return The snapshot
+     */
+    public static ProcessVariables unloaded(String processId) {
+        return new ProcessVariables(processId, null);
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    /**
+     * @return The variable's value as a string, or null if it has no value or is not in the snapshot
+     */
+    public synchronized String get(String name) {
+        return values.get(name);
+    }
+
+    /**
+     * @return The variables as read from the workflow engine
+     */
+    public Collection<WorkflowVariable> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Write process variables, skipping those already holding the value
+     *
+     * @param workflowManager The workflow manager
+     * @param updates Variable names and values, written in iteration order
+     * @return The number of variables written
+     */
+    public synchronized int write(WorkflowManager workflowManager, Map<String, String> updates) {
+        int written = 0;
+        for (Map.Entry<String, String> update : updates.entrySet()) {
+            String name = update.getKey();
+            if (values.containsKey(name) && Objects.equals(values.get(name), update.getValue())) {
+                continue;
+            }
+            workflowManager.processVariable(processId, name, update.getValue());
+            values.put(name, update.getValue());
+            written++;
+        }
+        return written;
+    }
+}
@@ -1,6 +1,9 @@
 package global.govstack.registration.sender.util;
 
+import global.govstack.registration.sender.exception.ConfigurationException;
 import global.govstack.registration.sender.model.MappingHints;
+import global.govstack.registration.sender.service.metadata.PrecompiledMetadata;
+import global.govstack.registration.sender.service.metadata.ServiceMetadata;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.DumperOptions;
 
@@ -83,6 +86,9 @@ public class ServicesYamlGenerator {
 
         // Write output
         writeYaml(servicesConfig, outputPath);
+
+        // 6. Precompiled binary form of the written YAML, loaded instead of parsing it
+        writePrecompiled(hints.getService().getId(), formStructurePath, outputPath);
     }
 
     /**
@@ -581,6 +587,25 @@ public class ServicesYamlGenerator {
         }
     }
 
+    /**
+     * Write {serviceId}.metadata.bin next to the generated YAML
+     *
+     * The file is only used while the deployed YAML is byte-for-byte the generated one, so both
+     * must be copied to docs-metadata together.
+     */
+    private void writePrecompiled(String serviceId, String formStructurePath, String outputPath) throws IOException {
+        File outputFile = new File(outputPath).getAbsoluteFile();
+        File target = new File(outputFile.getParentFile(), serviceId + PrecompiledMetadata.FILE_SUFFIX);
+        try {
+            ServiceMetadata metadata = ServiceMetadata.compile(serviceId,
+                Files.readAllBytes(outputFile.toPath()), Files.readAllBytes(Paths.get(formStructurePath)));
+            PrecompiledMetadata.write(metadata, target.toPath());
+            System.out.println("Precompiled metadata: " + target);
+        } catch (ConfigurationException | IllegalArgumentException e) {
+            System.out.println("WARNING: precompiled metadata not written: " + e.getMessage());
+        }
+    }
+
     private static Map<String, String> parseArgs(String[] args) {
         Map<String, String> params = new HashMap<>();
         for (int i = 0; i < args.length; i++) {
@@ -0,0 +1,263 @@
+package global.govstack.registration.sender.util;
+
+import org.joget.commons.util.LogUtil;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Request-scoped logging for a submission
+ *
+ * A scope is opened for each plugin execution with the configured logLevel and bound to the
+ * executing thread. While it is open, the services on that thread log through the gated helpers
+ * below, which build their messages only if the level is enabled, and record per-record
+ * diagnostics as details and counters instead of separate lines. Closing the scope writes them
+ * as one summary line, so a submission logs a constant number of lines at INFO however many
+ * fields it has.
+ *
+ * Work handed to other threads (parallel extraction, async, stream and outbox workers) is
+ * wrapped with {@link #propagate}, which binds the submitting thread's scope while the task
+ * runs, so it logs at the same level and adds to the same details and counters. Anything
+ * recorded after the scope has been closed is not in its summary line.
+ *
+ * DEBUG messages are written through LogUtil.info once enabled by the plugin's logLevel, so
+ * they do not also depend on the server's log configuration. Outside any scope (startup,
+ * recovered outbox entries) the level is INFO. Warnings and errors are logged directly
+ * through LogUtil.
+ */
+public final class SubmissionLog implements AutoCloseable {
+
+    /**
+     * Plugin logLevel values, from most to least verbose
+     */
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR;
+
+        /**
+         * Parse the logLevel property
+         *
+         * @return The level, or INFO if the value is empty or unknown
+         */
+        public static Level fromProperty(String value) {
+            if (value != null) {
+                try {
+                    return valueOf(value.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    // Fall through to the default
+                }
+            }
+            return INFO;
+        }
+    }
+
+    private static final ThreadLocal<SubmissionLog> CURRENT = new ThreadLocal<>();
+
+    private final String className;
+    private final Level level;
+    private final SubmissionLog previous;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Object> details = new LinkedHashMap<>();
+    private final Map<String, long[]> counters = new LinkedHashMap<>();
+
+    private SubmissionLog(String className, Level level, SubmissionLog previous) {
+        this.className = className;
+        this.level = level;
+        this.previous = previous;
+    }
+
+    /**
+     * Open a scope on the current thread
+     *
+     * @param className Class the summary line is logged under
+     * @param level Configured logLevel
+     * @return The scope, to be closed by the same thread
+     */
+    public static SubmissionLog open(String className, Level level) {
+        SubmissionLog log = new SubmissionLog(className, level != null ? level : Level.INFO, CURRENT.get());
+        CURRENT.set(log);
+        return log;
+    }
+
+    /**
+     * Wrap a task so it runs in the current thread's scope, if any
+     *
+     * The scope is bound on the executing thread for the duration of the task and the thread's
+     * own binding restored afterwards; the task does not close it.
+     */
+    public static Runnable propagate(Runnable task) {
+        SubmissionLog log = CURRENT.get();
+        if (log == null) {
+            return task;
+        }
+        return () -> {
+            SubmissionLog outer = bind(log);
+            try {
+                task.run();
+            } finally {
+                restore(outer);
+            }
+        };
+    }
+
+    /**
+     * @see #propagate(Runnable)
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        SubmissionLog log = CURRENT.get();
+        if (log == null) {
+            return task;
+        }
+        return () -> {
+            SubmissionLog outer = bind(log);
+            try {
+                return task.call();
+            } finally {
+                restore(outer);
+            }
+        };
+    }
+
+    /**
+     * @see #propagate(Runnable)
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        SubmissionLog log = CURRENT.get();
+        if (log == null) {
+            return task;
+        }
+        return () -> {
+            SubmissionLog outer = bind(log);
+            try {
+                return task.get();
+            } finally {
+                restore(outer);
+            }
+        };
+    }
+
+    /**
+     * @see #propagate(Runnable)
+     */
+    public static <T> Consumer<T> propagate(Consumer<T> task) {
+        SubmissionLog log = CURRENT.get();
+        if (log == null) {
+            return task;
+        }
+        return value -> {
+            SubmissionLog outer = bind(log);
+            try {
+                task.accept(value);
+            } finally {
+                restore(outer);
+            }
+        };
+    }
+
+    private static SubmissionLog bind(SubmissionLog log) {
+        SubmissionLog outer = CURRENT.get();
+        CURRENT.set(log);
+        return outer;
+    }
+
+    private static void restore(SubmissionLog outer) {
+        if (outer != null) {
+            CURRENT.set(outer);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Whether messages at the level are logged on the current thread
+     */
+    public static boolean isEnabled(Level level) {
+        SubmissionLog log = CURRENT.get();
+        return level.compareTo(log != null ? log.level : Level.INFO) >= 0;
+    }
+
+    /**
+     * Log a message if DEBUG is enabled; the message is only built in that case
+     */
+    public static void debug(String className, Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            LogUtil.info(className, message.get());
+        }
+    }
+
+    /**
+     * Log a message if INFO is enabled; the message is only built in that case
+     */
+    public static void info(String className, Supplier<String> message) {
+        if (isEnabled(Level.INFO)) {
+            LogUtil.info(className, message.get());
+        }
+    }
+
+    /**
+     * Record a detail for the summary line; later values replace earlier ones
+     */
+    public static void detail(String key, Object value) {
+        SubmissionLog log = CURRENT.get();
+        if (log != null) {
+            synchronized (log) {
+                log.details.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Increment a counter for the summary line
+     */
+    public static void count(String counter) {
+        count(counter, 1);
+    }
+
+    /**
+     * Add to a counter for the summary line
+     */
+    public static void count(String counter, long delta) {
+        SubmissionLog log = CURRENT.get();
+        if (log != null) {
+            synchronized (log) {
+                log.counters.computeIfAbsent(counter, key -> new long[1])[0] += delta;
+            }
+        }
+    }
+
+    /**
+     * The summary line: details, then counters, then the elapsed time
+     */
+    synchronized String summary() {
+        StringBuilder summary = new StringBuilder("Submission");
+        for (Map.Entry<String, Object> detail : details.entrySet()) {
+            summary.append(' ').append(detail.getKey()).append('=').append(detail.getValue());
+        }
+        for (Map.Entry<String, long[]> counter : counters.entrySet()) {
+            summary.append(' ').append(counter.getKey()).append('=').append(counter.getValue()[0]);
+        }
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        return summary.append(" elapsedMs=").append(elapsedMs).toString();
+    }
+
+    /**
+     * Log the summary line and unbind the scope, restoring any enclosing one
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() != this) {
+            return;
+        }
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+        if (level.compareTo(Level.INFO) <= 0) {
+            LogUtil.info(className, summary());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package global.govstack.registration.sender.service;
+
+import global.govstack.registration.sender.service.transport.HttpTransport;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for request body compression
+ */
+public class GovStackApiClientTest {
+
+    @Test
+    public void testBodiesFromTheThresholdAreGzipped() throws Exception {
+        List<Map<String, String>> headers = new ArrayList<>();
+        List<byte[]> bodies = new ArrayList<>();
+        HttpTransport transport = (url, requestHeaders, body, readTimeoutMs) -> {
+            headers.add(requestHeaders);
+            bodies.add(body);
+            return new HttpTransport.Response(200, "{\"success\":true}");
+        };
+        GovStackApiClient client = new GovStackApiClient("http://localhost/jw/api/API-1/services/test/applications",
+            "API-1", "", transport);
+
+        StringBuilder large = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 200; i++) {
+            large.append(i > 0 ? "," : "").append("{\"name\":\"Farmer ").append(i).append("\"}");
+        }
+        large.append("]}");
+
+        assertTrue(client.sendToGovStack(large.toString()).isSuccess());
+        assertNull(headers.get(0).get("Content-Encoding"));
+
+        client.setGzipMinBytes(1024);
+        assertTrue(client.sendToGovStack("{\"id\":\"rec-1\"}").isSuccess());
+        assertNull(headers.get(1).get("Content-Encoding"));
+
+        assertTrue(client.sendToGovStack(large.toString()).isSuccess());
+        assertEquals("gzip", headers.get(2).get("Content-Encoding"));
+        assertTrue(bodies.get(2).length < large.length());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bodies.get(2)))) {
+            assertEquals(large.toString(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package global.govstack.registration.sender.service.async;
+
+import global.govstack.registration.sender.service.GovStackApiClient;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the bounded asynchronous submission queue
+ */
+public class AsyncSubmissionQueueTest {
+
+    @Test
+    public void testDeliveryRunsOnWorkerAndInvokesCallback() throws Exception {
+        AsyncSubmissionQueue queue = new AsyncSubmissionQueue(2, 10);
+        AtomicReference<String> deliveryThread = new AtomicReference<>();
+        AtomicReference<GovStackApiClient.ApiResponse> result = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        boolean queued = queue.submit("rec-1", () -> {
+            deliveryThread.set(Thread.currentThread().getName());
+            return response(true);
+        }, response -> {
+            result.set(response);
+            done.countDown();
+        }, 100);
+
+        assertTrue(queued);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(result.get().isSuccess());
+        assertTrue(deliveryThread.get().startsWith("govstack-submitter-"));
+        queue.shutdown(1000);
+    }
+
+    @Test
+    public void testFullQueueAppliesBackPressure() throws Exception {
+        AsyncSubmissionQueue queue = new AsyncSubmissionQueue(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        // Occupy the only worker, then fill the only queue slot
+        assertTrue(queue.submit("busy", () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return response(true);
+        }, response -> { }, 100));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.submit("waiting", () -> response(true), response -> { }, 100));
+
+        long start = System.nanoTime();
+        assertFalse("Full queue should reject after the enqueue timeout",
+            queue.submit("rejected", () -> response(true), response -> { }, 50));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 40);
+
+        release.countDown();
+        queue.shutdown(5000);
+        assertEquals(2, queue.getDeliveredCount());
+    }
+
+    @Test
+    public void testUndeliveredRecordsFailOnShutdown() throws Exception {
+        AsyncSubmissionQueue queue = new AsyncSubmissionQueue(1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<GovStackApiClient.ApiResponse> result = new AtomicReference<>();
+
+        assertTrue(queue.submit("busy", () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return response(true);
+        }, response -> { }, 100));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.submit("waiting", () -> response(true), result::set, 100));
+
+        // The worker is still busy when the grace period ends
+        queue.shutdown(100);
+        release.countDown();
+
+        assertNotNull("Waiting record should be reported", result.get());
+        assertFalse(result.get().isSuccess());
+        assertEquals(0, queue.getQueueDepth());
+        assertFalse("Stopped queue should not accept work",
+            queue.submit("late", () -> response(true), response -> { }, 100));
+    }
+
+    private static GovStackApiClient.ApiResponse response(boolean success) {
+        GovStackApiClient.ApiResponse response = new GovStackApiClient.ApiResponse();
+        response.setSuccess(success);
+        return response;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
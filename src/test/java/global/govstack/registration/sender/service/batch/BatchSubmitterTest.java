@@ -0,0 +1,145 @@
+package global.govstack.registration.sender.service.batch;
+
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.transport.HttpTransport;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for chunked batch submission and per-record result mapping
+ */
+public class BatchSubmitterTest {
+
+    @Test
+    public void testRecordsAreSentInChunksWithPerRecordResults() throws Exception {
+        RecordingTransport transport = new RecordingTransport();
+        BatchSubmitter submitter = new BatchSubmitter(client(transport),
+            BatchSubmitter.BatchFormat.ARRAY, 3, 60000);
+
+        List<CompletableFuture<GovStackApiClient.ApiResponse>> results = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            results.add(submitter.submit("rec-" + i, "{\"id\":\"rec-" + i + "\"}"));
+        }
+        submitter.flush();
+
+        assertEquals(3, transport.bodies.size());
+        assertEquals("[{\"id\":\"rec-1\"},{\"id\":\"rec-2\"},{\"id\":\"rec-3\"}]", transport.bodies.get(0));
+        assertEquals("[{\"id\":\"rec-7\"}]", transport.bodies.get(2));
+
+        for (int i = 0; i < results.size(); i++) {
+            GovStackApiClient.ApiResponse response = results.get(i).get(1, TimeUnit.SECONDS);
+            assertTrue(response.isSuccess());
+            assertEquals("APP-rec-" + (i + 1), response.getApplicationId());
+        }
+    }
+
+    @Test
+    public void testTestDataEnvelopeAndLingerFlush() throws Exception {
+        RecordingTransport transport = new RecordingTransport();
+        BatchSubmitter submitter = new BatchSubmitter(client(transport),
+            BatchSubmitter.BatchFormat.TEST_DATA, 10, 50);
+
+        CompletableFuture<GovStackApiClient.ApiResponse> result =
+            submitter.submit("rec-1", "{\"id\":\"rec-1\"}");
+
+        // Not full, so only the linger timer sends it
+        assertTrue(result.get(5, TimeUnit.SECONDS).isSuccess());
+        assertEquals("{\"testData\":[{\"id\":\"rec-1\"}]}", transport.bodies.get(0));
+    }
+
+    @Test
+    public void testBatchLevelFailureAppliesToEveryRecord() throws Exception {
+        HttpTransport failing = (url, headers, body, readTimeoutMs) ->
+            new HttpTransport.Response(503, "{\"success\":false,\"message\":\"Unavailable\"}");
+        BatchSubmitter submitter = new BatchSubmitter(client(failing),
+            BatchSubmitter.BatchFormat.ARRAY, 2, 60000);
+
+        CompletableFuture<GovStackApiClient.ApiResponse> first = submitter.submit("rec-1", "{}");
+        CompletableFuture<GovStackApiClient.ApiResponse> second = submitter.submit("rec-2", "{}");
+
+        assertFalse(first.get(1, TimeUnit.SECONDS).isSuccess());
+        assertEquals("Unavailable", second.get(1, TimeUnit.SECONDS).getMessage());
+    }
+
+    @Test
+    public void testDifferentlyConfiguredClientsDoNotShareABatch() throws Exception {
+        RecordingTransport transport = new RecordingTransport();
+        GovStackApiClient first = client(transport);
+        GovStackApiClient second = client(transport);
+        GovStackApiClient otherHeaders = client(transport);
+        otherHeaders.setCustomHeaders(Map.of("X-Tenant", "other"));
+
+        BatchSubmitter shared = BatchSubmitter.forEndpoint(first, BatchSubmitter.BatchFormat.ARRAY, 2, 60000);
+        try {
+            // Equally configured clients share one submitter; different headers get their own
+            assertSame(shared, BatchSubmitter.forEndpoint(second, BatchSubmitter.BatchFormat.ARRAY, 2, 60000));
+            BatchSubmitter separate = BatchSubmitter.forEndpoint(otherHeaders, BatchSubmitter.BatchFormat.ARRAY, 2, 60000);
+            assertNotSame(shared, separate);
+
+            shared.submit("rec-1", "{\"id\":\"rec-1\"}");
+            separate.submit("rec-2", "{\"id\":\"rec-2\"}");
+            assertTrue("Neither batch is full", transport.bodies.isEmpty());
+        } finally {
+            BatchSubmitter.shutdownAll();
+        }
+    }
+
+    @Test
+    public void testShutdownFailsWaitingRecords() throws Exception {
+        RecordingTransport transport = new RecordingTransport();
+        BatchSubmitter submitter = BatchSubmitter.forEndpoint(client(transport),
+            BatchSubmitter.BatchFormat.ARRAY, 10, 60000);
+
+        CompletableFuture<GovStackApiClient.ApiResponse> waiting =
+            submitter.submit("rec-1", "{\"id\":\"rec-1\"}");
+        BatchSubmitter.shutdownAll();
+
+        GovStackApiClient.ApiResponse response = waiting.get(1, TimeUnit.SECONDS);
+        assertFalse(response.isSuccess());
+        assertEquals("Batch submitter stopped", response.getMessage());
+        assertTrue(transport.bodies.isEmpty());
+
+        // A stopped submitter does not hold new records either
+        assertFalse(submitter.submit("rec-2", "{}").get(1, TimeUnit.SECONDS).isSuccess());
+    }
+
+    private static GovStackApiClient client(HttpTransport transport) {
+        return new GovStackApiClient("http://localhost/jw/api/API-1/services/test/applications", "API-1", "", transport);
+    }
+
+    /**
+     * Records request bodies and answers with one result per submitted record
+     */
+    private static class RecordingTransport implements HttpTransport {
+        final List<String> bodies = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Response post(String url, Map<String, String> headers, byte[] body, int readTimeoutMs) {
+            String json = new String(body, StandardCharsets.UTF_8);
+            bodies.add(json);
+
+            StringBuilder results = new StringBuilder("{\"results\":[");
+            int index = 0;
+            int start;
+            while ((start = json.indexOf("\"id\":\"", index)) != -1) {
+                int end = json.indexOf('"', start + 6);
+                if (results.charAt(results.length() - 1) != '[') {
+                    results.append(',');
+                }
+                results.append("{\"success\":true,\"applicationId\":\"APP-")
+                    .append(json, start + 6, end).append("\"}");
+                index = end;
+            }
+            return new Response(200, results.append("]}").toString());
+        }
+    }
+}
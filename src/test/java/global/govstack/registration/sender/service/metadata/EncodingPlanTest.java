@@ -0,0 +1,141 @@
+package global.govstack.registration.sender.service.metadata;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import global.govstack.registration.sender.service.transform.BooleanTransformer;
+import global.govstack.registration.sender.service.transform.TransformationService;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for compiling field mappings into the encoding plan
+ */
+public class EncodingPlanTest {
+
+    @Test
+    public void testPlanResolvesFieldsOncePerSnapshot() throws Exception {
+        YamlMetadataService metadataService = new YamlMetadataService();
+        metadataService.loadMetadata("farmers_registry");
+        GovStackJsonEncoder encoder = new GovStackJsonEncoder(metadataService);
+
+        EncodingPlan plan = encoder.getEncodingPlan();
+        assertSame(plan, encoder.getEncodingPlan());
+        assertEquals("farmers_registry", plan.getServiceId());
+
+        Map<String, EncodingPlan.Section> sections = new HashMap<>();
+        for (EncodingPlan.Section section : plan.getSections()) {
+            sections.put(section.getName(), section);
+        }
+        assertFalse(sections.get("farmerBasicInfo").isArray());
+        assertTrue(sections.get("householdMembers").isArray());
+        assertEquals("relatedPerson", sections.get("householdMembers").getArrayPath().toString());
+
+        Map<String, EncodingPlan.FieldEncoding> fields = new HashMap<>();
+        for (EncodingPlan.FieldEncoding field : sections.get("farmerBasicInfo").getFields()) {
+            fields.put(field.getSourceField(), field);
+        }
+
+        EncodingPlan.FieldEncoding mobile = fields.get("mobile_number");
+        assertEquals("telecom[0].value", mobile.getTargetPath().toString());
+        assertEquals("telecom[0].system", mobile.getTypePath().toString());
+        assertEquals("phone", mobile.getTypeValue());
+        assertNull(mobile.getItemPath());
+
+        EncodingPlan.FieldEncoding cooperative = fields.get("member_of_cooperative");
+        assertEquals(Boolean.TRUE, cooperative.encode("yes"));
+        assertEquals(new BooleanTransformer().encode("no", "yesNoBoolean"), cooperative.encode("no"));
+    }
+
+    @Test
+    public void testStreamedDocumentMatchesTree() throws Exception {
+        YamlMetadataService metadataService = new YamlMetadataService();
+        metadataService.loadMetadata("farmers_registry");
+        GovStackJsonEncoder encoder = new GovStackJsonEncoder(metadataService);
+        assertNotNull(encoder.getEncodingPlan().getLayout());
+
+        Map<String, Object> basicInfo = new HashMap<>();
+        basicInfo.put("national_id", "123");
+        basicInfo.put("first_name", "Ann");
+        basicInfo.put("member_of_cooperative", "yes");
+        // telecom[1] without telecom[0]: the gap is padded as in the tree
+        basicInfo.put("email_address", "ann@example.org");
+
+        List<Map<String, Object>> members = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Map<String, Object> member = new HashMap<>();
+            member.put("memberName", "M" + i);
+            member.put("sex", "2");
+            members.add(member);
+        }
+
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("id", "REC-1");
+        formData.put("farmerBasicInfo", basicInfo);
+        formData.put("householdMembers", members);
+        formData.put("cropManagement", new ArrayList<>());
+
+        assertEquals(withoutTimestamp(encoder.encodeToGovStackJson(formData)), withoutTimestamp(stream(encoder, formData)));
+    }
+
+    @Test
+    public void testTestDataEnvelopeIsBuiltAroundTheDocument() throws Exception {
+        YamlMetadataService metadataService = new YamlMetadataService();
+        metadataService.loadMetadata("farmers_registry");
+        GovStackJsonEncoder encoder = new GovStackJsonEncoder(metadataService);
+
+        Map<String, Object> basicInfo = new HashMap<>();
+        basicInfo.put("national_id", "123");
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("id", "REC-1");
+        formData.put("farmerBasicInfo", basicInfo);
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode wrapped = mapper.readTree(encoder.encodeToGovStackJson(formData, true));
+        assertEquals(1, wrapped.get("testData").size());
+        assertEquals(withoutTimestamp(encoder.encodeToGovStackJson(formData)),
+            withoutTimestamp(wrapped.get("testData").get(0).toString()));
+
+        String document = encoder.encodeToGovStackJson(formData);
+        JsonNode batch = mapper.readTree(encoder.wrapBatch(List.of(document, document), true));
+        assertEquals(2, batch.get("testData").size());
+        assertEquals(mapper.readTree(document), batch.get("testData").get(1));
+
+        byte[] bytes = encoder.encodeToGovStackBytes(formData, false);
+        JsonNode envelope = mapper.readTree(GovStackJsonEncoder.wrapBatchBytes(List.of(bytes, bytes), true));
+        assertEquals(2, envelope.get("testData").size());
+        JsonNode array = mapper.readTree(GovStackJsonEncoder.wrapBatchBytes(List.of(bytes, bytes), false));
+        assertEquals(2, array.size());
+        assertEquals(mapper.readTree(bytes), array.get(0));
+    }
+
+    @Test
+    public void testConflictingPathsFallBackToTree() throws Exception {
+        String yaml = "service:\n  id: conflict\n" +
+            "formMappings:\n  main:\n    fields:\n" +
+            "      - joget: a\n        govstack: extension\n" +
+            "      - joget: b\n        govstack: extension.value\n";
+        ServiceMetadata snapshot = ServiceMetadata.compile("conflict", yaml.getBytes(StandardCharsets.UTF_8), null);
+        assertNull(EncodingPlan.compile(snapshot, new TransformationService()).getLayout());
+    }
+
+    private static String stream(GovStackJsonEncoder encoder, Map<String, Object> formData) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(encoder.writeGovStackJson(formData, out, false));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String withoutTimestamp(String json) throws Exception {
+        ObjectNode document = (ObjectNode) new ObjectMapper().readTree(json);
+        document.remove("timestamp");
+        return document.toString();
+    }
+}
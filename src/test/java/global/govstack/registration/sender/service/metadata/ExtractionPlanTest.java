@@ -0,0 +1,45 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for compiling the joined extraction plan from service metadata
+ */
+public class ExtractionPlanTest {
+
+    @Test
+    public void testPlanCoversReferencedSectionsAndGrids() throws Exception {
+        YamlMetadataService metadataService = new YamlMetadataService();
+        metadataService.loadMetadata("farmers_registry");
+        GenericFormDataExtractor extractor = new GenericFormDataExtractor(metadataService, null);
+
+        ExtractionPlan plan = extractor.getExtractionPlan();
+        assertEquals("farms_registry", plan.getParentTable());
+
+        Map<String, ExtractionPlan.SectionSource> sections = new HashMap<>();
+        for (ExtractionPlan.SectionSource section : plan.getSections()) {
+            sections.put(section.getSectionName(), section);
+        }
+        assertEquals(7, sections.size());
+        assertEquals("farmer_basic_data", sections.get("farmerBasicInfo").getTable());
+        assertEquals("basic_data", sections.get("farmerBasicInfo").getReferenceField());
+
+        Map<String, ExtractionPlan.GridSource> grids = new HashMap<>();
+        for (ExtractionPlan.GridSource grid : plan.getGrids()) {
+            grids.put(grid.getSectionName(), grid);
+        }
+        assertEquals(3, grids.size());
+        ExtractionPlan.GridSource members = grids.get("householdMembers");
+        assertEquals("household_members", members.getTable());
+        assertEquals("c_farmer_id", members.getParentKeyColumn());
+        assertEquals("household_data", members.getParentReferenceField());
+
+        // Compiled once per metadata snapshot
+        assertSame(plan, extractor.getExtractionPlan());
+    }
+}
@@ -0,0 +1,164 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for joined and bulk extraction against a scripted JDBC data source
+ *
+ * Every table has the same columns; the joined query returns one row per existing parent and
+ * each grid query returns two rows per requested parent ID.
+ */
+public class JoinedFormDataLoaderTest {
+
+    private static final List<String> COLUMNS = Arrays.asList("id", "c_household_data", "c_farmer_id", "c_memberName", "c_national_id");
+    private static final int SECTION_COUNT = 7;
+
+    private final List<String> queries = new ArrayList<>();
+    private final List<String> describes = new ArrayList<>();
+
+    @Test
+    public void testBulkExtractionGroupsRowsByRecord() throws Exception {
+        GenericFormDataExtractor extractor = extractor();
+
+        Map<String, Map<String, Object>> records = new LinkedHashMap<>();
+        extractor.extractAll(Arrays.asList("R1", "R2", "MISSING", "R3"), 2, records::put);
+
+        assertEquals(Arrays.asList("R1", "R2", "MISSING", "R3"), new ArrayList<>(records.keySet()));
+        assertEquals(1, records.get("MISSING").size());
+
+        Map<String, Object> r2 = records.get("R2");
+        assertEquals("NID-R2", ((Map<?, ?>) r2.get("farmerBasicInfo")).get("national_id"));
+        List<?> members = (List<?>) r2.get("householdMembers");
+        assertEquals(2, members.size());
+        // Household members hang off the household section's UUID, not the record ID
+        assertEquals("HH-R2", ((Map<?, ?>) members.get(0)).get("farmer_id"));
+        assertEquals(2, ((List<?>) r2.get("cropManagement")).size());
+
+        // Two chunks, each one joined query plus one query per grid table
+        assertEquals(8, queries.size());
+        assertTrue(queries.get(0).endsWith("WHERE p.id IN (?,?)"));
+    }
+
+    @Test
+    public void testSingleRecordUsesFixedNumberOfQueries() throws Exception {
+        Map<String, Object> record = extractor().extractAllFormData("R1");
+
+        assertEquals("NID-R1", ((Map<?, ?>) record.get("farmerBasicInfo")).get("national_id"));
+        assertEquals(4, queries.size());
+    }
+
+    @Test
+    public void testInterleavedPlansAreCompiledOnce() throws Exception {
+        ExtractionPlan farmers = new ExtractionPlan.Builder(null, "farms_registry")
+            .addSection("farmerBasicInfo", "farmer_basic_data", "household_data").build();
+        ExtractionPlan subsidies = new ExtractionPlan.Builder(null, "subsidy_application")
+            .addSection("applicant", "subsidy_applicant", "household_data").build();
+        JoinedFormDataLoader loader = new JoinedFormDataLoader(dataSource());
+
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(loader.load(farmers, "R" + i).getParentRow());
+            assertNotNull(loader.load(subsidies, "R" + i).getParentRow());
+        }
+
+        // Parent and section table of each plan, described on first use only
+        assertEquals(4, describes.size());
+        assertEquals(6, queries.size());
+    }
+
+    private GenericFormDataExtractor extractor() throws Exception {
+        YamlMetadataService metadataService = new YamlMetadataService();
+        metadataService.loadMetadata("farmers_registry");
+        GenericFormDataExtractor extractor = new GenericFormDataExtractor(metadataService, null);
+        extractor.setJoinedLoader(new JoinedFormDataLoader(dataSource()));
+        return extractor;
+    }
+
+    private DataSource dataSource() {
+        return proxy(DataSource.class, (ds, dsMethod, dsArgs) -> !"getConnection".equals(dsMethod.getName()) ? null :
+            proxy(Connection.class, (c, method, args) -> "prepareStatement".equals(method.getName())
+                ? statement((String) args[0]) : null));
+    }
+
+    private PreparedStatement statement(String sql) {
+        List<String> params = new ArrayList<>();
+        return proxy(PreparedStatement.class, (statement, method, args) -> {
+            if ("setString".equals(method.getName())) {
+                params.add((String) args[1]);
+            } else if ("executeQuery".equals(method.getName())) {
+                if (sql.contains("1=0")) {
+                    describes.add(sql);
+                    return resultSet(new ArrayList<>());
+                }
+                queries.add(sql);
+                return resultSet(sql.contains("LEFT JOIN") ? joinedRows(params) : gridRows(params));
+            }
+            return null;
+        });
+    }
+
+    private static List<List<String>> joinedRows(List<String> recordIds) {
+        List<List<String>> rows = new ArrayList<>();
+        for (String id : recordIds) {
+            if (id.equals("MISSING")) {
+                continue;
+            }
+            List<String> row = new ArrayList<>(Arrays.asList(id, "HH-" + id, null, null, null));
+            row.addAll(Arrays.asList("B-" + id, null, null, null, "NID-" + id));
+            for (int i = 1; i < SECTION_COUNT; i++) {
+                row.addAll(Arrays.asList(null, null, null, null, null));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<List<String>> gridRows(List<String> parentIds) {
+        List<List<String>> rows = new ArrayList<>();
+        for (String parentId : parentIds) {
+            rows.add(Arrays.asList("G1-" + parentId, null, parentId, "Member 1", null));
+            rows.add(Arrays.asList("G2-" + parentId, null, parentId, "Member 2", null));
+        }
+        return rows;
+    }
+
+    private static ResultSet resultSet(List<List<String>> rows) {
+        int[] position = {-1};
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (md, method, args) -> {
+            if ("getColumnCount".equals(method.getName())) {
+                return COLUMNS.size();
+            }
+            return "getColumnLabel".equals(method.getName()) ? COLUMNS.get((Integer) args[0] - 1) : null;
+        });
+        return proxy(ResultSet.class, (rs, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++position[0] < rows.size();
+                case "getMetaData":
+                    return metaData;
+                case "getString":
+                    return rows.get(position[0]).get((Integer) args[0] - 1);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JoinedFormDataLoaderTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
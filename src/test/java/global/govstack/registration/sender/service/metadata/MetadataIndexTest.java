@@ -0,0 +1,105 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the form structure index of a metadata snapshot
+ */
+public class MetadataIndexTest {
+
+    private static final String SERVICE_ID = "index_test_service";
+
+    private static final String SERVICE_YAML = "service:\n" +
+        "  id: " + SERVICE_ID + "\n" +
+        "formMappings:\n" +
+        "  memberForm:\n" +
+        "    fields:\n" +
+        "      - joget: member_name\n" +
+        "        govstack: name.text\n" +
+        "        transform: uppercase\n";
+
+    private static final String FORM_STRUCTURE_YAML = "forms:\n" +
+        "  farmerForm:\n" +
+        "    table_name: app_fd_farmer\n" +
+        "    grids:\n" +
+        "      - grid_id: members\n" +
+        "      - grid_id: members\n" +
+        "        foreign_key: ignored\n" +
+        "  otherForm:\n" +
+        "    grids:\n" +
+        "      - grid_id: members\n" +
+        "        foreign_key: farmer_id\n" +
+        "        sub_form_id: memberForm\n" +
+        "  memberForm:\n" +
+        "    table_name: app_fd_member\n" +
+        "    sections:\n" +
+        "      - fields:\n" +
+        "          - field_id: member_name\n" +
+        "            column: c_member_name\n" +
+        "      - fields:\n" +
+        "          - field_id: farmer_id\n" +
+        "            column: c_farmer_id\n" +
+        "          - field_id: farmer_id\n" +
+        "            column: c_duplicate\n";
+
+    @Test
+    public void testLookupsMatchFormStructure() throws Exception {
+        MetadataIndex index = compile().getIndex();
+
+        assertEquals("app_fd_member", index.getTableName("memberForm"));
+        assertNull(index.getTableName("otherForm"));
+        assertEquals(3, index.getStructureFields("memberForm").size());
+        assertTrue(index.getStructureFields("missingForm").isEmpty());
+
+        List<Map<String, Object>> merged = index.getMergedFields("memberForm");
+        assertEquals("name.text", merged.get(0).get("govstack"));
+        assertEquals("uppercase", merged.get(0).get("transform"));
+        assertEquals("c_member_name", merged.get(0).get("column"));
+        assertNull(merged.get(1).get("govstack"));
+
+        assertEquals("The first definition of a field wins", "c_farmer_id", index.getColumns("memberForm").get("farmer_id"));
+    }
+
+    @Test
+    public void testGridIsTakenFromFirstFormDefiningItsForeignKey() throws Exception {
+        MetadataIndex.Grid grid = compile().getIndex().getGrid("members");
+
+        assertNotNull(grid);
+        assertEquals("farmer_id", grid.getForeignKeyField());
+        assertEquals("memberForm", grid.getSubFormId());
+        assertNull(compile().getIndex().getGrid("missing"));
+    }
+
+    @Test
+    public void testIndexIsImmutable() throws Exception {
+        List<Map<String, Object>> merged = compile().getIndex().getMergedFields("memberForm");
+        try {
+            merged.get(0).put("govstack", "injected");
+            fail("Merged field definitions should be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testServiceResolvesGridForeignKeyThroughIndex() throws Exception {
+        YamlMetadataService service = new YamlMetadataService();
+        service.loadMetadata("farmers_registry");
+
+        assertEquals("c_farmer_id", service.getGridForeignKeyColumn("householdMembers", null));
+        assertNull(service.getGridForeignKeyColumn("noSuchGrid", null));
+        assertSame("Merged fields are built once per snapshot",
+            service.getMergedFieldMappings("farmerBasicInfo"), service.getMergedFieldMappings("farmerBasicInfo"));
+    }
+
+    private static ServiceMetadata compile() throws Exception {
+        return ServiceMetadata.compile(SERVICE_ID, SERVICE_YAML.getBytes(StandardCharsets.UTF_8),
+            FORM_STRUCTURE_YAML.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,88 @@
+package global.govstack.registration.sender.service.metadata;
+
+import global.govstack.registration.sender.exception.ConfigurationException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the process-wide compiled metadata registry
+ */
+public class MetadataRegistryTest {
+
+    private static final String SERVICE_ID = "farmers_registry";
+
+    @Test
+    public void testSnapshotIsSharedAcrossServiceInstances() throws Exception {
+        YamlMetadataService first = new YamlMetadataService();
+        first.loadMetadata(SERVICE_ID);
+
+        YamlMetadataService second = new YamlMetadataService();
+        second.loadMetadata(SERVICE_ID);
+
+        assertNotNull(first.getSnapshot());
+        assertSame("Unchanged resources should reuse the compiled snapshot",
+            first.getSnapshot(), second.getSnapshot());
+        assertSame(first.getFormMappings(), second.getFormMappings());
+        assertEquals("farms_registry", second.getParentTableName());
+    }
+
+    @Test
+    public void testBundledMetadataIsNotReadAgain() throws Exception {
+        YamlMetadataService service = new YamlMetadataService();
+        ServiceMetadata loaded = service.resolve(SERVICE_ID, null);
+
+        // The YAML is on the test classpath, so later loads skip reading it
+        assertSame(loaded, MetadataRegistry.getInstance().getBundled(SERVICE_ID));
+        assertSame(loaded, service.resolve(SERVICE_ID, null));
+    }
+
+    @Test
+    public void testSnapshotIsImmutable() throws Exception {
+        YamlMetadataService service = new YamlMetadataService();
+        service.loadMetadata(SERVICE_ID);
+
+        Map<String, Object> formMappings = service.getFormMappings();
+        try {
+            formMappings.put("injected", null);
+            fail("Form mappings should be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testChangedResourceIsRecompiled() throws Exception {
+        MetadataRegistry registry = MetadataRegistry.getInstance();
+        String serviceId = "registry_test_service";
+
+        ServiceMetadata v1 = registry.getOrCompile(serviceId, yaml(serviceId, "1.0"), null);
+        ServiceMetadata v1Again = registry.getOrCompile(serviceId, yaml(serviceId, "1.0"), null);
+        ServiceMetadata v2 = registry.getOrCompile(serviceId, yaml(serviceId, "2.0"), null);
+
+        assertSame(v1, v1Again);
+        assertNotSame(v1, v2);
+        assertEquals("2.0", v2.getServiceMetadata().get("version"));
+        assertSame(v2, registry.get(serviceId));
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testServiceIdMismatchIsRejected() throws Exception {
+        MetadataRegistry.getInstance().getOrCompile("other_service", yaml("registry_test_service", "1.0"), null);
+    }
+
+    private static byte[] yaml(String serviceId, String version) {
+        String content = "service:\n" +
+            "  id: " + serviceId + "\n" +
+            "  version: \"" + version + "\"\n" +
+            "formMappings:\n" +
+            "  basic:\n" +
+            "    fields:\n" +
+            "      - joget: name\n" +
+            "        govstack: name.text\n";
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,115 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for hot reloading of service metadata from the metadata directory
+ *
+ * Reloads are triggered directly rather than through file system events, whose delivery time
+ * depends on the platform's WatchService (polling every few seconds on macOS).
+ */
+public class MetadataWatcherTest {
+
+    private static final String SERVICE_ID = "watched_service";
+    private static final String SERVICE_FILE = SERVICE_ID + ".yml";
+
+    private Path directory;
+    private MetadataWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("metadata-watcher");
+        writeService("1.0");
+        watcher = new MetadataWatcher(directory, 50);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        watcher.close();
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testChangedFileIsSwappedIn() throws Exception {
+        ServiceMetadata v1 = watcher.current(SERVICE_ID);
+        assertNotNull(v1);
+        assertEquals("1.0", v1.getServiceMetadata().get("version"));
+        assertSame("Snapshot should be reused until the file changes", v1, watcher.current(SERVICE_ID));
+
+        // An event for unchanged content keeps the snapshot
+        watcher.reload(Set.of(SERVICE_FILE));
+        assertSame(v1, watcher.current(SERVICE_ID));
+
+        // The watcher thread may see the same change; either way the result is the new snapshot
+        writeService("2.0");
+        watcher.reload(Set.of(SERVICE_FILE));
+        ServiceMetadata v2 = watcher.current(SERVICE_ID);
+        assertEquals("2.0", v2.getServiceMetadata().get("version"));
+        assertEquals("1.0", v1.getServiceMetadata().get("version"));
+    }
+
+    @Test
+    public void testInvalidChangeKeepsPreviousSnapshot() throws Exception {
+        ServiceMetadata v1 = watcher.current(SERVICE_ID);
+
+        Files.write(directory.resolve(SERVICE_FILE), "service: [unclosed".getBytes(StandardCharsets.UTF_8));
+        watcher.reload(Set.of(SERVICE_FILE));
+        assertSame(v1, watcher.current(SERVICE_ID));
+
+        // A later valid change is still picked up
+        writeService("3.0");
+        watcher.reload(Set.of(SERVICE_FILE));
+        assertEquals("3.0", watcher.current(SERVICE_ID).getServiceMetadata().get("version"));
+    }
+
+    @Test
+    public void testFormStructureChangeReloadsAndRemovedOverrideFallsBack() throws Exception {
+        ServiceMetadata v1 = watcher.current(SERVICE_ID);
+
+        writeService("4.0");
+        watcher.reload(Set.of(MetadataWatcher.FORM_STRUCTURE_FILE_NAME));
+        assertEquals("4.0", watcher.current(SERVICE_ID).getServiceMetadata().get("version"));
+        assertNotSame(v1, watcher.current(SERVICE_ID));
+
+        Files.delete(directory.resolve(SERVICE_FILE));
+        watcher.reload(Set.of(SERVICE_FILE));
+        assertNull(watcher.current(SERVICE_ID));
+    }
+
+    @Test
+    public void testServiceWithoutOverrideUsesBundledMetadata() throws Exception {
+        assertNull(watcher.current("farmers_registry"));
+
+        YamlMetadataService service = new YamlMetadataService();
+        service.loadMetadata("farmers_registry", watcher);
+        assertEquals("farmers_registry", service.getServiceId());
+
+        service.loadMetadata(SERVICE_ID, watcher);
+        assertSame(watcher.current(SERVICE_ID), service.getSnapshot());
+    }
+
+    private void writeService(String version) throws Exception {
+        String content = "service:\n" +
+            "  id: " + SERVICE_ID + "\n" +
+            "  version: \"" + version + "\"\n" +
+            "formMappings:\n" +
+            "  basic:\n" +
+            "    fields:\n" +
+            "      - joget: name\n" +
+            "        govstack: name.text\n";
+        Files.write(directory.resolve(SERVICE_FILE), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,97 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRow;
+import org.joget.apps.form.model.FormRowSet;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for concurrent section and grid lookups
+ */
+public class ParallelExtractionTest {
+
+    @Test
+    public void testParallelExtractionMatchesSequential() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            GenericFormDataExtractor sequential = extractor(slowDao(40));
+            long start = System.nanoTime();
+            Map<String, Object> expected = sequential.extractAllFormData("REC-1");
+            long sequentialMs = (System.nanoTime() - start) / 1_000_000;
+
+            GenericFormDataExtractor parallel = extractor(slowDao(40));
+            parallel.setParallelExtraction(executor, 5000);
+            start = System.nanoTime();
+            Map<String, Object> actual = parallel.extractAllFormData("REC-1");
+            long parallelMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue(expected.containsKey("farmerBasicInfo"));
+            assertTrue(expected.containsKey("householdMembers"));
+            assertEquals(expected, actual);
+            assertTrue("parallel " + parallelMs + "ms vs sequential " + sequentialMs + "ms",
+                parallelMs < sequentialMs / 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRecordTimingOutYieldsNoData() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            GenericFormDataExtractor extractor = extractor(slowDao(300));
+            extractor.setParallelExtraction(executor, 100);
+
+            assertTrue(extractor.extractAllFormData("REC-1").isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static GenericFormDataExtractor extractor(FormDataDao dao) throws Exception {
+        YamlMetadataService metadataService = new YamlMetadataService();
+        metadataService.loadMetadata("farmers_registry");
+        return new GenericFormDataExtractor(metadataService, dao);
+    }
+
+    /**
+     * DAO answering every section and grid lookup after a fixed delay; the parent row is immediate
+     */
+    private static FormDataDao slowDao(long delayMs) {
+        return (FormDataDao) Proxy.newProxyInstance(FormDataDao.class.getClassLoader(), new Class<?>[]{FormDataDao.class},
+            (proxy, method, args) -> {
+                if ("loadByTableNameAndColumnName".equals(method.getName())) {
+                    FormRow row = new FormRow();
+                    if ("farms_registry".equals(args[0])) {
+                        row.setProperty("id", (String) args[2]);
+                        for (String reference : new String[]{"basic_data", "location_data", "activities_data",
+                                "crops_livestock", "household_data", "income_data", "declaration"}) {
+                            row.setProperty("c_" + reference, reference + "-uuid");
+                        }
+                        return row;
+                    }
+                    Thread.sleep(delayMs);
+                    row.setProperty("id", (String) args[2]);
+                    row.setProperty("national_id", "NID-1");
+                    row.setProperty("first_name", "Thabo");
+                    return row;
+                }
+                if ("find".equals(method.getName())) {
+                    Thread.sleep(delayMs);
+                    FormRowSet rows = new FormRowSet();
+                    FormRow row = new FormRow();
+                    row.setProperty("memberName", "Lerato");
+                    rows.add(row);
+                    return rows;
+                }
+                return null;
+            });
+    }
+}
@@ -0,0 +1,98 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the binary precompiled form of service metadata
+ */
+public class PrecompiledMetadataTest {
+
+    private static final String SERVICE_ID = "farmers_registry";
+
+    @Test
+    public void testRoundTripMatchesYamlCompile() throws Exception {
+        ServiceMetadata compiled = compileBundled();
+
+        ServiceMetadata decoded = PrecompiledMetadata.decode(
+            ByteBuffer.wrap(PrecompiledMetadata.encode(compiled)), SERVICE_ID, compiled.getChecksum());
+
+        assertNotNull(decoded);
+        assertEquals(compiled.getChecksum(), decoded.getChecksum());
+        assertEquals(compiled.getServiceMetadata(), decoded.getServiceMetadata());
+        assertEquals(compiled.getFormMappings(), decoded.getFormMappings());
+        assertEquals(compiled.getFormStructureData(), decoded.getFormStructureData());
+        assertEquals(compiled.getIndex().getMergedFields("farmerBasicInfo"),
+            decoded.getIndex().getMergedFields("farmerBasicInfo"));
+        assertEquals(compiled.getIndex().getTableName("farmerBasicInfo"),
+            decoded.getIndex().getTableName("farmerBasicInfo"));
+    }
+
+    @Test
+    public void testStaleOrDamagedFileIsIgnored() throws Exception {
+        ServiceMetadata compiled = compileBundled();
+        byte[] file = PrecompiledMetadata.encode(compiled);
+
+        assertNull("Stale checksum", PrecompiledMetadata.decode(ByteBuffer.wrap(file), SERVICE_ID, compiled.getChecksum() + 1));
+        assertNull("Other service", PrecompiledMetadata.decode(ByteBuffer.wrap(file), "other_service", compiled.getChecksum()));
+
+        byte[] damaged = file.clone();
+        damaged[damaged.length / 2] ^= 0x40;
+        assertNull("CRC mismatch", PrecompiledMetadata.decode(ByteBuffer.wrap(damaged), SERVICE_ID, compiled.getChecksum()));
+
+        byte[] badMagic = file.clone();
+        badMagic[0] = 'X';
+        assertNull("Bad magic", PrecompiledMetadata.decode(ByteBuffer.wrap(badMagic), SERVICE_ID, compiled.getChecksum()));
+
+        assertNull("Truncated", PrecompiledMetadata.decode(ByteBuffer.wrap(file, 0, 10), SERVICE_ID, compiled.getChecksum()));
+    }
+
+    @Test
+    public void testRegistryUsesPrecompiledFileOnlyWhenCurrent() throws Exception {
+        String serviceId = "precompiled_service";
+        byte[] serviceYaml = ("service:\n" +
+            "  id: " + serviceId + "\n" +
+            "  version: \"1.0\"\n" +
+            "formMappings:\n" +
+            "  basic:\n" +
+            "    fields:\n" +
+            "      - joget: name\n" +
+            "        govstack: name.text\n").getBytes(StandardCharsets.UTF_8);
+        ServiceMetadata compiled = ServiceMetadata.compile(serviceId, serviceYaml, null);
+        byte[] file = PrecompiledMetadata.encode(compiled);
+
+        MetadataRegistry registry = MetadataRegistry.getInstance();
+        AtomicInteger reads = new AtomicInteger();
+        ServiceMetadata loaded = registry.getOrCompile(serviceId, serviceYaml, null, () -> {
+            reads.incrementAndGet();
+            return ByteBuffer.wrap(file);
+        });
+        assertEquals(compiled.getFormMappings(), loaded.getFormMappings());
+        assertSame("Cached snapshot is reused without reading the file again",
+            loaded, registry.getOrCompile(serviceId, serviceYaml, null, () -> ByteBuffer.wrap(file)));
+        assertEquals(1, reads.get());
+
+        // Changed YAML: the stale file is ignored and the YAML compiled
+        byte[] changedYaml = new String(serviceYaml, StandardCharsets.UTF_8).replace("1.0", "2.0")
+            .getBytes(StandardCharsets.UTF_8);
+        ServiceMetadata recompiled = registry.getOrCompile(serviceId, changedYaml, null, () -> ByteBuffer.wrap(file));
+        assertEquals("2.0", recompiled.getServiceMetadata().get("version"));
+    }
+
+    private static ServiceMetadata compileBundled() throws Exception {
+        return ServiceMetadata.compile(SERVICE_ID, resource(SERVICE_ID + ".yml"), resource("form_structure.yaml"));
+    }
+
+    private static byte[] resource(String name) throws Exception {
+        try (InputStream in = PrecompiledMetadataTest.class.getClassLoader()
+                .getResourceAsStream(YamlMetadataService.METADATA_DIR + name)) {
+            return in.readAllBytes();
+        }
+    }
+}
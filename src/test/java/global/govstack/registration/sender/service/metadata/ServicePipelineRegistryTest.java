@@ -0,0 +1,109 @@
+package global.govstack.registration.sender.service.metadata;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the per-service extractor and encoder pipelines
+ */
+public class ServicePipelineRegistryTest {
+
+    private static final ServicePipeline.Settings SETTINGS = new ServicePipeline.Settings("", 8, 30000);
+
+    private Path directory;
+    private MetadataWatcher watcher;
+    private ServicePipelineRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("service-pipelines");
+        writeService("subsidy_service", "1.0");
+        watcher = new MetadataWatcher(directory, 50);
+        registry = new ServicePipelineRegistry(metadataService -> new GenericFormDataExtractor(metadataService, null));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        watcher.close();
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testServicesGetSeparatePipelines() throws Exception {
+        ServicePipeline farmers = registry.get("farmers_registry", SETTINGS, watcher);
+        ServicePipeline subsidy = registry.get("subsidy_service", SETTINGS, watcher);
+
+        assertEquals("farmers_registry", farmers.getMetadataService().getServiceId());
+        assertEquals("subsidy_service", subsidy.getMetadataService().getServiceId());
+        assertSame(farmers, registry.get("farmers_registry", SETTINGS, watcher));
+        assertSame("Loading another service must not touch the first one's metadata",
+            farmers.getSnapshot(), farmers.getMetadataService().getSnapshot());
+        assertNotSame(farmers, registry.get("farmers_registry", new ServicePipeline.Settings("", 8, 1000), watcher));
+    }
+
+    @Test
+    public void testConcurrentMixedServicesShareOnePipelineEach() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ServicePipeline>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String serviceId = i % 2 == 0 ? "farmers_registry" : "subsidy_service";
+                results.add(executor.submit((Callable<ServicePipeline>) () -> registry.get(serviceId, SETTINGS, watcher)));
+            }
+            for (Future<ServicePipeline> result : results) {
+                ServicePipeline pipeline = result.get();
+                assertEquals(pipeline.getServiceId(), pipeline.getMetadataService().getServiceId());
+                assertSame(registry.get(pipeline.getServiceId(), SETTINGS, watcher), pipeline);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testChangedMetadataBuildsNewPipeline() throws Exception {
+        ServicePipeline v1 = registry.get("subsidy_service", SETTINGS, watcher);
+
+        writeService("subsidy_service", "2.0");
+        long deadline = System.currentTimeMillis() + 10000;
+        ServicePipeline v2 = v1;
+        while (v2 == v1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            v2 = registry.get("subsidy_service", SETTINGS, watcher);
+        }
+
+        assertNotSame(v1, v2);
+        assertEquals("2.0", v2.getMetadataService().getServiceMetadata().get("version"));
+        assertEquals("Executions holding the old pipeline keep its metadata",
+            "1.0", v1.getMetadataService().getServiceMetadata().get("version"));
+    }
+
+    private void writeService(String serviceId, String version) throws Exception {
+        String content = "service:\n" +
+            "  id: " + serviceId + "\n" +
+            "  version: \"" + version + "\"\n" +
+            "formMappings:\n" +
+            "  basic:\n" +
+            "    fields:\n" +
+            "      - joget: name\n" +
+            "        govstack: name.text\n";
+        Files.write(directory.resolve(serviceId + ".yml"), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
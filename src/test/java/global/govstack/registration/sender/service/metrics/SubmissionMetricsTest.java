@@ -0,0 +1,106 @@
+package global.govstack.registration.sender.service.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.transport.HttpTransport;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for pipeline metrics
+ */
+public class SubmissionMetricsTest {
+
+    @Test
+    public void testHistogramPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+        histogram.record(-5);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_001, snapshot.getCount());
+        assertEquals(10_000_000, snapshot.getMax());
+        assertEquals(0, snapshot.getValueAtPercentile(0));
+        assertEquals(5_000_000, snapshot.getValueAtPercentile(50), 5_000_000 * 0.04);
+        assertEquals(9_900_000, snapshot.getValueAtPercentile(99), 9_900_000 * 0.04);
+        assertEquals(10_000_000, snapshot.getValueAtPercentile(100));
+
+        for (long value : new long[] {0, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value + " above its bucket", value <= LatencyHistogram.bucketHighestValue(index));
+            assertTrue(value + " below its bucket", index == 0 || value > LatencyHistogram.bucketHighestValue(index - 1));
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testApiClientRecordsRequestsAndOutcomes() throws Exception {
+        SubmissionMetrics metrics = SubmissionMetrics.shared();
+        long sent = metrics.getRecordsSent();
+        long failed = metrics.getRecordsFailed();
+        long bytes = metrics.getBytesSent();
+        long transportErrors = metrics.getTransportErrors();
+        long sends = metrics.getHistogram(SubmissionMetrics.Stage.SEND).snapshot().getCount();
+
+        AtomicInteger calls = new AtomicInteger();
+        HttpTransport transport = (url, headers, body, readTimeoutMs) -> {
+            switch (calls.incrementAndGet()) {
+                case 1:
+                    return new HttpTransport.Response(201, "{\"success\":true}");
+                case 2:
+                    return new HttpTransport.Response(503, "{\"success\":false}");
+                default:
+                    throw new IOException("Connection refused");
+            }
+        };
+        GovStackApiClient client = new GovStackApiClient("http://localhost/jw/api/API-1/services/test/applications",
+            "API-1", "", transport);
+
+        assertTrue(client.sendToGovStack("{\"id\":\"1\"}").isSuccess());
+        assertFalse(client.sendToGovStack("{\"id\":\"2\"}").isSuccess());
+        assertEquals(2, client.sendBatchToGovStack("[{\"id\":\"3\"},{\"id\":\"4\"}]", 2).size());
+
+        assertEquals(sent + 1, metrics.getRecordsSent());
+        assertEquals(failed + 3, metrics.getRecordsFailed());
+        // The batch got no response, so its body is not counted
+        assertEquals(bytes + 10 + 10, metrics.getBytesSent());
+        assertEquals(transportErrors + 1, metrics.getTransportErrors());
+        assertEquals(sends + 3, metrics.getHistogram(SubmissionMetrics.Stage.SEND).snapshot().getCount());
+
+        JsonNode json = new ObjectMapper().readTree(metrics.getSnapshotJson());
+        assertTrue(json.path("http").path("2xx").asLong() >= 1);
+        assertTrue(json.path("http").path("5xx").asLong() >= 1);
+        assertTrue(json.path("latencyMillis").path("send").path("count").asLong() >= 3);
+        assertTrue(json.path("latencyMillis").has("extract"));
+    }
+
+    @Test
+    public void testMBeanRegistration() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SubmissionMetrics.OBJECT_NAME);
+
+        SubmissionMetrics.registerMBean();
+        // Registering again replaces the previous registration
+        SubmissionMetrics.registerMBean();
+        try {
+            assertTrue(server.isRegistered(name));
+            assertNotNull(server.getAttribute(name, "SnapshotJson"));
+        } finally {
+            SubmissionMetrics.unregisterMBean();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,128 @@
+package global.govstack.registration.sender.service.outbox;
+
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.metrics.SubmissionMetrics;
+import global.govstack.registration.sender.service.transport.HttpTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for outbox retry and recovery behaviour
+ */
+public class DurableOutboxTest {
+
+    private static final String DESTINATION = DurableOutbox.destinationKey("http://localhost/api", "API-1");
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("outbox-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testFailedDeliveryIsRetriedUntilAccepted() throws Exception {
+        SubmissionMetrics metrics = SubmissionMetrics.shared();
+        long sent = metrics.getRecordsSent();
+        long failed = metrics.getRecordsFailed();
+        long retries = metrics.getRetries();
+
+        AtomicInteger calls = new AtomicInteger();
+        HttpTransport flaky = (url, headers, body, readTimeoutMs) -> calls.incrementAndGet() < 3
+            ? new HttpTransport.Response(503, "{\"success\":false,\"message\":\"Unavailable\"}")
+            : new HttpTransport.Response(200, "{\"success\":true,\"applicationId\":\"APP-1\"}");
+
+        DurableOutbox outbox = new DurableOutbox(OutboxLog.open(directory, 1024 * 1024), 10, 50);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<GovStackApiClient.ApiResponse> outcome = new AtomicReference<>();
+        outbox.setCompletionListener((entry, response) -> {
+            outcome.set(response);
+            done.countDown();
+        });
+        outbox.registerDestination(DESTINATION, client(flaky), true, 5);
+
+        OutboxEntry entry = outbox.append(DESTINATION, "rec-1", "proc-1", "{}");
+        assertFalse(outbox.deliver(entry).isSuccess());
+        assertFalse(entry.isCompleted());
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(outcome.get().isSuccess());
+        assertEquals(3, calls.get());
+        assertEquals(0, outbox.getPendingCount());
+
+        // One record, sent on its third attempt
+        assertEquals(sent + 1, metrics.getRecordsSent());
+        assertEquals(failed, metrics.getRecordsFailed());
+        assertEquals(retries + 2, metrics.getRetries());
+        outbox.shutdown();
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        HttpTransport rejecting = (url, headers, body, readTimeoutMs) -> {
+            calls.incrementAndGet();
+            return new HttpTransport.Response(400, "{\"success\":false,\"message\":\"Invalid\"}");
+        };
+
+        DurableOutbox outbox = new DurableOutbox(OutboxLog.open(directory, 1024 * 1024), 10, 50);
+        outbox.registerDestination(DESTINATION, client(rejecting), true, 5);
+
+        OutboxEntry entry = outbox.append(DESTINATION, "rec-1", null, "{}");
+        assertFalse(outbox.deliver(entry).isSuccess());
+        assertTrue(entry.isCompleted());
+        assertEquals(1, calls.get());
+        outbox.shutdown();
+    }
+
+    @Test
+    public void testRecoveredEntriesAreSentOnceDestinationRegisters() throws Exception {
+        DurableOutbox first = new DurableOutbox(OutboxLog.open(directory, 1024 * 1024), 10, 50);
+        first.append(DESTINATION, "rec-1", null, "{\"id\":\"rec-1\"}");
+        first.shutdown();
+
+        CountDownLatch sent = new CountDownLatch(1);
+        HttpTransport accepting = (url, headers, body, readTimeoutMs) -> {
+            sent.countDown();
+            return new HttpTransport.Response(200, "{\"success\":true}");
+        };
+
+        DurableOutbox restarted = new DurableOutbox(OutboxLog.open(directory, 1024 * 1024), 10, 50);
+        assertEquals(1, restarted.getPendingCount());
+        restarted.registerDestination(DESTINATION, client(accepting), true, 3);
+
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (restarted.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, restarted.getPendingCount());
+        restarted.shutdown();
+    }
+
+    private static GovStackApiClient client(HttpTransport transport) {
+        return new GovStackApiClient("http://localhost/api", "API-1", "", transport);
+    }
+}
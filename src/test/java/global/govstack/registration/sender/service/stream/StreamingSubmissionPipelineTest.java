@@ -0,0 +1,129 @@
+package global.govstack.registration.sender.service.stream;
+
+import global.govstack.registration.sender.exception.RegistrationException;
+import global.govstack.registration.sender.service.GovStackApiClient;
+import global.govstack.registration.sender.service.metadata.GenericFormDataExtractor;
+import global.govstack.registration.sender.service.metadata.GovStackJsonEncoder;
+import global.govstack.registration.sender.service.metadata.YamlMetadataService;
+import global.govstack.registration.sender.service.transport.HttpTransport;
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRow;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for bounded, back-pressured streaming of records to the API
+ */
+public class StreamingSubmissionPipelineTest {
+
+    @Test
+    public void testExtractionIsThrottledToTheInFlightLimit() throws Exception {
+        AtomicInteger extracted = new AtomicInteger();
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        Set<String> bodies = ConcurrentHashMap.newKeySet();
+
+        HttpTransport slow = (url, headers, body, readTimeoutMs) -> {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            bodies.add(new String(body, StandardCharsets.UTF_8));
+            sent.incrementAndGet();
+            return new HttpTransport.Response(200, "{\"success\":true}");
+        };
+        FormDataDao dao = parentOnlyDao(() -> {
+            int outstanding = extracted.incrementAndGet() - sent.get();
+            maxOutstanding.accumulateAndGet(outstanding, Math::max);
+        });
+
+        GovStackJsonEncoder encoder = new GovStackJsonEncoder(metadataService());
+        StreamingSubmissionPipeline pipeline = new StreamingSubmissionPipeline(extractor(dao),
+            (id, formData, body) -> assertTrue(encoder.writeGovStackJson(formData, body, false)),
+            client(slow), 2, 5);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            ids.add("REC-" + i);
+        }
+        StreamingSubmissionPipeline.Result result = pipeline.run(ids, 50, null);
+
+        assertTrue(result.isSuccess());
+        assertEquals(200, result.getSucceeded());
+        assertEquals(200, bodies.size());
+        assertTrue(bodies.iterator().next().startsWith("{"));
+        // Queue capacity, one record per worker and the one being handed over
+        assertTrue("outstanding " + maxOutstanding.get(), maxOutstanding.get() <= 5 + 2 + 1);
+    }
+
+    @Test
+    public void testFailuresAreReportedPerRecord() throws Exception {
+        HttpTransport transport = (url, headers, body, readTimeoutMs) -> {
+            String json = new String(body, StandardCharsets.UTF_8);
+            return json.contains("REC-2")
+                ? new HttpTransport.Response(400, "{\"success\":false,\"message\":\"Rejected\"}")
+                : new HttpTransport.Response(200, "{\"success\":true}");
+        };
+
+        List<String> outcomes = new ArrayList<>();
+        StreamingSubmissionPipeline pipeline = new StreamingSubmissionPipeline(extractor(parentOnlyDao(() -> { })),
+            (id, formData, body) -> {
+                if ("REC-3".equals(id)) {
+                    throw new RegistrationException("Data validation failed");
+                }
+                body.write(("{\"id\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8));
+            },
+            client(transport), 1, 2);
+
+        StreamingSubmissionPipeline.Result result = pipeline.run(List.of("REC-1", "REC-2", "REC-3", "REC-1"), 10,
+            (id, response) -> outcomes.add(id + "=" + response.isSuccess()));
+
+        assertFalse(result.isSuccess());
+        assertEquals(3, result.getTotal());
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of("REC-1=true", "REC-2=false", "REC-3=false"), outcomes);
+        assertEquals("REC-2: Rejected", result.getFailures().get(0));
+        assertEquals("REC-3: Data validation failed", result.getFailures().get(1));
+    }
+
+    private static YamlMetadataService metadataService() throws Exception {
+        YamlMetadataService metadataService = new YamlMetadataService();
+        metadataService.loadMetadata("farmers_registry");
+        return metadataService;
+    }
+
+    private static GenericFormDataExtractor extractor(FormDataDao dao) throws Exception {
+        return new GenericFormDataExtractor(metadataService(), dao);
+    }
+
+    private static GovStackApiClient client(HttpTransport transport) {
+        return new GovStackApiClient("http://localhost/jw/api/API-1/services/test/applications", "API-1", "", transport);
+    }
+
+    /**
+     * DAO returning a parent row without section references, calling back on each parent lookup
+     */
+    private static FormDataDao parentOnlyDao(Runnable onParentLoaded) {
+        return (FormDataDao) Proxy.newProxyInstance(FormDataDao.class.getClassLoader(), new Class<?>[]{FormDataDao.class},
+            (proxy, method, args) -> {
+                if ("loadByTableNameAndColumnName".equals(method.getName()) && "farms_registry".equals(args[0])) {
+                    onParentLoaded.run();
+                    FormRow row = new FormRow();
+                    row.setProperty("id", (String) args[2]);
+                    return row;
+                }
+                return null;
+            });
+    }
+}
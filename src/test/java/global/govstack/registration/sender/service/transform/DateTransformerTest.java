@@ -0,0 +1,73 @@
+package global.govstack.registration.sender.service.transform;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for date conversion between Joget and GovStack formats
+ */
+public class DateTransformerTest {
+
+    private final DateTransformer transformer = new DateTransformer();
+
+    @Test
+    public void testEncode() {
+        assertEquals("1980-02-29T00:00:00Z", transformer.encode("1980-02-29", "date"));
+        assertEquals("1980-02-29T00:00:00Z", transformer.encode(" 1980-02-29 ", "date"));
+        // Invalid yyyy-MM-dd dates are passed through unchanged
+        assertEquals("1981-02-29", transformer.encode("1981-02-29", "date"));
+        // Lenient fallback for other Joget shapes
+        assertEquals("2023-02-05T00:00:00Z", transformer.encode("2023-2-5", "date"));
+        assertEquals("2023-02-01T00:00:00Z", transformer.encode("2023-1-32", "date"));
+        assertEquals("2023/01/05", transformer.encode("2023/01/05", "date"));
+        assertEquals("2023-01-05T10:00:00Z", transformer.encode("2023-01-05T10:00:00Z", "date"));
+        assertNull(transformer.encode(" ", "date"));
+    }
+
+    @Test
+    public void testDecode() {
+        assertEquals("2023-01-05", transformer.decode("2023-01-05T10:00:00Z", "date"));
+        assertEquals("2023-01-05", transformer.decode("2023-01-05T10:00:00.123+02:00", "date"));
+        assertEquals("2023-01-05", transformer.decode("2023-01-05T10:00", "date"));
+        // Negative offsets are not stripped and go through java.time
+        assertEquals("2023-01-05", transformer.decode("2023-01-05T10:00:00-05:00", "date"));
+        assertEquals("2023-02-30T10:00:00", transformer.decode("2023-02-30T10:00:00Z", "date"));
+        assertEquals("2023-01-05", transformer.decode("2023-01-05", "date"));
+        assertEquals("05/01/2023", transformer.decode("05/01/2023", "date"));
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        int day = 1 + (i + offset) % 28;
+                        String date = String.format("19%02d-%02d-%02d", i % 100, 1 + i % 12, day);
+                        if (!(date + "T00:00:00Z").equals(transformer.encode(date, "date"))
+                                || !date.equals(transformer.decode(date + "T00:00:00Z", "date"))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
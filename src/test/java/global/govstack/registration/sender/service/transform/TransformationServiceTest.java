@@ -0,0 +1,64 @@
+package global.govstack.registration.sender.service.transform;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for resolving transformation types to transformers
+ */
+public class TransformationServiceTest {
+
+    @Test
+    public void testDeclaredTypesResolveIgnoringCase() {
+        TransformationService service = new TransformationService();
+
+        assertTrue(service.getTransformer("yesNoBoolean") instanceof BooleanTransformer);
+        assertTrue(service.getTransformer("YESNOBOOLEAN") instanceof BooleanTransformer);
+        assertTrue(service.getTransformer("date_ISO8601") instanceof DateTransformer);
+        assertTrue(service.getTransformer("decimal") instanceof NumericTransformer);
+        assertTrue(service.getTransformer("multiCheckbox") instanceof MultiCheckboxTransformer);
+        assertNull(service.getTransformer(" "));
+        assertNull(service.getTransformer(null));
+        assertEquals(Boolean.TRUE, service.encode("yes", "Boolean"));
+    }
+
+    @Test
+    public void testCustomTransformerIsAskedOncePerType() {
+        TransformationService service = new TransformationService();
+        assertNull(service.getTransformer("upper"));
+        assertFalse(service.isTransformationSupported("upper"));
+
+        AtomicInteger supportsCalls = new AtomicInteger();
+        DataTransformer upper = new DataTransformer() {
+            @Override
+            public Object encode(Object jogetValue, String transformType) {
+                return jogetValue.toString().toUpperCase();
+            }
+
+            @Override
+            public Object decode(Object govstackValue, String transformType) {
+                return govstackValue.toString().toLowerCase();
+            }
+
+            @Override
+            public boolean supports(String transformType) {
+                supportsCalls.incrementAndGet();
+                return "upper".equals(transformType);
+            }
+        };
+
+        // Registering drops the cached negative entry
+        service.registerTransformer(upper);
+        assertEquals("ABC", service.encode("abc", "upper"));
+        assertEquals("abc", service.decode("ABC", "upper"));
+        assertSame(upper, service.getTransformer("upper"));
+        assertEquals(1, supportsCalls.get());
+
+        // Types declared by the defaults never reach the custom transformer
+        assertTrue(service.getTransformer("bool") instanceof BooleanTransformer);
+        assertEquals(1, supportsCalls.get());
+    }
+}
@@ -0,0 +1,83 @@
+package global.govstack.registration.sender.service.transform;
+
+import global.govstack.registration.sender.service.metadata.EncodingPlan;
+import global.govstack.registration.sender.service.metadata.ServiceMetadata;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for compiled value mappings
+ */
+public class ValueMappingTableTest {
+
+    @Test
+    public void testLookupInBothDirections() {
+        Map<Object, Object> mapping = new LinkedHashMap<>();
+        mapping.put("1", "male");
+        mapping.put("M", "male");
+        mapping.put("2", "female");
+        mapping.put(3, "other");
+        ValueMappingTable table = ValueMappingTable.compile(mapping);
+
+        assertEquals("male", table.encode("1"));
+        assertEquals("female", table.encode(2));
+        // Only string keys are matched when encoding
+        assertEquals("3", table.encode("3"));
+        assertEquals("unknown", table.encode("unknown"));
+
+        // The first key mapped to a value wins
+        assertEquals("1", table.decode("male"));
+        assertEquals(3, table.decode("other"));
+        assertEquals("unknown", table.decode("unknown"));
+
+        TransformationService service = new TransformationService();
+        assertEquals("2", service.applyValueMapping("female", table, "decode"));
+        assertEquals(Boolean.TRUE, service.applyValueMapping("yes", Map.of("yes", true), "encode"));
+    }
+
+    @Test
+    public void testSameMappingIsSharedAcrossFields() throws Exception {
+        String yaml = "service:\n  id: shared\n" +
+            "formMappings:\n" +
+            "  main:\n    fields:\n" +
+            "      - joget: relationship\n        govstack: extension.relationship\n" +
+            "        valueMapping:\n          \"1\": head\n          \"2\": spouse\n" +
+            "      - joget: consent\n        govstack: extension.consent\n" +
+            "        valueMapping:\n          \"yes\": true\n" +
+            "  members:\n    type: array\n    govstack: relatedPerson\n    fields:\n" +
+            "      - joget: relationship\n        govstack: relationship\n" +
+            "        valueMapping:\n          \"1\": head\n          \"2\": spouse\n";
+        ServiceMetadata snapshot = ServiceMetadata.compile("shared", yaml.getBytes(StandardCharsets.UTF_8), null);
+        EncodingPlan plan = EncodingPlan.compile(snapshot, new TransformationService());
+
+        EncodingPlan.FieldEncoding[] main = plan.getSections()[0].getFields();
+        EncodingPlan.FieldEncoding[] members = plan.getSections()[1].getFields();
+        assertSame(main[0].getValueMapping(), members[0].getValueMapping());
+        assertNotSame(main[0].getValueMapping(), main[1].getValueMapping());
+        assertEquals("spouse", members[0].encode("2"));
+    }
+
+    @Test
+    public void testMappingsInDifferentOrderAreNotShared() throws Exception {
+        String yaml = "service:\n  id: ordered\n" +
+            "formMappings:\n" +
+            "  main:\n    fields:\n" +
+            "      - joget: gender\n        govstack: gender\n" +
+            "        valueMapping:\n          \"1\": male\n          \"M\": male\n" +
+            "      - joget: sex\n        govstack: extension.sex\n" +
+            "        valueMapping:\n          \"M\": male\n          \"1\": male\n";
+        ServiceMetadata snapshot = ServiceMetadata.compile("ordered", yaml.getBytes(StandardCharsets.UTF_8), null);
+        EncodingPlan plan = EncodingPlan.compile(snapshot, new TransformationService());
+
+        EncodingPlan.FieldEncoding[] fields = plan.getSections()[0].getFields();
+        assertNotSame(fields[0].getValueMapping(), fields[1].getValueMapping());
+        // Each field decodes to the first key of its own configuration
+        assertEquals("1", fields[0].getValueMapping().decode("male"));
+        assertEquals("M", fields[1].getValueMapping().decode("male"));
+    }
+}
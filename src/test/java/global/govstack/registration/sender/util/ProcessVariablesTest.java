@@ -0,0 +1,89 @@
+package global.govstack.registration.sender.util;
+
+import org.joget.workflow.model.WorkflowVariable;
+import org.joget.workflow.model.service.WorkflowManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the per-execution snapshot of workflow process variables
+ */
+public class ProcessVariablesTest {
+
+    private static final String PROCESS_ID = "process-1";
+
+    private final List<String> calls = new ArrayList<>();
+    private WorkflowManager workflowManager;
+
+    @Before
+    public void setUp() {
+        // Only the methods used by the snapshot are answered; anything else fails the test
+        workflowManager = (WorkflowManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{WorkflowManager.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getProcessVariableList":
+                        calls.add("list");
+                        return Arrays.asList(variable("recordId", "REC-1"), variable("serviceId", "farmers_registry"),
+                            variable("submissionStatus", null));
+                    case "processVariable":
+                        calls.add("write " + args[1] + "=" + args[2]);
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+    @Test
+    public void testLookupsAreServedFromOneRead() {
+        ProcessVariables variables = ProcessVariables.load(workflowManager, PROCESS_ID);
+
+        assertEquals("REC-1", variables.get("recordId"));
+        assertEquals("farmers_registry", variables.get("serviceId"));
+        assertNull(variables.get("formRecordId"));
+        assertEquals(3, variables.getVariables().size());
+        assertEquals(Collections.singletonList("list"), calls);
+    }
+
+    @Test
+    public void testWritesSkipValuesAlreadyHeld() {
+        ProcessVariables variables = ProcessVariables.load(workflowManager, PROCESS_ID);
+
+        assertEquals(1, variables.write(workflowManager, Collections.singletonMap("submissionStatus", "queued")));
+
+        Map<String, String> updates = new LinkedHashMap<>();
+        updates.put("submissionStatus", "success");
+        updates.put("applicationId", "APP-7");
+        updates.put("recordId", "REC-1");
+        assertEquals(2, variables.write(workflowManager, updates));
+        assertEquals("Nothing changed, nothing written", 0, variables.write(workflowManager, updates));
+
+        assertEquals(Arrays.asList("list", "write submissionStatus=queued", "write submissionStatus=success",
+            "write applicationId=APP-7"), calls);
+    }
+
+    @Test
+    public void testUnloadedSnapshotWritesEverything() {
+        ProcessVariables variables = ProcessVariables.unloaded(PROCESS_ID);
+
+        assertEquals(1, variables.write(workflowManager, Collections.singletonMap("applicationId", null)));
+        assertEquals(Collections.singletonList("write applicationId=null"), calls);
+    }
+
+    private static WorkflowVariable variable(String id, Object value) {
+        WorkflowVariable variable = new WorkflowVariable();
+        variable.setId(id);
+        variable.setVal(value);
+        return variable;
+    }
+}
@@ -0,0 +1,114 @@
+package global.govstack.registration.sender.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for request-scoped submission logging
+ */
+public class SubmissionLogTest {
+
+    @Test
+    public void testLevelFromProperty() {
+        assertEquals(SubmissionLog.Level.DEBUG, SubmissionLog.Level.fromProperty("DEBUG"));
+        assertEquals(SubmissionLog.Level.WARN, SubmissionLog.Level.fromProperty(" warn "));
+        assertEquals(SubmissionLog.Level.INFO, SubmissionLog.Level.fromProperty(""));
+        assertEquals(SubmissionLog.Level.INFO, SubmissionLog.Level.fromProperty("verbose"));
+        assertEquals(SubmissionLog.Level.INFO, SubmissionLog.Level.fromProperty(null));
+    }
+
+    @Test
+    public void testMessagesAreOnlyBuiltWhenEnabled() {
+        AtomicInteger built = new AtomicInteger();
+
+        // Outside a scope the level is INFO
+        SubmissionLog.debug("test", () -> "debug " + built.incrementAndGet());
+        assertEquals(0, built.get());
+
+        try (SubmissionLog log = SubmissionLog.open("test", SubmissionLog.Level.WARN)) {
+            SubmissionLog.info("test", () -> "info " + built.incrementAndGet());
+            assertEquals(0, built.get());
+            assertTrue(SubmissionLog.isEnabled(SubmissionLog.Level.ERROR));
+        }
+
+        try (SubmissionLog log = SubmissionLog.open("test", SubmissionLog.Level.DEBUG)) {
+            SubmissionLog.debug("test", () -> "debug " + built.incrementAndGet());
+            assertEquals(1, built.get());
+        }
+        assertFalse(SubmissionLog.isEnabled(SubmissionLog.Level.DEBUG));
+    }
+
+    @Test
+    public void testSummaryGathersDetailsAndCounters() {
+        // Without a scope, details and counters are dropped
+        SubmissionLog.detail("record", "ignored");
+        SubmissionLog.count("fields");
+
+        try (SubmissionLog log = SubmissionLog.open("test", SubmissionLog.Level.INFO)) {
+            SubmissionLog.detail("record", "R1");
+            SubmissionLog.detail("status", 500);
+            SubmissionLog.detail("status", 201);
+            for (int i = 0; i < 12; i++) {
+                SubmissionLog.count("fields");
+            }
+            SubmissionLog.count("gridRows", 3);
+
+            String summary = log.summary();
+            assertTrue(summary, summary.startsWith("Submission record=R1 status=201 fields=12 gridRows=3 elapsedMs="));
+        }
+    }
+
+    @Test
+    public void testNestedScopeRestoresEnclosingOne() {
+        try (SubmissionLog outer = SubmissionLog.open("test", SubmissionLog.Level.INFO)) {
+            try (SubmissionLog inner = SubmissionLog.open("test", SubmissionLog.Level.DEBUG)) {
+                SubmissionLog.count("fields");
+                assertTrue(SubmissionLog.isEnabled(SubmissionLog.Level.DEBUG));
+            }
+            assertFalse(SubmissionLog.isEnabled(SubmissionLog.Level.DEBUG));
+            SubmissionLog.count("records");
+            assertTrue(outer.summary(), outer.summary().startsWith("Submission records=1 elapsedMs="));
+        }
+    }
+
+    @Test
+    public void testWorkerThreadsRunInTheSubmittingScope() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        AtomicBoolean debugOnWorker = new AtomicBoolean();
+        try {
+            try (SubmissionLog log = SubmissionLog.open("test", SubmissionLog.Level.DEBUG)) {
+                List<Future<?>> tasks = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    tasks.add(workers.submit(SubmissionLog.propagate(() -> {
+                        SubmissionLog.count("fields");
+                        debugOnWorker.set(SubmissionLog.isEnabled(SubmissionLog.Level.DEBUG));
+                    })));
+                }
+                for (Future<?> task : tasks) {
+                    task.get(10, TimeUnit.SECONDS);
+                }
+
+                assertTrue(debugOnWorker.get());
+                assertTrue(log.summary(), log.summary().startsWith("Submission fields=100 elapsedMs="));
+            }
+
+            // The workers' binding is removed once each task is done
+            for (int i = 0; i < 8; i++) {
+                assertFalse(workers.submit(() -> SubmissionLog.isEnabled(SubmissionLog.Level.DEBUG))
+                    .get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}